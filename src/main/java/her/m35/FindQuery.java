@@ -0,0 +1,225 @@
+package her.m35;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import her.m35.parser.Parser;
+import her.m35.parser.TimePointParser;
+import her.m35.task.DeadlineTask;
+import her.m35.task.EventTask;
+import her.m35.task.Task;
+import her.m35.task.TaskStore;
+import her.m35.task.ToDoTask;
+
+/**
+ * Find prompt compiled into conditions which can be checked on tasks without parsing anything again.
+ * Keywords are lower-cased, dates and types are parsed, and the check of every condition is built once. Checks read
+ * the fields of a task through its {@link TaskStore}, so that a store holding tasks in a compact form makes no task
+ * object for the tasks checked, apart from keyword checks, which search the text of the few tasks the trigram index
+ * leaves.
+ * Compiled prompts are cached by prompt string for the day they were compiled on, as dates such as "tomorrow" depend
+ * on the day.
+ */
+public class FindQuery {
+
+    /** Largest number of compiled prompts kept. */
+    public static final int CACHE_SIZE = 64;
+
+    /** Compiled prompts by prompt string, least recently used first. */
+    private static final LinkedHashMap<String, FindQuery> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FindQuery> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /** Check of a condition on the task in a slot of a store. */
+    @FunctionalInterface
+    public interface Check {
+        /**
+         * Checks the task in a slot.
+         *
+         * @param store Store holding the task.
+         * @param slot Slot of the task.
+         * @return True only if the task satisfies the condition.
+         */
+        boolean test(TaskStore store, int slot);
+    }
+
+    /** Conditions in the order they were typed. */
+    private final Condition[] conditions;
+
+    /** Day the prompt was compiled on. */
+    private final LocalDate compiledOn;
+
+    private FindQuery(Condition[] conditions) {
+        this.conditions = conditions;
+        this.compiledOn = TimePointParser.getToday();
+    }
+
+    /**
+     * Returns the compiled form of a find prompt, compiling it only if it has not been compiled today.
+     *
+     * @param findPrompt Prompt to compile.
+     * @return Compiled prompt.
+     * @throws Exception If the prompt, or a date or type in it, is not valid, with the message to show.
+     */
+    public static FindQuery forPrompt(String findPrompt) throws Exception {
+        synchronized (CACHE) {
+            FindQuery cachedQuery = CACHE.get(findPrompt);
+            if (cachedQuery != null && cachedQuery.compiledOn.equals(TimePointParser.getToday())) {
+                return cachedQuery;
+            }
+        }
+        ArrayList<TaskList.FilterCondition> filterConditions = new ArrayList<>();
+        ArrayList<String> keywords = new ArrayList<>();
+        Parser.parseFindPrompt(findPrompt, filterConditions, keywords);
+        FindQuery query = compile(
+                filterConditions.toArray(new TaskList.FilterCondition[0]), keywords.toArray(new String[0]));
+        synchronized (CACHE) {
+            CACHE.put(findPrompt, query);
+        }
+        return query;
+    }
+
+    /**
+     * Compiles parsed filter conditions.
+     *
+     * @param filterConditions Filter conditions in the order they were typed.
+     * @param keywords Keywords corresponding to each filter condition.
+     * @return Compiled conditions.
+     * @throws IllegalArgumentException If a condition or its keyword is not valid, with the message to show.
+     */
+    public static FindQuery compile(TaskList.FilterCondition[] filterConditions, String[] keywords) {
+        Condition[] conditions = new Condition[filterConditions.length];
+        for (int i = 0; i < filterConditions.length; i++) {
+            conditions[i] = compile(filterConditions[i], keywords[i]);
+        }
+        return new FindQuery(conditions);
+    }
+
+    private static Condition compile(TaskList.FilterCondition filterCondition, String keyword) {
+        switch (filterCondition) {
+        case IS_MARKED:
+            return new Condition(filterCondition, keyword, TaskStore::getIsDone);
+        case IS_UNMARKED:
+            return new Condition(filterCondition, keyword, (store, slot) -> !store.getIsDone(slot));
+        case KEYWORD:
+            String lowerCaseKeyword = keyword.toLowerCase();
+            return new Condition(filterCondition, keyword,
+                    (store, slot) -> store.containsWord(slot, lowerCaseKeyword));
+        case TAG:
+            return new Condition(filterCondition, keyword, (store, slot) -> store.hasTag(slot, keyword));
+        case ON_DATE:
+            TimePoint onDate = toDate(keyword, "Invalid on date. Recommended format: DD/MM/YYYY");
+            return new Condition(filterCondition, keyword, onDate, (store, slot) -> Task.isOnDate(
+                    store.getType(slot), store.getFirstDate(slot), store.getSecondDate(slot), onDate));
+        case BEFORE:
+            TimePoint beforeDate = toDate(keyword, "Invalid before date. Recommended format: DD/MM/YYYY");
+            return new Condition(filterCondition, keyword, beforeDate, (store, slot) -> Task.isBeforeDate(
+                    store.getType(slot), store.getFirstDate(slot), store.getSecondDate(slot), beforeDate));
+        case AFTER:
+            TimePoint afterDate = toDate(keyword, "Invalid after date. Recommended format: DD/MM/YYYY");
+            return new Condition(filterCondition, keyword, afterDate, (store, slot) -> Task.isAfterDate(
+                    store.getType(slot), store.getFirstDate(slot), afterDate));
+        case OF_TYPE:
+            Task.Type taskType = toTaskType(keyword);
+            if (taskType == null) {
+                throw new IllegalArgumentException("There are no tasks of type " + keyword);
+            }
+            return new Condition(filterCondition, keyword, taskType, (store, slot) -> store.getType(slot) == taskType);
+        default:
+            throw new IllegalArgumentException("Error: Invalid filter command: " + keyword);
+        }
+    }
+
+    private static TimePoint toDate(String keyword, String invalidDateMessage) {
+        TimePoint timePoint = TimePointParser.toTimePoint(keyword);
+        if (timePoint == null || timePoint.getFormat() == TimePoint.Format.STRING) {
+            throw new IllegalArgumentException(invalidDateMessage);
+        }
+        return timePoint;
+    }
+
+    /**
+     * Helper function to normalize the keyword for filter by task type command.
+     * @param keyword Word to be normalized.
+     * @return Type named by the keyword, or null if it names no type.
+     */
+    private static Task.Type toTaskType(String keyword) {
+        String normalisedKeyword = keyword.toUpperCase();
+        for (String toDoName : ToDoTask.NAMES) {
+            normalisedKeyword = normalisedKeyword.replace(toDoName, "T");
+        }
+        for (String deadlineName : DeadlineTask.NAMES) {
+            normalisedKeyword = normalisedKeyword.replace(deadlineName, "D");
+        }
+        for (String eventName : EventTask.NAMES) {
+            normalisedKeyword = normalisedKeyword.replace(eventName, "E");
+        }
+        return switch (normalisedKeyword) {
+        case "T" -> Task.Type.TODO;
+        case "D" -> Task.Type.DEADLINE;
+        case "E" -> Task.Type.EVENT;
+        default -> null;
+        };
+    }
+
+    public Condition[] getConditions() {
+        return conditions;
+    }
+
+    /** One compiled condition of a find prompt. */
+    public static class Condition {
+        private final TaskList.FilterCondition filterCondition;
+        private final String keyword;
+        private final TimePoint date;
+        private final Task.Type taskType;
+        private final Check check;
+
+        private Condition(TaskList.FilterCondition filterCondition, String keyword, Check check) {
+            this(filterCondition, keyword, null, null, check);
+        }
+
+        private Condition(TaskList.FilterCondition filterCondition, String keyword, TimePoint date,
+                Check check) {
+            this(filterCondition, keyword, date, null, check);
+        }
+
+        private Condition(TaskList.FilterCondition filterCondition, String keyword, Task.Type taskType,
+                Check check) {
+            this(filterCondition, keyword, null, taskType, check);
+        }
+
+        private Condition(TaskList.FilterCondition filterCondition, String keyword, TimePoint date,
+                Task.Type taskType, Check check) {
+            this.filterCondition = filterCondition;
+            this.keyword = keyword;
+            this.date = date;
+            this.taskType = taskType;
+            this.check = check;
+        }
+
+        public TaskList.FilterCondition getFilterCondition() {
+            return filterCondition;
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        public TimePoint getDate() {
+            return date;
+        }
+
+        public Task.Type getTaskType() {
+            return taskType;
+        }
+
+        public Check getCheck() {
+            return check;
+        }
+    }
+}
@@ -1,12 +1,28 @@
 package her.m35;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import her.m35.command.Command;
 import her.m35.command.MessageCommand;
 import her.m35.parser.Parser;
+import her.m35.storage.DurabilityPolicy;
+import her.m35.storage.JournalStorage;
+import her.m35.storage.MappedTaskStorage;
+import her.m35.storage.OffHeapTaskArena;
+import her.m35.storage.SnapshotCompactor;
+import her.m35.task.ColumnarTaskStore;
+import her.m35.task.ObjectTaskStore;
+import her.m35.task.TaskStore;
 
 /**
  * Entry point and controller class for the HERM35 chatbot.
@@ -15,45 +31,142 @@ public class Herm35 {
     /** Name of the chatbot. */
     public static final String NAME = "HERM35";
 
+    /** System property which sets when changes are synced to the disk, see {@link DurabilityPolicy#parse}. */
+    public static final String DURABILITY_PROPERTY = "herm35.durability";
+
+    /**
+     * Name of the default task file, which is filled with the tasks of tasklist.csv when it is first created.
+     */
+    public static final String DEFAULT_FILE_NAME = "tasklist.bin";
+
+    /** System property which sets the name of the task file, whose extension picks how tasks are stored. */
+    public static final String FILE_PROPERTY = "herm35.file";
+
+    /** System property which sets how the task list holds its tasks, see {@link #createTaskStore}. */
+    public static final String TASK_STORE_PROPERTY = "herm35.tasks";
+
+    /** Command-line option which runs the commands of a script file, or of the standard input if given "-". */
+    public static final String SCRIPT_OPTION = "--script";
+
+    /** Number of characters of output buffered before it is written to the console in script mode. */
+    private static final int SCRIPT_OUTPUT_BUFFER_SIZE = 1 << 16;
+
     /** Storage object used to store task list. */
     private Storage storage;
 
-    /** List of tasks currently managed by the chatbot. */
+    /** List of tasks currently managed by the chatbot, or null while it is still being loaded. */
     private TaskList taskList;
 
+    /** Empty store which the task list is loaded into. */
+    private TaskStore taskStore = new ObjectTaskStore();
+
+    /** Loader of the task list, which reads the task file in the background. */
+    private TaskLoader taskLoader;
+
+    /** Time at which the chatbot started to be constructed, in nanoseconds. */
+    private final long startNanos = System.nanoTime();
+
+    /** Time from construction until the introduction was first shown in nanoseconds, or -1 if not shown yet. */
+    private long timeToFirstPromptNanos = -1;
+
     /** UI to deal with interactions with the user. */
     private final Ui ui;
 
+    /** Errors met while starting up, which are shown after the introduction. */
+    private final List<String> startupErrors = new ArrayList<>();
+
     /** Opening introduction to the user. */
-    private List<String> openingLines = Arrays.asList(
+    private final List<String> openingLines = new ArrayList<>(Arrays.asList(
             "Hey! I'm ",
             NAME,
             ", a task management chatbot named after Hermes!\nWhat can I do for you?\n\n",
-            "$If this is your first time, I recommend typing 'help' to learn what commands you can use!");
+            "$If this is your first time, I recommend typing 'help' to learn what commands you can use!"));
 
     /** Boolean for whether the HERM35 program should be exiting. */
     private boolean isExit = false;
 
     /**
      * Constructs a HERM35 chatbot instance.
-     * Initializes the UI, storage, and task list. If previously saved data
-     * cannot be read from storage, an empty task list is created instead.
+     * Initializes the UI and storage, and starts loading the task list in the background. If previously saved
+     * data cannot be read from storage, an empty task list is created instead.
      * The command parser is also set up during construction.
      *
      * @param fileName The name of the file which stores the task list.
      */
     public Herm35(String fileName) {
-        ui = new Ui();
+        this(fileName, new Ui());
+    }
+
+    /**
+     * Constructs a HERM35 chatbot instance which talks to the user through the given UI.
+     *
+     * @param fileName The name of the file which stores the task list.
+     * @param ui UI to deal with interactions with the user.
+     */
+    public Herm35(String fileName, Ui ui) {
+        this.ui = ui;
+        DurabilityPolicy durabilityPolicy = DurabilityPolicy.everyCommit();
         try {
-            storage = new Storage(fileName);
-        } catch (IOException e) {
-            openingLines.add("\nError: " + e.getMessage() + "\n Unable to open file: " + fileName + "for storage.");
+            durabilityPolicy = DurabilityPolicy.parse(System.getProperty(DURABILITY_PROPERTY, "commit"));
+        } catch (IllegalArgumentException e) {
+            startupErrors.add("\nError: " + e.getMessage() + "\n Syncing every change to the disk instead.");
         }
         try {
-            taskList = new TaskList(storage.read());
+            taskStore = createTaskStore(System.getProperty(TASK_STORE_PROPERTY, "objects"));
+        } catch (IllegalArgumentException e) {
+            startupErrors.add("\nError: " + e.getMessage() + "\n Keeping tasks as objects instead.");
+        }
+        try {
+            storage = openStorage(fileName, durabilityPolicy);
+            Runtime.getRuntime().addShutdownHook(new Thread(this::close));
         } catch (IOException e) {
-            openingLines.add("\nError: " + e.getMessage() + "\n Unable to read task list, creating blank task list.");
-            taskList = new TaskList();
+            startupErrors.add("\nError: " + e.getMessage() + "\n Unable to open file: " + fileName + "for storage.");
+        }
+        if (storage == null) {
+            taskList = new TaskList(taskStore);
+        } else {
+            taskLoader = TaskLoader.start(storage, Storage.DEFAULT_CHUNK_SIZE, taskStore);
+        }
+    }
+
+    /**
+     * Opens the storage for a task file, based on its extension.
+     * Files ending with {@value MappedTaskStorage#EXTENSION} are kept in memory-mapped slots, every other file is
+     * journaled.
+     *
+     * @param fileName Name of the task file.
+     * @param durabilityPolicy When changes are synced to the disk.
+     * @return Storage of the task file.
+     * @throws IOException If an I/O error occurs while opening the task file.
+     */
+    private static Storage openStorage(String fileName, DurabilityPolicy durabilityPolicy) throws IOException {
+        if (fileName.endsWith(MappedTaskStorage.EXTENSION)) {
+            return new MappedTaskStorage(fileName, durabilityPolicy, MappedTaskStorage.DEFAULT_SLOT_SIZE);
+        }
+        return new JournalStorage(fileName, durabilityPolicy, new SnapshotCompactor());
+    }
+
+    /**
+     * Creates an empty store for the task list from its name.
+     * "objects" keeps a task object per task, while "columnar" keeps the tasks in a {@link ColumnarTaskStore}, which
+     * takes less heap for a large task list but makes a task object every time a task is shown. "offheap" keeps the
+     * tasks as records outside the heap in an {@link OffHeapTaskArena}, leaving the garbage collector fewer objects
+     * to trace.
+     *
+     * @param storeName Name of the store.
+     * @return Empty store.
+     * @throws IllegalArgumentException If the name is not one of a store.
+     */
+    static TaskStore createTaskStore(String storeName) {
+        switch (storeName.trim().toLowerCase()) {
+        case "objects":
+            return new ObjectTaskStore();
+        case "columnar":
+            return new ColumnarTaskStore(16);
+        case "offheap":
+            return new OffHeapTaskArena();
+        default:
+            throw new IllegalArgumentException("Unknown task store: " + storeName);
         }
     }
 
@@ -61,7 +174,7 @@ public class Herm35 {
      * Construct a new Herm35 instance with the default parameters.
      */
     public Herm35() {
-        this("tasklist.csv");
+        this(System.getProperty(FILE_PROPERTY, DEFAULT_FILE_NAME));
     }
 
     /**
@@ -69,7 +182,14 @@ public class Herm35 {
      * @return Opening lines as a String array.
      */
     public String[] getIntroduction() {
-        return openingLines.toArray(new String[0]);
+        recordFirstPrompt();
+        return getOpeningLines();
+    }
+
+    private String[] getOpeningLines() {
+        List<String> lines = new ArrayList<>(openingLines);
+        lines.addAll(startupErrors);
+        return lines.toArray(new String[0]);
     }
 
     /**
@@ -80,28 +200,97 @@ public class Herm35 {
      * displayed to the user.
      */
     public void run() {
-        new MessageCommand(openingLines.toArray(new String[0])).execute(taskList, storage, ui);
+        new MessageCommand(getOpeningLines()).execute(taskList, storage, ui);
+        recordFirstPrompt();
         isExit = false;
         while (!isExit) {
             try {
                 Command c = Parser.parse(ui.nextLine());
-                c.execute(taskList, storage, ui);
+                c.execute(getTaskListFor(c), storage, ui);
                 isExit = c.isExit();
             } catch (Exception e) {
                 ui.printMessage(e.getMessage());
             }
         }
+        close();
+    }
+
+    /**
+     * Runs the commands of a script until the script ends or a command exits, without showing the introduction.
+     * Consecutive commands which change storage are saved in a single storage transaction, which is committed
+     * before any other command runs and at the end of the script. An error thrown by a command is shown after the
+     * number of its line.
+     *
+     * @param script Parser of the script, which parses commands ahead of their execution.
+     * @throws IOException If the script could not be read to its end.
+     */
+    public void runScript(ScriptParser script) throws IOException {
+        if (!startupErrors.isEmpty()) {
+            ui.printMessage(startupErrors.toArray(new String[0]));
+        }
+        isExit = false;
+        try {
+            Command c = script.next();
+            while (c != null) {
+                try {
+                    if (!c.isChangingStorage()) {
+                        commitTransaction();
+                    } else if (storage != null && !storage.getIsInTransaction()) {
+                        storage.beginTransaction();
+                    }
+                    c.execute(getTaskListFor(c), storage, ui);
+                    isExit = c.isExit();
+                } catch (Exception e) {
+                    ui.printMessage(ScriptParser.getLinePrefix(script.getLineNumber()) + e.getMessage());
+                }
+                c = isExit ? null : script.next();
+            }
+        } finally {
+            commitTransaction();
+            close();
+        }
+    }
+
+    /** Commits the open storage transaction, if any, showing the errors of changes which could not be saved. */
+    private void commitTransaction() {
+        if (storage == null || !storage.getIsInTransaction()) {
+            return;
+        }
+        String storageErrors = storage.commitTransaction("Error: Unable to save changes to storage!");
+        if (!storageErrors.isEmpty()) {
+            ui.printMessage(storageErrors);
+        }
     }
 
     /**
      * Main entry point of the application.
-     * Creates a HERM35 chatbot instance using tasklist.csv as the storage file and starts the chatbot by
-     * invoking run().
+     * Creates a HERM35 chatbot instance using the task file set by the herm35.file property, or tasklist.bin, and
+     * starts the chatbot by invoking run().
+     * Given "--script" and a file name, or "-" for the standard input, runs the commands of the script instead and
+     * buffers the output.
      *
      * @param args command-line arguments
      */
     public static void main(String[] args) {
-        new Herm35("tasklist.csv").run();
+        if (args.length > 0 && args[0].equals(SCRIPT_OPTION)) {
+            runScriptFile(args.length > 1 ? args[1] : "-");
+            return;
+        }
+        new Herm35().run();
+    }
+
+    private static void runScriptFile(String scriptName) {
+        Ui ui = new Ui(new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out),
+                SCRIPT_OUTPUT_BUFFER_SIZE)));
+        try (BufferedReader script = scriptName.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Paths.get(scriptName))) {
+            new Herm35(System.getProperty(FILE_PROPERTY, DEFAULT_FILE_NAME), ui).runScript(ScriptParser.start(script));
+        } catch (IOException e) {
+            ui.printMessage("Error: Unable to read script " + scriptName + ": " + e.getMessage());
+        } finally {
+            ui.flush();
+        }
     }
 
     /**
@@ -110,14 +299,87 @@ public class Herm35 {
     public String[] getResponse(String input) {
         try {
             Command c = Parser.parse(input);
-            c.execute(taskList, storage, ui);
+            c.execute(getTaskListFor(c), storage, ui);
             isExit = c.isExit();
         } catch (Exception e) {
             ui.printMessage(e.getMessage());
         }
+        if (isExit) {
+            close();
+        }
         return ui.getResponse();
     }
 
+    /**
+     * Returns the task list for a command, waiting for the task list to finish loading if the command uses it.
+     * If the tasks cannot be read, the user is told so and a blank task list is used instead. The user is also
+     * warned about tasks which the storage could not read and left out.
+     *
+     * @param command Command about to be executed.
+     * @return Task list, or null if the command does not use it and it is still being loaded.
+     */
+    private TaskList getTaskListFor(Command command) {
+        if (taskList != null || !command.isUsingTaskList()) {
+            return taskList;
+        }
+        try {
+            taskList = taskLoader.await();
+            String warnings = storage.takeLoadWarnings();
+            if (!warnings.isEmpty()) {
+                ui.printMessage(warnings);
+            }
+        } catch (IOException e) {
+            ui.printMessage("Error: " + e.getMessage() + "\n Unable to read task list, creating blank task list.");
+            taskList = new TaskList(taskStore.createEmpty(16));
+        }
+        return taskList;
+    }
+
+    private void recordFirstPrompt() {
+        if (timeToFirstPromptNanos == -1) {
+            timeToFirstPromptNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * Returns the time from the start of construction until the introduction was first shown, which does not
+     * include loading the task list.
+     *
+     * @return Time to the first prompt in nanoseconds, or -1 if the introduction has not been shown yet.
+     */
+    public long getTimeToFirstPromptNanos() {
+        return timeToFirstPromptNanos;
+    }
+
+    /**
+     * Waits for the task list to finish loading, and returns the time the loading took.
+     *
+     * @return Time taken to load the task list in nanoseconds, or -1 if it was not loaded from storage.
+     * @throws IOException If the task list could not be read.
+     */
+    public long awaitTaskList() throws IOException {
+        if (taskLoader == null) {
+            return -1;
+        }
+        taskLoader.await();
+        return taskLoader.getLoadNanos();
+    }
+
+    /**
+     * Writes every pending change to storage and releases it.
+     * Errors of changes which could not be saved are printed, as there is no later response to report them in.
+     */
+    public void close() {
+        if (storage == null) {
+            return;
+        }
+        try {
+            storage.close();
+        } catch (IOException e) {
+            System.err.println("Error: Unable to save changes to storage!\nCause: " + e.getMessage());
+        }
+    }
+
     public boolean getIsExit() {
         return isExit;
     }
@@ -0,0 +1,230 @@
+package her.m35;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import her.m35.index.PostingList;
+
+/**
+ * Order in which the conditions of a find prompt are applied, and how each of them is applied.
+ * Conditions are estimated from index statistics: the condition expected to leave the fewest tasks is looked up
+ * in its index first, and the rest follow, cheapest and most selective first. A later condition is looked up in its
+ * index only if that is cheaper than checking it on every task left.
+ */
+public class QueryPlan {
+
+    /** How a step narrows down the tasks left by the steps before it. */
+    public enum Access {
+        /** Tasks are fetched from an index and intersected with the tasks left. */
+        INDEX,
+
+        /** The condition is checked on every task left. */
+        SCAN
+    }
+
+    /** Steps in the order they are applied. */
+    private final List<Step> steps;
+
+    /** Number of tasks in the task list when the plan was made. */
+    private final int taskCount;
+
+    private QueryPlan(List<Step> steps, int taskCount) {
+        this.steps = steps;
+        this.taskCount = taskCount;
+    }
+
+    /**
+     * Orders the steps of a query and chooses how each of them is applied.
+     *
+     * @param steps Steps in the order the user typed them.
+     * @param taskCount Number of tasks in the task list.
+     * @return Plan applying every step.
+     */
+    public static QueryPlan create(List<Step> steps, int taskCount) {
+        List<Step> remainingSteps = new ArrayList<>(steps);
+        List<Step> orderedSteps = new ArrayList<>(steps.size());
+        double remainingTasks = taskCount;
+
+        Step firstStep = remainingSteps.stream()
+                .filter(Step::hasIndex)
+                .min(Comparator.comparingLong(Step::getEstimatedCount).thenComparingDouble(Step::getLookupCost))
+                .orElse(null);
+        if (firstStep != null && firstStep.getEstimatedCount() < taskCount) {
+            firstStep.access = Access.INDEX;
+            remainingSteps.remove(firstStep);
+            orderedSteps.add(firstStep);
+            remainingTasks = firstStep.getEstimatedCount();
+            firstStep.remainingCount = remainingTasks;
+        }
+
+        remainingSteps.sort(Comparator.comparingDouble(step -> step.getRank(taskCount)));
+        for (Step step : remainingSteps) {
+            boolean isIndexCheaper = step.hasIndex()
+                    && step.getLookupCost() + remainingTasks < remainingTasks * step.getCostPerTask();
+            step.access = isIndexCheaper ? Access.INDEX : Access.SCAN;
+            orderedSteps.add(step);
+            remainingTasks *= step.getSelectivity(taskCount);
+            step.remainingCount = remainingTasks;
+        }
+        return new QueryPlan(orderedSteps, taskCount);
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Describes the plan for the explain command.
+     *
+     * @return Lines describing each step and how many tasks it is expected to leave.
+     */
+    public String[] toLines() {
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add(String.format("Plan over %d tasks:", taskCount));
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            String how;
+            if (step.access == Access.SCAN) {
+                how = "check each task left";
+            } else if (step.getIsChecked()) {
+                how = "look up candidates in the index, then check each";
+            } else if (step.hasBitmap()) {
+                how = "intersect with its bitmap";
+            } else {
+                how = "look up in the index";
+            }
+            lines.add(String.format("\n%d. %s: %s (about %d tasks left)",
+                    i + 1, step.getDescription(), how, Math.round(step.remainingCount)));
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    /** One condition of a find prompt, with what is known about how many tasks satisfy it. */
+    public static class Step {
+        private final String description;
+        private final String noTasksMessage;
+        private final long estimatedCount;
+        private final double costPerTask;
+        private final FindQuery.Check condition;
+        private final Supplier<PostingList> indexLookup;
+        private final Supplier<BitSet> bitmapLookup;
+        private final double lookupCost;
+        private final boolean isChecked;
+        private Access access = Access.SCAN;
+        private double remainingCount = 0;
+
+        private Step(String description, String noTasksMessage, long estimatedCount, double costPerTask,
+                FindQuery.Check condition, Supplier<PostingList> indexLookup, Supplier<BitSet> bitmapLookup,
+                double lookupCost, boolean isChecked) {
+            this.description = description;
+            this.noTasksMessage = noTasksMessage;
+            this.estimatedCount = estimatedCount;
+            this.costPerTask = costPerTask;
+            this.condition = condition;
+            this.indexLookup = indexLookup;
+            this.bitmapLookup = bitmapLookup;
+            this.lookupCost = lookupCost;
+            this.isChecked = isChecked;
+        }
+
+        /**
+         * Creates a step whose tasks can be looked up in an index holding posting lists.
+         *
+         * @param description Description of the condition shown by the explain command.
+         * @param noTasksMessage Message shown if no task is left after this step.
+         * @param estimatedCount Estimated number of tasks in the whole list satisfying the condition.
+         * @param costPerTask Relative cost of checking the condition on one task, where a field check costs 1.
+         * @param condition Check of the condition on a task.
+         * @param indexLookup Lookup of the ids of the tasks satisfying the condition.
+         * @param isChecked Whether the tasks looked up still need to be checked, as the index only finds
+         *     candidates.
+         * @return Step with a posting list index.
+         */
+        public static Step indexed(String description, String noTasksMessage, long estimatedCount,
+                double costPerTask, FindQuery.Check condition, Supplier<PostingList> indexLookup, boolean isChecked) {
+            return new Step(description, noTasksMessage, estimatedCount, costPerTask, condition, indexLookup, null,
+                    estimatedCount, isChecked);
+        }
+
+        /**
+         * Creates a step whose tasks can be looked up in a bitmap over task ids.
+         *
+         * @param description Description of the condition shown by the explain command.
+         * @param noTasksMessage Message shown if no task is left after this step.
+         * @param estimatedCount Estimated number of tasks in the whole list satisfying the condition.
+         * @param costPerTask Relative cost of checking the condition on one task, where a field check costs 1.
+         * @param condition Check of the condition on a task.
+         * @param bitmapLookup Lookup of the bitmap of the tasks satisfying the condition, which must not be changed.
+         * @param wordCount Number of words in the bitmap, which is the cost of combining it with another bitmap.
+         * @return Step with a bitmap index.
+         */
+        public static Step bitmapIndexed(String description, String noTasksMessage, long estimatedCount,
+                double costPerTask, FindQuery.Check condition, Supplier<BitSet> bitmapLookup, int wordCount) {
+            return new Step(description, noTasksMessage, estimatedCount, costPerTask, condition, null, bitmapLookup,
+                    wordCount, false);
+        }
+
+        /**
+         * Returns the rank used to order steps which are checked on each task, lowest first.
+         * Checking a condition is worth it early if it is cheap and removes many tasks.
+         */
+        private double getRank(int taskCount) {
+            return costPerTask / Math.max(1e-9, 1 - getSelectivity(taskCount));
+        }
+
+        private double getSelectivity(int taskCount) {
+            return taskCount == 0 ? 0 : Math.min(1, (double) estimatedCount / taskCount);
+        }
+
+        public boolean hasIndex() {
+            return indexLookup != null || bitmapLookup != null;
+        }
+
+        public boolean hasBitmap() {
+            return bitmapLookup != null;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getNoTasksMessage() {
+            return noTasksMessage;
+        }
+
+        public long getEstimatedCount() {
+            return estimatedCount;
+        }
+
+        public double getCostPerTask() {
+            return costPerTask;
+        }
+
+        public double getLookupCost() {
+            return lookupCost;
+        }
+
+        public FindQuery.Check getCondition() {
+            return condition;
+        }
+
+        public Supplier<PostingList> getIndexLookup() {
+            return indexLookup;
+        }
+
+        public Supplier<BitSet> getBitmapLookup() {
+            return bitmapLookup;
+        }
+
+        public boolean getIsChecked() {
+            return isChecked;
+        }
+
+        public Access getAccess() {
+            return access;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package her.m35;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import her.m35.command.Command;
+import her.m35.command.MessageCommand;
+import her.m35.parser.Parser;
+
+/**
+ * Reads and parses the lines of a script on a background thread, so that commands are parsed ahead of their
+ * execution.
+ * Parsed commands wait in a bounded queue, so that a long script is never held in memory at once.
+ * Blank lines and lines starting with {@value #COMMENT_PREFIX} are skipped, and a line which cannot be parsed is
+ * shown as an error naming its line number.
+ */
+public class ScriptParser {
+
+    /** Largest number of parsed commands waiting to be executed. */
+    public static final int QUEUE_SIZE = 1024;
+
+    /** Start of a line which is a comment. */
+    public static final String COMMENT_PREFIX = "#";
+
+    /** Marker queued after the last command of the script. */
+    private static final ScriptLine END_OF_SCRIPT = new ScriptLine(0, new MessageCommand());
+
+    /** Parsed commands waiting to be executed with their line numbers, in the order of the script. */
+    private final BlockingQueue<ScriptLine> commands = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+    /** Error met while reading the script, or null if it was read to its end. */
+    private volatile IOException readError;
+
+    /** Line number of the command last returned by {@link #next}, or 0 if none was returned yet. */
+    private int lineNumber = 0;
+
+    /** Command parsed from a line of the script, with the number of the line counting from 1. */
+    private record ScriptLine(int lineNumber, Command command) {
+    }
+
+    private ScriptParser() {
+    }
+
+    /**
+     * Starts reading and parsing a script on a background thread.
+     *
+     * @param script Reader of the script, with one command per line.
+     * @return Parser of the script.
+     */
+    public static ScriptParser start(BufferedReader script) {
+        ScriptParser parser = new ScriptParser();
+        Thread parserThread = new Thread(() -> parser.parse(script), "herm35-script-parser");
+        parserThread.setDaemon(true);
+        parserThread.start();
+        return parser;
+    }
+
+    private void parse(BufferedReader script) {
+        try {
+            try {
+                int lineNumber = 1;
+                for (String line = script.readLine(); line != null; line = script.readLine(), lineNumber++) {
+                    String trimmedLine = line.trim();
+                    if (!trimmedLine.isEmpty() && !trimmedLine.startsWith(COMMENT_PREFIX)) {
+                        commands.put(new ScriptLine(lineNumber, parseLine(line, lineNumber)));
+                    }
+                }
+            } catch (IOException e) {
+                readError = e;
+            }
+            commands.put(END_OF_SCRIPT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Parses a line of the script, turning an error into a command which shows it as it would be shown if the line
+     * had been typed, after the line number.
+     */
+    private static Command parseLine(String line, int lineNumber) {
+        String[] error;
+        try {
+            Command command = Parser.parse(line);
+            if (!(command instanceof MessageCommand)) {
+                return command;
+            }
+            error = ((MessageCommand) command).getMessage();
+        } catch (RuntimeException e) {
+            error = new String[] {e.getMessage()};
+        }
+        String[] numberedError = new String[error.length + 1];
+        numberedError[0] = getLinePrefix(lineNumber);
+        System.arraycopy(error, 0, numberedError, 1, error.length);
+        return new MessageCommand(numberedError);
+    }
+
+    /**
+     * Returns the prefix of a message about a line of the script.
+     *
+     * @param lineNumber Number of the line, counting from 1.
+     * @return Prefix naming the line.
+     */
+    public static String getLinePrefix(int lineNumber) {
+        return "Line " + lineNumber + ": ";
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Waits for the next command of the script to be parsed.
+     *
+     * @return Next command, or null once the script has ended.
+     * @throws IOException If the script could not be read to its end.
+     */
+    public Command next() throws IOException {
+        ScriptLine scriptLine;
+        try {
+            scriptLine = commands.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading script", e);
+        }
+        if (scriptLine != END_OF_SCRIPT) {
+            lineNumber = scriptLine.lineNumber();
+            return scriptLine.command();
+        }
+        commands.offer(END_OF_SCRIPT);
+        if (readError != null) {
+            throw readError;
+        }
+        return null;
+    }
+}
@@ -1,40 +1,136 @@
 package her.m35;
 
-import java.io.BufferedWriter;
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import her.m35.storage.DurabilityPolicy;
+import her.m35.storage.ParallelTaskDecoder;
+import her.m35.storage.WriteBehindQueue;
+import her.m35.task.Task;
 
 /**
  * Handles storage and retrieval of data from mainly csv files.
  * This class provides basic CRUD operations on a file stored in the ./data/ directory.
  * The default file format is .csv for storage files.
+ * Appended rows go through a write-behind queue, so that rows added in quick succession are written together.
+ * Changes made during a transaction are not waited for one by one, and are synced together when it is committed.
  */
 public class Storage {
 
+    /** Default number of rows decoded into a chunk when tasks are streamed. */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
     /** Name of the file being managed by this Storage instance. */
     private final String fileName;
 
     /** Full path of the file being managed by this Storage instance. */
     private final Path filePath;
 
+    /** When writes to the file are synced to the disk. */
+    private final DurabilityPolicy durabilityPolicy;
+
+    /** Errors of writes which failed after the change was already reported to the user. */
+    private final List<String> deferredErrors = new ArrayList<>();
+
+    /** Warnings about tasks which could not be read, shown to the user once the tasks are loaded. */
+    private final List<String> loadWarnings = new ArrayList<>();
+
+    /** Decoder which turns rows into tasks on every core. */
+    private ParallelTaskDecoder decoder = new ParallelTaskDecoder();
+
+    /** Queue which appends rows to the file, created when the first row is appended. */
+    private WriteBehindQueue rowWriter;
+
+    /** Whether a transaction is open. */
+    private boolean isInTransaction = false;
+
     /**
-     * Creates a storage object using the default CSV file format.
+     * Creates a storage object using the default CSV file format, syncing every change to the disk.
      *
      * @param fileName Base name of the file (without extension).
      */
     public Storage(String fileName) throws IOException {
+        this(fileName, DurabilityPolicy.everyCommit());
+    }
+
+    /**
+     * Creates a storage object using the default CSV file format and the given durability policy.
+     *
+     * @param fileName Base name of the file (without extension).
+     * @param durabilityPolicy When writes are synced to the disk.
+     */
+    public Storage(String fileName, DurabilityPolicy durabilityPolicy) throws IOException {
         Files.createDirectories(Paths.get("data"));
         this.fileName = "data/" + fileName;
         File file = new File(this.fileName);
         file.createNewFile();
         this.filePath = Paths.get(this.fileName);
+        this.durabilityPolicy = durabilityPolicy;
     }
+
+    /**
+     * Returns the path of the file being managed by this Storage instance.
+     *
+     * @return Path of the managed file.
+     */
+    protected Path getFilePath() {
+        return filePath;
+    }
+
+    public DurabilityPolicy getDurabilityPolicy() {
+        return durabilityPolicy;
+    }
+
+    public ParallelTaskDecoder getDecoder() {
+        return decoder;
+    }
+
+    public void setDecoder(ParallelTaskDecoder decoder) {
+        this.decoder = decoder;
+    }
+
+    public boolean getIsInTransaction() {
+        return isInTransaction;
+    }
+
+    /**
+     * Opens a transaction, during which changes are reported as done without waiting for each of them to be synced.
+     * Errors of changes made during the transaction are reported by later changes, or when it is committed.
+     */
+    public void beginTransaction() {
+        isInTransaction = true;
+        setIsSyncDeferred(true);
+    }
+
+    /**
+     * Commits the open transaction, syncing every change made during it at once if every commit is synced.
+     *
+     * @param errorMessage Error message to report if the changes cannot be synced.
+     * @return Empty string only if no write has failed, else the error messages of the failed writes.
+     */
+    public String commitTransaction(String errorMessage) {
+        assert isInTransaction;
+        isInTransaction = false;
+        setIsSyncDeferred(false);
+        if (durabilityPolicy.isSyncedOnCommit()) {
+            try {
+                syncPendingWrites();
+            } catch (IOException e) {
+                return takeDeferredErrors() + toErrorMessage(errorMessage, e);
+            }
+        }
+        return takeDeferredErrors();
+    }
+
     /**
      * Appends a new row to the end of the file.
      *
@@ -42,10 +138,33 @@ public class Storage {
      * @throws IOException If an I/O error occurs while writing.
      */
     public void insert(String[] strings) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName, true))) {
-            writer.write(String.join(",", strings));
-            writer.newLine();
+        WriteBehindQueue.await(insertAsync(strings));
+    }
+
+    /**
+     * Queues a new row to be appended to the end of the file.
+     *
+     * @param strings Array of values to be written as a row.
+     * @return Future completed once the row has been written, or completed exceptionally if writing failed.
+     */
+    public CompletableFuture<Void> insertAsync(String[] strings) {
+        if (rowWriter == null) {
+            rowWriter = new WriteBehindQueue(filePath, durabilityPolicy);
+            rowWriter.setIsSyncDeferred(isInTransaction);
         }
+        String row = String.join(",", strings) + System.lineSeparator();
+        return rowWriter.append(row.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Executes an insert function and returns the provided error message if the insert fails.
+     *
+     * @param strings Array of values to be written as a row.
+     * @param errorMessage Error message to return if the insert fails.
+     * @return Empty string only if no write has failed, else the provided error message is returned.
+     */
+    public String insert(String[] strings, String errorMessage) {
+        return reportError(insertAsync(strings), errorMessage);
     }
 
     /**
@@ -56,12 +175,40 @@ public class Storage {
      * @throws IndexOutOfBoundsException If the index is invalid.
      */
     public void delete(int index) throws IOException {
-        List<String> lines = Files.readAllLines(filePath);
-        if (index < 0 || index >= lines.size()) {
-            throw new IndexOutOfBoundsException("Invalid row index");
+        WriteBehindQueue.await(deleteAsync(index));
+    }
+
+    /**
+     * Deletes the row at the specified index from the file once every earlier write has finished.
+     *
+     * @param index Index of the row to delete.
+     * @return Future completed once the row has been deleted, or completed exceptionally if writing failed.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     */
+    public CompletableFuture<Void> deleteAsync(int index) {
+        try {
+            List<String> lines = readAfterPendingWrites();
+            if (index < 0 || index >= lines.size()) {
+                throw new IndexOutOfBoundsException("Invalid row index");
+            }
+            lines.remove(index);
+            Files.write(filePath, lines);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
-        lines.remove(index);
-        Files.write(filePath, lines);
+    }
+
+    /**
+     * Executes a delete function and returns the provided error message if the delete fails.
+     *
+     * @param index Index of the row to delete.
+     * @param errorMessage Error message to return if the delete fails.
+     * @return Empty string only if no write has failed, else the provided error message is returned.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     */
+    public String delete(int index, String errorMessage) {
+        return reportError(deleteAsync(index), errorMessage);
     }
 
     /**
@@ -70,7 +217,32 @@ public class Storage {
      * @throws IOException If an I/O error occurs while clearing the file.
      */
     public void clear() throws IOException {
-        Files.write(filePath, new ArrayList<>());
+        WriteBehindQueue.await(clearAsync());
+    }
+
+    /**
+     * Removes all rows from the file once every earlier write has finished.
+     *
+     * @return Future completed once the file has been cleared, or completed exceptionally if writing failed.
+     */
+    public CompletableFuture<Void> clearAsync() {
+        try {
+            flushPendingWrites();
+            Files.write(filePath, new ArrayList<>());
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Executes a clear function and returns the provided error message if the clear fails.
+     *
+     * @param errorMessage Error message to return if the clear fails.
+     * @return Empty string only if no write has failed, else the provided error message is returned.
+     */
+    public String clear(String errorMessage) {
+        return reportError(clearAsync(), errorMessage);
     }
 
     /**
@@ -82,12 +254,29 @@ public class Storage {
      * @throws IndexOutOfBoundsException If the index is invalid.
      */
     public void edit(int index, String[] strings) throws IOException {
-        List<String> lines = Files.readAllLines(filePath);
-        if (index < 0 || index >= lines.size()) {
-            throw new IndexOutOfBoundsException("Invalid row index");
+        WriteBehindQueue.await(editAsync(index, strings));
+    }
+
+    /**
+     * Replaces the row at the specified index with new data once every earlier write has finished.
+     *
+     * @param index Index of the row to edit.
+     * @param strings New row data as an array of values.
+     * @return Future completed once the row has been replaced, or completed exceptionally if writing failed.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     */
+    public CompletableFuture<Void> editAsync(int index, String[] strings) {
+        try {
+            List<String> lines = readAfterPendingWrites();
+            if (index < 0 || index >= lines.size()) {
+                throw new IndexOutOfBoundsException("Invalid row index");
+            }
+            lines.set(index, String.join(",", strings));
+            Files.write(filePath, lines);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
-        lines.set(index, String.join(",", strings));
-        Files.write(filePath, lines);
     }
 
     /**
@@ -99,12 +288,7 @@ public class Storage {
      * @return Empty string only if no exception thrown, else the provided error message is returned.
      */
     public String edit(int index, String[] strings, String errorMessage) {
-        try {
-            edit(index, strings);
-            return "";
-        } catch (IOException e) {
-            return errorMessage + "\nCause: " + e.getMessage();
-        }
+        return reportError(editAsync(index, strings), errorMessage);
     }
 
     /**
@@ -114,7 +298,166 @@ public class Storage {
      * @throws IOException If an I/O error occurs while reading.
      */
     public String[] read() throws IOException {
-        List<String> lines = Files.readAllLines(filePath);
-        return lines.toArray(new String[0]);
+        return readAfterPendingWrites().toArray(new String[0]);
+    }
+
+    /**
+     * Reads every row from the file and converts it into a task.
+     * Rows which do not hold a valid task are skipped.
+     *
+     * @return Tasks held by the file.
+     * @throws IOException If an I/O error occurs while reading.
+     */
+    public ArrayList<Task> load() throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        streamTasks(DEFAULT_CHUNK_SIZE, tasks::addAll);
+        return tasks;
+    }
+
+    /**
+     * Reads the file line by line and passes its tasks on in chunks, in order, as soon as each chunk is decoded.
+     * Enough lines for every core are read at a time, and decoded in parallel.
+     * Rows which do not hold a valid task are skipped.
+     *
+     * @param chunkSize Largest number of rows decoded into a chunk.
+     * @param chunkConsumer Receiver of every chunk of tasks.
+     * @throws IOException If an I/O error occurs while reading.
+     */
+    public void streamTasks(int chunkSize, Consumer<List<Task>> chunkConsumer) throws IOException {
+        assert chunkSize > 0;
+        flushPendingWrites();
+        int windowSize = decoder.getWindowSize(chunkSize);
+        try (BufferedReader reader = Files.newBufferedReader(filePath)) {
+            List<String> window = new ArrayList<>(windowSize);
+            String row = reader.readLine();
+            while (row != null) {
+                window.add(row);
+                row = reader.readLine();
+                if (window.size() == windowSize || row == null) {
+                    Task[] tasks = decoder.decode(window.size(), i -> Task.dataToTask(window.get(i).split(",")));
+                    ParallelTaskDecoder.passOnChunks(tasks, chunkSize, chunkConsumer);
+                    window.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the warnings about tasks which could not be read while the tasks were streamed, and forgets them.
+     *
+     * @return Warnings on separate lines, or an empty string if no task was lost.
+     */
+    public String takeLoadWarnings() {
+        synchronized (loadWarnings) {
+            String warnings = String.join("\n", loadWarnings);
+            loadWarnings.clear();
+            return warnings;
+        }
+    }
+
+    /**
+     * Leaves a warning about tasks which could not be read, to be shown to the user once the tasks are loaded.
+     *
+     * @param warning Warning to show.
+     */
+    protected void addLoadWarning(String warning) {
+        synchronized (loadWarnings) {
+            loadWarnings.add(warning);
+        }
+    }
+
+    /**
+     * Writes and syncs every pending change, then releases the file.
+     * Errors of earlier writes which could not be reported to the user yet are reported by the thrown exception.
+     *
+     * @throws IOException If an I/O error occurs while writing, or an earlier write failed.
+     */
+    public void close() throws IOException {
+        if (rowWriter != null) {
+            rowWriter.close();
+        }
+        String errors = takeDeferredErrors();
+        if (!errors.isEmpty()) {
+            throw new IOException(errors);
+        }
+    }
+
+    /**
+     * Returns the error message of a write, together with the errors of earlier writes which failed after their
+     * change had already been reported to the user.
+     * If every commit is synced and no transaction is open, waits for the write to finish so that its error is
+     * reported straight away. Otherwise, an error of the write is reported by a later call once it is known.
+     *
+     * @param pendingWrite Future of the write.
+     * @param errorMessage Error message to report if the write fails.
+     * @return Empty string only if no write has failed, else the error messages of the failed writes.
+     */
+    protected String reportError(CompletableFuture<Void> pendingWrite, String errorMessage) {
+        if ((durabilityPolicy.isSyncedOnCommit() && !isInTransaction) || pendingWrite.isDone()) {
+            try {
+                WriteBehindQueue.await(pendingWrite);
+            } catch (IOException e) {
+                return takeDeferredErrors() + toErrorMessage(errorMessage, e);
+            }
+        } else {
+            pendingWrite.whenComplete((result, exception) -> {
+                if (exception != null) {
+                    synchronized (deferredErrors) {
+                        deferredErrors.add(toErrorMessage(errorMessage, exception));
+                    }
+                }
+            });
+        }
+        return takeDeferredErrors();
+    }
+
+    private static String toErrorMessage(String errorMessage, Throwable exception) {
+        return errorMessage + "\nCause: " + exception.getMessage() + "\n";
+    }
+
+    private String takeDeferredErrors() {
+        synchronized (deferredErrors) {
+            String errors = String.join("", deferredErrors);
+            deferredErrors.clear();
+            return errors;
+        }
+    }
+
+    /**
+     * Waits for every queued append to be written, so that the file can be read or rewritten.
+     *
+     * @throws IOException If an I/O error occurred while writing.
+     */
+    protected void flushPendingWrites() throws IOException {
+        if (rowWriter != null) {
+            rowWriter.flush();
+        }
+    }
+
+    /**
+     * Waits for every queued change to be written and synced to the disk.
+     *
+     * @throws IOException If an I/O error occurred while writing or syncing.
+     */
+    protected void syncPendingWrites() throws IOException {
+        if (rowWriter != null) {
+            rowWriter.flushAndSync();
+        }
+    }
+
+    /**
+     * Holds back or resumes syncing every commit on its own, as a transaction is opened or committed.
+     *
+     * @param isSyncDeferred Whether syncs are held back.
+     */
+    protected void setIsSyncDeferred(boolean isSyncDeferred) {
+        if (rowWriter != null) {
+            rowWriter.setIsSyncDeferred(isSyncDeferred);
+        }
+    }
+
+    private List<String> readAfterPendingWrites() throws IOException {
+        flushPendingWrites();
+        return Files.readAllLines(filePath);
     }
 }
@@ -1,17 +1,33 @@
 package her.m35;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.List;
 
-import her.m35.parser.TimePointParser;
-import her.m35.task.DeadlineTask;
-import her.m35.task.EventTask;
+import her.m35.index.DateIndex;
+import her.m35.index.FenwickTree;
+import her.m35.index.PostingList;
+import her.m35.index.TagIndex;
+import her.m35.index.TrigramIndex;
+import her.m35.storage.ParallelTaskDecoder;
+import her.m35.task.ObjectTaskStore;
 import her.m35.task.Task;
-import her.m35.task.ToDoTask;
+import her.m35.task.TaskStore;
 
 /**
  * Encapsulates a list of tasks currently managed by the application.
  * Provides operations to add, delete, update, filter, and format tasks for display to the user.
+ * Tasks are kept in slots in the order they were added. A deleted task leaves an empty slot behind instead of
+ * shifting every later task, and the slots are compacted once most of them are empty. The 1-based numbering shown to
+ * the user is the rank of a slot among the filled ones, kept by a Fenwick tree.
+ * The indexes refer to tasks by slot, while every task also has a 64-bit id which never changes.
+ * Deleting a task only clears its bits in the bitmaps, and leaves its slot in the posting lists of the other indexes
+ * as a tombstone until the next compaction, so posting lists looked up are filtered against the filled slots.
+ * The slots are held by a {@link TaskStore}, which keeps task objects by default. A store holding tasks in a compact
+ * form hands out views, which are only made to show or check a task, and whose tag changes are written back to the
+ * slot they were read from. A view is only valid until the next task is deleted.
  */
 public class TaskList {
 
@@ -30,38 +46,107 @@ public class TaskList {
         OF_TYPE
     }
 
-    /** List of tasks being stored. */
-    private final ArrayList<Task> taskList;
+    /** Smallest number of slots compacted, so that small lists are not compacted after every few deletes. */
+    private static final int MIN_COMPACTED_SLOTS = 64;
+
+    /** Task in every slot, where the slots of deleted tasks are not read again. */
+    private TaskStore store;
+
+    /** Id of the task in every slot, which is ascending since ids are handed out in order. */
+    private long[] slotIds = new long[16];
+
+    /** Number of slots used, whether filled or not. */
+    private int slotCount = 0;
+
+    /** Number of tasks in the list. */
+    private int taskCount = 0;
+
+    /** Counts of 1 for filled slots and 0 for empty ones, turning slots into positions in the list and back. */
+    private final FenwickTree slotRanks = new FenwickTree();
+
+    /** Index from every tag to the ids of the tasks which have it. */
+    private final TagIndex tagIndex = new TagIndex();
+
+    /** Index over the dates of every deadline and event. */
+    private final DateIndex dateIndex = new DateIndex();
+
+    /** Index over the trigrams of the description and tags of every task. */
+    private final TrigramIndex textIndex = new TrigramIndex();
+
+    /** Id to be given to the next task added. */
+    private long nextTaskId = 0;
+
+    /** Number of tasks of each type, by the ordinal of the type. */
+    private final int[] typeCounts = new int[Task.Type.values().length];
+
+    /** Slots of every task in the list. */
+    private final BitSet liveIds = new BitSet();
+
+    /** Slots of the tasks which are done. */
+    private final BitSet doneIds = new BitSet();
+
+    /** Slots of the tasks of each type, by the ordinal of the type. */
+    private final BitSet[] typeIds = new BitSet[Task.Type.values().length];
+
+    /** Number of tasks which are done. */
+    private int doneCount = 0;
 
     /**
      * Constructs an empty task list.
      */
     public TaskList() {
-        taskList = new ArrayList<>();
+        this(new ObjectTaskStore());
+    }
+
+    /**
+     * Constructs an empty task list backed by a given store.
+     *
+     * @param store Empty store to hold the tasks.
+     */
+    public TaskList(TaskStore store) {
+        assert store.size() == 0;
+        this.store = store;
+        for (int i = 0; i < typeIds.length; i++) {
+            typeIds[i] = new BitSet();
+        }
     }
 
     /**
-     * Constructs a task list from stored task data.
+     * Constructs a task list from stored task data, decoding the tasks on every core.
      *
      * @param taskData Array of task data strings used to reconstruct tasks.
      */
     public TaskList(String[] taskData) {
-        taskList = new ArrayList<>();
-        for (String taskString : taskData) {
-            Task newTask = Task.dataToTask(taskString.split(","));
+        this();
+        ensureCapacity(taskData.length);
+        Task[] tasks = new ParallelTaskDecoder().decode(taskData.length, i -> Task.dataToTask(taskData[i].split(",")));
+        for (Task newTask : tasks) {
             if (newTask != null) {
-                taskList.add(newTask);
+                add(newTask);
             }
         }
     }
 
+    /**
+     * Constructs a task list holding the given tasks.
+     *
+     * @param tasks Tasks loaded from storage.
+     */
+    public TaskList(ArrayList<Task> tasks) {
+        this();
+        ensureCapacity(tasks.size());
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
     /**
      * Returns a message indicating the current number of tasks stored.
      *
      * @return Formatted task count message string.
      */
     public String getCurrentTaskCountMessage() {
-        return "You now have " + taskList.size() + " tasks.";
+        return "You now have " + taskCount + " tasks.";
     }
 
     /**
@@ -70,10 +155,35 @@ public class TaskList {
      * @return Task corresponding to given task, if available, else null.
      */
     public Task get(int taskIndex) {
-        if (taskIndex < 0 || taskIndex >= taskList.size()) {
+        if (taskIndex < 0 || taskIndex >= taskCount) {
             return null;
         }
-        return taskList.get(taskIndex);
+        return getTask(slotRanks.select(taskIndex));
+    }
+
+    /**
+     * Returns the id of the task at a given index, which stays the same while the task is in the list.
+     *
+     * @param taskIndex Index of the task.
+     * @return Id of the task.
+     */
+    public long getId(int taskIndex) {
+        assert taskIndex >= 0 && taskIndex < taskCount;
+        return slotIds[slotRanks.select(taskIndex)];
+    }
+
+    /**
+     * Returns the index of the task with a given id.
+     *
+     * @param taskId Id of the task.
+     * @return Index of the task, or -1 if no task in the list has the id.
+     */
+    public int indexOfId(long taskId) {
+        int slot = Arrays.binarySearch(slotIds, 0, slotCount, taskId);
+        if (slot < 0 || !liveIds.get(slot)) {
+            return -1;
+        }
+        return slotRanks.prefixSum(slot);
     }
 
     /**
@@ -81,7 +191,7 @@ public class TaskList {
      * @return Size of the task list.
      */
     public int size() {
-        return taskList.size();
+        return taskCount;
     }
 
     /**
@@ -90,23 +200,165 @@ public class TaskList {
      * @param task Task to be added.
      */
     public void add(Task task) {
-        taskList.add(task);
+        int slot = store.add(task);
+        assert slot == slotCount;
+        ensureCapacity(slot + 1);
+        slotCount++;
+        slotIds[slot] = nextTaskId++;
+        slotRanks.append(1);
+        taskCount++;
+        addToIndexes(slot, task);
     }
 
     /**
      * Deletes a task.
+     * Only the slot of the task is emptied and its posting list entries are left as tombstones, so the cost is
+     * logarithmic in the number of tasks apart from an occasional compaction.
      *
      * @param taskIndex index of the task to delete.
      */
     public void delete(int taskIndex) {
-        taskList.remove(taskIndex);
+        int slot = slotRanks.select(taskIndex);
+        Task task = store.get(slot);
+        store.remove(slot);
+        slotRanks.add(slot, -1);
+        taskCount--;
+        tombstone(slot, task);
+        if (slotCount >= MIN_COMPACTED_SLOTS && slotCount - taskCount > taskCount) {
+            compact();
+        }
     }
 
     /**
      * Clears all tasks.
      */
     public void clear() {
-        taskList.clear();
+        if (!store.getIsHoldingViews()) {
+            for (int slot = liveIds.nextSetBit(0); slot >= 0; slot = liveIds.nextSetBit(slot + 1)) {
+                store.get(slot).setTagListener(null);
+            }
+        }
+        store.clear();
+        slotCount = 0;
+        taskCount = 0;
+        slotRanks.clear();
+        clearIndexes();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > slotIds.length) {
+            slotIds = Arrays.copyOf(slotIds, Math.max(capacity, slotIds.length * 2));
+        }
+    }
+
+    /** Records a task in a slot in every index. */
+    private void addToIndexes(int slot, Task task) {
+        for (String tag : task.getTags()) {
+            tagIndex.add(slot, tag);
+        }
+        dateIndex.add(slot, task);
+        textIndex.add(slot, task);
+        typeCounts[task.getType().ordinal()]++;
+        liveIds.set(slot);
+        typeIds[task.getType().ordinal()].set(slot);
+        if (task.getIsDone()) {
+            doneIds.set(slot);
+            doneCount++;
+        }
+        if (!store.getIsHoldingViews()) {
+            task.setTagListener(new IndexedTagListener(task, slot));
+        }
+    }
+
+    /**
+     * Takes the deleted task in a slot out of the tag counts and the bitmaps, leaving the slot in the posting lists,
+     * where it is dropped by the next compaction.
+     */
+    private void tombstone(int slot, Task task) {
+        ArrayList<String> tags = task.getTags();
+        for (int i = 0; i < tags.size(); i++) {
+            if (tags.indexOf(tags.get(i)) == i) {
+                tagIndex.removeDeleted(tags.get(i));
+            }
+        }
+        typeCounts[task.getType().ordinal()]--;
+        liveIds.clear(slot);
+        typeIds[task.getType().ordinal()].clear(slot);
+        if (task.getIsDone()) {
+            doneIds.clear(slot);
+            doneCount--;
+        }
+        task.setTagListener(null);
+    }
+
+    private void clearIndexes() {
+        tagIndex.clear();
+        dateIndex.clear();
+        textIndex.clear();
+        Arrays.fill(typeCounts, 0);
+        liveIds.clear();
+        doneIds.clear();
+        for (BitSet ids : typeIds) {
+            ids.clear();
+        }
+        doneCount = 0;
+    }
+
+    /**
+     * Moves every task to the front of the slots of a new store, keeping their order and ids, and indexes them again
+     * by their new slots, which drops every tombstone.
+     * Compacting happens once more than half of the slots are empty, so its cost is spread over at least as many
+     * deletes as there are tasks left.
+     */
+    private void compact() {
+        BitSet filledSlots = (BitSet) liveIds.clone();
+        TaskStore oldStore = store;
+        store = oldStore.createEmpty(taskCount);
+        clearIndexes();
+        slotRanks.clear();
+        int filledSlotCount = 0;
+        for (int slot = filledSlots.nextSetBit(0); slot >= 0; slot = filledSlots.nextSetBit(slot + 1)) {
+            Task task = oldStore.get(slot);
+            store.add(task);
+            slotIds[filledSlotCount] = slotIds[slot];
+            slotRanks.append(1);
+            addToIndexes(filledSlotCount, task);
+            filledSlotCount++;
+        }
+        slotCount = filledSlotCount;
+    }
+
+    /** Returns the task in a slot, whose tag changes reach the store even if it is a view. */
+    private Task getTask(int slot) {
+        Task task = store.get(slot);
+        if (store.getIsHoldingViews()) {
+            task.setTagListener(new IndexedTagListener(task, slot));
+        }
+        return task;
+    }
+
+    /**
+     * Returns the tasks which have a tag, in the order of the task list.
+     * Only the tasks having the tag are looked at.
+     *
+     * @param tag Tag to look for.
+     * @return Tasks having the tag.
+     */
+    public ArrayList<Task> getTasksWithTag(String tag) {
+        return getTasks(getLive(tagIndex.get(tag)));
+    }
+
+    /** Returns the slots of a posting list which are filled, leaving out tombstones. */
+    private PostingList getLive(PostingList taskSlots) {
+        return taskCount == slotCount ? taskSlots : taskSlots.filter(liveIds::get);
+    }
+
+    private ArrayList<Task> getTasks(PostingList taskSlots) {
+        ArrayList<Task> tasks = new ArrayList<>(taskSlots.size());
+        for (int i = 0; i < taskSlots.size(); i++) {
+            tasks.add(getTask(taskSlots.get(i)));
+        }
+        return tasks;
     }
 
     /**
@@ -116,33 +368,34 @@ public class TaskList {
      * @param isDone New isDone value of task.
      */
     public void markTask(int taskIndex, boolean isDone) {
-        taskList.get(taskIndex).mark(isDone);
+        int slot = slotRanks.select(taskIndex);
+        if (store.getIsDone(slot) != isDone) {
+            doneIds.set(slot, isDone);
+            doneCount += isDone ? 1 : -1;
+        }
+        store.mark(slot, isDone);
     }
 
     /**
-     * Converts a given filtered task list to a string sequence that can be printed as a message.
+     * Converts the tasks in given slots to a string sequence that can be printed as a message.
      * The tasks will be indexed with their position in the memory task list.
      *
-     * @param filteredTaskList Task list to be converted into a message.
+     * @param taskSlots Slots of the tasks, in ascending order, with at least one slot.
      * @return String sequence that can be printed as a message.
      */
-    public String[] filteredTaskListToMessage(ArrayList<Task> filteredTaskList) {
-        ArrayList<String> listOutput = new ArrayList<>();
-        int filteredTaskListIndex = 0;
-        for (int i = 0; i < taskList.size(); i++) {
-            if (filteredTaskList.get(filteredTaskListIndex) == taskList.get(i)) {
-                listOutput.add((i + 1) + ".");
-                listOutput.add(taskList.get(i).toString() + " ");
-                listOutput.add(taskList.get(i).getTagsDescription());
-                listOutput.add("\n");
-                filteredTaskListIndex++;
-                if (filteredTaskListIndex == filteredTaskList.size()) {
-                    listOutput.remove(listOutput.size() - 1);
-                    return listOutput.toArray(new String[0]);
-                }
+    private String[] slotsToMessage(PostingList taskSlots) {
+        String[] listOutput = new String[taskSlots.size() * 4 - 1];
+        for (int i = 0; i < taskSlots.size(); i++) {
+            int slot = taskSlots.get(i);
+            Task task = store.get(slot);
+            listOutput[i * 4] = (slotRanks.prefixSum(slot) + 1) + ".";
+            listOutput[i * 4 + 1] = task.toString() + " ";
+            listOutput[i * 4 + 2] = task.getTagsDescription();
+            if (i + 1 < taskSlots.size()) {
+                listOutput[i * 4 + 3] = "\n";
             }
         }
-        return null;
+        return listOutput;
     }
 
     /**
@@ -153,129 +406,294 @@ public class TaskList {
      * @return Filtered task list formatted as a printable message.
      */
     public String[] outputFilteredList(FilterCondition[] filterConditions, String[] keywords) {
-        ArrayList<Task> filteredTaskList = new ArrayList<>(taskList);
-        if (filterConditions.length == 0) {
+        try {
+            return outputFilteredList(FindQuery.compile(filterConditions, keywords));
+        } catch (IllegalArgumentException e) {
+            return new String[] {e.getMessage()};
+        }
+    }
+
+    /**
+     * Applies a compiled find prompt to the task list and returns the formatted result.
+     * The conditions are applied in the order chosen by {@link QueryPlan}: the ids of the conditions looked up in
+     * indexes are intersected, then every other condition is checked in a single pass over the tasks left.
+     * If no task is left, the message names a condition the way applying them in the order typed would.
+     *
+     * @param query Compiled find prompt.
+     * @return Filtered task list formatted as a printable message.
+     */
+    public String[] outputFilteredList(FindQuery query) {
+        if (query.getConditions().length == 0) {
             return new String[] {"Your task list is empty!"};
         }
-        for (int i = 0; i < filterConditions.length; i++) {
-            String noTasksMessage;
-            switch (filterConditions[i]) {
+        // Both stay null, standing for every task, until a step is looked up in an index. Then exactly one of them
+        // holds the ids left, as a bitmap while only bitmaps have been looked up.
+        PostingList candidateIds = null;
+        BitSet candidateBits = null;
+        ArrayList<QueryPlan.Step> checkedSteps = new ArrayList<>();
+        ArrayList<QueryPlan.Step> typedSteps = getSteps(query);
+        for (QueryPlan.Step step : QueryPlan.create(typedSteps, taskCount).getSteps()) {
+            if (step.getAccess() == QueryPlan.Access.INDEX) {
+                if (step.hasBitmap()) {
+                    BitSet stepBits = step.getBitmapLookup().get();
+                    if (candidateIds != null) {
+                        candidateIds = candidateIds.filter(stepBits::get);
+                    } else if (candidateBits != null) {
+                        candidateBits.and(stepBits);
+                    } else {
+                        candidateBits = (BitSet) stepBits.clone();
+                    }
+                } else {
+                    PostingList stepIds = step.getIndexLookup().get();
+                    if (candidateIds != null) {
+                        candidateIds = candidateIds.intersect(stepIds);
+                    } else if (candidateBits != null) {
+                        candidateIds = stepIds.filter(candidateBits::get);
+                        candidateBits = null;
+                    } else {
+                        candidateIds = stepIds;
+                    }
+                }
+                if (candidateIds != null ? candidateIds.isEmpty() : candidateBits.isEmpty()) {
+                    return new String[] {getNoTasksMessage(typedSteps)};
+                }
+            }
+            if (step.getAccess() == QueryPlan.Access.SCAN || step.getIsChecked()) {
+                checkedSteps.add(step);
+            }
+        }
+
+        FindQuery.Check[] checks = new FindQuery.Check[checkedSteps.size()];
+        for (int i = 0; i < checks.length; i++) {
+            checks[i] = checkedSteps.get(i).getCondition();
+        }
+        // Slots are in list order, so the matching slots are found in the order their tasks are listed in.
+        PostingList matchingSlots = new PostingList();
+        if (candidateBits != null) {
+            for (int slot = candidateBits.nextSetBit(0); slot >= 0; slot = candidateBits.nextSetBit(slot + 1)) {
+                checkTask(slot, checks, matchingSlots);
+            }
+        } else if (candidateIds != null) {
+            for (int i = 0; i < candidateIds.size(); i++) {
+                checkTask(candidateIds.get(i), checks, matchingSlots);
+            }
+        } else {
+            for (int slot = liveIds.nextSetBit(0); slot >= 0; slot = liveIds.nextSetBit(slot + 1)) {
+                checkTask(slot, checks, matchingSlots);
+            }
+        }
+        if (matchingSlots.isEmpty()) {
+            return new String[] {getNoTasksMessage(typedSteps)};
+        }
+        return slotsToMessage(matchingSlots);
+    }
+
+    /** Checks the task in a slot, adding the slot to the matching slots if it passes every check. */
+    private void checkTask(int slot, FindQuery.Check[] checks, PostingList matchingSlots) {
+        if (countChecksPassed(slot, checks) == checks.length) {
+            matchingSlots.add(slot);
+        }
+    }
+
+    /**
+     * Returns the message of a find prompt which no task satisfies, from the first condition in the order typed
+     * after which no task is left, whichever order the plan applied the conditions in.
+     * Only the tasks satisfying the first condition typed are checked against the others.
+     *
+     * @param typedSteps Steps in the order their conditions were typed.
+     * @return Message saying which condition no task is left after.
+     */
+    private String getNoTasksMessage(List<QueryPlan.Step> typedSteps) {
+        QueryPlan.Step firstStep = typedSteps.get(0);
+        FindQuery.Check[] laterChecks = new FindQuery.Check[typedSteps.size() - 1];
+        for (int i = 0; i < laterChecks.length; i++) {
+            laterChecks[i] = typedSteps.get(i + 1).getCondition();
+        }
+        int mostStepsPassed = 0;
+        if (firstStep.hasBitmap()) {
+            BitSet firstSlots = firstStep.getBitmapLookup().get();
+            for (int slot = firstSlots.nextSetBit(0); slot >= 0; slot = firstSlots.nextSetBit(slot + 1)) {
+                mostStepsPassed = Math.max(mostStepsPassed, 1 + countChecksPassed(slot, laterChecks));
+            }
+        } else if (firstStep.hasIndex()) {
+            PostingList firstSlots = firstStep.getIndexLookup().get();
+            for (int i = 0; i < firstSlots.size(); i++) {
+                int slot = firstSlots.get(i);
+                if (!firstStep.getIsChecked() || firstStep.getCondition().test(store, slot)) {
+                    mostStepsPassed = Math.max(mostStepsPassed, 1 + countChecksPassed(slot, laterChecks));
+                }
+            }
+        } else {
+            for (int slot = liveIds.nextSetBit(0); slot >= 0; slot = liveIds.nextSetBit(slot + 1)) {
+                if (firstStep.getCondition().test(store, slot)) {
+                    mostStepsPassed = Math.max(mostStepsPassed, 1 + countChecksPassed(slot, laterChecks));
+                }
+            }
+        }
+        assert mostStepsPassed < typedSteps.size() : "Some task satisfies every condition";
+        return typedSteps.get(mostStepsPassed).getNoTasksMessage();
+    }
+
+    /** Returns a new bitmap of the slots of the tasks which are not done. */
+    private BitSet getUndoneIds() {
+        BitSet undoneIds = (BitSet) liveIds.clone();
+        undoneIds.andNot(doneIds);
+        return undoneIds;
+    }
+
+    /** Returns the number of checks the task in a slot passes before failing one, checking them in order. */
+    private int countChecksPassed(int slot, FindQuery.Check[] checks) {
+        for (int i = 0; i < checks.length; i++) {
+            if (!checks[i].test(store, slot)) {
+                return i;
+            }
+        }
+        return checks.length;
+    }
+
+    /**
+     * Describes how a compiled find prompt would be applied to the task list, without applying it.
+     *
+     * @param query Compiled find prompt.
+     * @return Plan of the query formatted as a printable message.
+     */
+    public String[] explainFilteredList(FindQuery query) {
+        if (query.getConditions().length == 0) {
+            return new String[] {"There is nothing to find."};
+        }
+        return QueryPlan.create(getSteps(query), taskCount).toLines();
+    }
+
+    /**
+     * Turns the conditions of a compiled find prompt into steps a plan can order, estimating each of them from the
+     * indexes.
+     *
+     * @param query Compiled find prompt.
+     * @return Steps in the order their conditions were typed.
+     */
+    private ArrayList<QueryPlan.Step> getSteps(FindQuery query) {
+        int bitmapWordCount = liveIds.length() / Long.SIZE + 1;
+        ArrayList<QueryPlan.Step> steps = new ArrayList<>(query.getConditions().length);
+        for (FindQuery.Condition condition : query.getConditions()) {
+            String keyword = condition.getKeyword();
+            TimePoint date = condition.getDate();
+            switch (condition.getFilterCondition()) {
             case IS_MARKED:
-                noTasksMessage = "There are no completed tasks.";
-                filteredTaskList.removeIf(task -> !task.getIsDone());
+                steps.add(QueryPlan.Step.bitmapIndexed("/done", "There are no completed tasks.", doneCount,
+                        1, condition.getCheck(), () -> doneIds, bitmapWordCount));
                 break;
             case IS_UNMARKED:
-                noTasksMessage = "There are no uncompleted tasks.";
-                filteredTaskList.removeIf(Task::getIsDone);
+                steps.add(QueryPlan.Step.bitmapIndexed("/todo", "There are no uncompleted tasks.",
+                        taskCount - doneCount, 1, condition.getCheck(), this::getUndoneIds, bitmapWordCount));
                 break;
             case KEYWORD:
-                String keyword = keywords[i].toLowerCase();
-                noTasksMessage = String.format("There are no tasks containing \"%s\".", keywords[i]);
-                filteredTaskList.removeIf(task -> !task.containsWord(keyword));
+                int estimatedKeywordCount = textIndex.getEstimatedCount(keyword);
+                steps.add(QueryPlan.Step.indexed("/contains " + keyword,
+                        String.format("There are no tasks containing \"%s\".", keyword),
+                        estimatedKeywordCount == -1 ? taskCount : estimatedKeywordCount, 20, condition.getCheck(),
+                        estimatedKeywordCount == -1 ? null : () -> getLive(textIndex.getCandidates(keyword)),
+                        !textIndex.getIsExact(keyword)));
                 break;
             case TAG:
-                String tag = keywords[i];
-                noTasksMessage = String.format("There are no tasks containing tag #%s.", tag);
-                filteredTaskList.removeIf(task -> !task.hasTag(tag));
+                steps.add(QueryPlan.Step.indexed("/tag #" + keyword,
+                        String.format("There are no tasks containing tag #%s.", keyword), tagIndex.getCount(keyword),
+                        2, condition.getCheck(), () -> getLive(tagIndex.get(keyword)), false));
                 break;
             case ON_DATE:
-                TimePoint onTimePoint = TimePointParser.toTimePoint(keywords[i]);
-                noTasksMessage = String.format("There are no tasks occurring on %s.", onTimePoint);
-                if (onTimePoint.getFormat() == TimePoint.Format.STRING) {
-                    return new String[]{"Invalid on date. Recommended format: DD/MM/YYYY"};
-                }
-                filteredTaskList.removeIf(task -> !task.isOnDate(onTimePoint));
+                PostingList onIds = getLive(dateIndex.getOnDate(date));
+                steps.add(QueryPlan.Step.indexed("/on " + date,
+                        String.format("There are no tasks occurring on %s.", date), onIds.size(),
+                        4, condition.getCheck(), () -> onIds, false));
                 break;
             case BEFORE:
-                TimePoint beforeTimePoint = TimePointParser.toTimePoint(keywords[i]);
-                noTasksMessage = String.format("There are no tasks occurring before %s.", beforeTimePoint);
-                if (beforeTimePoint.getFormat() == TimePoint.Format.STRING) {
-                    return new String[]{"Invalid before date. Recommended format: DD/MM/YYYY"};
-                }
-                filteredTaskList.removeIf(task -> !task.isBeforeDate(beforeTimePoint));
+                steps.add(QueryPlan.Step.indexed("/before " + date,
+                        String.format("There are no tasks occurring before %s.", date),
+                        dateIndex.getEstimatedCountBeforeDate(date), 4, condition.getCheck(),
+                        () -> getLive(dateIndex.getBeforeDate(date)), false));
                 break;
             case AFTER:
-                TimePoint afterTimePoint = TimePointParser.toTimePoint(keywords[i]);
-                noTasksMessage = String.format("There are no tasks occurring after %s.", afterTimePoint);
-                if (afterTimePoint.getFormat() == TimePoint.Format.STRING) {
-                    return new String[]{"Invalid after date. Recommended format: DD/MM/YYYY"};
-                }
-                filteredTaskList.removeIf(task -> !task.isAfterDate(afterTimePoint));
+                steps.add(QueryPlan.Step.indexed("/after " + date,
+                        String.format("There are no tasks occurring after %s.", date),
+                        dateIndex.getEstimatedCountAfterDate(date), 4, condition.getCheck(),
+                        () -> getLive(dateIndex.getAfterDate(date)), false));
                 break;
             case OF_TYPE:
-                Task.Type targetTaskType = normalizeByTaskName(keywords[i]);
-                noTasksMessage = "There are no tasks of type " + keywords[i];
-                if (targetTaskType == null) {
-                    return new String[]{noTasksMessage};
-                }
-                filteredTaskList.removeIf(task -> task.getType() != targetTaskType);
+                int typeOrdinal = condition.getTaskType().ordinal();
+                steps.add(QueryPlan.Step.bitmapIndexed("/type " + keyword, "There are no tasks of type " + keyword,
+                        typeCounts[typeOrdinal], 1, condition.getCheck(), () -> typeIds[typeOrdinal],
+                        bitmapWordCount));
                 break;
             default:
-                return new String[]{"Error: Invalid filter command: " + keywords[i]};
-            }
-            if (filteredTaskList.isEmpty()) {
-                return new String[]{noTasksMessage};
+                throw new IllegalStateException("Uncompiled filter condition: " + condition.getFilterCondition());
             }
         }
-        return filteredTaskListToMessage(filteredTaskList);
-    }
-
-    /**
-     * Helper function to normalize the keyword for filter by task type command.
-     * @param keyword Word to be normalized.
-     * @return keyword with its internal words normalized.
-     */
-    private Task.Type normalizeByTaskName(String keyword) {
-        String normalisedKeyword = keyword.toUpperCase();
-        for (String toDoName : ToDoTask.NAMES) {
-            normalisedKeyword = normalisedKeyword.replace(toDoName, "T");
-        }
-        for (String deadlineName : DeadlineTask.NAMES) {
-            normalisedKeyword = normalisedKeyword.replace(deadlineName, "D");
-        }
-        for (String eventName : EventTask.NAMES) {
-            normalisedKeyword = normalisedKeyword.replace(eventName, "E");
-        }
-        return switch (normalisedKeyword) {
-        case "T" -> Task.Type.TODO;
-        case "D" -> Task.Type.DEADLINE;
-        case "E" -> Task.Type.EVENT;
-        default -> null;
-        };
+        return steps;
     }
 
     /**
      * Returns a hashmap which contains every tag with a count of how many tasks have that tag.
+     * The counts are read from the tag index, so only the tags are looked at, not the tasks.
      * @return a hashmap which contains every tag with a count of how many tasks have that tag.
      */
     public HashMap<String, Integer> getTags() {
-        HashMap<String, Integer> tags = new HashMap<>();
-        for (Task task : taskList) {
-            for (String tag : task.getTags()) {
-                tags.put(tag, tags.getOrDefault(tag, 0) + 1);
-            }
-        }
-        return tags;
+        return tagIndex.getCounts();
     }
 
     public String[] getFormattedTaskList() {
-        if (taskList.isEmpty()) {
+        if (taskCount == 0) {
             return new String[] {"Your task list is empty!"};
         }
-        String[] formattedTaskList = new String[taskList.size() * 3];
-        formattedTaskList[0] = "1.";
-        formattedTaskList[1] = taskList.get(0).toString() + " ";
-        formattedTaskList[2] = taskList.get(0).getTagsDescription();
-        for (int i = 1; i < taskList.size(); i++) {
-            formattedTaskList[i * 3] = "\n" + (i + 1) + ".";
-            formattedTaskList[i * 3 + 1] = taskList.get(i).toString() + " ";
-            formattedTaskList[i * 3 + 2] = taskList.get(i).getTagsDescription();
+        String[] formattedTaskList = new String[taskCount * 3];
+        int i = 0;
+        for (int slot = liveIds.nextSetBit(0); slot >= 0; slot = liveIds.nextSetBit(slot + 1)) {
+            Task task = store.get(slot);
+            formattedTaskList[i * 3] = (i == 0 ? "" : "\n") + (i + 1) + ".";
+            formattedTaskList[i * 3 + 1] = task.toString() + " ";
+            formattedTaskList[i * 3 + 2] = task.getTagsDescription();
+            i++;
         }
         return formattedTaskList;
     }
 
     @Override
     public String toString() {
-        return Ui.listToMessage(taskList, "Your task list is empty!");
+        ArrayList<Task> tasks = new ArrayList<>(taskCount);
+        for (int slot = liveIds.nextSetBit(0); slot >= 0; slot = liveIds.nextSetBit(slot + 1)) {
+            tasks.add(store.get(slot));
+        }
+        return Ui.listToMessage(tasks, "Your task list is empty!");
+    }
+
+    /** Keeps the tag index up to date with the tags of one task, and writes the tags of a view back to its slot. */
+    private class IndexedTagListener implements Task.TagListener {
+        private final Task task;
+        private final int slot;
+
+        IndexedTagListener(Task task, int slot) {
+            this.task = task;
+            this.slot = slot;
+        }
+
+        @Override
+        public void tagAdded(String tag) {
+            tagIndex.add(slot, tag);
+            textIndex.addTag(slot, tag);
+            writeBack();
+        }
+
+        @Override
+        public void tagRemoved(String tag) {
+            if (!task.hasTag(tag)) {
+                tagIndex.remove(slot, tag);
+            }
+            textIndex.removeTag(slot, task, tag);
+            writeBack();
+        }
+
+        private void writeBack() {
+            if (store.getIsHoldingViews()) {
+                store.set(slot, task);
+            }
+        }
     }
 }
@@ -0,0 +1,107 @@
+package her.m35;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import her.m35.task.ObjectTaskStore;
+import her.m35.task.Task;
+import her.m35.task.TaskStore;
+
+/**
+ * Loads the tasks of a storage on a background thread, so that the chatbot can greet the user before a large task
+ * file has been read.
+ * Tasks are streamed from the storage in chunks straight into the store of the task list, so that a store holding
+ * tasks in a compact form never has every task object on the heap at once. The task list is handed over once every
+ * chunk has arrived.
+ */
+public class TaskLoader {
+
+    /** Task list once every task has been loaded. */
+    private final CompletableFuture<TaskList> taskList = new CompletableFuture<>();
+
+    /** Number of tasks loaded so far. */
+    private volatile int loadedTaskCount = 0;
+
+    /** Time taken to load every task in nanoseconds, or -1 while loading. */
+    private volatile long loadNanos = -1;
+
+    private TaskLoader() {
+    }
+
+    /**
+     * Starts loading the tasks of a storage on a background thread.
+     *
+     * @param storage Storage to load the tasks from.
+     * @param chunkSize Largest number of rows decoded at a time.
+     * @return Loader of the tasks.
+     */
+    public static TaskLoader start(Storage storage, int chunkSize) {
+        return start(storage, chunkSize, new ObjectTaskStore());
+    }
+
+    /**
+     * Starts loading the tasks of a storage into a given store on a background thread.
+     *
+     * @param storage Storage to load the tasks from.
+     * @param chunkSize Largest number of rows decoded at a time.
+     * @param store Empty store to hold the tasks, which is not used by anything else.
+     * @return Loader of the tasks.
+     */
+    public static TaskLoader start(Storage storage, int chunkSize, TaskStore store) {
+        TaskLoader loader = new TaskLoader();
+        Thread loaderThread = new Thread(() -> loader.load(storage, chunkSize, store), "herm35-loader");
+        loaderThread.setDaemon(true);
+        loaderThread.start();
+        return loader;
+    }
+
+    private void load(Storage storage, int chunkSize, TaskStore store) {
+        long startTime = System.nanoTime();
+        TaskList tasks = new TaskList(store);
+        try {
+            storage.streamTasks(chunkSize, chunk -> {
+                for (Task task : chunk) {
+                    tasks.add(task);
+                }
+                loadedTaskCount = tasks.size();
+            });
+            loadNanos = System.nanoTime() - startTime;
+            taskList.complete(tasks);
+        } catch (IOException | RuntimeException e) {
+            taskList.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Waits for every task to be loaded.
+     *
+     * @return Task list holding every loaded task.
+     * @throws IOException If the tasks could not be read.
+     */
+    public TaskList await() throws IOException {
+        try {
+            return taskList.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading tasks", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public boolean getIsDone() {
+        return taskList.isDone();
+    }
+
+    public int getLoadedTaskCount() {
+        return loadedTaskCount;
+    }
+
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+}
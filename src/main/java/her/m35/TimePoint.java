@@ -2,12 +2,14 @@ package her.m35;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 /**
- * Custom time object that can represent a point in time using either string, LocalDate or LocalDateTime
+ * Custom time object that can represent a point in time using either string, LocalDate or LocalDateTime.
+ * Dates and times are kept as a number of minutes since the epoch, so that comparing them allocates nothing.
  */
 
-public class TimePoint {
+public class TimePoint implements Comparable<TimePoint> {
 
     /** Enums to indicate the class in which the time is stored in this TimePoint. */
     public enum Format {
@@ -40,24 +42,34 @@ public class TimePoint {
     private static final String[] Mths = {
         "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
 
-    /** Point in time being stored by the object, only one of these variables can have a non-null value. */
+    /** Number of minutes in a day. */
+    public static final long MINUTES_PER_DAY = 24 * 60;
+
+    /** Text of the time if it is stored as a string, else null. */
     private final String timeString;
-    private final LocalDate localDate;
-    private final LocalDateTime localDateTime;
 
-    /** The format in which the time is stored. */
+    /**
+     * Minutes since the epoch in UTC, at the start of the day for a date without a time, or 0 for a string.
+     * Times are kept to the minute, the finest unit times are entered in.
+     */
+    private final long epochMinute;
+
+    /** The format in which the time is stored, which is also the precision of the epoch minute. */
     private final Format format;
 
+    private TimePoint(String timeString, long epochMinute, Format format) {
+        this.timeString = timeString;
+        this.epochMinute = epochMinute;
+        this.format = format;
+    }
+
     /**
      * Creates a new TimePoint with the time in string format.
      *
      * @param time String that represents a time.
      */
     public TimePoint(String time) {
-        this.timeString = time;
-        this.localDate = null;
-        this.localDateTime = null;
-        this.format = Format.STRING;
+        this(time, 0, Format.STRING);
     }
 
     /**
@@ -66,10 +78,7 @@ public class TimePoint {
      * @param localDate LocalDate that represents a time.
      */
     public TimePoint(LocalDate localDate) {
-        this.timeString = null;
-        this.localDate = localDate;
-        this.localDateTime = null;
-        this.format = Format.LOCAL_DATE;
+        this(null, localDate.toEpochDay() * MINUTES_PER_DAY, Format.LOCAL_DATE);
     }
 
     /**
@@ -78,18 +87,57 @@ public class TimePoint {
      * @param localDateTime LocalDateTime that represents a time.
      */
     public TimePoint(LocalDateTime localDateTime) {
-        this.timeString = null;
-        this.localDate = null;
-        this.localDateTime = localDateTime;
-        this.format = Format.LOCAL_DATE_TIME;
+        this(null, Math.floorDiv(localDateTime.toEpochSecond(ZoneOffset.UTC), 60), Format.LOCAL_DATE_TIME);
+    }
+
+    /**
+     * Creates a new TimePoint holding a date without a time.
+     *
+     * @param epochDay Days since the epoch.
+     * @return TimePoint in LocalDate format.
+     */
+    public static TimePoint ofEpochDay(long epochDay) {
+        return new TimePoint(null, epochDay * MINUTES_PER_DAY, Format.LOCAL_DATE);
+    }
+
+    /**
+     * Creates a new TimePoint holding a date and time.
+     *
+     * @param epochMinute Minutes since the epoch in UTC.
+     * @return TimePoint in LocalDateTime format.
+     */
+    public static TimePoint ofEpochMinute(long epochMinute) {
+        return new TimePoint(null, epochMinute, Format.LOCAL_DATE_TIME);
     }
 
     public Format getFormat() {
         return this.format;
     }
 
+    /**
+     * Returns the minutes since the epoch in UTC of this TimePoint, which must not be stored as a string.
+     * A date without a time is at the start of its day.
+     *
+     * @return Minutes since the epoch.
+     */
+    public long getEpochMinute() {
+        assert format != Format.STRING;
+        return epochMinute;
+    }
+
+    /**
+     * Returns the day of this TimePoint, which must not be stored as a string.
+     *
+     * @return Days since the epoch.
+     */
+    public long getEpochDay() {
+        assert format != Format.STRING;
+        return Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+    }
+
     /**
      * Returns the time this TimePoint contains.
+     * Dates and times are built anew on every call, so comparisons should use the epoch minute instead.
      *
      * @return The time this TimePoint contains that is not null.
      */
@@ -99,11 +147,9 @@ public class TimePoint {
             assert this.timeString != null;
             return this.timeString;
         case LOCAL_DATE:
-            assert this.localDate != null;
-            return this.localDate;
+            return LocalDate.ofEpochDay(getEpochDay());
         case LOCAL_DATE_TIME:
-            assert this.localDateTime != null;
-            return this.localDateTime;
+            return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
         default:
             return null;
         }
@@ -117,97 +163,65 @@ public class TimePoint {
      * @return True only if both TimePoints are on the same day, given they are not stored as a string.
      */
     public boolean isSameDayAs(TimePoint other) {
-        LocalDate thisLocalDate;
-        switch (this.format) {
-        case LOCAL_DATE:
-            assert this.localDate != null;
-            thisLocalDate = this.localDate;
-            break;
-        case LOCAL_DATE_TIME:
-            assert this.localDateTime != null;
-            thisLocalDate = this.localDateTime.toLocalDate();
-            break;
-        default:
-            return false;
-        }
-        LocalDate otherLocalDate;
-        switch (other.format) {
-        case LOCAL_DATE:
-            assert other.localDate != null;
-            otherLocalDate = (LocalDate) other.getTime();
-            break;
-        case LOCAL_DATE_TIME:
-            assert other.localDateTime != null;
-            otherLocalDate = ((LocalDateTime) other.getTime()).toLocalDate();
-            break;
-        default:
+        if (this.format == Format.STRING || other.format == Format.STRING) {
             return false;
         }
-        return thisLocalDate.isEqual(otherLocalDate);
+        return getEpochDay() == other.getEpochDay();
     }
 
     /**
      * Compares against another TimePoint to check if this TimePoint is after it.
      * Both TimePoints being compared cannot contain their date as a string.
+     * If either of them has no time, only their days are compared.
      *
      * @param other Other TimePoint to compare against
      * @return True only if this TimePoint is after other, given they are not stored as a string.
      */
     public boolean isAfter(TimePoint other) {
-        if (this.format == Format.STRING && other.getFormat() == Format.STRING) {
+        if (this.format == Format.STRING || other.format == Format.STRING) {
             return false;
         }
-        if (this.format == Format.LOCAL_DATE) {
-            assert this.localDate != null;
-            if (other.getFormat() == Format.LOCAL_DATE) {
-                assert other.localDate != null;
-                return this.localDate.isAfter((LocalDate) other.getTime());
-            } else {
-                assert other.localDateTime != null;
-                return this.localDate.isAfter(((LocalDateTime) other.getTime()).toLocalDate());
-            }
-        } else {
-            assert this.localDateTime != null;
-            if (other.getFormat() == Format.LOCAL_DATE) {
-                assert other.localDate != null;
-                return this.localDateTime.toLocalDate().isAfter((LocalDate) other.getTime());
-            } else {
-                assert other.localDateTime != null;
-                return this.localDateTime.isAfter((LocalDateTime) other.getTime());
-            }
+        if (this.format == Format.LOCAL_DATE_TIME && other.format == Format.LOCAL_DATE_TIME) {
+            return epochMinute > other.epochMinute;
         }
+        return getEpochDay() > other.getEpochDay();
     }
 
     /**
      * Compares against another TimePoint to check if this TimePoint is before it.
      * Both TimePoints being compared cannot contain their date as a string.
+     * If either of them has no time, only their days are compared.
      *
      * @param other Other TimePoint to compare against
      * @return True only if this TimePoint is before other, given they are not stored as a string.
      */
     public boolean isBefore(TimePoint other) {
-        if (this.format == Format.STRING && other.getFormat() == Format.STRING) {
+        if (this.format == Format.STRING || other.format == Format.STRING) {
             return false;
         }
-        if (this.format == Format.LOCAL_DATE) {
-            assert this.localDate != null;
-            if (other.getFormat() == Format.LOCAL_DATE) {
-                assert other.localDate != null;
-                return this.localDate.isBefore((LocalDate) other.getTime());
-            } else {
-                assert other.localDateTime != null;
-                return this.localDate.isBefore(((LocalDateTime) other.getTime()).toLocalDate());
-            }
-        } else {
-            assert this.localDateTime != null;
-            if (other.getFormat() == Format.LOCAL_DATE) {
-                assert other.localDate != null;
-                return this.localDateTime.toLocalDate().isBefore((LocalDate) other.getTime());
-            } else {
-                assert other.localDateTime != null;
-                return this.localDateTime.isBefore((LocalDateTime) other.getTime());
+        if (this.format == Format.LOCAL_DATE_TIME && other.format == Format.LOCAL_DATE_TIME) {
+            return epochMinute < other.epochMinute;
+        }
+        return getEpochDay() < other.getEpochDay();
+    }
+
+    /**
+     * Orders TimePoints by their epoch minute, with a date without a time before a time at the start of the same
+     * day. TimePoints stored as strings come after every other TimePoint, in the order of their text.
+     *
+     * @param other Other TimePoint to compare against.
+     * @return Negative, zero or positive if this TimePoint comes before, with or after the other.
+     */
+    @Override
+    public int compareTo(TimePoint other) {
+        if (this.format == Format.STRING || other.format == Format.STRING) {
+            if (this.format != other.format) {
+                return this.format == Format.STRING ? 1 : -1;
             }
+            return this.timeString.compareTo(other.timeString);
         }
+        int minuteComparison = Long.compare(epochMinute, other.epochMinute);
+        return minuteComparison != 0 ? minuteComparison : this.format.compareTo(other.format);
     }
 
     @Override
@@ -222,19 +236,16 @@ public class TimePoint {
         if (this.format != otherTimePoint.format) {
             return false;
         }
-        switch (this.format) {
-        case STRING:
+        if (this.format == Format.STRING) {
             assert this.timeString != null;
             return this.timeString.equals(otherTimePoint.timeString);
-        case LOCAL_DATE:
-            assert this.localDate != null;
-            return this.localDate.equals(otherTimePoint.localDate);
-        case LOCAL_DATE_TIME:
-            assert this.localDateTime != null;
-            return this.localDateTime.equals(otherTimePoint.localDateTime);
-        default:
-            return false;
         }
+        return this.epochMinute == otherTimePoint.epochMinute;
+    }
+
+    @Override
+    public int hashCode() {
+        return format == Format.STRING ? timeString.hashCode() : Long.hashCode(epochMinute) * 31 + format.ordinal();
     }
 
     @Override
@@ -243,12 +254,12 @@ public class TimePoint {
         case STRING:
             return timeString;
         case LOCAL_DATE:
-            assert this.localDate != null;
+            LocalDate localDate = LocalDate.ofEpochDay(getEpochDay());
             return Mths[localDate.getMonthValue() - 1]
                     + " " + localDate.getDayOfMonth()
                     + " " + localDate.getYear();
         case LOCAL_DATE_TIME:
-            assert this.localDateTime != null;
+            LocalDateTime localDateTime = LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
             return localDateTime.getHour()
                     + ":" + (localDateTime.getMinute() < 10 ? "0" : "") + localDateTime.getMinute()
                     + " " + Mths[localDateTime.getMonthValue() - 1]
@@ -1,23 +1,56 @@
 package her.m35;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Scanner;
 
-/** This class provides UI to deal with interactions with the user. */
+/**
+ * This class provides UI to deal with interactions with the user.
+ * Messages are rendered line by line straight into a reused buffer, which is written out whenever it fills up, so
+ * that a very large message is never joined into one string.
+ */
 public class Ui {
 
     /** Separator string used when printing messages. */
     private static final String LINE_SEPARATOR = "-----------------------";
 
+    /** Number of characters rendered before they are written out. */
+    private static final int RENDER_BUFFER_SIZE = 1 << 13;
+
     /** Scanner to receive user input. */
     private final Scanner input;
 
+    /** Writer which printed lines go to. */
+    private final PrintWriter output;
+
+    /** Whether the writer is flushed after every message. */
+    private final boolean isFlushingEveryMessage;
+
+    /** Buffer which messages are rendered into. */
+    private final StringBuilder renderBuffer = new StringBuilder(RENDER_BUFFER_SIZE * 2);
+
     /** Response for the user. */
     private String[] response;
 
-    /** Constructs a new Ui object. */
+    /** Constructs a new Ui object, which prints every message to the console as soon as it is printed. */
     public Ui() {
+        this(new PrintWriter(System.out), true);
+    }
+
+    /**
+     * Constructs a new Ui object which prints to the given writer.
+     * A buffered writer only passes lines on when it is full or flushed, so that many lines can be written at once.
+     *
+     * @param output Writer to print to.
+     */
+    public Ui(PrintWriter output) {
+        this(output, false);
+    }
+
+    private Ui(PrintWriter output, boolean isFlushingEveryMessage) {
         input = new Scanner(System.in);
+        this.output = output;
+        this.isFlushingEveryMessage = isFlushingEveryMessage;
     }
 
     /** Outputs the next line of the Ui. */
@@ -31,24 +64,87 @@ public class Ui {
      * @param line Line to be printed.
      */
     public void printLine(String line) {
-        System.out.println("\t" + line);
+        renderLine(line);
+        writeRendered(true);
+    }
+
+    /** Passes every line printed so far on to the console. */
+    public void flush() {
+        output.flush();
     }
 
     /**
      * Prints the message given in formatting.
+     * The parts of the message are split into lines at every line break, even where a line spans several parts.
      *
      * @param message Message to be printed.
      */
     public void printMessage(String... message) {
         assert message != null;
         response = message;
-        printLine(LINE_SEPARATOR);
-        String joinedMessage = String.join("", message);
-        Scanner reader = new Scanner(joinedMessage);
-        while (reader.hasNextLine()) {
-            printLine(reader.nextLine());
+        renderLine(LINE_SEPARATOR);
+        boolean isLineOpen = false;
+        boolean isAfterCarriageReturn = false;
+        for (String part : message) {
+            String text = String.valueOf(part);
+            int lineStart = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (!isLineBreak(c)) {
+                    isAfterCarriageReturn = false;
+                    continue;
+                }
+                if (c == '\n' && isAfterCarriageReturn && i == lineStart) {
+                    lineStart = i + 1;
+                    isAfterCarriageReturn = false;
+                    continue;
+                }
+                if (!isLineOpen) {
+                    renderBuffer.append('\t');
+                }
+                renderBuffer.append(text, lineStart, i).append(System.lineSeparator());
+                isLineOpen = false;
+                isAfterCarriageReturn = c == '\r';
+                lineStart = i + 1;
+            }
+            if (lineStart < text.length()) {
+                if (!isLineOpen) {
+                    renderBuffer.append('\t');
+                }
+                renderBuffer.append(text, lineStart, text.length());
+                isLineOpen = true;
+            }
+            if (renderBuffer.length() >= RENDER_BUFFER_SIZE) {
+                writeRendered(false);
+            }
         }
-        printLine(LINE_SEPARATOR);
+        if (isLineOpen) {
+            renderBuffer.append(System.lineSeparator());
+        }
+        renderLine(LINE_SEPARATOR);
+        writeRendered(true);
+    }
+
+    private void renderLine(String line) {
+        renderBuffer.append('\t').append(line).append(System.lineSeparator());
+    }
+
+    /**
+     * Writes out everything rendered so far.
+     *
+     * @param isEndOfMessage Whether the message is complete, in which case the writer may be flushed.
+     */
+    private void writeRendered(boolean isEndOfMessage) {
+        output.append(renderBuffer);
+        renderBuffer.setLength(0);
+        if (isEndOfMessage && isFlushingEveryMessage) {
+            output.flush();
+        }
+    }
+
+    /** Returns whether a character ends a line, as in {@link Scanner#nextLine()}. */
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085';
     }
 
     public String[] getResponse() {
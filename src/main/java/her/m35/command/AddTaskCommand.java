@@ -1,7 +1,5 @@
 package her.m35.command;
 
-import java.io.IOException;
-
 import her.m35.Storage;
 import her.m35.TaskList;
 import her.m35.TimePoint;
@@ -34,12 +32,7 @@ public class AddTaskCommand extends Command {
     @Override
     public void execute(TaskList taskList, Storage storage, Ui ui) {
         taskList.add(task);
-        String storageError = "";
-        try {
-            storage.insert(task.getData());
-        } catch (IOException e) {
-            storageError = "Error: Unable to save task to storage!\nCause: " + e.getMessage() + "\n";
-        }
+        String storageError = storage.insert(task.getData(), "Error: Unable to save task to storage!");
         if (isInvalidEventTask(task)) {
             ui.printMessage(
                     storageError,
@@ -68,4 +61,9 @@ public class AddTaskCommand extends Command {
         assert (fromDate != null && toDate != null);
         return fromDate.isAfter(toDate);
     }
+
+    @Override
+    public boolean isChangingStorage() {
+        return true;
+    }
 }
@@ -1,7 +1,5 @@
 package her.m35.command;
 
-import java.io.IOException;
-
 import her.m35.Storage;
 import her.m35.TaskList;
 import her.m35.Ui;
@@ -21,14 +19,14 @@ public class ClearCommand extends Command {
     @Override
     public void execute(TaskList taskList, Storage storage, Ui ui) {
         taskList.clear();
-        String storageError = "";
-        try {
-            storage.clear();
-        } catch (IOException e) {
-            storageError = "Error: Unable to clear storage!\nCause: " + e.getMessage() + "\n";
-        }
+        String storageError = storage.clear("Error: Unable to clear storage!");
         ui.printMessage(
                 storageError,
                 "Alright, I have emptied the task list.\n" + taskList.getCurrentTaskCountMessage());
     }
+
+    @Override
+    public boolean isChangingStorage() {
+        return true;
+    }
 }
@@ -47,4 +47,9 @@ public class ClearTagsCommand extends Command {
         ui.printMessage(String.format(
                 "Error: Please enter a number between 1 and %d to remove that task's tags.", taskList.size()));
     }
+
+    @Override
+    public boolean isChangingStorage() {
+        return true;
+    }
 }
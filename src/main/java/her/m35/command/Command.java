@@ -33,4 +33,24 @@ public abstract class Command {
     public boolean isExit() {
         return false;
     }
+
+    /**
+     * Indicates whether this command reads or changes the task list.
+     * Commands which do not can run before the task list has finished loading, and are given no task list.
+     *
+     * @return true if the command needs the task list, false otherwise.
+     */
+    public boolean isUsingTaskList() {
+        return true;
+    }
+
+    /**
+     * Indicates whether this command writes changes to storage.
+     * Consecutive commands which do can be saved together in a single storage transaction.
+     *
+     * @return true if the command changes storage, false otherwise.
+     */
+    public boolean isChangingStorage() {
+        return false;
+    }
 }
@@ -1,7 +1,5 @@
 package her.m35.command;
 
-import java.io.IOException;
-
 import her.m35.Storage;
 import her.m35.TaskList;
 import her.m35.Ui;
@@ -39,12 +37,7 @@ public class DeleteCommand extends Command {
             if (taskIndex >= 0 && taskIndex < taskList.size()) {
                 Task deletedTask = taskList.get(taskIndex);
                 taskList.delete(taskIndex);
-                String storageError = "";
-                try {
-                    storage.delete(taskIndex);
-                } catch (IOException e) {
-                    storageError = "Error: Unable to save task to storage!\nCause: " + e.getMessage() + "\n";
-                }
+                String storageError = storage.delete(taskIndex, "Error: Unable to save task to storage!");
                 ui.printMessage(
                         storageError,
                         "Got it, I'm deleting this task:\n",
@@ -57,4 +50,9 @@ public class DeleteCommand extends Command {
         ui.printMessage(String.format(
                 "Error: Please enter a number between 1 and %d to delete that task.", taskList.size()));
     }
+
+    @Override
+    public boolean isChangingStorage() {
+        return true;
+    }
 }
@@ -27,4 +27,9 @@ public class ExitCommand extends Command {
     public boolean isExit() {
         return true;
     }
+
+    @Override
+    public boolean isUsingTaskList() {
+        return false;
+    }
 }
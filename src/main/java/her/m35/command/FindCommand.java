@@ -1,11 +1,9 @@
 package her.m35.command;
 
-import java.util.ArrayList;
-
+import her.m35.FindQuery;
 import her.m35.Storage;
 import her.m35.TaskList;
 import her.m35.Ui;
-import her.m35.parser.Parser;
 
 /** Command to display all tasks that fit a search prompt. */
 public class FindCommand extends Command {
@@ -13,34 +11,46 @@ public class FindCommand extends Command {
     /** Prompt string used to filter the task list. */
     private final String findPrompt;
 
+    /** Whether the plan of the search is displayed instead of the tasks found. */
+    private final boolean isExplaining;
+
     /**
      * Constructs a FindCommand with the specified prompt.
      *
      * @param findPrompt Prompt string used to filter the task list.
      */
     public FindCommand(String findPrompt) {
+        this(findPrompt, false);
+    }
+
+    /**
+     * Constructs a FindCommand with the specified prompt, which may only explain how it would search.
+     *
+     * @param findPrompt Prompt string used to filter the task list.
+     * @param isExplaining Whether the plan of the search is displayed instead of the tasks found.
+     */
+    public FindCommand(String findPrompt, boolean isExplaining) {
         this.findPrompt = findPrompt.trim();
+        this.isExplaining = isExplaining;
     }
 
     /**
      * {@inheritDoc}
      *
-     * Parses findPrompt to determine the criterion used to filter the task list, then displays it if there
-     * are tasks corresponding to the prompt with the Ui. If there are no tasks corresponding to the given
-     * prompt, the user is informed via the Ui.
+     * Compiles findPrompt, or reuses its compiled form from earlier today, to determine the criterion used to
+     * filter the task list, then displays it if there are tasks corresponding to the prompt with the Ui. If there
+     * are no tasks corresponding to the given prompt, the user is informed via the Ui. If the command is explaining,
+     * the plan of the search is displayed instead.
      */
     @Override
     public void execute(TaskList taskList, Storage storage, Ui ui) {
-        ArrayList<TaskList.FilterCondition> filterConditions = new ArrayList<>();
-        ArrayList<String> keywords = new ArrayList<>();
+        FindQuery query;
         try {
-            Parser.parseFindPrompt(findPrompt, filterConditions, keywords);
+            query = FindQuery.forPrompt(findPrompt);
         } catch (Exception e) {
             ui.printMessage(e.getMessage());
             return;
         }
-        ui.printMessage(
-                taskList.outputFilteredList(
-                        filterConditions.toArray(new TaskList.FilterCondition[0]), keywords.toArray(new String[0])));
+        ui.printMessage(isExplaining ? taskList.explainFilteredList(query) : taskList.outputFilteredList(query));
     }
 }
@@ -74,7 +74,8 @@ public class HelpCommand extends Command {
         "$find /before [date1] /after [date2] /contains [keyword] ",
         "Shows all tasks containing [keyword], before [date1] and after [date2].\n",
         "You can also use:\n",
-        "$ -tags: Shows all tags being used and how many tasks each tag has."
+        "$ -tags: Shows all tags being used and how many tasks each tag has.\n",
+        "$ -explain [find prompt]: Shows the order in which the conditions of a find prompt would be applied."
     };
 
     /** List of HERM35 commands for customising the program. */
@@ -128,4 +129,9 @@ public class HelpCommand extends Command {
             break;
         }
     }
+
+    @Override
+    public boolean isUsingTaskList() {
+        return false;
+    }
 }
@@ -1,6 +1,8 @@
 package her.m35.command;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 import her.m35.Storage;
 import her.m35.TaskList;
@@ -22,14 +24,15 @@ public class ListTagsCommand extends Command {
      */
     @Override
     public void execute(TaskList taskList, Storage storage, Ui ui) {
-        if (taskList.getTags().isEmpty()) {
+        HashMap<String, Integer> tags = taskList.getTags();
+        if (tags.isEmpty()) {
             ui.printMessage("There are no tags! Add some now!");
             return;
         }
         ArrayList<String> output = new ArrayList<>();
-        for (String tag : taskList.getTags().keySet()) {
-            output.add("#" + tag);
-            output.add(": " + taskList.getTags().get(tag) + "\n");
+        for (Map.Entry<String, Integer> tag : tags.entrySet()) {
+            output.add("#" + tag.getKey());
+            output.add(": " + tag.getValue() + "\n");
         }
         ui.printMessage(output.toArray(new String[0]));
     }
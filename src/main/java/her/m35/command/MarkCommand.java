@@ -54,4 +54,9 @@ public class MarkCommand extends Command {
         ui.printMessage(String.format(
                 "Error: Please enter a number between 1 and %d to mark that task.", taskList.size()));
     }
+
+    @Override
+    public boolean isChangingStorage() {
+        return true;
+    }
 }
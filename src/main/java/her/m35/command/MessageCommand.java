@@ -20,6 +20,10 @@ public class MessageCommand extends Command {
         this.message = message;
     }
 
+    public String[] getMessage() {
+        return message;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -30,4 +34,9 @@ public class MessageCommand extends Command {
         assert message != null;
         ui.printMessage(message);
     }
+
+    @Override
+    public boolean isUsingTaskList() {
+        return false;
+    }
 }
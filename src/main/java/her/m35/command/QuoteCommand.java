@@ -93,4 +93,9 @@ public class QuoteCommand extends Command {
             ui.printMessage(facts[random.nextInt(facts.length)]);
         }
     }
+
+    @Override
+    public boolean isUsingTaskList() {
+        return false;
+    }
 }
@@ -43,4 +43,9 @@ public class SetTagVisibilityCommand extends Command {
             ui.printMessage(HIDE_TAGS_MESSAGE);
         }
     }
+
+    @Override
+    public boolean isUsingTaskList() {
+        return false;
+    }
 }
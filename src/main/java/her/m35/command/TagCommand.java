@@ -62,4 +62,9 @@ public class TagCommand extends Command {
         ui.printMessage(String.format(
                 "Error: Please enter a number between 1 and %d to tag that task.", taskList.size()));
     }
+
+    @Override
+    public boolean isChangingStorage() {
+        return true;
+    }
 }
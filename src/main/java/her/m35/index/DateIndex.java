@@ -0,0 +1,346 @@
+package her.m35.index;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+import her.m35.TimePoint;
+import her.m35.task.DeadlineTask;
+import her.m35.task.EventTask;
+import her.m35.task.Task;
+
+/**
+ * Index over the dates of deadlines and events, answering the on, before and after filters of the find command
+ * without looking at every task.
+ * Dates are compared the way {@link Task#isOnDate}, {@link Task#isBeforeDate} and {@link Task#isAfterDate} compare
+ * them: by day when either side has no time, and by minute otherwise. Dates stored as strings cannot be compared,
+ * so they are not indexed.
+ */
+public class DateIndex {
+
+    /** Number of minutes in a day. */
+    private static final long MINUTES_PER_DAY = TimePoint.MINUTES_PER_DAY;
+
+    /** Dates of deadlines. */
+    private final Endpoints deadlines = new Endpoints();
+
+    /** Start dates of events. */
+    private final Endpoints eventStarts = new Endpoints();
+
+    /** End dates of events. */
+    private final Endpoints eventEnds = new Endpoints();
+
+    /** Days strictly within each event, for looking up events on a date. */
+    private final IntervalTree eventDays = new IntervalTree();
+
+    /** Minutes strictly within each event, for looking up events at a time. */
+    private final IntervalTree eventMinutes = new IntervalTree();
+
+    /**
+     * Records the dates of a task.
+     *
+     * @param id Id of the task.
+     * @param task Task whose dates are recorded, which may have no dates.
+     */
+    public void add(int id, Task task) {
+        switch (task.getType()) {
+        case DEADLINE:
+            deadlines.add(id, ((DeadlineTask) task).getByDate());
+            break;
+        case EVENT:
+            EventTask event = (EventTask) task;
+            eventStarts.add(id, event.getFromDate());
+            eventEnds.add(id, event.getToDate());
+            if (isComparable(event.getFromDate()) && isComparable(event.getToDate())) {
+                long[] days = getDaysWithin(event);
+                if (days[0] <= days[1]) {
+                    eventDays.add(id, days[0], days[1]);
+                }
+                long[] minutes = getMinutesWithin(event);
+                if (minutes[0] <= minutes[1]) {
+                    eventMinutes.add(id, minutes[0], minutes[1]);
+                }
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Removes the dates of a task.
+     *
+     * @param id Id of the task.
+     * @param task Task whose dates were recorded.
+     */
+    public void remove(int id, Task task) {
+        switch (task.getType()) {
+        case DEADLINE:
+            deadlines.remove(id, ((DeadlineTask) task).getByDate());
+            break;
+        case EVENT:
+            EventTask event = (EventTask) task;
+            eventStarts.remove(id, event.getFromDate());
+            eventEnds.remove(id, event.getToDate());
+            if (isComparable(event.getFromDate()) && isComparable(event.getToDate())) {
+                eventDays.remove(id, getDaysWithin(event)[0]);
+                eventMinutes.remove(id, getMinutesWithin(event)[0]);
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Returns the ids of the tasks occurring on a date.
+     *
+     * @param date Date to look up, which is not stored as a string.
+     * @return Ids of the deadlines due on the date and of the events spanning it, in ascending order.
+     */
+    public PostingList getOnDate(TimePoint date) {
+        IdCollector ids = new IdCollector();
+        if (date.getFormat() == TimePoint.Format.LOCAL_DATE) {
+            deadlines.forEachOnDay(date.getEpochDay(), ids);
+            eventDays.forEachContaining(date.getEpochDay(), ids);
+        } else {
+            deadlines.forEachAtMinute(date.getEpochMinute(), ids);
+            eventMinutes.forEachContaining(date.getEpochMinute(), ids);
+        }
+        return ids.toPostingList();
+    }
+
+    /**
+     * Returns the ids of the tasks which should be completed before a date.
+     *
+     * @param date Date to look up, which is not stored as a string.
+     * @return Ids of the deadlines due and the events ending before the date, in ascending order.
+     */
+    public PostingList getBeforeDate(TimePoint date) {
+        IdCollector ids = new IdCollector();
+        deadlines.forEachBefore(date, ids);
+        eventEnds.forEachBefore(date, ids);
+        return ids.toPostingList();
+    }
+
+    /**
+     * Returns the ids of the tasks which only need attention after a date.
+     *
+     * @param date Date to look up, which is not stored as a string.
+     * @return Ids of the deadlines due and the events starting after the date, in ascending order.
+     */
+    public PostingList getAfterDate(TimePoint date) {
+        IdCollector ids = new IdCollector();
+        deadlines.forEachAfter(date, ids);
+        eventStarts.forEachAfter(date, ids);
+        return ids.toPostingList();
+    }
+
+    /**
+     * Estimates the number of tasks which should be completed before a date, assuming dates are spread evenly
+     * between the earliest and the latest indexed date.
+     *
+     * @param date Date to look up, which is not stored as a string.
+     * @return Estimated number of tasks.
+     */
+    public long getEstimatedCountBeforeDate(TimePoint date) {
+        return deadlines.getEstimatedCountBefore(date) + eventEnds.getEstimatedCountBefore(date);
+    }
+
+    /**
+     * Estimates the number of tasks which only need attention after a date, assuming dates are spread evenly
+     * between the earliest and the latest indexed date.
+     *
+     * @param date Date to look up, which is not stored as a string.
+     * @return Estimated number of tasks.
+     */
+    public long getEstimatedCountAfterDate(TimePoint date) {
+        return deadlines.getEstimatedCountAfter(date) + eventStarts.getEstimatedCountAfter(date);
+    }
+
+    /** Removes every task from the index. */
+    public void clear() {
+        deadlines.clear();
+        eventStarts.clear();
+        eventEnds.clear();
+        eventDays.clear();
+        eventMinutes.clear();
+    }
+
+    private static boolean isComparable(TimePoint timePoint) {
+        return timePoint != null && timePoint.getFormat() != TimePoint.Format.STRING;
+    }
+
+    /** Returns the first and last day lying strictly between the start and end of an event. */
+    private static long[] getDaysWithin(EventTask event) {
+        return new long[] {event.getFromDate().getEpochDay() + 1, event.getToDate().getEpochDay() - 1};
+    }
+
+    /**
+     * Returns the first and last minute at which an event has started and not yet ended.
+     * A start or end without a time covers its whole day.
+     */
+    private static long[] getMinutesWithin(EventTask event) {
+        TimePoint from = event.getFromDate();
+        TimePoint to = event.getToDate();
+        long firstMinute = from.getFormat() == TimePoint.Format.LOCAL_DATE
+                ? (from.getEpochDay() + 1) * MINUTES_PER_DAY
+                : from.getEpochMinute() + 1;
+        long lastMinute = to.getFormat() == TimePoint.Format.LOCAL_DATE
+                ? to.getEpochDay() * MINUTES_PER_DAY - 1
+                : to.getEpochMinute() - 1;
+        return new long[] {firstMinute, lastMinute};
+    }
+
+    /** Sorted dates of one kind, such as the start dates of events. */
+    private static class Endpoints {
+
+        /** Ids of the tasks with each date which has no time, by epoch day. */
+        private final TreeMap<Long, PostingList> dates = new TreeMap<>();
+
+        /** Ids of the tasks with each date which has a time, by epoch minute. */
+        private final TreeMap<Long, PostingList> dateTimes = new TreeMap<>();
+
+        /** Number of ids in the posting lists of dates without a time. */
+        private long dateCount = 0;
+
+        /** Number of ids in the posting lists of dates with a time. */
+        private long dateTimeCount = 0;
+
+        void add(int id, TimePoint timePoint) {
+            if (!isComparable(timePoint)) {
+                return;
+            }
+            getMapFor(timePoint).computeIfAbsent(getKey(timePoint), key -> new PostingList()).add(id);
+            changeCount(timePoint, 1);
+        }
+
+        void remove(int id, TimePoint timePoint) {
+            if (!isComparable(timePoint)) {
+                return;
+            }
+            TreeMap<Long, PostingList> map = getMapFor(timePoint);
+            long key = getKey(timePoint);
+            PostingList postingList = map.get(key);
+            if (postingList == null) {
+                return;
+            }
+            if (postingList.remove(id)) {
+                changeCount(timePoint, -1);
+            }
+            if (postingList.isEmpty()) {
+                map.remove(key);
+            }
+        }
+
+        void forEachOnDay(long epochDay, IntConsumer idConsumer) {
+            forEach(dates.subMap(epochDay, true, epochDay, true), idConsumer);
+            forEach(dateTimes.subMap(epochDay * MINUTES_PER_DAY, (epochDay + 1) * MINUTES_PER_DAY), idConsumer);
+        }
+
+        void forEachAtMinute(long epochMinute, IntConsumer idConsumer) {
+            forEach(dateTimes.subMap(epochMinute, true, epochMinute, true), idConsumer);
+        }
+
+        void forEachBefore(TimePoint date, IntConsumer idConsumer) {
+            long epochDay = date.getEpochDay();
+            forEach(dates.headMap(epochDay, false), idConsumer);
+            long minuteBound = date.getFormat() == TimePoint.Format.LOCAL_DATE
+                    ? epochDay * MINUTES_PER_DAY
+                    : date.getEpochMinute();
+            forEach(dateTimes.headMap(minuteBound, false), idConsumer);
+        }
+
+        void forEachAfter(TimePoint date, IntConsumer idConsumer) {
+            long epochDay = date.getEpochDay();
+            forEach(dates.tailMap(epochDay, false), idConsumer);
+            if (date.getFormat() == TimePoint.Format.LOCAL_DATE) {
+                forEach(dateTimes.tailMap((epochDay + 1) * MINUTES_PER_DAY, true), idConsumer);
+            } else {
+                forEach(dateTimes.tailMap(date.getEpochMinute(), false), idConsumer);
+            }
+        }
+
+        long getEstimatedCountBefore(TimePoint date) {
+            long epochDay = date.getEpochDay();
+            long minuteBound = date.getFormat() == TimePoint.Format.LOCAL_DATE
+                    ? epochDay * MINUTES_PER_DAY
+                    : date.getEpochMinute();
+            return getEstimatedCountBelow(dates, dateCount, epochDay)
+                    + getEstimatedCountBelow(dateTimes, dateTimeCount, minuteBound);
+        }
+
+        long getEstimatedCountAfter(TimePoint date) {
+            long epochDay = date.getEpochDay();
+            long minuteBound = date.getFormat() == TimePoint.Format.LOCAL_DATE
+                    ? (epochDay + 1) * MINUTES_PER_DAY
+                    : date.getEpochMinute() + 1;
+            return dateCount - getEstimatedCountBelow(dates, dateCount, epochDay + 1)
+                    + dateTimeCount - getEstimatedCountBelow(dateTimes, dateTimeCount, minuteBound);
+        }
+
+        void clear() {
+            dates.clear();
+            dateTimes.clear();
+            dateCount = 0;
+            dateTimeCount = 0;
+        }
+
+        private void changeCount(TimePoint timePoint, int change) {
+            if (timePoint.getFormat() == TimePoint.Format.LOCAL_DATE) {
+                dateCount += change;
+            } else {
+                dateTimeCount += change;
+            }
+        }
+
+        /** Estimates the number of ids with keys below a bound by interpolating between the first and last key. */
+        private static long getEstimatedCountBelow(TreeMap<Long, PostingList> map, long count, long bound) {
+            if (count == 0 || bound <= map.firstKey()) {
+                return 0;
+            }
+            if (bound > map.lastKey()) {
+                return count;
+            }
+            double fraction = (double) (bound - map.firstKey()) / (map.lastKey() - map.firstKey() + 1);
+            return Math.round(count * fraction);
+        }
+
+        private TreeMap<Long, PostingList> getMapFor(TimePoint timePoint) {
+            return timePoint.getFormat() == TimePoint.Format.LOCAL_DATE ? dates : dateTimes;
+        }
+
+        private static long getKey(TimePoint timePoint) {
+            return timePoint.getFormat() == TimePoint.Format.LOCAL_DATE
+                    ? timePoint.getEpochDay()
+                    : timePoint.getEpochMinute();
+        }
+
+        private static void forEach(Map<Long, PostingList> postingLists, IntConsumer idConsumer) {
+            for (PostingList postingList : postingLists.values()) {
+                for (int i = 0; i < postingList.size(); i++) {
+                    idConsumer.accept(postingList.get(i));
+                }
+            }
+        }
+    }
+
+    /** Gathers ids in any order. */
+    private static class IdCollector implements IntConsumer {
+        private int[] ids = new int[16];
+        private int count = 0;
+
+        @Override
+        public void accept(int id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+
+        PostingList toPostingList() {
+            return PostingList.fromUnsorted(ids, count);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package her.m35.index;
+
+import java.util.Arrays;
+
+/**
+ * Binary indexed tree over a growing array of counts, which finds prefix sums, and the index holding a given unit
+ * of the total, in logarithmic time.
+ * Over counts of 1 for live slots and 0 for deleted ones, it turns a slot into its position among the live slots
+ * and back.
+ */
+public class FenwickTree {
+
+    /** Counts by index. */
+    private int[] counts = new int[16];
+
+    /** Partial sums, where entry i holds the sum of the counts of the indexes from i - (i & -i) to i - 1. */
+    private int[] tree = new int[17];
+
+    /** Number of indexes in use. */
+    private int length = 0;
+
+    /**
+     * Appends an index holding a count.
+     *
+     * @param count Count of the new index.
+     */
+    public void append(int count) {
+        if (length == counts.length) {
+            counts = Arrays.copyOf(counts, length * 2);
+            rebuild();
+        }
+        length++;
+        add(length - 1, count);
+    }
+
+    /**
+     * Adds to the count of an index.
+     *
+     * @param index Index to change.
+     * @param delta Amount added to its count.
+     */
+    public void add(int index, int delta) {
+        assert index >= 0 && index < length;
+        counts[index] += delta;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Returns the sum of the counts of the indexes before a given index.
+     *
+     * @param index Index to sum up to, excluded.
+     * @return Sum of the counts of the indexes from 0 to index - 1.
+     */
+    public int prefixSum(int index) {
+        int sum = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the index holding a given unit of the total, where every count is non-negative.
+     *
+     * @param rank Unit to look for, counting from 0.
+     * @return Smallest index whose prefix sum, including its own count, is greater than the rank.
+     */
+    public int select(int rank) {
+        int index = 0;
+        int remaining = rank;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            if (index + step < tree.length && tree[index + step] <= remaining) {
+                index += step;
+                remaining -= tree[index];
+            }
+        }
+        return index;
+    }
+
+    public int getCount(int index) {
+        return counts[index];
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /** Removes every index. */
+    public void clear() {
+        Arrays.fill(counts, 0, length, 0);
+        Arrays.fill(tree, 0);
+        length = 0;
+    }
+
+    /** Rebuilds the partial sums from the counts in linear time, sized to the capacity of the counts. */
+    private void rebuild() {
+        tree = new int[counts.length + 1];
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package her.m35.index;
+
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of closed intervals of task ids, which finds every interval containing a point.
+ * The intervals are kept in a treap ordered by start, where every node also holds the latest end in its subtree, so
+ * a search skips every subtree whose intervals all end before the point.
+ */
+public class IntervalTree {
+
+    /** Source of the random priorities which keep the treap balanced. */
+    private final Random random = new Random(35);
+
+    /** Root of the treap, or null if there are no intervals. */
+    private Node root = null;
+
+    /** Number of intervals in the tree. */
+    private int size = 0;
+
+    /**
+     * Adds the interval of a task.
+     *
+     * @param id Id of the task.
+     * @param start First point of the interval.
+     * @param end Last point of the interval, which is not before the start.
+     */
+    public void add(int id, long start, long end) {
+        assert start <= end;
+        root = insert(root, new Node(id, start, end, random.nextInt()));
+        size++;
+    }
+
+    /**
+     * Removes the interval of a task.
+     *
+     * @param id Id of the task.
+     * @param start First point of the interval of the task.
+     * @return True only if the interval was in the tree.
+     */
+    public boolean remove(int id, long start) {
+        int oldSize = size;
+        root = remove(root, id, start);
+        return size < oldSize;
+    }
+
+    /**
+     * Passes on the id of every task whose interval contains a point.
+     *
+     * @param point Point to look for.
+     * @param idConsumer Receiver of the ids, in the order of the starts of their intervals.
+     */
+    public void forEachContaining(long point, IntConsumer idConsumer) {
+        forEachContaining(root, point, idConsumer);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Removes every interval from the tree. */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    private Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (newNode.priority > node.priority) {
+            Node[] halves = split(node, newNode.start, newNode.id);
+            newNode.left = halves[0];
+            newNode.right = halves[1];
+            newNode.update();
+            return newNode;
+        }
+        if (compare(newNode.start, newNode.id, node) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        node.update();
+        return node;
+    }
+
+    private Node remove(Node node, int id, long start) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, id, node);
+        if (comparison == 0) {
+            size--;
+            return merge(node.left, node.right);
+        }
+        if (comparison < 0) {
+            node.left = remove(node.left, id, start);
+        } else {
+            node.right = remove(node.right, id, start);
+        }
+        node.update();
+        return node;
+    }
+
+    /** Splits a subtree into the nodes ordered before the given interval and the nodes ordered after it. */
+    private static Node[] split(Node node, long start, int id) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (compare(start, id, node) <= 0) {
+            Node[] halves = split(node.left, start, id);
+            node.left = halves[1];
+            node.update();
+            halves[1] = node;
+            return halves;
+        }
+        Node[] halves = split(node.right, start, id);
+        node.right = halves[0];
+        node.update();
+        halves[0] = node;
+        return halves;
+    }
+
+    /** Joins two subtrees where every node of the first is ordered before every node of the second. */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            first.update();
+            return first;
+        }
+        second.left = merge(first, second.left);
+        second.update();
+        return second;
+    }
+
+    private static void forEachContaining(Node node, long point, IntConsumer idConsumer) {
+        if (node == null || node.maxEnd < point) {
+            return;
+        }
+        forEachContaining(node.left, point, idConsumer);
+        if (node.start > point) {
+            return;
+        }
+        if (node.end >= point) {
+            idConsumer.accept(node.id);
+        }
+        forEachContaining(node.right, point, idConsumer);
+    }
+
+    private static int compare(long start, int id, Node node) {
+        int comparison = Long.compare(start, node.start);
+        return comparison != 0 ? comparison : Integer.compare(id, node.id);
+    }
+
+    /** Interval of one task, together with the latest end of the intervals in its subtree. */
+    private static class Node {
+        private final int id;
+        private final long start;
+        private final long end;
+        private final int priority;
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        Node(int id, long start, long end, int priority) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        void update() {
+            maxEnd = end;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package her.m35.index;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Sorted list of distinct task ids.
+ * Task ids only grow, so ids are usually appended to the end, which takes constant time.
+ */
+public class PostingList {
+
+    /** Ids in ascending order, followed by unused space. */
+    private int[] ids = new int[4];
+
+    /** Number of ids in the list. */
+    private int size = 0;
+
+    /**
+     * Creates a list holding the given ids, which may be in any order and may repeat.
+     * Sorting them once is cheaper than adding them one by one when they are not in ascending order.
+     *
+     * @param unsortedIds Array holding the ids, which is left unchanged.
+     * @param count Number of ids at the start of the array.
+     * @return List of the distinct ids.
+     */
+    public static PostingList fromUnsorted(int[] unsortedIds, int count) {
+        PostingList postingList = new PostingList();
+        int[] sortedIds = Arrays.copyOf(unsortedIds, Math.max(count, 4));
+        Arrays.sort(sortedIds, 0, count);
+        int distinctCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinctCount == 0 || sortedIds[i] != sortedIds[distinctCount - 1]) {
+                sortedIds[distinctCount++] = sortedIds[i];
+            }
+        }
+        postingList.ids = sortedIds;
+        postingList.size = distinctCount;
+        return postingList;
+    }
+
+    /**
+     * Adds an id to the list, keeping the list sorted.
+     * Adding an id which is already in the list does nothing.
+     *
+     * @param id Id to add.
+     * @return True only if the id was not in the list yet.
+     */
+    public boolean add(int id) {
+        if (size > 0 && id <= ids[size - 1]) {
+            int index = indexOf(id);
+            if (index >= 0) {
+                return false;
+            }
+            insertAt(-index - 1, id);
+            return true;
+        }
+        insertAt(size, id);
+        return true;
+    }
+
+    /**
+     * Removes an id from the list.
+     *
+     * @param id Id to remove.
+     * @return True only if the id was in the list.
+     */
+    public boolean remove(int id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Removes the id at the given position of the list.
+     *
+     * @param index Position of the id.
+     * @throws IndexOutOfBoundsException If the position is invalid.
+     */
+    public void removeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Invalid posting index: " + index);
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+    }
+
+    /**
+     * Returns the position of an id in the list, found by binary search.
+     *
+     * @param id Id to look for.
+     * @return Position of the id, or (-(insertion point) - 1) if the id is not in the list.
+     */
+    public int indexOf(int id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    /**
+     * Checks whether an id is in the list.
+     *
+     * @param id Id to look for.
+     * @return True only if the id is in the list.
+     */
+    public boolean contains(int id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Returns the id at the given position of the list.
+     *
+     * @param index Position of the id.
+     * @return Id at the position.
+     * @throws IndexOutOfBoundsException If the position is invalid.
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Invalid posting index: " + index);
+        }
+        return ids[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the ids which are in both this list and another list.
+     *
+     * @param other Other list.
+     * @return New list of the ids in both lists.
+     */
+    public PostingList intersect(PostingList other) {
+        return size <= other.size ? filter(other::contains) : other.filter(this::contains);
+    }
+
+    /**
+     * Returns the ids of this list which satisfy a condition, such as being set in a bitmap.
+     *
+     * @param condition Condition on an id.
+     * @return New list of the ids satisfying the condition.
+     */
+    public PostingList filter(IntPredicate condition) {
+        PostingList filteredList = new PostingList();
+        for (int i = 0; i < size; i++) {
+            if (condition.test(ids[i])) {
+                filteredList.add(ids[i]);
+            }
+        }
+        return filteredList;
+    }
+
+    /** Removes every id from the list. */
+    public void clear() {
+        size = 0;
+    }
+
+    private void insertAt(int index, int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+    }
+}
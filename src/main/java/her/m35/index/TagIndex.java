@@ -0,0 +1,109 @@
+package her.m35.index;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inverted index from every tag to the ids of the tasks which have it.
+ * The ids of deleted tasks may be left in the posting lists as tombstones, so that deleting a task shifts no posting
+ * list. Only the number of tasks having each tag is kept exact, so ids looked up have to be filtered against the ids
+ * still in use, and the tombstones are dropped when every task is indexed again.
+ */
+public class TagIndex {
+
+    /** Ids of the tasks having each tag, and how many of them are not deleted, for tags which a task has. */
+    private final HashMap<String, Entry> entries = new HashMap<>();
+
+    /** Posting list of a tag, with the number of its ids which are not tombstones. */
+    private static class Entry {
+        private final PostingList ids = new PostingList();
+        private int count = 0;
+    }
+
+    /**
+     * Records that a task has a tag.
+     *
+     * @param id Id of the task.
+     * @param tag Tag of the task.
+     */
+    public void add(int id, String tag) {
+        Entry entry = entries.computeIfAbsent(tag, newTag -> new Entry());
+        if (entry.ids.add(id)) {
+            entry.count++;
+        }
+    }
+
+    /**
+     * Records that a task no longer has a tag.
+     *
+     * @param id Id of the task.
+     * @param tag Tag removed from the task.
+     */
+    public void remove(int id, String tag) {
+        Entry entry = entries.get(tag);
+        if (entry != null && entry.ids.remove(id)) {
+            decrementCount(tag, entry);
+        }
+    }
+
+    /**
+     * Records that a task having a tag was deleted, leaving its id in the posting list of the tag as a tombstone.
+     * It is called once for every distinct tag of the task.
+     *
+     * @param tag Tag of the deleted task.
+     */
+    public void removeDeleted(String tag) {
+        Entry entry = entries.get(tag);
+        if (entry != null) {
+            decrementCount(tag, entry);
+        }
+    }
+
+    private void decrementCount(String tag, Entry entry) {
+        entry.count--;
+        if (entry.count == 0) {
+            entries.remove(tag);
+        }
+    }
+
+    /**
+     * Returns the ids of the tasks which have a tag, including those of deleted tasks which are not dropped yet.
+     * The returned list must not be changed.
+     *
+     * @param tag Tag to look up.
+     * @return Ids of the tasks having the tag in ascending order, which is empty if no task has the tag.
+     */
+    public PostingList get(String tag) {
+        Entry entry = entries.get(tag);
+        return entry == null ? new PostingList() : entry.ids;
+    }
+
+    /**
+     * Returns the number of tasks which have a tag, leaving out deleted tasks.
+     *
+     * @param tag Tag to look up.
+     * @return Number of tasks having the tag.
+     */
+    public int getCount(String tag) {
+        Entry entry = entries.get(tag);
+        return entry == null ? 0 : entry.count;
+    }
+
+    /**
+     * Returns every tag together with the number of tasks which have it.
+     *
+     * @return Map from every tag to the number of tasks having it.
+     */
+    public HashMap<String, Integer> getCounts() {
+        HashMap<String, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().count);
+        }
+        return counts;
+    }
+
+    /** Removes every tag from the index. */
+    public void clear() {
+        entries.clear();
+    }
+}
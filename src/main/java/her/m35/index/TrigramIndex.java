@@ -0,0 +1,304 @@
+package her.m35.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import her.m35.task.Task;
+
+/**
+ * Index from every sequence of three characters to the ids of the tasks whose description or tags contain it.
+ * A task can only contain a keyword if it contains every trigram of the keyword, so intersecting the posting lists of
+ * those trigrams gives the few tasks worth checking with {@link Task#containsWord}.
+ * Text is indexed in lower case, the way {@code containsWord} compares it.
+ * Trigrams are packed into longs and kept as the keys of an open-addressing table, so that looking up or adding a
+ * trigram boxes nothing and the table costs twelve bytes per slot rather than a map entry per trigram.
+ */
+public class TrigramIndex {
+
+    /** Length of the sequences of characters indexed. */
+    public static final int GRAM_LENGTH = 3;
+
+    /**
+     * Characters which only a task's type and done icons or the separators between its tags can contribute to a
+     * match, so keywords containing them are not looked up.
+     */
+    private static final String UNINDEXED_CHARACTERS = "[]#,";
+
+    /** Largest share of the slots of the table which may be used before it grows. */
+    private static final double MAX_LOAD = 0.5;
+
+    /** Multiplier spreading the bits of a packed trigram over the slots of the table. */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /** Trigram held in every slot of the table, packed into a long, whose slot count is a power of two. */
+    private long[] trigrams = new long[64];
+
+    /** Ids of the tasks containing the trigram in every slot, or null if the slot is free. */
+    private PostingList[] postingLists = new PostingList[64];
+
+    /** Number of slots used. */
+    private int trigramCount = 0;
+
+    /**
+     * Records the description and tags of a task.
+     *
+     * @param id Id of the task.
+     * @param task Task to record.
+     */
+    public void add(int id, Task task) {
+        for (long trigram : getTrigrams(task)) {
+            getOrAddPostingList(trigram).add(id);
+        }
+    }
+
+    /**
+     * Removes the description and tags of a task.
+     *
+     * @param id Id of the task.
+     * @param task Task to remove, with the same description and tags as when it was last recorded.
+     */
+    public void remove(int id, Task task) {
+        for (long trigram : getTrigrams(task)) {
+            removeTrigram(id, trigram);
+        }
+    }
+
+    /**
+     * Records a tag newly added to a task.
+     *
+     * @param id Id of the task.
+     * @param tag Tag added.
+     */
+    public void addTag(int id, String tag) {
+        for (long trigram : getTrigrams(List.of(tag.toLowerCase()))) {
+            getOrAddPostingList(trigram).add(id);
+        }
+    }
+
+    /**
+     * Removes a tag which a task no longer has, keeping the trigrams the rest of the task still contains.
+     *
+     * @param id Id of the task.
+     * @param task Task the tag was removed from.
+     * @param tag Tag removed.
+     */
+    public void removeTag(int id, Task task, String tag) {
+        long[] taskTrigrams = getTrigrams(task);
+        for (long trigram : getTrigrams(List.of(tag.toLowerCase()))) {
+            if (Arrays.binarySearch(taskTrigrams, trigram) < 0) {
+                removeTrigram(id, trigram);
+            }
+        }
+    }
+
+    /**
+     * Returns an upper bound on the number of tasks containing a keyword, which is the length of the shortest posting
+     * list of its trigrams.
+     *
+     * @param keyword Keyword to look for.
+     * @return Upper bound on the number of tasks containing the keyword, or -1 if the keyword cannot be looked up.
+     */
+    public int getEstimatedCount(String keyword) {
+        ArrayList<PostingList> keywordPostingLists = getPostingLists(keyword);
+        if (keywordPostingLists == null) {
+            return -1;
+        }
+        return keywordPostingLists.isEmpty() ? 0 : keywordPostingLists.get(0).size();
+    }
+
+    /**
+     * Returns the ids of the tasks which may contain a keyword.
+     *
+     * @param keyword Keyword to look for.
+     * @return Ids of every task which may contain the keyword, in ascending order, or null if the keyword is too
+     *     short or holds characters which are not indexed, so every task may contain it.
+     */
+    public PostingList getCandidates(String keyword) {
+        ArrayList<PostingList> keywordPostingLists = getPostingLists(keyword);
+        if (keywordPostingLists == null) {
+            return null;
+        }
+        PostingList candidates = new PostingList();
+        if (keywordPostingLists.isEmpty()) {
+            return candidates;
+        }
+        PostingList shortest = keywordPostingLists.get(0);
+        for (int i = 0; i < shortest.size(); i++) {
+            int id = shortest.get(i);
+            boolean isInEveryList = true;
+            for (int j = 1; j < keywordPostingLists.size() && isInEveryList; j++) {
+                isInEveryList = keywordPostingLists.get(j).contains(id);
+            }
+            if (isInEveryList) {
+                candidates.add(id);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Indicates whether the tasks looked up for a keyword are exactly the tasks containing it, so that they need not
+     * be checked. This holds for a keyword which is a single trigram, as long as the tags searched by
+     * {@code containsWord} are the ones indexed.
+     *
+     * @param keyword Keyword to look for.
+     * @return True only if every candidate of the keyword contains it.
+     */
+    public boolean getIsExact(String keyword) {
+        String lowerCaseKeyword = keyword.toLowerCase();
+        return lowerCaseKeyword.length() == GRAM_LENGTH && getIsIndexable(lowerCaseKeyword) && Task.getTagsIsVisible();
+    }
+
+    /**
+     * Returns the posting lists of every trigram of a keyword, shortest first.
+     *
+     * @return Posting lists of the trigrams, which is empty if a trigram is in no task, or null if the keyword
+     *     cannot be looked up.
+     */
+    private ArrayList<PostingList> getPostingLists(String keyword) {
+        String lowerCaseKeyword = keyword.toLowerCase();
+        if (lowerCaseKeyword.length() < GRAM_LENGTH || !getIsIndexable(lowerCaseKeyword)) {
+            return null;
+        }
+        long[] keywordTrigrams = getTrigrams(List.of(lowerCaseKeyword));
+        ArrayList<PostingList> keywordPostingLists = new ArrayList<>(keywordTrigrams.length);
+        for (long trigram : keywordTrigrams) {
+            PostingList postingList = postingLists[findSlot(trigram)];
+            if (postingList == null) {
+                return new ArrayList<>();
+            }
+            keywordPostingLists.add(postingList);
+        }
+        keywordPostingLists.sort(Comparator.comparingInt(PostingList::size));
+        return keywordPostingLists;
+    }
+
+    /** Returns whether a lower-case keyword holds only characters which are indexed. */
+    private static boolean getIsIndexable(String lowerCaseKeyword) {
+        for (int i = 0; i < UNINDEXED_CHARACTERS.length(); i++) {
+            if (lowerCaseKeyword.indexOf(UNINDEXED_CHARACTERS.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Removes every task from the index. */
+    public void clear() {
+        Arrays.fill(postingLists, null);
+        trigramCount = 0;
+    }
+
+    private void removeTrigram(int id, long trigram) {
+        int slot = findSlot(trigram);
+        PostingList postingList = postingLists[slot];
+        if (postingList == null) {
+            return;
+        }
+        postingList.remove(id);
+        if (postingList.isEmpty()) {
+            removeSlot(slot);
+        }
+    }
+
+    /** Returns the posting list of a trigram, adding an empty one if no task contains the trigram yet. */
+    private PostingList getOrAddPostingList(long trigram) {
+        int slot = findSlot(trigram);
+        if (postingLists[slot] == null) {
+            if (trigramCount + 1 > postingLists.length * MAX_LOAD) {
+                resize(postingLists.length * 2);
+                slot = findSlot(trigram);
+            }
+            trigrams[slot] = trigram;
+            postingLists[slot] = new PostingList();
+            trigramCount++;
+        }
+        return postingLists[slot];
+    }
+
+    /** Returns the slot holding a trigram, or the free slot where it would be added. */
+    private int findSlot(long trigram) {
+        int mask = postingLists.length - 1;
+        int slot = getHomeSlot(trigram, mask);
+        while (postingLists[slot] != null && trigrams[slot] != trigram) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int getHomeSlot(long trigram, int mask) {
+        return (int) ((trigram * HASH_MULTIPLIER) >>> Integer.SIZE) & mask;
+    }
+
+    /**
+     * Frees a slot, moving back the trigrams after it which were placed further from their home slot, so that no
+     * lookup stops early at the freed slot.
+     */
+    private void removeSlot(int slot) {
+        int mask = postingLists.length - 1;
+        int freeSlot = slot;
+        for (int next = (slot + 1) & mask; postingLists[next] != null; next = (next + 1) & mask) {
+            int homeSlot = getHomeSlot(trigrams[next], mask);
+            if (((next - homeSlot) & mask) >= ((next - freeSlot) & mask)) {
+                trigrams[freeSlot] = trigrams[next];
+                postingLists[freeSlot] = postingLists[next];
+                freeSlot = next;
+            }
+        }
+        postingLists[freeSlot] = null;
+        trigramCount--;
+    }
+
+    private void resize(int slotCount) {
+        long[] oldTrigrams = trigrams;
+        PostingList[] oldPostingLists = postingLists;
+        trigrams = new long[slotCount];
+        postingLists = new PostingList[slotCount];
+        for (int i = 0; i < oldPostingLists.length; i++) {
+            if (oldPostingLists[i] != null) {
+                int slot = findSlot(oldTrigrams[i]);
+                trigrams[slot] = oldTrigrams[i];
+                postingLists[slot] = oldPostingLists[i];
+            }
+        }
+    }
+
+    /**
+     * Returns every trigram of the description and tags of a task.
+     * The description follows a space in the text searched by {@code containsWord}, so the space is indexed too.
+     */
+    private static long[] getTrigrams(Task task) {
+        List<String> texts = new ArrayList<>(task.getTags().size() + 1);
+        texts.add((" " + task.getDescription()).toLowerCase());
+        for (String tag : task.getTags()) {
+            texts.add(tag.toLowerCase());
+        }
+        return getTrigrams(texts);
+    }
+
+    /** Returns every distinct trigram of some texts, each packed into a long, in ascending order. */
+    private static long[] getTrigrams(List<String> texts) {
+        int count = 0;
+        for (String text : texts) {
+            count += Math.max(0, text.length() - GRAM_LENGTH + 1);
+        }
+        long[] trigrams = new long[count];
+        int index = 0;
+        for (String text : texts) {
+            for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+                trigrams[index++] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16)
+                        | text.charAt(i + 2);
+            }
+        }
+        Arrays.sort(trigrams);
+        int distinctCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinctCount == 0 || trigrams[i] != trigrams[distinctCount - 1]) {
+                trigrams[distinctCount++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinctCount);
+    }
+}
@@ -0,0 +1,91 @@
+package her.m35.parser;
+
+/**
+ * Reads a find prompt from left to right, one command word or keyword at a time, keeping only its position in the
+ * prompt instead of the rest of the prompt as a new string.
+ * Keywords are taken as they are typed, so they may hold any character.
+ */
+class FindPromptScanner {
+    private final String prompt;
+
+    /** Index after the last character of the prompt which is not whitespace. */
+    private final int trimmedEnd;
+
+    /** Start and end of the part of the prompt not read yet. */
+    private int position = 0;
+    private int end;
+
+    /**
+     * Creates a scanner at the start of a prompt.
+     *
+     * @param prompt Find prompt to read.
+     */
+    FindPromptScanner(String prompt) {
+        this.prompt = prompt;
+        int lastIndex = prompt.length();
+        while (lastIndex > 0 && prompt.charAt(lastIndex - 1) <= ' ') {
+            lastIndex--;
+        }
+        this.trimmedEnd = lastIndex;
+        this.end = prompt.length();
+    }
+
+    boolean hasNext() {
+        return position < end;
+    }
+
+    /**
+     * Returns whether the next part of the prompt is a command word, starting with a slash.
+     *
+     * @return True only if the next character is a slash.
+     */
+    boolean isAtCommandWord() {
+        return prompt.charAt(position) == '/';
+    }
+
+    /**
+     * Reads the command word at the current position, up to the next space, which is skipped.
+     *
+     * @return Command word without its leading slash.
+     */
+    String nextCommandWord() {
+        assert isAtCommandWord();
+        int space = prompt.indexOf(' ', position);
+        if (space == -1 || space >= end) {
+            String commandWord = prompt.substring(position + 1, end);
+            position = end;
+            return commandWord;
+        }
+        String commandWord = prompt.substring(position + 1, space);
+        position = space + 1;
+        return commandWord;
+    }
+
+    /**
+     * Reads everything up to the next slash, or up to the end of the prompt if there is none.
+     *
+     * @return Text read, without leading and trailing whitespace.
+     */
+    String nextKeyword() {
+        int slash = prompt.indexOf('/', position);
+        if (slash == -1 || slash >= end) {
+            String keyword = trim(position, end);
+            position = end;
+            return keyword;
+        }
+        String keyword = trim(position, slash);
+        position = slash;
+        end = trimmedEnd;
+        return keyword;
+    }
+
+    private String trim(int start, int stop) {
+        while (start < stop && prompt.charAt(start) <= ' ') {
+            start++;
+        }
+        while (stop > start && prompt.charAt(stop - 1) <= ' ') {
+            stop--;
+        }
+        return prompt.substring(start, stop);
+    }
+}
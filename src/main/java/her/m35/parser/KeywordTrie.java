@@ -0,0 +1,55 @@
+package her.m35.parser;
+
+/**
+ * Trie of lower-case keywords, which finds the value of a keyword held in part of a string without taking it out as
+ * a substring.
+ *
+ * @param <V> Type of the values of the keywords.
+ */
+class KeywordTrie<V> {
+    private static final int ALPHABET_SIZE = 'z' - 'a' + 1;
+
+    private final Node<V> root = new Node<>();
+
+    private static class Node<V> {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private final Node<V>[] children = new Node[ALPHABET_SIZE];
+        private V value;
+    }
+
+    /**
+     * Adds a keyword, replacing its value if it was already added.
+     *
+     * @param keyword Keyword made only of lower-case letters.
+     * @param value Value of the keyword.
+     */
+    void put(String keyword, V value) {
+        Node<V> node = root;
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            assert c >= 'a' && c <= 'z' : "Keywords are made of lower-case letters";
+            if (node.children[c - 'a'] == null) {
+                node.children[c - 'a'] = new Node<>();
+            }
+            node = node.children[c - 'a'];
+        }
+        node.value = value;
+    }
+
+    /**
+     * Returns the value of the keyword which is exactly the given part of a string.
+     *
+     * @param string String holding the keyword.
+     * @param start Index of the first character of the keyword.
+     * @param end Index after the last character of the keyword.
+     * @return Value of the keyword, or null if the part of the string is not a keyword.
+     */
+    V get(String string, int start, int end) {
+        Node<V> node = root;
+        for (int i = start; i < end && node != null; i++) {
+            char c = string.charAt(i);
+            node = c >= 'a' && c <= 'z' ? node.children[c - 'a'] : null;
+        }
+        return node == null ? null : node.value;
+    }
+}
@@ -2,6 +2,8 @@ package her.m35.parser;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 import her.m35.TaskList;
 import her.m35.command.AddTaskCommand;
@@ -27,8 +29,35 @@ import her.m35.task.ToDoTask;
 /**
  * Handles parsing of user input into information for the chatbot.
  * Contains methods to convert strings into other variable types such as integer.
+ * The command word is looked up in a keyword trie without taking it out of the input, and tags are split and checked
+ * without compiling a regular expression for every command.
  */
 public class Parser {
+    /** Separator between the tags of a new task. */
+    private static final Pattern TAG_SEPARATOR = Pattern.compile(" #", Pattern.LITERAL);
+
+    /** Parser of the arguments of every command word, given null if the command word is not followed by a space. */
+    private static final KeywordTrie<Function<String, Command>> COMMANDS = new KeywordTrie<>();
+
+    static {
+        COMMANDS.put("quote", Parser::parseQuoteCommand);
+        COMMANDS.put("mark", Parser::parseMarkCommand);
+        COMMANDS.put("unmark", Parser::parseUnmarkCommand);
+        COMMANDS.put("list", Parser::parseListCommand);
+        COMMANDS.put("bye", Parser::parseByeCommand);
+        COMMANDS.put("delete", Parser::parseDeleteCommand);
+        COMMANDS.put("clear", Parser::parseClearCommand);
+        COMMANDS.put("todo", Parser::parseTodoCommand);
+        COMMANDS.put("deadline", Parser::parseDeadlineCommand);
+        COMMANDS.put("event", Parser::parseEventCommand);
+        COMMANDS.put("tag", Parser::parseTagCommand);
+        COMMANDS.put("untag", Parser::parseUntagCommand);
+        COMMANDS.put("tags", Parser::parseTagsCommand);
+        COMMANDS.put("find", Parser::parseFindCommand);
+        COMMANDS.put("explain", Parser::parseExplainCommand);
+        COMMANDS.put("help", Parser::parseHelpCommand);
+    }
+
     /**
      * Parses user input and outputs the corresponding Command.
      * @param input User input to be parsed
@@ -43,90 +72,78 @@ public class Parser {
         default:
             break;
         }
-        String[] tokens = input.split(" ", 2);
-        return switch (tokens[0]) {
-        case "quote" -> parseQuoteCommand(tokens);
-        case "mark" -> parseMarkCommand(tokens);
-        case "unmark" -> parseUnmarkCommand(tokens);
-        case "list" -> parseListCommand(tokens);
-        case "bye" -> parseByeCommand(tokens);
-        case "delete" -> parseDeleteCommand(tokens);
-        case "clear" -> parseClearCommand(tokens);
-        case "todo" -> parseTodoCommand(tokens);
-        case "deadline" -> parseDeadlineCommand(tokens);
-        case "event" -> parseEventCommand(tokens);
-        case "tag" -> parseTagCommand(tokens);
-        case "untag" -> parseUntagCommand(tokens);
-        case "tags" -> parseTagsCommand(tokens);
-        case "find" -> parseFindCommand(tokens);
-        case "help" -> parseHelpCommand(tokens);
-        default -> new MessageCommand(
-                "Error: Unknown command, please try again.\nType \"help\" to see the available commands.");
-        };
+        int commandEnd = input.indexOf(' ');
+        Function<String, Command> commandParser =
+                COMMANDS.get(input, 0, commandEnd == -1 ? input.length() : commandEnd);
+        if (commandParser == null) {
+            return new MessageCommand(
+                    "Error: Unknown command, please try again.\nType \"help\" to see the available commands.");
+        }
+        return commandParser.apply(commandEnd == -1 ? null : input.substring(commandEnd + 1));
     }
 
-    private static Command parseQuoteCommand(String[] tokens) {
-        if (tokens.length > 1) {
+    private static Command parseQuoteCommand(String arguments) {
+        if (arguments != null) {
             return new MessageCommand("Error: Unknown command, please try again. (Did you mean \"quote\"?)");
         }
         return new QuoteCommand();
     }
 
-    private static Command parseMarkCommand(String[] tokens) {
-        if (tokens.length < 2) {
+    private static Command parseMarkCommand(String arguments) {
+        if (arguments == null) {
             return new MessageCommand("Error: Task index not given.");
         }
-        return new MarkCommand(tokens[1], true);
+        return new MarkCommand(arguments, true);
     }
 
-    private static Command parseUnmarkCommand(String[] tokens) {
-        if (tokens.length < 2) {
+    private static Command parseUnmarkCommand(String arguments) {
+        if (arguments == null) {
             return new MessageCommand("Error: Task index not given.");
         }
-        return new MarkCommand(tokens[1], false);
+        return new MarkCommand(arguments, false);
     }
 
-    private static Command parseListCommand(String[] tokens) {
-        if (tokens.length > 1) {
+    private static Command parseListCommand(String arguments) {
+        if (arguments != null) {
             return new MessageCommand("Error: Unknown command, please try again. (Did you mean \"list\"?)");
         } else {
             return new ListCommand();
         }
     }
 
-    private static Command parseByeCommand(String[] tokens) {
-        if (tokens.length > 1) {
+    private static Command parseByeCommand(String arguments) {
+        if (arguments != null) {
             return new MessageCommand("Error: Unknown command, please try again. (Did you mean \"bye\"?)");
         } else {
             return new ExitCommand();
         }
     }
 
-    private static Command parseDeleteCommand(String[] tokens) {
-        if (tokens.length < 2) {
+    private static Command parseDeleteCommand(String arguments) {
+        if (arguments == null) {
             return new MessageCommand("Error: Task name not given.");
         }
-        return new DeleteCommand(tokens[1]);
+        return new DeleteCommand(arguments);
     }
 
-    private static Command parseClearCommand(String[] tokens) {
-        if (tokens.length > 1) {
+    private static Command parseClearCommand(String arguments) {
+        if (arguments != null) {
             return new MessageCommand("Error: Unknown command, please try again. (Did you mean \"clear\"?)");
         } else {
             return new ClearCommand();
         }
     }
 
-    private static Command parseTodoCommand(String[] tokens) {
-        if (tokens.length < 2) {
+    private static Command parseTodoCommand(String arguments) {
+        if (arguments == null) {
             return new MessageCommand("Error: Task name not given.");
         }
-        String[] todoTaskTokens = tokens[1].split(" #");
+        String[] todoTaskTokens = TAG_SEPARATOR.split(arguments);
         if (todoTaskTokens.length == 1) {
-            return new AddTaskCommand(new ToDoTask(tokens[1]));
+            return new AddTaskCommand(new ToDoTask(arguments));
         }
         for (int i = 1; i < todoTaskTokens.length; i++) {
-            if (!todoTaskTokens[i].matches("[a-zA-Z0-9]+")) {
+            if (!isAlphanumeric(todoTaskTokens[i])) {
                 return new MessageCommand(
                         String.format("Error: Tags need to be strictly alphanumeric. (%s)", todoTaskTokens[i]));
             }
@@ -137,27 +154,27 @@ public class Parser {
                         Arrays.copyOfRange(todoTaskTokens, 1, todoTaskTokens.length)));
     }
 
-    private static Command parseDeadlineCommand(String[] tokens) {
-        if (tokens.length < 2) {
+    private static Command parseDeadlineCommand(String arguments) {
+        if (arguments == null) {
             return new MessageCommand("Error: Task name not given.");
         }
-        if (!tokens[1].contains("/by")) {
+        if (!arguments.contains("/by")) {
             return new MessageCommand("Error: Please state the deadline, denoted with \" /by \".");
         }
-        if (tokens[1].startsWith("/by")) {
+        if (arguments.startsWith("/by")) {
             return new MessageCommand("Error: Task name not given.");
         }
-        String[] deadlineTaskTokens = tokens[1].split(" /by ", 2);
+        String[] deadlineTaskTokens = splitOnce(arguments, " /by ");
         if (deadlineTaskTokens.length < 2) {
             return new MessageCommand("Error: Please state the deadline, denoted with \" /by \".");
         }
-        String[] deadlineTagTokens = deadlineTaskTokens[1].split(" #");
+        String[] deadlineTagTokens = TAG_SEPARATOR.split(deadlineTaskTokens[1]);
         if (deadlineTagTokens.length == 1) {
             return new AddTaskCommand(
                     new DeadlineTask(deadlineTaskTokens[0], TimePointParser.toTimePoint(deadlineTaskTokens[1])));
         }
         for (int i = 1; i < deadlineTagTokens.length; i++) {
-            if (!deadlineTagTokens[i].matches("[a-zA-Z0-9]+")) {
+            if (!isAlphanumeric(deadlineTagTokens[i])) {
                 return new MessageCommand(
                         String.format("Error: Tags need to be strictly alphanumeric. (%s)", deadlineTagTokens[i]));
             }
@@ -169,17 +186,17 @@ public class Parser {
                         Arrays.copyOfRange(deadlineTagTokens, 1, deadlineTagTokens.length)));
     }
 
-    private static Command parseEventCommand(String[] tokens) {
-        if (tokens.length < 2) {
+    private static Command parseEventCommand(String arguments) {
+        if (arguments == null) {
             return new MessageCommand("Error: Task name not given.");
         }
-        if (!tokens[1].contains("/from")) {
+        if (!arguments.contains("/from")) {
             return new MessageCommand("Error: Please state when the event begins, denoted with \" /from \".");
         }
-        if (tokens[1].startsWith("/from")) {
+        if (arguments.startsWith("/from")) {
             return new MessageCommand("Error: Task name not given.");
         }
-        String[] eventTaskTokens = tokens[1].split(" /from ", 2);
+        String[] eventTaskTokens = splitOnce(arguments, " /from ");
         if (eventTaskTokens.length < 2) {
             return new MessageCommand("Error: Please state when the event begins, denoted with \" /from \".");
         }
@@ -189,11 +206,11 @@ public class Parser {
         if (eventTaskTokens[1].startsWith("/to")) {
             return new MessageCommand("Error: Please state when the event begins, denoted with \" /from \".\"");
         }
-        String[] eventPeriodTokens = eventTaskTokens[1].split(" /to ", 2);
+        String[] eventPeriodTokens = splitOnce(eventTaskTokens[1], " /to ");
         if (eventPeriodTokens.length < 2) {
             return new MessageCommand("Error: Please state when the event ends, denoted with \" /to \".");
         }
-        String[] eventTagTokens = eventPeriodTokens[1].split(" #");
+        String[] eventTagTokens = TAG_SEPARATOR.split(eventPeriodTokens[1]);
         if (eventTagTokens.length == 1) {
             return new AddTaskCommand(
                     new EventTask(eventTaskTokens[0],
@@ -201,7 +218,7 @@ public class Parser {
                             TimePointParser.toTimePoint(eventPeriodTokens[1])));
         }
         for (int i = 1; i < eventTagTokens.length; i++) {
-            if (!eventTagTokens[i].matches("[a-zA-Z0-9]+")) {
+            if (!isAlphanumeric(eventTagTokens[i])) {
                 return new MessageCommand(String.format("Error: Tags need to be strictly alphanumeric. (%s)",
                         eventTagTokens[i]));
             }
@@ -212,11 +229,11 @@ public class Parser {
                 Arrays.copyOfRange(eventTagTokens, 1, eventTagTokens.length)));
     }
 
-    private static Command parseTagCommand(String[] tokens) {
-        if (tokens.length < 2) {
+    private static Command parseTagCommand(String arguments) {
+        if (arguments == null) {
             return new MessageCommand("Error: Task index not given.");
         }
-        String[] tagTokens = tokens[1].split(" ");
+        String[] tagTokens = arguments.split(" ");
         if (tagTokens.length == 1) {
             return new MessageCommand("Error: Tags not given.");
         }
@@ -226,7 +243,7 @@ public class Parser {
                 return new MessageCommand("Error: Notate new tags with # sign.");
             }
             String tag = tagTokens[i].substring(1);
-            if (!tag.matches("[a-zA-Z0-9]+")) {
+            if (!isAlphanumeric(tag)) {
                 return new MessageCommand(String.format("Error: Tags need to be strictly alphanumeric. (%s)", tag));
             }
             tags[i - 1] = tag;
@@ -234,11 +251,11 @@ public class Parser {
         return new TagCommand(tagTokens[0], tags);
     }
 
-    private static Command parseUntagCommand(String[] tokens) {
-        if (tokens.length < 2) {
+    private static Command parseUntagCommand(String arguments) {
+        if (arguments == null) {
             return new MessageCommand("Error: Task index not given.");
         }
-        String[] untagTokens = tokens[1].split(" ");
+        String[] untagTokens = arguments.split(" ");
         if (untagTokens.length == 1) {
             return new ClearTagsCommand(untagTokens[0]);
         }
@@ -248,7 +265,7 @@ public class Parser {
                 return new MessageCommand("Error: Notate tags to remove with # sign.");
             }
             String tag = untagTokens[i].substring(1);
-            if (!tag.matches("[a-zA-Z0-9]+")) {
+            if (!isAlphanumeric(tag)) {
                 return new MessageCommand(String.format("Error: Tags need to be strictly alphanumeric. (%s)", tag));
             }
             untags[i - 1] = tag;
@@ -256,11 +273,11 @@ public class Parser {
         return new UntagCommand(untagTokens[0], untags);
     }
 
-    private static Command parseHelpCommand(String[] tokens) {
-        if (tokens.length < 2) {
+    private static Command parseHelpCommand(String arguments) {
+        if (arguments == null) {
             return new HelpCommand(HelpCommand.Section.BASIC_HELP);
         }
-        return switch (tokens[1]) {
+        return switch (arguments) {
         case "edit" -> new HelpCommand(HelpCommand.Section.EDITING_TASK);
         case "find" -> new HelpCommand(HelpCommand.Section.FINDING_TASKS);
         case "customisation" -> new HelpCommand(HelpCommand.Section.CUSTOMISATION);
@@ -268,22 +285,30 @@ public class Parser {
         };
     }
 
-    private static Command parseTagsCommand(String[] tokens) {
-        if (tokens.length > 1) {
+    private static Command parseTagsCommand(String arguments) {
+        if (arguments != null) {
             return new MessageCommand("Error: Unknown command, please try again. (Did you mean \"tags\"?)");
         }
         return new ListTagsCommand();
     }
 
-    private static Command parseFindCommand(String[] tokens) {
-        if (tokens.length < 2) {
+    private static Command parseFindCommand(String arguments) {
+        if (arguments == null) {
+            return new MessageCommand("Error: Search prompt not given.");
+        }
+        return new FindCommand(arguments);
+    }
+
+    private static Command parseExplainCommand(String arguments) {
+        if (arguments == null) {
             return new MessageCommand("Error: Search prompt not given.");
         }
-        return new FindCommand(tokens[1]);
+        return new FindCommand(arguments, true);
     }
 
     /**
      * Parses a prompt into ArrayLists of filter conditions and keywords for the FindCommand.
+     * The prompt is read once from left to right, and keywords are taken as typed, so they may hold any character.
      * @param findPrompt Prompt to be parsed.
      * @param filterConditions ArrayList to store filter conditions.
      * @param keywords ArrayList to store keywords.
@@ -295,75 +320,52 @@ public class Parser {
             ArrayList<String> keywords) throws Exception {
         filterConditions.clear();
         keywords.clear();
-        String remainingPrompt = findPrompt;
-        while (!remainingPrompt.isEmpty()) {
-            if (remainingPrompt.startsWith("/")) {
-                String[] promptTokens = remainingPrompt.split(" ", 2);
-                String commandWord = promptTokens[0].replaceFirst("/", "");
-                if (promptTokens.length > 1) {
-                    remainingPrompt = promptTokens[1];
-                } else {
-                    remainingPrompt = "";
-                }
-                switch (commandWord) {
-                case "done":
-                    appendConditions(filterConditions, TaskList.FilterCondition.IS_MARKED, keywords, "");
-                    break;
-                case "todo":
-                    appendConditions(filterConditions, TaskList.FilterCondition.IS_UNMARKED, keywords, "");
-                    break;
-                case "on":
-                    filterConditions.add(TaskList.FilterCondition.ON_DATE);
-                    remainingPrompt = addNextKeyword(remainingPrompt, keywords);
-                    break;
-                case "before":
-                    filterConditions.add(TaskList.FilterCondition.BEFORE);
-                    remainingPrompt = addNextKeyword(remainingPrompt, keywords);
-                    break;
-                case "after":
-                    filterConditions.add(TaskList.FilterCondition.AFTER);
-                    remainingPrompt = addNextKeyword(remainingPrompt, keywords);
-                    break;
-                case "type":
-                    filterConditions.add(TaskList.FilterCondition.OF_TYPE);
-                    remainingPrompt = addNextKeyword(remainingPrompt, keywords);
-                    break;
-                case "contains":
-                    filterConditions.add(TaskList.FilterCondition.KEYWORD);
-                    remainingPrompt = addNextKeyword(remainingPrompt, keywords);
-                    break;
-                case "tag":
-                    int endIndex = remainingPrompt.indexOf("/");
-                    String tagsString;
-                    if (endIndex != -1) {
-                        tagsString = remainingPrompt.substring(0, endIndex).trim();
-                        remainingPrompt = remainingPrompt.replaceFirst(tagsString, "").trim();
-                    } else {
-                        tagsString = remainingPrompt.trim();
-                        remainingPrompt = "";
+        FindPromptScanner scanner = new FindPromptScanner(findPrompt);
+        while (scanner.hasNext()) {
+            if (!scanner.isAtCommandWord()) {
+                appendConditions(filterConditions, TaskList.FilterCondition.KEYWORD, keywords, scanner.nextKeyword());
+                continue;
+            }
+            String commandWord = scanner.nextCommandWord();
+            switch (commandWord) {
+            case "done":
+                appendConditions(filterConditions, TaskList.FilterCondition.IS_MARKED, keywords, "");
+                break;
+            case "todo":
+                appendConditions(filterConditions, TaskList.FilterCondition.IS_UNMARKED, keywords, "");
+                break;
+            case "on":
+                appendConditions(filterConditions, TaskList.FilterCondition.ON_DATE, keywords, scanner.nextKeyword());
+                break;
+            case "before":
+                appendConditions(filterConditions, TaskList.FilterCondition.BEFORE, keywords, scanner.nextKeyword());
+                break;
+            case "after":
+                appendConditions(filterConditions, TaskList.FilterCondition.AFTER, keywords, scanner.nextKeyword());
+                break;
+            case "type":
+                appendConditions(filterConditions, TaskList.FilterCondition.OF_TYPE, keywords, scanner.nextKeyword());
+                break;
+            case "contains":
+                appendConditions(filterConditions, TaskList.FilterCondition.KEYWORD, keywords, scanner.nextKeyword());
+                break;
+            case "tag":
+                String[] tags = scanner.nextKeyword().split(" ");
+                for (String tag : tags) {
+                    if (!tag.startsWith("#")) {
+                        throw new Exception("Error: Notate tags with a # sign.");
                     }
-                    String[] tags = tagsString.split(" ");
-                    for (String tag : tags) {
-                        if (!tag.startsWith("#")) {
-                            throw new Exception("Error: Notate tags with a # sign.");
-                        }
-                        String keyword = tag.substring(1);
-                        if (!keyword.matches("[a-zA-Z0-9]+")) {
-                            throw new Exception(
-                                    String.format("Error: Tags need to be strictly alphanumeric. (%s)", keyword));
-                        }
-                        filterConditions.add(TaskList.FilterCondition.TAG);
-                        keywords.add(keyword);
+                    String keyword = tag.substring(1);
+                    if (!isAlphanumeric(keyword)) {
+                        throw new Exception(
+                                String.format("Error: Tags need to be strictly alphanumeric. (%s)", keyword));
                     }
-                    break;
-                default:
-                    filterConditions.add(TaskList.FilterCondition.ERROR_CONDITION);
-                    keywords.add(commandWord);
-                    break;
+                    appendConditions(filterConditions, TaskList.FilterCondition.TAG, keywords, keyword);
                 }
-            } else {
-                filterConditions.add(TaskList.FilterCondition.KEYWORD);
-                remainingPrompt = addNextKeyword(remainingPrompt, keywords);
+                break;
+            default:
+                appendConditions(filterConditions, TaskList.FilterCondition.ERROR_CONDITION, keywords, commandWord);
+                break;
             }
         }
     }
@@ -378,40 +380,70 @@ public class Parser {
     }
 
     /**
-     * Helper function to add split a prompt string into the next keyword and the following command, then add the
-     * keyword to the list of keywords.
+     * Splits a string around the first occurrence of a separator, like {@link String#split(String, int)} with a
+     * limit of 2 and a separator which holds no special characters.
      *
-     * @param remainingPrompt Prompt string to be processed
-     * @param keywords List of keywords to add the next keyword to.
-     * @return Remainder prompt, containing the next segment of commands, if any.
+     * @param string String to split.
+     * @param separator Separator to split around.
+     * @return The string alone if it does not contain the separator, else the parts before and after the separator.
      */
-    private static String addNextKeyword(String remainingPrompt, ArrayList<String> keywords) {
-        int endIndex = remainingPrompt.indexOf("/");
-        if (endIndex != -1) {
-            String newKeyword = remainingPrompt.substring(0, endIndex).trim();
-            keywords.add(newKeyword);
-            return remainingPrompt.replaceFirst(newKeyword, "").trim();
-        } else {
-            keywords.add(remainingPrompt.trim());
-            return "";
+    private static String[] splitOnce(String string, String separator) {
+        int separatorIndex = string.indexOf(separator);
+        if (separatorIndex == -1) {
+            return new String[] {string};
         }
+        return new String[] {
+            string.substring(0, separatorIndex), string.substring(separatorIndex + separator.length()),
+        };
     }
 
     /**
-     * Checks whether a given string can be parsed as an integer.
+     * Checks whether a string is a valid tag, made of at least one ASCII letter or digit and nothing else.
+     *
+     * @param str String to be checked.
+     * @return true only if the string is strictly alphanumeric.
+     */
+    private static boolean isAlphanumeric(String str) {
+        if (str.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z') && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a given string can be parsed as an integer by {@link Integer#parseInt(String)}.
+     * The digits are checked directly, as throwing an exception for every other string is slow.
      *
      * @param str String to be checked.
      * @return true if the string represents an integer, false otherwise.
      */
     public static boolean isInteger(String str) {
-        if (str == null) {
+        if (str == null || str.isEmpty()) {
             return false;
         }
-        try {
-            Integer.parseInt(str);
-        } catch (NumberFormatException e) {
+        boolean isNegative = str.charAt(0) == '-';
+        int start = isNegative || str.charAt(0) == '+' ? 1 : 0;
+        if (start == str.length()) {
             return false;
         }
+        long limit = isNegative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (int i = start; i < str.length(); i++) {
+            int digit = Character.digit(str.charAt(i), 10);
+            if (digit < 0) {
+                return false;
+            }
+            value = value * 10 + digit;
+            if (value > limit) {
+                return false;
+            }
+        }
         return true;
     }
 
@@ -0,0 +1,94 @@
+package her.m35.parser;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import her.m35.TimePoint;
+
+/**
+ * Dates which words such as "tomorrow" or "fri" stand for on one calendar day, written as strings which can be
+ * parsed again.
+ * A table is computed once per day and never changed, so every parse on that day can share it.
+ */
+final class RelativeDateTable {
+
+    /** Day the table was computed for. */
+    private final LocalDate today;
+
+    /** Start of the day and start of the next day, in milliseconds since the epoch. */
+    private final long dayStartMillis;
+    private final long nextDayStartMillis;
+
+    /** Date string of every group of relative words, in the order the groups are replaced. */
+    private final String[] dateStrings;
+
+    private RelativeDateTable(Clock clock) {
+        today = LocalDate.now(clock);
+        dayStartMillis = today.atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        nextDayStartMillis = today.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        LocalDate[] days = {
+            today,
+            today.plusDays(1),
+            today.plusDays(7),
+            today.with(TemporalAdjusters.next(DayOfWeek.MONDAY)),
+            today.with(TemporalAdjusters.next(DayOfWeek.TUESDAY)),
+            today.with(TemporalAdjusters.next(DayOfWeek.WEDNESDAY)),
+            today.with(TemporalAdjusters.next(DayOfWeek.THURSDAY)),
+            today.with(TemporalAdjusters.next(DayOfWeek.FRIDAY)),
+            today.with(TemporalAdjusters.next(DayOfWeek.SATURDAY)),
+            today.with(TemporalAdjusters.next(DayOfWeek.SUNDAY)),
+        };
+        dateStrings = new String[days.length];
+        for (int i = 0; i < days.length; i++) {
+            dateStrings[i] = dateToString(days[i]);
+        }
+    }
+
+    /**
+     * Computes the table for the current day of a clock.
+     *
+     * @param clock Clock giving the current day.
+     * @return Table for the current day.
+     */
+    static RelativeDateTable of(Clock clock) {
+        return new RelativeDateTable(clock);
+    }
+
+    /**
+     * Returns whether the current time of a clock still falls on the day of the table.
+     *
+     * @param clock Clock giving the current time, in the same time zone the table was computed in.
+     * @return True only if the table can still be used.
+     */
+    boolean isCurrent(Clock clock) {
+        long now = clock.millis();
+        return now >= dayStartMillis && now < nextDayStartMillis;
+    }
+
+    LocalDate getToday() {
+        return today;
+    }
+
+    /**
+     * Returns the date string which a group of relative words is replaced with.
+     *
+     * @param group Index of the group of words.
+     * @return Date string, such as "20-Oct-2026".
+     */
+    String getDateString(int group) {
+        return dateStrings[group];
+    }
+
+    /**
+     * Helper function which converts a LocalDate to a string which can be parsed by the TimePointParser toTimePoint
+     * method.
+     * @param date Date to be converted to a string.
+     * @return String representation of the given date.
+     */
+    private static String dateToString(LocalDate date) {
+        return String.format(
+                "%d-%s-%d", date.getDayOfMonth(), TimePoint.MTHS[date.getMonthValue() - 1], date.getYear());
+    }
+}
@@ -1,16 +1,23 @@
 package her.m35.parser;
 
+import java.time.Clock;
 import java.time.DateTimeException;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import her.m35.TimePoint;
 
 /**
  * Handles parsing of user input into TimePoint objects specifically.
  * Contains methods to convert strings into TimePoint objects and checking validity of conversion.
+ * A string is split at its first separators in a single scan, and every piece is parsed at most once as each kind of
+ * parameter, so trying every valid format only looks up the values already parsed.
+ * Parsed strings are cached, as the same dates appear many times in a task file. Results which depend on the current
+ * day, through a relative word or a missing year, are only reused on the day they were parsed.
  */
 public class TimePointParser {
     private enum TimeParameter { YEAR, MONTH, DAY, TIME }
@@ -21,8 +28,87 @@ public class TimePointParser {
         "T/D/M/Y", "T/M/D/Y", "T/Y/M/D", "T/Y/D/M", "D/M/Y/T", "M/D/Y/T", "Y/M/D/T", "Y/D/M/T",
     };
 
+    /** Parameters of every valid time format, in the order the formats are tried. */
+    private static final TimeParameter[][] FORMAT_PARAMETERS = new TimeParameter[VALID_TIME_FORMATS.length][];
+
+    static {
+        for (int i = 0; i < VALID_TIME_FORMATS.length; i++) {
+            FORMAT_PARAMETERS[i] = splitTimePointFormatString(VALID_TIME_FORMATS[i]);
+        }
+    }
+
+    /** Largest number of parameters in a format. */
+    private static final int MAX_PARAMETER_COUNT = 4;
+
     private static final char[] VALID_SEPARATOR_WILDCARDS = {'/', ' ', '-', '\\'};
 
+    /** Words for days relative to today, in the order they are replaced, grouped by the day they stand for. */
+    private static final String[][] RELATIVE_WORDS = {
+        {"TODAY", "TDY"},
+        {"TOMORROW", "TMRW", "TMR"},
+        {"NEXT WEEK"},
+        {"MONDAY", "MON"},
+        {"TUESDAY", "TUES", "TUE"},
+        {"WEDNESDAY", "WED"},
+        {"THURSDAY", "THURS", "THUR", "THU"},
+        {"FRIDAY", "FRI"},
+        {"SATURDAY", "SAT"},
+        {"SUNDAY", "SUN"},
+    };
+
+    /** Largest number of parsed strings kept. */
+    public static final int CACHE_SIZE = 4096;
+
+    /** Parsed strings by string, least recently used first. */
+    private static final LinkedHashMap<String, CachedTimePoint> CACHE = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedTimePoint> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /** Numbers of parses answered from the cache and parses which had to be done, guarded by the cache. */
+    private static long cacheHits = 0;
+    private static long cacheMisses = 0;
+
+    /** Clock giving the current day, which relative words and missing years depend on. */
+    private static volatile Clock clock = Clock.systemDefaultZone();
+
+    /** Relative dates of the current day, shared by every parse and replaced on the first parse of a new day. */
+    private static final AtomicReference<RelativeDateTable> RELATIVE_DATES = new AtomicReference<>();
+
+    /**
+     * Sets the clock giving the current day, so that relative words can be parsed as of any day.
+     * @param newClock Clock to use from now on.
+     */
+    public static void setClock(Clock newClock) {
+        clock = newClock;
+        RELATIVE_DATES.set(null);
+    }
+
+    /**
+     * Returns the current day of the clock used for parsing.
+     * @return Today's date.
+     */
+    public static LocalDate getToday() {
+        return getRelativeDates().getToday();
+    }
+
+    /**
+     * Returns the relative dates of the current day, computing them only on the first call of a day.
+     * @return Relative dates of the current day.
+     */
+    private static RelativeDateTable getRelativeDates() {
+        Clock currentClock = clock;
+        RelativeDateTable table = RELATIVE_DATES.get();
+        if (table != null && table.isCurrent(currentClock)) {
+            return table;
+        }
+        RelativeDateTable newTable = RelativeDateTable.of(currentClock);
+        RELATIVE_DATES.compareAndSet(table, newTable);
+        return newTable;
+    }
+
     /**
      * Converts a string into a TimePoint object.
      * @param timeString String that represents time to be converted.
@@ -32,202 +118,225 @@ public class TimePointParser {
         if (timeString == null || timeString.isEmpty()) {
             return null;
         }
-        String timeStringCopy = parseFlexibleTime(timeString);
-
-        TimePoint result;
-        for (String format : VALID_TIME_FORMATS) {
-            result = toTimePoint(timeStringCopy, format);
-            if (result != null) {
-                return result;
+        RelativeDateTable table = getRelativeDates();
+        synchronized (CACHE) {
+            CachedTimePoint cached = CACHE.get(timeString);
+            if (cached != null && (cached.day == null || cached.day == table)) {
+                cacheHits++;
+                return cached.timePoint;
             }
+            cacheMisses++;
         }
-        return new TimePoint(timeString);
-    }
-
-    /**
-     * Converts a string into a TimePoint object with a given format.
-     * @param timeString String that represents time to be converted.
-     * @param format Format for timeString to be parsed in.
-     * @return Time as a TimePoint object.
-     */
-    private static TimePoint toTimePoint(String timeString, String format) {
-        assert(timeString != null && !timeString.isEmpty());
-        assert(format != null && !format.isEmpty());
-        TimeParameter[] parameters = splitTimePointFormatString(format);
-        assert(parameters != null);
-        int parameterCount = parameters.length;
-        String[] parameterStrings = separateTimeString(timeString, parameterCount);
-        if (parameterStrings == null) {
-            return null;
+        String timeStringCopy = timeString.trim().toUpperCase();
+        boolean isRelative = containsRelativeWord(timeStringCopy);
+        if (isRelative) {
+            timeStringCopy = parseFlexibleTime(timeStringCopy, table);
         }
-        TimeParametersBundle parsedParameters = parseParameters(parameterStrings, parameters);
-        if (parsedParameters == null) {
-            return null;
+        TimePieces pieces = new TimePieces(timeStringCopy);
+        TimePoint result = toTimePoint(pieces, table);
+        if (result == null) {
+            result = new TimePoint(timeString);
         }
-        if (!format.contains("Y")) {
-            parsedParameters.setYear(LocalDate.now().getYear());
+        synchronized (CACHE) {
+            CACHE.put(timeString, new CachedTimePoint(result,
+                    isRelative || pieces.isUsingCurrentYear ? table : null));
         }
-        if (parsedParameters.getTime() == -1) {
-            LocalDate date = tryCreateDate(parsedParameters);
-            if (date != null) {
-                return new TimePoint(date);
-            }
-            return null;
+        return result;
+    }
+
+    public static long getCacheHits() {
+        synchronized (CACHE) {
+            return cacheHits;
         }
-        LocalDateTime dateTime = tryCreateDateTime(parsedParameters);
-        if (dateTime != null) {
-            return new TimePoint(dateTime);
+    }
+
+    public static long getCacheMisses() {
+        synchronized (CACHE) {
+            return cacheMisses;
         }
-        return null;
     }
 
-    private static String parseFlexibleTime(String timeString) {
-        String timeStringCopy = timeString.trim().toUpperCase();
-        timeStringCopy = Parser.replaceStringWithArraySelection(
-                timeStringCopy, new String[] {"TODAY", "TDY"}, dateToString(LocalDate.now()));
-        String tomorrowDateString = dateToString(LocalDate.now().plusDays(1));
-        timeStringCopy = Parser.replaceStringWithArraySelection(
-                timeStringCopy, new String[] {"TOMORROW", "TMRW", "TMR"}, tomorrowDateString);
-        String nextWeekDateString = dateToString(LocalDate.now().plusDays(7));
-        timeStringCopy = Parser.replaceStringWithArraySelection(
-                timeStringCopy, new String[] {"NEXT WEEK"}, nextWeekDateString);
-
-        String mondayString = dateToString(LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)));
-        timeStringCopy = Parser.replaceStringWithArraySelection(
-                timeStringCopy, new String[] {"MONDAY", "MON"}, mondayString);
-        String tuesdayString = dateToString(LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.TUESDAY)));
-        timeStringCopy = Parser.replaceStringWithArraySelection(
-                timeStringCopy, new String[] {"TUESDAY", "TUES", "TUE"}, tuesdayString);
-        String wednesdayString = dateToString(LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.WEDNESDAY)));
-        timeStringCopy = Parser.replaceStringWithArraySelection(
-                timeStringCopy, new String[] {"WEDNESDAY", "WED"}, wednesdayString);
-        String thursdayString = dateToString(LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.THURSDAY)));
-        timeStringCopy = Parser.replaceStringWithArraySelection(
-                timeStringCopy, new String[] {"THURSDAY", "THURS", "THUR", "THU"}, thursdayString);
-        String fridayString = dateToString(LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.FRIDAY)));
-        timeStringCopy = Parser.replaceStringWithArraySelection(
-                timeStringCopy, new String[] {"FRIDAY", "FRI"}, fridayString);
-        String saturdayString = dateToString(LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.SATURDAY)));
-        timeStringCopy = Parser.replaceStringWithArraySelection(
-                timeStringCopy, new String[] {"SATURDAY", "SAT"}, saturdayString);
-        String sundayString = dateToString(LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.SUNDAY)));
-        timeStringCopy = Parser.replaceStringWithArraySelection(
-                timeStringCopy, new String[] {"SUNDAY", "SUN"}, sundayString);
-        return timeStringCopy;
+    /** Empties the cache of parsed strings and resets its counters. */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            cacheHits = 0;
+            cacheMisses = 0;
+        }
     }
 
-    private static TimeParametersBundle parseParameters(String[] parameterStrings, TimeParameter[] parameters) {
-        assert(parameterStrings.length == parameters.length);
-        int parameterCount = parameters.length;
-        TimeParametersBundle parsedParameters = new TimeParametersBundle(-1, -1, -1, -1);
-        for (int i = 0; i < parameterCount; i++) {
-            switch (parameters[i]) {
-            case YEAR:
-                if (Parser.isInteger(parameterStrings[i]) && parameterStrings[i].length() == 4) {
-                    parsedParameters.setYear(Integer.parseInt(parameterStrings[i]));
-                }
-                if (parsedParameters.getYear() == -1) {
-                    return null;
-                }
-                break;
-            case MONTH:
-                parsedParameters.setMonth(toMonth(parameterStrings[i]));
-                if (parsedParameters.getMonth() == -1) {
-                    return null;
-                }
-                break;
-            case DAY:
-                if (Parser.isInteger(parameterStrings[i])) {
-                    parsedParameters.setDay(Integer.parseInt(parameterStrings[i]));
+    /**
+     * Tries every valid format in order on the pieces of a time string.
+     * @param pieces Pieces of the upper-case time string.
+     * @param table Relative dates of the current day, giving the year of formats without one.
+     * @return Time as a TimePoint object, or null if no format matches.
+     */
+    private static TimePoint toTimePoint(TimePieces pieces, RelativeDateTable table) {
+        for (TimeParameter[] parameters : FORMAT_PARAMETERS) {
+            if (parameters.length > pieces.getMaxParameterCount()) {
+                continue;
+            }
+            int day = -1;
+            int month = -1;
+            int year = -1;
+            int time = -1;
+            boolean isMatching = true;
+            for (int i = 0; i < parameters.length && isMatching; i++) {
+                int value = pieces.getValue(parameters.length, i, parameters[i]);
+                isMatching = value != -1;
+                switch (parameters[i]) {
+                case YEAR -> year = value;
+                case MONTH -> month = value;
+                case DAY -> day = value;
+                default -> time = value;
                 }
-                if (parsedParameters.getDay() == -1) {
-                    return null;
+            }
+            if (!isMatching) {
+                continue;
+            }
+            if (year == -1) {
+                year = table.getToday().getYear();
+                pieces.isUsingCurrentYear = true;
+            }
+            if (time == -1) {
+                LocalDate date = tryCreateDate(day, month, year);
+                if (date != null) {
+                    return new TimePoint(date);
                 }
-                break;
-            case TIME:
-                parsedParameters.setTime(toHourMinuteTime(parameterStrings[i]));
-                if (parsedParameters.getTime() == -1) {
-                    return null;
+            } else {
+                LocalDateTime dateTime = tryCreateDateTime(time, day, month, year);
+                if (dateTime != null) {
+                    return new TimePoint(dateTime);
                 }
-                break;
-            default:
-                return null;
             }
         }
-        return parsedParameters;
+        return null;
     }
 
-    private static class TimeParametersBundle {
-        private int day;
-        private int month;
-        private int year;
-        private int time;
-
-        public TimeParametersBundle(int day, int month, int year, int time) {
-            this.day = day;
-            this.month = month;
-            this.year = year;
-            this.time = time;
+    /**
+     * Checks in a single scan whether a string contains a word for a day relative to today.
+     * @param timeString Upper-case string to check.
+     * @return True only if a relative word appears anywhere in the string, even inside another word.
+     */
+    private static boolean containsRelativeWord(String timeString) {
+        for (int i = 0; i < timeString.length(); i++) {
+            char c = timeString.charAt(i);
+            if (c != 'T' && c != 'N' && c != 'M' && c != 'W' && c != 'F' && c != 'S') {
+                continue;
+            }
+            for (String[] words : RELATIVE_WORDS) {
+                for (String word : words) {
+                    if (word.charAt(0) == c && timeString.startsWith(word, i)) {
+                        return true;
+                    }
+                }
+            }
         }
+        return false;
+    }
 
-        public int getDay() {
-            return day;
-        }
-        public int getMonth() {
-            return month;
-        }
-        public int getYear() {
-            return year;
-        }
-        public int getTime() {
-            return time;
+    private static String parseFlexibleTime(String timeString, RelativeDateTable table) {
+        String timeStringCopy = timeString;
+        for (int i = 0; i < RELATIVE_WORDS.length; i++) {
+            timeStringCopy = Parser.replaceStringWithArraySelection(
+                    timeStringCopy, RELATIVE_WORDS[i], table.getDateString(i));
         }
-        public void setDay(int day) {
-            this.day = day;
-        }
-        public void setMonth(int month) {
-            this.month = month;
+        return timeStringCopy;
+    }
+
+    /**
+     * Pieces of a time string split at its first separators, as each valid format would split it, with the value
+     * of every piece as each kind of parameter, parsed when first needed.
+     * A format with n parameters takes the first n - 1 pieces before a separator, and the rest of the string as its
+     * last piece.
+     */
+    private static class TimePieces {
+        /** Value of a piece which has not been parsed as a kind of parameter yet. */
+        private static final int UNPARSED = Integer.MIN_VALUE;
+
+        private final String timeString;
+
+        /** Positions of the first separators. */
+        private final int[] separators = new int[MAX_PARAMETER_COUNT - 1];
+        private final int separatorCount;
+
+        /**
+         * Values by piece and kind of parameter, where the pieces before a separator come first, followed by the
+         * rests of the string starting after each separator.
+         */
+        private final int[] values = new int[(MAX_PARAMETER_COUNT - 1) * 2 * TimeParameter.values().length];
+
+        /** Whether a format without a year was tried with the current year. */
+        private boolean isUsingCurrentYear = false;
+
+        TimePieces(String timeString) {
+            this.timeString = timeString;
+            int count = 0;
+            for (int i = 0; i < timeString.length() && count < separators.length; i++) {
+                if (isSeparator(timeString.charAt(i))) {
+                    separators[count++] = i;
+                }
+            }
+            separatorCount = count;
+            Arrays.fill(values, UNPARSED);
         }
-        public void setYear(int year) {
-            this.year = year;
+
+        /** Returns the largest number of parameters a format can split the string into. */
+        int getMaxParameterCount() {
+            return separatorCount + 1;
         }
-        public void setTime(int time) {
-            this.time = time;
+
+        /**
+         * Returns the value of a parameter of a format.
+         * @param parameterCount Number of parameters of the format.
+         * @param index Index of the parameter in the format.
+         * @param parameter Kind of the parameter.
+         * @return Value of the parameter, or -1 if its piece is not valid as that kind of parameter.
+         */
+        int getValue(int parameterCount, int index, TimeParameter parameter) {
+            boolean isRest = index == parameterCount - 1;
+            int piece = isRest ? separators.length + index - 1 : index;
+            int valueIndex = piece * TimeParameter.values().length + parameter.ordinal();
+            if (values[valueIndex] == UNPARSED) {
+                int start = index == 0 ? 0 : separators[index - 1] + 1;
+                int end = isRest ? timeString.length() : separators[index];
+                values[valueIndex] = parse(timeString.substring(start, end), parameter);
+            }
+            return values[valueIndex];
         }
-    }
 
-    private static String[] separateTimeString(String timeString, int count) {
-        String[] parameterStrings = new String[count];
-        String remainder = timeString;
-        for (int i = 0; i < count - 1; i++) {
-            int separatorIndex = indexOfWildcard(remainder);
-            if (separatorIndex == -1) {
-                return null;
+        private static int parse(String piece, TimeParameter parameter) {
+            switch (parameter) {
+            case YEAR:
+                return Parser.isInteger(piece) && piece.length() == 4 ? Integer.parseInt(piece) : -1;
+            case MONTH:
+                return toMonth(piece);
+            case DAY:
+                return Parser.isInteger(piece) ? Integer.parseInt(piece) : -1;
+            default:
+                return toHourMinuteTime(piece);
             }
-            parameterStrings[i] = remainder.substring(0, separatorIndex);
-            remainder = remainder.substring(separatorIndex + 1);
         }
-        parameterStrings[count - 1] = remainder;
-        return parameterStrings;
-    }
 
-    /**
-     * Helper function to find the index of the first wildcard time separator in regex "[/ \\-]"
-     * @param string String to find wildcard separator symbol in.
-     * @return Index of wildcard separator symbol/
-     */
-    private static int indexOfWildcard(String string) {
-        int index = string.length() + 1;
-        for (char c : VALID_SEPARATOR_WILDCARDS) {
-            int indexOf = string.indexOf(c);
-            if (indexOf < index && indexOf != -1) {
-                index = indexOf;
+        private static boolean isSeparator(char c) {
+            for (char separator : VALID_SEPARATOR_WILDCARDS) {
+                if (c == separator) {
+                    return true;
+                }
             }
+            return false;
         }
-        if (index < string.length()) {
-            return index;
+    }
+
+    /** Parsed time, with the relative dates it was parsed with if it depends on the current day. */
+    private static class CachedTimePoint {
+        private final TimePoint timePoint;
+        private final RelativeDateTable day;
+
+        CachedTimePoint(TimePoint timePoint, RelativeDateTable day) {
+            this.timePoint = timePoint;
+            this.day = day;
         }
-        return -1;
     }
 
     /**
@@ -264,17 +373,6 @@ public class TimePointParser {
         return parameters;
     }
 
-    /**
-     * Helper function which converts a LocalDate to a string which can be parsed by the TimePointParser toTimePoint
-     * method.
-     * @param date Date to be converted to a string.
-     * @return String representation of the given date.
-     */
-    private static String dateToString(LocalDate date) {
-        return String.format(
-                "%d-%s-%d", date.getDayOfMonth(), TimePoint.MTHS[date.getMonthValue() - 1], date.getYear());
-    }
-
     /**
      * Converts a string to a time value, in 24-hour format.
      * @param timeString String to convert to a time value.
@@ -413,10 +511,6 @@ public class TimePointParser {
         }
     }
 
-    private static LocalDate tryCreateDate(TimeParametersBundle bundle) {
-        return tryCreateDate(bundle.getDay(), bundle.getMonth(), bundle.getYear());
-    }
-
     /**
      * Attempts creating a LocalDateTime with the given time, day, month and year values.
      * Returns null if the given value is invalid.
@@ -433,8 +527,4 @@ public class TimePointParser {
             return null;
         }
     }
-
-    private static LocalDateTime tryCreateDateTime(TimeParametersBundle bundle) {
-        return tryCreateDateTime(bundle.getTime(), bundle.getDay(), bundle.getMonth(), bundle.getYear());
-    }
 }
@@ -0,0 +1,334 @@
+package her.m35.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import her.m35.TimePoint;
+import her.m35.task.DeadlineTask;
+import her.m35.task.EventTask;
+import her.m35.task.Task;
+import her.m35.task.ToDoTask;
+
+/**
+ * Converts tasks to and from compact binary records.
+ * A record holds a type byte, a flags byte whose lowest bit is the completion status, the length-prefixed UTF-8 name,
+ * the times of the task and the numbers of its tags in a {@link TagDictionary}.
+ * Dates are stored as days since the epoch and date-times as minutes since the epoch, so loading a record never
+ * parses a date string. Numbers are written as variable-length integers, so that small numbers take a single byte.
+ */
+public class BinaryTaskCodec {
+
+    /** Codes marking the type of task a record holds. */
+    private static final byte TODO_TYPE = 0;
+    private static final byte DEADLINE_TYPE = 1;
+    private static final byte EVENT_TYPE = 2;
+
+    /** Bit of the flags byte which is set for completed tasks. */
+    private static final byte DONE_FLAG = 1;
+
+    /** Codes marking how a time is stored. */
+    private static final byte STRING_FORMAT = 0;
+    private static final byte LOCAL_DATE_FORMAT = 1;
+    private static final byte LOCAL_DATE_TIME_FORMAT = 2;
+
+    /** Dictionary which assigns the numbers of tags. */
+    private final TagDictionary tagDictionary;
+
+    /**
+     * Creates a codec which refers to tags by their number in the given dictionary.
+     *
+     * @param tagDictionary Dictionary of tag numbers.
+     */
+    public BinaryTaskCodec(TagDictionary tagDictionary) {
+        this.tagDictionary = tagDictionary;
+    }
+
+    /**
+     * Converts a task into a binary record.
+     * Empty tags are left out.
+     *
+     * @param task Task to convert.
+     * @return Binary record of the task.
+     * @throws IOException If an I/O error occurs while adding a new tag to the dictionary.
+     */
+    public byte[] encode(Task task) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(32 + task.getName().length());
+        switch (task.getType()) {
+        case TODO:
+            record.write(TODO_TYPE);
+            break;
+        case DEADLINE:
+            record.write(DEADLINE_TYPE);
+            break;
+        case EVENT:
+            record.write(EVENT_TYPE);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown task type: " + task.getType());
+        }
+        record.write(task.getIsDone() ? DONE_FLAG : 0);
+        writeString(record, task.getName());
+        if (task instanceof DeadlineTask deadlineTask) {
+            writeTime(record, deadlineTask.getByDate());
+        } else if (task instanceof EventTask eventTask) {
+            writeTime(record, eventTask.getFromDate());
+            writeTime(record, eventTask.getToDate());
+        }
+        List<String> tags = task.getTags().stream().filter(tag -> !tag.isEmpty()).toList();
+        writeVarLong(record, tags.size());
+        for (String tag : tags) {
+            writeVarLong(record, tagDictionary.getId(tag));
+        }
+        return record.toByteArray();
+    }
+
+    /**
+     * Converts a binary record back into a task.
+     *
+     * @param record Binary record of a task.
+     * @return Task held by the record, or null if the record is not valid.
+     */
+    public Task decode(byte[] record) {
+        return decode(ByteBuffer.wrap(record));
+    }
+
+    /**
+     * Converts the binary record at the position of a buffer back into a task, leaving the buffer positioned after
+     * the record. The buffer does not have to be backed by an array, so records can be decoded straight from a
+     * mapped file.
+     *
+     * @param buffer Buffer positioned at the start of a binary record.
+     * @return Task held by the record, or null if the record is not valid.
+     */
+    public Task decode(ByteBuffer buffer) {
+        try {
+            byte type = buffer.get();
+            boolean isDone = (buffer.get() & DONE_FLAG) != 0;
+            String name = readString(buffer);
+            TimePoint firstTime = type == TODO_TYPE ? null : readTime(buffer);
+            TimePoint secondTime = type == EVENT_TYPE ? readTime(buffer) : null;
+            String[] tags = new String[(int) readVarLong(buffer)];
+            for (int i = 0; i < tags.length; i++) {
+                tags[i] = tagDictionary.getTag((int) readVarLong(buffer));
+            }
+            return switch (type) {
+            case TODO_TYPE -> new ToDoTask(name, tags, isDone);
+            case DEADLINE_TYPE -> new DeadlineTask(name, firstTime, tags, isDone);
+            case EVENT_TYPE -> new EventTask(name, firstTime, secondTime, tags, isDone);
+            default -> null;
+            };
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the type of the record starting at an offset of a buffer, without decoding the record.
+     *
+     * @param buffer Buffer holding the record.
+     * @param offset Offset of the record in the buffer.
+     * @return Type of the task held by the record.
+     */
+    static Task.Type readType(ByteBuffer buffer, int offset) {
+        return switch (buffer.get(offset)) {
+        case TODO_TYPE -> Task.Type.TODO;
+        case DEADLINE_TYPE -> Task.Type.DEADLINE;
+        case EVENT_TYPE -> Task.Type.EVENT;
+        default -> throw new IllegalArgumentException("Unknown task type: " + buffer.get(offset));
+        };
+    }
+
+    /**
+     * Reads the completion status of the record starting at an offset of a buffer, without decoding the record.
+     *
+     * @param buffer Buffer holding the record.
+     * @param offset Offset of the record in the buffer.
+     * @return True only if the task held by the record is done.
+     */
+    static boolean readIsDone(ByteBuffer buffer, int offset) {
+        return (buffer.get(offset + 1) & DONE_FLAG) != 0;
+    }
+
+    /**
+     * Indicates whether the record starting at an offset of a buffer has a tag, reading only the numbers of its tags.
+     *
+     * @param buffer Buffer holding the record.
+     * @param offset Offset of the record in the buffer.
+     * @param tag Tag to look for.
+     * @return True only if the task held by the record has the tag.
+     */
+    boolean hasTag(ByteBuffer buffer, int offset, String tag) {
+        int tagId = tagDictionary.findId(tag);
+        if (tagId == -1) {
+            return false;
+        }
+        ByteBuffer record = skipToTimes(buffer, offset);
+        if (record.get(offset) != TODO_TYPE) {
+            skipTime(record);
+        }
+        if (record.get(offset) == EVENT_TYPE) {
+            skipTime(record);
+        }
+        for (long tagCount = readVarLong(record); tagCount > 0; tagCount--) {
+            if (readVarLong(record) == tagId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the first time of the record starting at an offset of a buffer, without decoding the rest of the record.
+     *
+     * @param buffer Buffer holding the record.
+     * @param offset Offset of the record in the buffer.
+     * @return Deadline or start of the task held by the record, or null if it is a todo.
+     */
+    static TimePoint readFirstTime(ByteBuffer buffer, int offset) {
+        return buffer.get(offset) == TODO_TYPE ? null : readTime(skipToTimes(buffer, offset));
+    }
+
+    /**
+     * Reads the second time of the record starting at an offset of a buffer, without decoding the rest of the record.
+     *
+     * @param buffer Buffer holding the record.
+     * @param offset Offset of the record in the buffer.
+     * @return End of the task held by the record, or null if it is not an event.
+     */
+    static TimePoint readSecondTime(ByteBuffer buffer, int offset) {
+        if (buffer.get(offset) != EVENT_TYPE) {
+            return null;
+        }
+        ByteBuffer record = skipToTimes(buffer, offset);
+        skipTime(record);
+        return readTime(record);
+    }
+
+    /** Returns a view of a buffer positioned after the name of the record starting at an offset. */
+    private static ByteBuffer skipToTimes(ByteBuffer buffer, int offset) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset + 2);
+        int nameLength = (int) readVarLong(record);
+        record.position(record.position() + nameLength);
+        return record;
+    }
+
+    private static void skipTime(ByteBuffer buffer) {
+        if (buffer.get() == STRING_FORMAT) {
+            int length = (int) readVarLong(buffer);
+            buffer.position(buffer.position() + length);
+        } else {
+            readVarLong(buffer);
+        }
+    }
+
+    /**
+     * Changes the completion status of the record starting at an offset of a buffer in place.
+     *
+     * @param buffer Buffer holding the record.
+     * @param offset Offset of the record in the buffer.
+     * @param isDone New completion status of the task.
+     */
+    static void writeIsDone(ByteBuffer buffer, int offset, boolean isDone) {
+        byte flags = buffer.get(offset + 1);
+        buffer.put(offset + 1, (byte) (isDone ? flags | DONE_FLAG : flags & ~DONE_FLAG));
+    }
+
+    private static void writeTime(ByteArrayOutputStream record, TimePoint time) {
+        switch (time.getFormat()) {
+        case LOCAL_DATE:
+            record.write(LOCAL_DATE_FORMAT);
+            writeVarLong(record, toZigZag(time.getEpochDay()));
+            break;
+        case LOCAL_DATE_TIME:
+            record.write(LOCAL_DATE_TIME_FORMAT);
+            writeVarLong(record, toZigZag(time.getEpochMinute()));
+            break;
+        default:
+            record.write(STRING_FORMAT);
+            writeString(record, time.toString());
+            break;
+        }
+    }
+
+    private static TimePoint readTime(ByteBuffer buffer) {
+        byte format = buffer.get();
+        switch (format) {
+        case LOCAL_DATE_FORMAT:
+            return TimePoint.ofEpochDay(fromZigZag(readVarLong(buffer)));
+        case LOCAL_DATE_TIME_FORMAT:
+            return TimePoint.ofEpochMinute(fromZigZag(readVarLong(buffer)));
+        case STRING_FORMAT:
+            return new TimePoint(readString(buffer));
+        default:
+            throw new IllegalArgumentException("Unknown time format: " + format);
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream record, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(record, bytes.length);
+        record.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = (int) readVarLong(buffer);
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (!buffer.hasArray()) {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+
+    /**
+     * Writes a number as unsigned, using seven bits per byte, with the highest bit marking that more bytes follow.
+     *
+     * @param out Stream to write to.
+     * @param value Number to write.
+     */
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Reads a number written by {@link #writeVarLong(ByteArrayOutputStream, long)}.
+     *
+     * @param buffer Buffer to read from.
+     * @return Number read.
+     * @throws java.nio.BufferUnderflowException If the number was cut off.
+     */
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Variable-length number is too long");
+    }
+
+    private static long toZigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long fromZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
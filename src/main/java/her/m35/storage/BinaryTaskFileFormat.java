@@ -0,0 +1,304 @@
+package her.m35.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import her.m35.task.Task;
+
+/**
+ * Task file format made of length-prefixed binary task records, as written by {@link BinaryTaskCodec}.
+ * The task file starts with a header naming the format and its version, and the generation of the last journal
+ * folded into it, followed by the rows.
+ * A journal starts with a record holding its generation. Every other journal record holds a kind byte, followed by
+ * the row index for edits and deletes, and the length-prefixed row for inserts and edits, so a record which was cut
+ * off while being written is found by its missing bytes.
+ */
+public class BinaryTaskFileFormat implements TaskFileFormat {
+
+    /** Bytes every binary task file starts with, followed by the version of the format. */
+    private static final byte[] MAGIC = {'H', 'E', 'R', 'M', '3', '5', 'T'};
+
+    /** Version of the format which is written, whose header ends with the generation of the last folded journal. */
+    private static final byte VERSION = 2;
+
+    /** Version of the format whose header holds no generation, which is still read. */
+    private static final byte FIRST_VERSION = 1;
+
+    /** Largest number of bytes taken up by the header of a task file. */
+    private static final int HEADER_LIMIT = MAGIC.length + 1 + Long.BYTES;
+
+    /** Codes marking the kind of change a journal record describes. */
+    private static final byte INSERT_RECORD = 'I';
+    private static final byte EDIT_RECORD = 'E';
+    private static final byte DELETE_RECORD = 'D';
+    private static final byte CLEAR_RECORD = 'C';
+    private static final byte GENERATION_RECORD = 'G';
+
+    /** Codec which converts rows to and from tasks. */
+    private final BinaryTaskCodec codec;
+
+    /** Dictionary of the tags the rows refer to. */
+    private final TagDictionary tagDictionary;
+
+    /**
+     * Creates a binary format which refers to tags by their number in the given dictionary.
+     *
+     * @param tagDictionary Dictionary of tag numbers.
+     */
+    public BinaryTaskFileFormat(TagDictionary tagDictionary) {
+        this.codec = new BinaryTaskCodec(tagDictionary);
+        this.tagDictionary = tagDictionary;
+    }
+
+    public BinaryTaskCodec getCodec() {
+        return codec;
+    }
+
+    public TagDictionary getTagDictionary() {
+        return tagDictionary;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * An empty file holds no rows, so that a newly created task file needs no header yet.
+     */
+    @Override
+    public int[] findRows(byte[] snapshot, Path snapshotPath) throws IOException {
+        if (snapshot.length == 0) {
+            return new int[0];
+        }
+        int[] bounds = new int[64];
+        int boundCount = 0;
+        ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+        try {
+            readHeader(buffer, snapshotPath);
+            while (buffer.hasRemaining()) {
+                long length = BinaryTaskCodec.readVarLong(buffer);
+                if (length > buffer.remaining()) {
+                    throw new BufferUnderflowException();
+                }
+                if (boundCount == bounds.length) {
+                    bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                }
+                bounds[boundCount++] = buffer.position();
+                bounds[boundCount++] = buffer.position() + (int) length;
+                buffer.position(buffer.position() + (int) length);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Binary task file is cut off: " + snapshotPath, e);
+        }
+        return Arrays.copyOf(bounds, boundCount);
+    }
+
+    @Override
+    public long readSnapshotGeneration(Path snapshotPath) throws IOException {
+        byte[] header;
+        try (InputStream snapshot = Files.newInputStream(snapshotPath)) {
+            header = snapshot.readNBytes(HEADER_LIMIT);
+        }
+        if (header.length == 0) {
+            return 0;
+        }
+        try {
+            return readHeader(ByteBuffer.wrap(header), snapshotPath);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Binary task file is cut off: " + snapshotPath, e);
+        }
+    }
+
+    @Override
+    public void writeSnapshot(Path snapshotPath, List<byte[]> rows, long generation) throws IOException {
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        snapshot.write(MAGIC);
+        snapshot.write(VERSION);
+        snapshot.write(ByteBuffer.allocate(Long.BYTES).putLong(generation).array());
+        for (byte[] row : rows) {
+            writeRow(snapshot, row);
+        }
+        Files.write(snapshotPath, snapshot.toByteArray());
+    }
+
+    @Override
+    public byte[] encodeRow(String[] strings) throws IOException {
+        Task task = Task.dataToTask(strings);
+        if (task == null) {
+            throw new IOException("Invalid task data: " + String.join(",", strings));
+        }
+        return codec.encode(task);
+    }
+
+    @Override
+    public Task decodeRow(byte[] row) {
+        return codec.decode(row);
+    }
+
+    @Override
+    public Task decodeRow(byte[] bytes, int start, int end) {
+        return codec.decode(ByteBuffer.wrap(bytes, start, end - start).slice());
+    }
+
+    @Override
+    public String toCsvLine(byte[] row) {
+        Task task = codec.decode(row);
+        return task == null ? "" : String.join(",", task.getData());
+    }
+
+    @Override
+    public byte[] encodeRecord(RecordKind kind, int index, byte[] row) {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(row == null ? 8 : row.length + 8);
+        switch (kind) {
+        case INSERT:
+            record.write(INSERT_RECORD);
+            writeRow(record, row);
+            break;
+        case EDIT:
+            record.write(EDIT_RECORD);
+            BinaryTaskCodec.writeVarLong(record, index);
+            writeRow(record, row);
+            break;
+        case DELETE:
+            record.write(DELETE_RECORD);
+            BinaryTaskCodec.writeVarLong(record, index);
+            break;
+        case CLEAR:
+            record.write(CLEAR_RECORD);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown record kind: " + kind);
+        }
+        return record.toByteArray();
+    }
+
+    @Override
+    public byte[] encodeJournalHeader(long generation) {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(JOURNAL_HEADER_LIMIT);
+        record.write(GENERATION_RECORD);
+        BinaryTaskCodec.writeVarLong(record, generation);
+        return record.toByteArray();
+    }
+
+    @Override
+    public long getJournalGeneration(byte[] journal) {
+        if (journal.length == 0 || journal[0] != GENERATION_RECORD) {
+            return 0;
+        }
+        try {
+            return BinaryTaskCodec.readVarLong(ByteBuffer.wrap(journal, 1, journal.length - 1));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void applyJournal(byte[] journal, List<byte[]> rows) {
+        ByteBuffer buffer = ByteBuffer.wrap(journal);
+        while (buffer.hasRemaining()) {
+            if (!applyRecord(buffer, rows)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int getCompleteLength(byte[] journal) {
+        ByteBuffer buffer = ByteBuffer.wrap(journal);
+        List<byte[]> ignoredRows = new ArrayList<>();
+        int completeLength = 0;
+        while (buffer.hasRemaining() && applyRecord(buffer, ignoredRows)) {
+            completeLength = buffer.position();
+            ignoredRows.clear();
+        }
+        return completeLength;
+    }
+
+    /**
+     * Applies the next journal record in the buffer to the given rows.
+     *
+     * @param buffer Buffer positioned at the start of a record.
+     * @param rows Rows to apply the record to.
+     * @return True only if a complete record was read.
+     */
+    private static boolean applyRecord(ByteBuffer buffer, List<byte[]> rows) {
+        try {
+            byte kind = buffer.get();
+            switch (kind) {
+            case INSERT_RECORD:
+                rows.add(readRow(buffer));
+                return true;
+            case EDIT_RECORD:
+                long editIndex = BinaryTaskCodec.readVarLong(buffer);
+                byte[] row = readRow(buffer);
+                if (editIndex < rows.size()) {
+                    rows.set((int) editIndex, row);
+                }
+                return true;
+            case DELETE_RECORD:
+                long deleteIndex = BinaryTaskCodec.readVarLong(buffer);
+                if (deleteIndex < rows.size()) {
+                    rows.remove((int) deleteIndex);
+                }
+                return true;
+            case CLEAR_RECORD:
+                rows.clear();
+                return true;
+            case GENERATION_RECORD:
+                BinaryTaskCodec.readVarLong(buffer);
+                return true;
+            default:
+                return false;
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the header of a task file, leaving the buffer positioned at its first row.
+     *
+     * @param buffer Buffer positioned at the start of the task file.
+     * @param snapshotPath Path of the task file, used in error messages.
+     * @return Generation of the last journal folded into the task file, or 0 if there is none.
+     * @throws IOException If the task file is not in this format.
+     */
+    private static long readHeader(ByteBuffer buffer, Path snapshotPath) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        if (buffer.remaining() > MAGIC.length) {
+            buffer.get(magic);
+        }
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a binary task file: " + snapshotPath);
+        }
+        byte version = buffer.get();
+        if (version == FIRST_VERSION) {
+            return 0;
+        }
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary task file version " + version + ": " + snapshotPath);
+        }
+        return buffer.getLong();
+    }
+
+    private static void writeRow(ByteArrayOutputStream out, byte[] row) {
+        BinaryTaskCodec.writeVarLong(out, row.length);
+        out.writeBytes(row);
+    }
+
+    private static byte[] readRow(ByteBuffer buffer) {
+        long length = BinaryTaskCodec.readVarLong(buffer);
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] row = new byte[(int) length];
+        buffer.get(row);
+        return row;
+    }
+}
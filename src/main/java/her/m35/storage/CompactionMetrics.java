@@ -0,0 +1,15 @@
+package her.m35.storage;
+
+/**
+ * Measurements taken after a journal has been folded into a new snapshot.
+ *
+ * @param rowCount Number of rows in the new snapshot.
+ * @param snapshotBytes Size of the new snapshot in bytes.
+ * @param bytesReclaimed Bytes freed on disk, being the old snapshot and folded journal minus the new snapshot.
+ * @param compactionNanos Time taken to fold the journal and write the new snapshot.
+ * @param coldStartNanos Time taken to read the rows back from the new snapshot and the remaining journal, which
+ *                       is what the next startup will have to pay.
+ */
+public record CompactionMetrics(
+        int rowCount, long snapshotBytes, long bytesReclaimed, long compactionNanos, long coldStartNanos) {
+}
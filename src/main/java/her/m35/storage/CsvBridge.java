@@ -0,0 +1,102 @@
+package her.m35.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import her.m35.Storage;
+import her.m35.task.Task;
+
+/**
+ * Converts task files between the CSV format and the binary format.
+ * Names containing commas cannot be written to CSV faithfully, so the binary format is the one tasks are kept in.
+ */
+public class CsvBridge {
+
+    /**
+     * Returns the path of the CSV task file with the same name as a binary task file, apart from its extension.
+     *
+     * @param binaryPath Path of the binary task file.
+     * @return Path of the CSV task file.
+     */
+    public static Path getCsvPathFor(Path binaryPath) {
+        String fileName = binaryPath.getFileName().toString();
+        int extensionStart = fileName.lastIndexOf('.');
+        String baseName = extensionStart == -1 ? fileName : fileName.substring(0, extensionStart);
+        return binaryPath.resolveSibling(baseName + TaskFileFormat.CSV_EXTENSION);
+    }
+
+    /**
+     * Reads the tasks of a CSV task file with its journal replayed on top of them.
+     * Rows which do not hold a valid task are skipped.
+     *
+     * @param csvPath Path of the CSV task file.
+     * @return Tasks held by the file, or an empty list if the file does not exist.
+     * @throws IOException If an I/O error occurs while reading.
+     */
+    public static List<Task> readCsv(Path csvPath) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        if (!Files.exists(csvPath)) {
+            return tasks;
+        }
+        CsvTaskFileFormat csvFormat = new CsvTaskFileFormat();
+        Path journalPath = Paths.get(csvPath + JournalStorage.JOURNAL_SUFFIX);
+        List<byte[]> csvRows = JournalStorage.replay(csvFormat, csvPath,
+                Paths.get(journalPath + JournalStorage.COMPACTING_SUFFIX), journalPath);
+        for (byte[] csvRow : csvRows) {
+            Task task = csvFormat.decodeRow(csvRow);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Fills a binary task file with the tasks of a CSV task file and its journal, if the CSV task file exists.
+     * The binary file is replaced atomically, and the CSV files are left untouched as a backup.
+     *
+     * @param csvPath Path of the CSV task file.
+     * @param binaryPath Path of the binary task file.
+     * @param binaryFormat Binary format to write the tasks in.
+     * @return Number of tasks imported.
+     * @throws IOException If an I/O error occurs while reading or writing.
+     */
+    public static int importCsv(Path csvPath, Path binaryPath, BinaryTaskFileFormat binaryFormat)
+            throws IOException {
+        if (!Files.exists(csvPath)) {
+            return 0;
+        }
+        List<Task> tasks = readCsv(csvPath);
+        List<byte[]> binaryRows = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            binaryRows.add(binaryFormat.getCodec().encode(task));
+        }
+        binaryFormat.getTagDictionary().sync();
+        Path temporaryPath = Paths.get(binaryPath + ".import");
+        binaryFormat.writeSnapshot(temporaryPath, binaryRows, 0);
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporaryPath, binaryPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return binaryRows.size();
+    }
+
+    /**
+     * Writes every task held by a storage to a CSV task file.
+     *
+     * @param storage Storage to read the tasks from.
+     * @param csvPath Path of the CSV task file to write.
+     * @throws IOException If an I/O error occurs while reading or writing.
+     */
+    public static void exportCsv(Storage storage, Path csvPath) throws IOException {
+        Files.write(csvPath, Arrays.asList(storage.read()));
+    }
+}
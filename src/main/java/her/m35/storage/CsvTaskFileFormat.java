@@ -0,0 +1,211 @@
+package her.m35.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import her.m35.task.Task;
+
+/**
+ * Task file format with one comma-separated task per line, and a journal with one record per line.
+ * Journal records are "I,row" for an insert, "E,index,row" for an edit, "D,index" for a delete and "C" for a clear.
+ * A journal starts with a "G,generation" line, and a task file which a journal has been folded into starts with the
+ * same line for the generation of that journal.
+ */
+public class CsvTaskFileFormat implements TaskFileFormat {
+
+    /** Codes marking the kind of change a journal record describes. */
+    private static final char INSERT_RECORD = 'I';
+    private static final char EDIT_RECORD = 'E';
+    private static final char DELETE_RECORD = 'D';
+    private static final char CLEAR_RECORD = 'C';
+    private static final char GENERATION_RECORD = 'G';
+
+    @Override
+    public int[] findRows(byte[] snapshot, Path snapshotPath) {
+        int[] bounds = new int[64];
+        int boundCount = 0;
+        int lineStart = getGenerationLineLength(snapshot);
+        while (lineStart < snapshot.length) {
+            int lineEnd = indexOfLineBreak(snapshot, lineStart);
+            int nextLineStart = lineEnd + 1;
+            if (lineEnd == -1) {
+                lineEnd = snapshot.length;
+                nextLineStart = snapshot.length;
+            }
+            if (lineEnd > lineStart && snapshot[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            if (boundCount == bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[boundCount++] = lineStart;
+            bounds[boundCount++] = lineEnd;
+            lineStart = nextLineStart;
+        }
+        return Arrays.copyOf(bounds, boundCount);
+    }
+
+    @Override
+    public long readSnapshotGeneration(Path snapshotPath) throws IOException {
+        try (InputStream snapshot = Files.newInputStream(snapshotPath)) {
+            return getJournalGeneration(snapshot.readNBytes(JOURNAL_HEADER_LIMIT));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The generation line is only written once a journal has been folded in, so that a task file which never had
+     * one stays a plain list of tasks.
+     */
+    @Override
+    public void writeSnapshot(Path snapshotPath, List<byte[]> rows, long generation) throws IOException {
+        byte[] lineSeparator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        if (generation > 0) {
+            snapshot.write((GENERATION_RECORD + "," + generation).getBytes(StandardCharsets.UTF_8));
+            snapshot.write(lineSeparator);
+        }
+        for (byte[] row : rows) {
+            snapshot.write(row);
+            snapshot.write(lineSeparator);
+        }
+        Files.write(snapshotPath, snapshot.toByteArray());
+    }
+
+    @Override
+    public byte[] encodeRow(String[] strings) {
+        return String.join(",", strings).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Task decodeRow(byte[] row) {
+        return decodeRow(row, 0, row.length);
+    }
+
+    @Override
+    public Task decodeRow(byte[] bytes, int start, int end) {
+        return Task.dataToTask(new String(bytes, start, end - start, StandardCharsets.UTF_8).split(","));
+    }
+
+    @Override
+    public String toCsvLine(byte[] row) {
+        return new String(row, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] encodeRecord(RecordKind kind, int index, byte[] row) {
+        String record = switch (kind) {
+        case INSERT -> INSERT_RECORD + "," + toCsvLine(row);
+        case EDIT -> EDIT_RECORD + "," + index + "," + toCsvLine(row);
+        case DELETE -> DELETE_RECORD + "," + index;
+        case CLEAR -> String.valueOf(CLEAR_RECORD);
+        };
+        return (record + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] encodeJournalHeader(long generation) {
+        return (GENERATION_RECORD + "," + generation + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long getJournalGeneration(byte[] journal) {
+        int lineLength = getGenerationLineLength(journal);
+        if (lineLength == 0) {
+            return 0;
+        }
+        String line = new String(journal, 2, lineLength - 2, StandardCharsets.UTF_8).trim();
+        try {
+            return Long.parseLong(line);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void applyJournal(byte[] journal, List<byte[]> rows) {
+        int recordStart = 0;
+        int recordEnd = indexOfLineBreak(journal, recordStart);
+        while (recordEnd != -1) {
+            applyRecord(new String(journal, recordStart, recordEnd - recordStart, StandardCharsets.UTF_8), rows);
+            recordStart = recordEnd + 1;
+            recordEnd = indexOfLineBreak(journal, recordStart);
+        }
+    }
+
+    @Override
+    public int getCompleteLength(byte[] journal) {
+        for (int i = journal.length - 1; i >= 0; i--) {
+            if (journal[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the length of the generation line the given bytes start with, including its line break.
+     *
+     * @param bytes Contents of a task file or journal.
+     * @return Length of the generation line, or 0 if the bytes do not start with a complete generation line.
+     */
+    private static int getGenerationLineLength(byte[] bytes) {
+        if (bytes.length < 2 || bytes[0] != GENERATION_RECORD || bytes[1] != ',') {
+            return 0;
+        }
+        return indexOfLineBreak(bytes, 2) + 1;
+    }
+
+    private static int indexOfLineBreak(byte[] bytes, int start) {
+        for (int i = start; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void applyRecord(String record, List<byte[]> rows) {
+        if (record.isEmpty() || (record.length() < 2 && record.charAt(0) != CLEAR_RECORD)) {
+            return;
+        }
+        switch (record.charAt(0)) {
+        case INSERT_RECORD:
+            rows.add(record.substring(2).getBytes(StandardCharsets.UTF_8));
+            break;
+        case EDIT_RECORD:
+            int rowStart = record.indexOf(',', 2);
+            int editIndex = parseIndex(record.substring(2, rowStart == -1 ? record.length() : rowStart));
+            if (rowStart != -1 && editIndex >= 0 && editIndex < rows.size()) {
+                rows.set(editIndex, record.substring(rowStart + 1).getBytes(StandardCharsets.UTF_8));
+            }
+            break;
+        case DELETE_RECORD:
+            int deleteIndex = parseIndex(record.substring(2));
+            if (deleteIndex >= 0 && deleteIndex < rows.size()) {
+                rows.remove(deleteIndex);
+            }
+            break;
+        case CLEAR_RECORD:
+            rows.clear();
+            break;
+        default:
+            break;
+        }
+    }
+
+    private static int parseIndex(String indexString) {
+        try {
+            return Integer.parseInt(indexString);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
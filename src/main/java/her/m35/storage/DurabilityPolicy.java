@@ -0,0 +1,90 @@
+package her.m35.storage;
+
+/**
+ * Describes how often writes queued for storage are synced to the disk.
+ *
+ * @param mode When writes are synced to the disk.
+ * @param intervalMillis Time between syncs in milliseconds, only used with {@link Mode#INTERVAL}.
+ */
+public record DurabilityPolicy(Mode mode, long intervalMillis) {
+
+    /** Enumeration of the supported times at which writes are synced to the disk. */
+    public enum Mode {
+        /** Every batch of writes is synced before the writes are reported as done. */
+        EVERY_COMMIT,
+
+        /** Writes are reported as done once written, and are synced every given number of milliseconds. */
+        INTERVAL,
+
+        /** Writes are reported as done once written, and are only synced when the storage is closed. */
+        ON_EXIT
+    }
+
+    /**
+     * Returns a policy which syncs every batch of writes before reporting them as done.
+     *
+     * @return Policy which syncs every commit.
+     */
+    public static DurabilityPolicy everyCommit() {
+        return new DurabilityPolicy(Mode.EVERY_COMMIT, 0);
+    }
+
+    /**
+     * Returns a policy which syncs writes every given number of milliseconds.
+     *
+     * @param intervalMillis Time between syncs in milliseconds.
+     * @return Policy which syncs at a fixed interval.
+     */
+    public static DurabilityPolicy everyMillis(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Sync interval must be positive: " + intervalMillis);
+        }
+        return new DurabilityPolicy(Mode.INTERVAL, intervalMillis);
+    }
+
+    /**
+     * Returns a policy which only syncs writes when the storage is closed.
+     *
+     * @return Policy which syncs on exit.
+     */
+    public static DurabilityPolicy onExit() {
+        return new DurabilityPolicy(Mode.ON_EXIT, 0);
+    }
+
+    /**
+     * Converts a string into a durability policy.
+     * Accepted strings are "commit", "exit", or a number of milliseconds such as "200" or "200ms".
+     *
+     * @param policyString String to be converted.
+     * @return Policy described by the string.
+     * @throws IllegalArgumentException If the string does not describe a policy.
+     */
+    public static DurabilityPolicy parse(String policyString) {
+        String trimmedPolicy = policyString.trim().toLowerCase();
+        switch (trimmedPolicy) {
+        case "commit":
+            return everyCommit();
+        case "exit":
+            return onExit();
+        default:
+            break;
+        }
+        String intervalString = trimmedPolicy.endsWith("ms")
+                ? trimmedPolicy.substring(0, trimmedPolicy.length() - 2)
+                : trimmedPolicy;
+        try {
+            return everyMillis(Long.parseLong(intervalString));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown durability policy: " + policyString);
+        }
+    }
+
+    /**
+     * Indicates whether writes have to be synced before they are reported as done.
+     *
+     * @return True only if every commit is synced.
+     */
+    public boolean isSyncedOnCommit() {
+        return mode == Mode.EVERY_COMMIT;
+    }
+}
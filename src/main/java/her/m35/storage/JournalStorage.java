@@ -0,0 +1,610 @@
+package her.m35.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import her.m35.Storage;
+import her.m35.storage.TaskFileFormat.RecordKind;
+import her.m35.task.Task;
+
+/**
+ * Storage which records every change as a small record appended to a journal file kept next to the task file,
+ * instead of rewriting the whole task file for every change.
+ * The task file acts as a snapshot, and the journal is replayed on top of it whenever the rows are read, with
+ * every row of the snapshot left where it is in the file until it is decoded.
+ * Once the journal grows too large, it is moved aside and folded into a new snapshot in the background while
+ * new records go to a fresh journal.
+ * Every journal is numbered by a generation, and the snapshot records the generation of the last journal folded
+ * into it, so that a journal which has already been folded in is never replayed again.
+ * The layout of the snapshot and journal is given by a {@link TaskFileFormat} chosen by the extension of the task
+ * file. A new binary task file is filled with the tasks of the CSV task file of the same name, if there is one.
+ */
+public class JournalStorage extends Storage {
+
+    /** Suffix appended to the task file name to get the name of its journal file. */
+    public static final String JOURNAL_SUFFIX = ".journal";
+
+    /** Suffix appended to the journal file name while it is being folded into a new snapshot. */
+    public static final String COMPACTING_SUFFIX = ".compacting";
+
+    /** Suffix appended to the task file name for the new snapshot before it replaces the old one. */
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /** Layout of the snapshot and journal files. */
+    private final TaskFileFormat format;
+
+    /** Dictionary of the tags the rows refer to, or null if the rows hold tags by name. */
+    private final TagDictionary tagDictionary;
+
+    /** Full path of the journal file. */
+    private final Path journalPath;
+
+    /** Queue which appends records to the journal. */
+    private final WriteBehindQueue journalWriter;
+
+    /** Full path of the journal which is being folded into a new snapshot, if any. */
+    private final Path compactingJournalPath;
+
+    /** Compactor which decides when to fold the journal and runs the folding. */
+    private final SnapshotCompactor compactor;
+
+    /** Lock held while the snapshot and journal files are swapped, so that they are never read half-swapped. */
+    private final Object fileLock = new Object();
+
+    /** Whether a compaction has been started and has not finished yet. */
+    private final AtomicBoolean isCompacting = new AtomicBoolean(false);
+
+    /** Most recently started compaction. */
+    private volatile CompletableFuture<CompactionMetrics> compaction;
+
+    /** Marker for a row count which has not been found yet. */
+    private static final int UNKNOWN_ROW_COUNT = -1;
+
+    /**
+     * Number of rows after the journal has been replayed, used to check indexes without reading the file.
+     * It is found when the rows are first read, usually by the loader, rather than when the storage is opened.
+     */
+    private volatile int rowCount = UNKNOWN_ROW_COUNT;
+
+    /** Size of the current journal in bytes. */
+    private long journalBytes;
+
+    /** Generation of the current journal, which is written at its start once the first record is appended. */
+    private long journalGeneration;
+
+    /** Size of the snapshot in bytes. */
+    private volatile long snapshotBytes;
+
+    /**
+     * Creates a journaled storage object for the given task file, replaying any existing journal.
+     *
+     * @param fileName Name of the task file.
+     * @throws IOException If an I/O error occurs while creating or reading the files.
+     */
+    public JournalStorage(String fileName) throws IOException {
+        this(fileName, DurabilityPolicy.everyCommit(), new SnapshotCompactor());
+    }
+
+    /**
+     * Creates a journaled storage object for the given task file with the given durability policy, which is
+     * compacted by the given compactor.
+     * A journal left behind by an unfinished compaction is folded into the snapshot straight away, or deleted if
+     * it had already been folded in.
+     *
+     * @param fileName Name of the task file.
+     * @param durabilityPolicy When journal records are synced to the disk.
+     * @param compactor Compactor which decides when to fold the journal into a new snapshot.
+     * @throws IOException If an I/O error occurs while creating or reading the files.
+     */
+    public JournalStorage(String fileName, DurabilityPolicy durabilityPolicy, SnapshotCompactor compactor)
+            throws IOException {
+        super(fileName, durabilityPolicy);
+        this.journalPath = Paths.get(getFilePath() + JOURNAL_SUFFIX);
+        this.compactingJournalPath = Paths.get(journalPath + COMPACTING_SUFFIX);
+        this.compactor = compactor;
+        this.format = TaskFileFormat.forPath(getFilePath(), durabilityPolicy);
+        this.tagDictionary = format instanceof BinaryTaskFileFormat binaryFormat
+                ? binaryFormat.getTagDictionary()
+                : null;
+        Files.deleteIfExists(getTemporarySnapshotPath());
+        if (format instanceof BinaryTaskFileFormat binaryFormat && isNew()) {
+            CsvBridge.importCsv(CsvBridge.getCsvPathFor(getFilePath()), getFilePath(), binaryFormat);
+        }
+        long lastGeneration = format.readSnapshotGeneration(getFilePath());
+        if (Files.exists(compactingJournalPath)) {
+            long compactingGeneration = readJournalGeneration(compactingJournalPath);
+            if (isFoldedInto(compactingGeneration, lastGeneration)) {
+                Files.delete(compactingJournalPath);
+            }
+            lastGeneration = Math.max(lastGeneration, compactingGeneration);
+        }
+        discardIncompleteRecord();
+        this.journalBytes = Files.exists(journalPath) ? Files.size(journalPath) : 0;
+        this.journalGeneration = journalBytes > 0 ? readJournalGeneration(journalPath) : 0;
+        if (journalGeneration == 0) {
+            journalGeneration = lastGeneration + 1;
+        }
+        this.snapshotBytes = Files.size(getFilePath());
+        this.journalWriter = new WriteBehindQueue(journalPath, durabilityPolicy);
+        if (Files.exists(compactingJournalPath)) {
+            isCompacting.set(true);
+            compaction = compactor.submit(this::foldCompactingJournal);
+        }
+    }
+
+    /**
+     * Returns the path of the journal file.
+     *
+     * @return Path of the journal file.
+     */
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    public TaskFileFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Waits for the most recently started compaction, if any, to finish.
+     *
+     * @return Measurements of the compaction, or null if no compaction has been started.
+     * @throws IOException If the compaction failed.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public CompactionMetrics awaitCompaction() throws IOException, InterruptedException {
+        if (compaction == null) {
+            return null;
+        }
+        try {
+            return compaction.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Compaction failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The row is appended to the journal as an insert record, once the new tags it refers to have been written.
+     */
+    @Override
+    public CompletableFuture<Void> insertAsync(String[] strings) {
+        try {
+            byte[] record = format.encodeRecord(RecordKind.INSERT, -1, format.encodeRow(strings));
+            awaitTagsWritten();
+            if (rowCount != UNKNOWN_ROW_COUNT) {
+                rowCount++;
+            }
+            return append(record);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A delete record for the row is appended to the journal.
+     */
+    @Override
+    public CompletableFuture<Void> deleteAsync(int index) {
+        try {
+            checkIndex(index);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        rowCount--;
+        return append(format.encodeRecord(RecordKind.DELETE, index, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A clear record is appended to the journal.
+     */
+    @Override
+    public CompletableFuture<Void> clearAsync() {
+        rowCount = 0;
+        return append(format.encodeRecord(RecordKind.CLEAR, -1, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * An edit record containing the new row data is appended to the journal, once the new tags it refers to have
+     * been written.
+     */
+    @Override
+    public CompletableFuture<Void> editAsync(int index, String[] strings) {
+        try {
+            checkIndex(index);
+            byte[] record = format.encodeRecord(RecordKind.EDIT, index, format.encodeRow(strings));
+            awaitTagsWritten();
+            return append(record);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The rows are read from the snapshot with the journal replayed on top of them, in the CSV format.
+     */
+    @Override
+    public String[] read() throws IOException {
+        journalWriter.flush();
+        ReplayedRows rows = replay();
+        rowCount = rows.size();
+        return rows.stream().map(format::toCsvLine).toArray(String[]::new);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The journal has to be replayed before any row is final, so the journal is replayed first on references to
+     * the rows of the snapshot, and the rows are then decoded in parallel straight from the snapshot.
+     * The number of rows is kept, so that opening the storage does not have to read the rows as well.
+     */
+    @Override
+    public void streamTasks(int chunkSize, Consumer<List<Task>> chunkConsumer) throws IOException {
+        assert chunkSize > 0;
+        journalWriter.flush();
+        ReplayedRows rows = replay();
+        rowCount = rows.size();
+        getDecoder().stream(rows.size(), rows::decode, chunkSize, chunkConsumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A compaction which is still running is left to finish in the background, or at the next startup.
+     */
+    @Override
+    public void close() throws IOException {
+        journalWriter.close();
+        if (tagDictionary != null) {
+            tagDictionary.close();
+        }
+        super.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * New tags are synced first, then the journal along with every appended row.
+     */
+    @Override
+    protected void syncPendingWrites() throws IOException {
+        if (tagDictionary != null) {
+            tagDictionary.sync();
+        }
+        journalWriter.flushAndSync();
+        super.syncPendingWrites();
+    }
+
+    @Override
+    protected void setIsSyncDeferred(boolean isSyncDeferred) {
+        if (tagDictionary != null) {
+            tagDictionary.setIsSyncDeferred(isSyncDeferred);
+        }
+        journalWriter.setIsSyncDeferred(isSyncDeferred);
+        super.setIsSyncDeferred(isSyncDeferred);
+    }
+
+    /** Waits for the new tags of a row to be written, so that the journal never refers to a tag it cannot read. */
+    private void awaitTagsWritten() throws IOException {
+        if (tagDictionary != null) {
+            tagDictionary.awaitWritten();
+        }
+    }
+
+    /**
+     * Checks that a row index is valid, counting the rows first if they have not been read yet.
+     *
+     * @param index Index of a row.
+     * @throws IOException If an I/O error occurs while counting the rows.
+     */
+    private void checkIndex(int index) throws IOException {
+        if (rowCount == UNKNOWN_ROW_COUNT) {
+            journalWriter.flush();
+            rowCount = replay().size();
+        }
+        if (index < 0 || index >= rowCount) {
+            throw new IndexOutOfBoundsException("Invalid row index");
+        }
+    }
+
+    private boolean isNew() throws IOException {
+        return Files.size(getFilePath()) == 0 && !Files.exists(journalPath) && !Files.exists(compactingJournalPath);
+    }
+
+    private CompletableFuture<Void> append(byte[] recordBytes) {
+        if (journalBytes == 0) {
+            byte[] header = format.encodeJournalHeader(journalGeneration);
+            byte[] headedRecord = Arrays.copyOf(header, header.length + recordBytes.length);
+            System.arraycopy(recordBytes, 0, headedRecord, header.length, recordBytes.length);
+            recordBytes = headedRecord;
+        }
+        CompletableFuture<Void> pendingWrite = journalWriter.append(recordBytes);
+        journalBytes += recordBytes.length;
+        if (compactor.shouldCompact(journalBytes, snapshotBytes) && isCompacting.compareAndSet(false, true)) {
+            startCompaction();
+        }
+        return pendingWrite;
+    }
+
+    /**
+     * Moves the journal aside once the records queued so far have been written, so that it can be folded into a
+     * new snapshot in the background while new records go to a fresh journal.
+     * If the fold of an earlier compaction failed, its journal is still aside and is folded again instead, and the
+     * current journal is moved aside by a later compaction.
+     */
+    private void startCompaction() {
+        if (Files.exists(compactingJournalPath)) {
+            compaction = compactor.submit(this::foldCompactingJournal);
+            return;
+        }
+        journalBytes = 0;
+        journalGeneration++;
+        compaction = journalWriter.closeFileAndRun(this::moveJournalAside)
+                .thenCompose(moved -> compactor.submit(this::foldCompactingJournal));
+    }
+
+    /**
+     * Moves the journal aside to be compacted.
+     * If the journal cannot be moved, the records in it are unaffected and compaction is attempted again after
+     * a later record.
+     *
+     * @throws IOException If an I/O error occurs while moving the journal.
+     */
+    private void moveJournalAside() throws IOException {
+        try {
+            synchronized (fileLock) {
+                Files.move(journalPath, compactingJournalPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            isCompacting.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Folds the journal which was moved aside into a new snapshot.
+     * The new snapshot is written to a temporary file which then atomically replaces the old snapshot. It records
+     * the generation of the folded journal, so a crash before the journal is deleted leaves a journal which is
+     * skipped on replay and deleted at the next startup, rather than applied twice. A journal which was already
+     * folded in by a fold which failed to delete it is not applied again.
+     * The compaction is finished whether or not the fold succeeds, so that a failed fold is retried by the next
+     * compaction.
+     *
+     * @return Measurements of the compaction.
+     * @throws IOException If an I/O error occurs, in which case the journal stays aside until the next compaction
+     *     or startup.
+     */
+    private CompactionMetrics foldCompactingJournal() throws IOException {
+        try {
+            return fold();
+        } finally {
+            isCompacting.set(false);
+        }
+    }
+
+    private CompactionMetrics fold() throws IOException {
+        long startTime = System.nanoTime();
+        long oldBytes = snapshotBytes + Files.size(compactingJournalPath);
+        List<byte[]> rows = format.readSnapshot(getFilePath());
+        byte[] compactingJournal = Files.readAllBytes(compactingJournalPath);
+        long snapshotGeneration = format.readSnapshotGeneration(getFilePath());
+        long compactingGeneration = format.getJournalGeneration(compactingJournal);
+        if (!isFoldedInto(compactingGeneration, snapshotGeneration)) {
+            format.applyJournal(compactingJournal, rows);
+        }
+        long generation = Math.max(snapshotGeneration, compactingGeneration);
+        Path temporarySnapshotPath = getTemporarySnapshotPath();
+        format.writeSnapshot(temporarySnapshotPath, rows, generation);
+        try (FileChannel channel = FileChannel.open(temporarySnapshotPath, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        synchronized (fileLock) {
+            Files.move(temporarySnapshotPath, getFilePath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(compactingJournalPath);
+        }
+        snapshotBytes = Files.size(getFilePath());
+        long compactionNanos = System.nanoTime() - startTime;
+
+        long coldStartTime = System.nanoTime();
+        int rowCountAfterCompaction = replay().size();
+        long coldStartNanos = System.nanoTime() - coldStartTime;
+        return new CompactionMetrics(
+                rowCountAfterCompaction, snapshotBytes, oldBytes - snapshotBytes, compactionNanos, coldStartNanos);
+    }
+
+    private Path getTemporarySnapshotPath() {
+        return Paths.get(getFilePath() + TEMPORARY_SUFFIX);
+    }
+
+    /**
+     * Truncates a record that was cut off while being written, so that later records are not appended to it.
+     *
+     * @throws IOException If an I/O error occurs while truncating.
+     */
+    private void discardIncompleteRecord() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+        byte[] journal = Files.readAllBytes(journalPath);
+        int completeLength = format.getCompleteLength(journal);
+        if (completeLength == journal.length) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.truncate(completeLength);
+        }
+    }
+
+    /**
+     * Reads the snapshot and applies every complete journal record to its rows in order, starting with the
+     * records of a journal which is being compacted, without copying the rows of the snapshot.
+     *
+     * @return Rows of the task file after all journaled changes.
+     * @throws IOException If an I/O error occurs while reading.
+     */
+    private ReplayedRows replay() throws IOException {
+        synchronized (fileLock) {
+            byte[] snapshot = Files.readAllBytes(getFilePath());
+            ReplayedRows rows = new ReplayedRows(snapshot, format.findRows(snapshot, getFilePath()));
+            applyJournals(format, getFilePath(), rows, compactingJournalPath, journalPath);
+            return rows;
+        }
+    }
+
+    /**
+     * Reads the rows of a snapshot and applies the records of the given journals to them in order, skipping the
+     * journals which have already been folded into the snapshot.
+     *
+     * @param format Layout of the snapshot and journals.
+     * @param snapshotPath Path of the snapshot.
+     * @param journalPaths Paths of the journals in the order they were written, which need not exist.
+     * @return Rows of the snapshot after all journaled changes.
+     * @throws IOException If an I/O error occurs while reading.
+     */
+    static List<byte[]> replay(TaskFileFormat format, Path snapshotPath, Path... journalPaths) throws IOException {
+        List<byte[]> rows = format.readSnapshot(snapshotPath);
+        applyJournals(format, snapshotPath, rows, journalPaths);
+        return rows;
+    }
+
+    private static void applyJournals(TaskFileFormat format, Path snapshotPath, List<byte[]> rows,
+            Path... journalPaths) throws IOException {
+        long snapshotGeneration = format.readSnapshotGeneration(snapshotPath);
+        for (Path path : journalPaths) {
+            if (Files.exists(path)) {
+                byte[] journal = Files.readAllBytes(path);
+                if (!isFoldedInto(format.getJournalGeneration(journal), snapshotGeneration)) {
+                    format.applyJournal(journal, rows);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether a journal has already been folded into a snapshot.
+     * A journal written before journals were numbered has generation 0, and is never taken as folded.
+     */
+    private static boolean isFoldedInto(long journalGeneration, long snapshotGeneration) {
+        return journalGeneration > 0 && journalGeneration <= snapshotGeneration;
+    }
+
+    /**
+     * Rows of a snapshot with journals replayed on top of them, held as references to the rows of the snapshot
+     * or to rows written by the journals, so that no row of the snapshot is copied.
+     * Journal records never reorder rows, so only the rows they write are held apart from the snapshot.
+     */
+    private class ReplayedRows extends AbstractList<byte[]> {
+        private final byte[] snapshot;
+        private final int[] snapshotBounds;
+        private final List<byte[]> journalRows = new ArrayList<>();
+
+        /** Index of the snapshot row held by every row, or -1 minus the index of a row written by a journal. */
+        private int[] references;
+        private int size;
+
+        ReplayedRows(byte[] snapshot, int[] snapshotBounds) {
+            this.snapshot = snapshot;
+            this.snapshotBounds = snapshotBounds;
+            this.size = snapshotBounds.length / 2;
+            this.references = new int[Math.max(size, 16)];
+            for (int i = 0; i < size; i++) {
+                references[i] = i;
+            }
+        }
+
+        /** Decodes a row straight from where it is held. */
+        Task decode(int index) {
+            int reference = references[index];
+            if (reference < 0) {
+                return format.decodeRow(journalRows.get(-1 - reference));
+            }
+            return format.decodeRow(snapshot, snapshotBounds[2 * reference], snapshotBounds[2 * reference + 1]);
+        }
+
+        @Override
+        public byte[] get(int index) {
+            Objects.checkIndex(index, size);
+            int reference = references[index];
+            if (reference < 0) {
+                return journalRows.get(-1 - reference);
+            }
+            return Arrays.copyOfRange(snapshot, snapshotBounds[2 * reference], snapshotBounds[2 * reference + 1]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public byte[] set(int index, byte[] row) {
+            byte[] oldRow = get(index);
+            references[index] = addJournalRow(row);
+            return oldRow;
+        }
+
+        @Override
+        public void add(int index, byte[] row) {
+            Objects.checkIndex(index, size + 1);
+            if (size == references.length) {
+                references = Arrays.copyOf(references, size * 2);
+            }
+            System.arraycopy(references, index, references, index + 1, size - index);
+            references[index] = addJournalRow(row);
+            size++;
+            modCount++;
+        }
+
+        @Override
+        public byte[] remove(int index) {
+            byte[] oldRow = get(index);
+            System.arraycopy(references, index + 1, references, index, size - index - 1);
+            size--;
+            modCount++;
+            return oldRow;
+        }
+
+        @Override
+        public void clear() {
+            size = 0;
+            journalRows.clear();
+            modCount++;
+        }
+
+        private int addJournalRow(byte[] row) {
+            journalRows.add(row);
+            return -journalRows.size();
+        }
+    }
+
+    private long readJournalGeneration(Path path) throws IOException {
+        try (InputStream journal = Files.newInputStream(path)) {
+            return format.getJournalGeneration(journal.readNBytes(TaskFileFormat.JOURNAL_HEADER_LIMIT));
+        }
+    }
+}
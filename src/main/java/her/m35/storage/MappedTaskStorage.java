@@ -0,0 +1,673 @@
+package her.m35.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+import her.m35.Storage;
+import her.m35.index.FenwickTree;
+import her.m35.task.Task;
+
+/**
+ * Storage which keeps every task in a fixed-size slot of a memory-mapped file, so that changing a task writes a
+ * single slot in place instead of rewriting the file.
+ * Tasks are stored as records of a {@link BinaryTaskCodec}. A record which does not fit its slot is written to an
+ * overflow file kept next to the task file, and the slot points to it instead. An edited record is written over its
+ * old one in the overflow file if it fits, and the overflow file is rewritten without the records no slot points to
+ * once they take up most of it.
+ * Deleting a task only marks its slot as deleted, and the task file is rewritten without such slots once they make
+ * up most of it. The position of a task is the rank of its slot among the slots holding a task, kept by a Fenwick
+ * tree.
+ * Every slot holds a checksum of its record, so a slot which was cut off while being written is found when it is
+ * read. It is then marked as deleted, so that the tasks after it keep their positions, and the user is warned.
+ * The tasks are decoded straight from the mapping when loaded, without copying the file into memory first.
+ * A new task file is filled with the tasks of the CSV task file of the same name, if there is one.
+ */
+public class MappedTaskStorage extends Storage {
+
+    /** Extension of task files stored in slots. */
+    public static final String EXTENSION = ".slots";
+
+    /** Suffix appended to the task file name to get the name of its overflow file. */
+    public static final String OVERFLOW_SUFFIX = ".overflow";
+
+    /** Default size of a slot in bytes, which fits the records of most tasks. */
+    public static final int DEFAULT_SLOT_SIZE = 64;
+
+    /** Bytes every slotted task file starts with, ending with the version of the layout. */
+    private static final byte[] MAGIC = {'H', 'E', 'R', 'M', '3', '5', 'S', 2};
+
+    /** Suffix appended to the task file or overflow file name while it is being rewritten. */
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /** Suffix appended to the overflow file name once it has been rewritten, until the slots point to it. */
+    private static final String COMPACTED_SUFFIX = ".compacted";
+
+    /** Positions of the slot size, slot count and wasted overflow bytes in the header, and the size of the header. */
+    private static final int SLOT_SIZE_POSITION = 8;
+    private static final int SLOT_COUNT_POSITION = 12;
+    private static final int OVERFLOW_WASTE_POSITION = 16;
+    private static final int HEADER_BYTES = 32;
+
+    /**
+     * Offset of the checksum within a slot, which follows the length of the record, and the size of both.
+     * A slot holding a record in the overflow file has a length of {@value #OVERFLOW_LENGTH}, and the slot of a
+     * deleted task has a length of {@value #DELETED_LENGTH}.
+     */
+    private static final int CHECKSUM_OFFSET = 4;
+    private static final int SLOT_HEADER_BYTES = 8;
+    private static final int OVERFLOW_LENGTH = -1;
+    private static final int DELETED_LENGTH = -2;
+
+    /** Offsets of the position, length and reserved space of a record in the overflow file, within its slot. */
+    private static final int OVERFLOW_POSITION_OFFSET = 8;
+    private static final int OVERFLOW_RECORD_LENGTH_OFFSET = 16;
+    private static final int OVERFLOW_CAPACITY_OFFSET = 20;
+    private static final int OVERFLOW_SLOT_BYTES = 24;
+
+    /** Number of wasted bytes below which the overflow file is never rewritten. */
+    private static final long MIN_OVERFLOW_WASTE = 64 * 1024;
+
+    /** Number of slots mapped when a new task file is created. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Smallest number of slots rewritten, so that small task files are not rewritten after every few deletes. */
+    private static final int MIN_COMPACTED_SLOTS = 1024;
+
+    /** Codec which converts tasks to and from records. */
+    private final BinaryTaskCodec codec;
+
+    /** Dictionary of the tags the records refer to. */
+    private final TagDictionary tagDictionary;
+
+    /** Channel of the task file, kept open so that the mapping can be grown, and reopened once it is rewritten. */
+    private FileChannel slotChannel;
+
+    /** Path of the overflow file. */
+    private final Path overflowPath;
+
+    /** Channel of the overflow file, which is reopened whenever the overflow file is rewritten. */
+    private FileChannel overflowChannel;
+
+    /** Size of every slot in bytes. */
+    private final int slotSize;
+
+    /** Mapping of the header and every slot. */
+    private MappedByteBuffer slots;
+
+    /** Number of slots the mapping can hold. */
+    private int capacity;
+
+    /** Number of slots used, including those of deleted tasks. */
+    private int slotCount;
+
+    /** Count of 1 for every slot holding a task and 0 for every slot of a deleted task. */
+    private final FenwickTree taskSlots = new FenwickTree();
+
+    /** Number of slots holding a task. */
+    private int taskCount = 0;
+
+    /** Whether slots have been written since the last sync. */
+    private boolean hasUnsyncedWrites = false;
+
+    /** Time of the last sync in milliseconds. */
+    private long lastSyncMillis = System.currentTimeMillis();
+
+    /**
+     * Creates a slotted storage object for the given task file, syncing every change to the disk.
+     *
+     * @param fileName Name of the task file.
+     * @throws IOException If an I/O error occurs while creating or mapping the files.
+     */
+    public MappedTaskStorage(String fileName) throws IOException {
+        this(fileName, DurabilityPolicy.everyCommit(), DEFAULT_SLOT_SIZE);
+    }
+
+    /**
+     * Creates a slotted storage object for the given task file with the given durability policy.
+     * The slot size is only used for a new task file, an existing file keeps the slot size it was created with.
+     *
+     * @param fileName Name of the task file.
+     * @param durabilityPolicy When changes are synced to the disk.
+     * @param slotSize Size of every slot in bytes.
+     * @throws IOException If an I/O error occurs while creating or mapping the files, or the file is not a slotted
+     *     task file.
+     */
+    public MappedTaskStorage(String fileName, DurabilityPolicy durabilityPolicy, int slotSize) throws IOException {
+        super(fileName, durabilityPolicy);
+        assert slotSize >= OVERFLOW_SLOT_BYTES;
+        this.tagDictionary = new TagDictionary(TagDictionary.getPathFor(getFilePath()), durabilityPolicy);
+        this.codec = new BinaryTaskCodec(tagDictionary);
+        this.slotChannel = FileChannel.open(getFilePath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.overflowPath = Paths.get(getFilePath() + OVERFLOW_SUFFIX);
+        this.overflowChannel = openOverflowFile();
+        Files.deleteIfExists(getTemporaryPath());
+        Files.deleteIfExists(Paths.get(overflowPath + TEMPORARY_SUFFIX));
+        boolean isNew = slotChannel.size() == 0;
+        if (isNew) {
+            this.slotSize = slotSize;
+            map(INITIAL_CAPACITY);
+            slots.put(0, MAGIC);
+            slots.putInt(SLOT_SIZE_POSITION, slotSize);
+            setSlotCount(0);
+            for (Task task : CsvBridge.readCsv(CsvBridge.getCsvPathFor(getFilePath()))) {
+                appendSlot(codec.encode(task));
+            }
+            tagDictionary.awaitWritten();
+            hasUnsyncedWrites = true;
+            sync();
+        } else {
+            MappedByteBuffer header = slotChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a slotted task file: " + getFilePath());
+            }
+            this.slotSize = header.getInt(SLOT_SIZE_POSITION);
+            this.slotCount = header.getInt(SLOT_COUNT_POSITION);
+            map(Math.max(slotCount, (int) ((slotChannel.size() - HEADER_BYTES) / this.slotSize)));
+            for (int i = 0; i < slotCount; i++) {
+                boolean isDeleted = slots.getInt(getSlotPosition(i)) == DELETED_LENGTH;
+                taskSlots.append(isDeleted ? 0 : 1);
+                taskCount += isDeleted ? 0 : 1;
+            }
+            if (Files.exists(getCompactedOverflowPath())) {
+                pointSlotsToCompactedOverflow();
+            }
+        }
+    }
+
+    public int getSlotSize() {
+        return slotSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The task is written to the slot after the last task.
+     */
+    @Override
+    public synchronized CompletableFuture<Void> insertAsync(String[] strings) {
+        try {
+            appendSlot(encode(strings));
+            commit();
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only the length of the slot of the task is written, marking it as deleted, so that no other slot moves and a
+     * crash either keeps or deletes the task. The task file is rewritten without the slots of deleted tasks once
+     * they make up most of it.
+     */
+    @Override
+    public synchronized CompletableFuture<Void> deleteAsync(int index) {
+        checkIndex(index);
+        deleteSlot(taskSlots.select(index));
+        try {
+            compactSlotsIfWasteful();
+            commit();
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only the row count is reset, and the overflow file is emptied.
+     */
+    @Override
+    public synchronized CompletableFuture<Void> clearAsync() {
+        try {
+            setSlotCount(0);
+            taskSlots.clear();
+            taskCount = 0;
+            overflowChannel.truncate(0);
+            slots.putLong(OVERFLOW_WASTE_POSITION, 0);
+            commit();
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only the slot of the edited task is written.
+     */
+    @Override
+    public synchronized CompletableFuture<Void> editAsync(int index, String[] strings) {
+        checkIndex(index);
+        try {
+            writeSlot(taskSlots.select(index), encode(strings));
+            commit();
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The tasks are decoded and converted into the CSV format.
+     */
+    @Override
+    public synchronized String[] read() throws IOException {
+        ArrayList<Task> tasks = load();
+        String[] rows = new String[tasks.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = String.join(",", tasks.get(i).getData());
+        }
+        return rows;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The tasks are decoded straight from the mapped slots, in parallel. A slot which does not hold a valid task is
+     * marked as deleted once every task has been passed on, so that the positions of the tasks after it match the
+     * tasks passed on, and a warning is left for the user.
+     */
+    @Override
+    public synchronized void streamTasks(int chunkSize, Consumer<List<Task>> chunkConsumer) throws IOException {
+        assert chunkSize > 0;
+        boolean[] isDamaged = new boolean[slotCount];
+        try {
+            getDecoder().stream(slotCount, i -> {
+                if (slots.getInt(getSlotPosition(i)) == DELETED_LENGTH) {
+                    return null;
+                }
+                try {
+                    ByteBuffer record = readSlot(i);
+                    Task task = record == null ? null : codec.decode(record);
+                    isDamaged[i] = task == null;
+                    return task;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, chunkSize, chunkConsumer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        int damagedCount = 0;
+        for (int i = 0; i < isDamaged.length; i++) {
+            if (isDamaged[i]) {
+                deleteSlot(i);
+                damagedCount++;
+            }
+        }
+        if (damagedCount > 0) {
+            addLoadWarning("Warning: " + damagedCount + " damaged task(s) in " + getFilePath()
+                    + " could not be read and were removed.");
+            commit();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The mapping and overflow file are synced before the files are closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (slotChannel.isOpen()) {
+            hasUnsyncedWrites = true;
+            sync();
+            slotChannel.close();
+            overflowChannel.close();
+            tagDictionary.close();
+        }
+        super.close();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= taskCount) {
+            throw new IndexOutOfBoundsException("Invalid row index");
+        }
+    }
+
+    private byte[] encode(String[] strings) throws IOException {
+        Task task = Task.dataToTask(strings);
+        if (task == null) {
+            throw new IOException("Invalid task data: " + String.join(",", strings));
+        }
+        byte[] record = codec.encode(task);
+        tagDictionary.awaitWritten();
+        return record;
+    }
+
+    /**
+     * Maps the header and the given number of slots, growing the file if needed.
+     *
+     * @param newCapacity Number of slots to map.
+     * @throws IOException If an I/O error occurs while mapping, or the file would be too large to map.
+     */
+    private void map(int newCapacity) throws IOException {
+        long mappedBytes = HEADER_BYTES + (long) Math.max(newCapacity, 1) * slotSize;
+        if (mappedBytes > Integer.MAX_VALUE) {
+            throw new IOException("Task file is too large to map: " + getFilePath());
+        }
+        if (slots != null) {
+            slots.force();
+        }
+        slots = slotChannel.map(FileChannel.MapMode.READ_WRITE, 0, mappedBytes);
+        capacity = (int) ((mappedBytes - HEADER_BYTES) / slotSize);
+    }
+
+    private int getSlotPosition(int index) {
+        return HEADER_BYTES + index * slotSize;
+    }
+
+    private void setSlotCount(int newSlotCount) {
+        slotCount = newSlotCount;
+        slots.putInt(SLOT_COUNT_POSITION, newSlotCount);
+    }
+
+    private void appendSlot(byte[] record) throws IOException {
+        if (slotCount == capacity) {
+            map(capacity * 2);
+        }
+        writeSlot(slotCount, record);
+        setSlotCount(slotCount + 1);
+        taskSlots.append(1);
+        taskCount++;
+    }
+
+    /**
+     * Marks a slot holding a task as deleted, counting the space it holds in the overflow file as wasted.
+     *
+     * @param index Index of the slot.
+     */
+    private void deleteSlot(int index) {
+        releaseOverflow(index);
+        slots.putInt(getSlotPosition(index), DELETED_LENGTH);
+        taskSlots.add(index, -1);
+        taskCount--;
+    }
+
+    /**
+     * Writes a record to a slot, or to the overflow file if it does not fit the slot.
+     * A record which does not fit the slot is written over the record the slot already points to in the overflow
+     * file if it fits there, and after the end of the overflow file otherwise.
+     * The checksum and length of the slot are written last, but a slot cut off while being written is only found
+     * by its checksum, as the mapping may reach the disk in any order.
+     *
+     * @param index Index of the slot.
+     * @param record Record to write.
+     * @throws IOException If an I/O error occurs while writing to the overflow file.
+     */
+    private void writeSlot(int index, byte[] record) throws IOException {
+        int position = getSlotPosition(index);
+        boolean isOverflowing = index < slotCount && slots.getInt(position) == OVERFLOW_LENGTH;
+        int checksum = getChecksum(ByteBuffer.wrap(record));
+        if (record.length <= slotSize - SLOT_HEADER_BYTES) {
+            if (isOverflowing) {
+                releaseOverflow(index);
+            }
+            slots.put(position + SLOT_HEADER_BYTES, record);
+            slots.putInt(position + CHECKSUM_OFFSET, checksum);
+            slots.putInt(position, record.length);
+            return;
+        }
+        long overflowPosition;
+        int capacity;
+        if (isOverflowing && record.length <= slots.getInt(position + OVERFLOW_CAPACITY_OFFSET)) {
+            overflowPosition = slots.getLong(position + OVERFLOW_POSITION_OFFSET);
+            capacity = slots.getInt(position + OVERFLOW_CAPACITY_OFFSET);
+        } else {
+            if (isOverflowing) {
+                releaseOverflow(index);
+            }
+            overflowPosition = overflowChannel.size();
+            capacity = record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            overflowChannel.write(buffer, overflowPosition + buffer.position());
+        }
+        slots.putLong(position + OVERFLOW_POSITION_OFFSET, overflowPosition);
+        slots.putInt(position + OVERFLOW_RECORD_LENGTH_OFFSET, record.length);
+        slots.putInt(position + OVERFLOW_CAPACITY_OFFSET, capacity);
+        slots.putInt(position + CHECKSUM_OFFSET, checksum);
+        slots.putInt(position, OVERFLOW_LENGTH);
+    }
+
+    /**
+     * Counts the space a slot holds in the overflow file as wasted, if it holds any.
+     *
+     * @param index Index of a slot holding a task.
+     */
+    private void releaseOverflow(int index) {
+        int position = getSlotPosition(index);
+        if (slots.getInt(position) == OVERFLOW_LENGTH) {
+            long capacity = Math.max(0, slots.getInt(position + OVERFLOW_CAPACITY_OFFSET));
+            slots.putLong(OVERFLOW_WASTE_POSITION, slots.getLong(OVERFLOW_WASTE_POSITION) + capacity);
+        }
+    }
+
+    /**
+     * Returns the record held by a slot, as a view of the mapping if the record is stored in the slot.
+     *
+     * @param index Index of the slot.
+     * @return Buffer holding the record, or null if the record does not match the checksum of the slot.
+     * @throws IOException If an I/O error occurs while reading from the overflow file.
+     */
+    private ByteBuffer readSlot(int index) throws IOException {
+        int position = getSlotPosition(index);
+        int length = slots.getInt(position);
+        ByteBuffer record;
+        if (length == OVERFLOW_LENGTH) {
+            record = readOverflowRecord(position);
+        } else if (length >= 0 && length <= slotSize - SLOT_HEADER_BYTES) {
+            record = slots.slice(position + SLOT_HEADER_BYTES, length);
+        } else {
+            return null;
+        }
+        boolean isIntact = record.limit() == record.capacity()
+                && getChecksum(record) == slots.getInt(position + CHECKSUM_OFFSET);
+        return isIntact ? record : null;
+    }
+
+    /**
+     * Reads the record a slot points to in the overflow file.
+     *
+     * @param position Position of the slot.
+     * @return Buffer holding the record, whose limit is short of its capacity if the overflow file is cut off.
+     * @throws IOException If an I/O error occurs while reading.
+     */
+    private ByteBuffer readOverflowRecord(int position) throws IOException {
+        long overflowPosition = slots.getLong(position + OVERFLOW_POSITION_OFFSET);
+        ByteBuffer record = ByteBuffer.allocate(getOverflowRecordLength(position));
+        while (record.hasRemaining() && overflowPosition >= 0) {
+            if (overflowChannel.read(record, overflowPosition + record.position()) < 0) {
+                break;
+            }
+        }
+        return record.flip();
+    }
+
+    private int getOverflowRecordLength(int position) {
+        return Math.max(0, slots.getInt(position + OVERFLOW_RECORD_LENGTH_OFFSET));
+    }
+
+    private static int getChecksum(ByteBuffer record) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(record.duplicate());
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Rewrites the task file without the slots of deleted tasks, if they make up most of the slots.
+     * The new file is written next to the task file and synced, then moved over it, so that a crash leaves either
+     * the old file or the new one. The tags and overflow records the slots refer to are synced first.
+     *
+     * @throws IOException If an I/O error occurs while rewriting the task file.
+     */
+    private void compactSlotsIfWasteful() throws IOException {
+        if (slotCount < MIN_COMPACTED_SLOTS || slotCount - taskCount <= taskCount) {
+            return;
+        }
+        tagDictionary.sync();
+        overflowChannel.force(false);
+        Path temporaryPath = getTemporaryPath();
+        try (FileChannel compactedChannel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).put(slots.slice(0, HEADER_BYTES));
+            header.putInt(SLOT_COUNT_POSITION, taskCount).flip();
+            writeFully(compactedChannel, header);
+            int runStart = 0;
+            for (int i = 0; i <= slotCount; i++) {
+                if (i < slotCount && slots.getInt(getSlotPosition(i)) != DELETED_LENGTH) {
+                    continue;
+                }
+                writeFully(compactedChannel, slots.slice(getSlotPosition(runStart), (i - runStart) * slotSize));
+                runStart = i + 1;
+            }
+            compactedChannel.force(true);
+        }
+        Files.move(temporaryPath, getFilePath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        slotChannel.close();
+        slotChannel = FileChannel.open(getFilePath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        slots = null;
+        map(Math.max(taskCount, INITIAL_CAPACITY));
+        slotCount = taskCount;
+        taskSlots.clear();
+        for (int i = 0; i < taskCount; i++) {
+            taskSlots.append(1);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private Path getTemporaryPath() {
+        return Paths.get(getFilePath() + TEMPORARY_SUFFIX);
+    }
+
+    /**
+     * Rewrites the overflow file with only the records the slots point to, if most of it is wasted.
+     * The records are written in the order of their slots, so the position of every record in the new file follows
+     * from the lengths held by the slots. Once the new file is complete, the slots are pointed to it and it
+     * replaces the old one, so that a startup after a crash in between can point the slots again.
+     *
+     * @throws IOException If an I/O error occurs while rewriting the overflow file.
+     */
+    private void compactOverflowIfWasteful() throws IOException {
+        long wastedBytes = slots.getLong(OVERFLOW_WASTE_POSITION);
+        if (wastedBytes < MIN_OVERFLOW_WASTE || wastedBytes * 2 < overflowChannel.size()) {
+            return;
+        }
+        Path temporaryPath = Paths.get(overflowPath + TEMPORARY_SUFFIX);
+        try (FileChannel compactedChannel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < slotCount; i++) {
+                int position = getSlotPosition(i);
+                if (slots.getInt(position) != OVERFLOW_LENGTH) {
+                    continue;
+                }
+                ByteBuffer record = readOverflowRecord(position);
+                record.limit(record.capacity());
+                writeFully(compactedChannel, record);
+            }
+            compactedChannel.force(true);
+        }
+        Files.move(temporaryPath, getCompactedOverflowPath(), StandardCopyOption.ATOMIC_MOVE);
+        pointSlotsToCompactedOverflow();
+    }
+
+    /**
+     * Points every slot holding a record in the overflow file to its position in the rewritten overflow file, then
+     * replaces the overflow file with it.
+     *
+     * @throws IOException If an I/O error occurs while replacing the overflow file.
+     */
+    private void pointSlotsToCompactedOverflow() throws IOException {
+        long overflowPosition = 0;
+        for (int i = 0; i < slotCount; i++) {
+            int position = getSlotPosition(i);
+            if (slots.getInt(position) != OVERFLOW_LENGTH) {
+                continue;
+            }
+            int length = getOverflowRecordLength(position);
+            slots.putLong(position + OVERFLOW_POSITION_OFFSET, overflowPosition);
+            slots.putInt(position + OVERFLOW_CAPACITY_OFFSET, length);
+            overflowPosition += length;
+        }
+        slots.putLong(OVERFLOW_WASTE_POSITION, 0);
+        slots.force();
+        overflowChannel.close();
+        Files.move(getCompactedOverflowPath(), overflowPath,
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        overflowChannel = openOverflowFile();
+    }
+
+    private Path getCompactedOverflowPath() {
+        return Paths.get(overflowPath + COMPACTED_SUFFIX);
+    }
+
+    private FileChannel openOverflowFile() throws IOException {
+        return FileChannel.open(overflowPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The mapped slots and the overflow file are synced.
+     */
+    @Override
+    protected synchronized void syncPendingWrites() throws IOException {
+        sync();
+    }
+
+    /**
+     * Syncs the changes written so far if the durability policy says so, and no transaction is open.
+     *
+     * @throws IOException If an I/O error occurs while syncing.
+     */
+    private void commit() throws IOException {
+        hasUnsyncedWrites = true;
+        compactOverflowIfWasteful();
+        DurabilityPolicy durabilityPolicy = getDurabilityPolicy();
+        boolean isIntervalOver = durabilityPolicy.mode() == DurabilityPolicy.Mode.INTERVAL
+                && System.currentTimeMillis() - lastSyncMillis >= durabilityPolicy.intervalMillis();
+        if ((durabilityPolicy.isSyncedOnCommit() && !getIsInTransaction()) || isIntervalOver) {
+            sync();
+        }
+    }
+
+    private void sync() throws IOException {
+        if (!hasUnsyncedWrites) {
+            return;
+        }
+        tagDictionary.sync();
+        overflowChannel.force(false);
+        slots.force();
+        hasUnsyncedWrites = false;
+        lastSyncMillis = System.currentTimeMillis();
+    }
+}
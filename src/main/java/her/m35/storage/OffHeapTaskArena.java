@@ -0,0 +1,209 @@
+package her.m35.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import her.m35.TimePoint;
+import her.m35.task.Task;
+import her.m35.task.TaskStore;
+
+/**
+ * Store of a very large number of tasks as binary records in direct buffers outside the heap, so that the garbage
+ * collector does not have to trace an object graph per task.
+ * Records are written by a {@link BinaryTaskCodec} into chunks of direct memory, and the heap only holds the
+ * location of every record. The type, completion status, dates and tags of a task are read straight from its record,
+ * so find conditions are checked without decoding, and a task object is only decoded as a view when it is shown or
+ * its text is searched.
+ * A task which is set again is written over its old record when it fits, otherwise it is appended, and the space left
+ * behind is only given back once the task list copies its tasks into a new arena.
+ */
+public class OffHeapTaskArena implements TaskStore {
+
+    /** Default number of bytes in a chunk of direct memory. */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    /** Codec which writes and reads the records, with tags numbered in memory. */
+    private final BinaryTaskCodec codec = new BinaryTaskCodec(new TagDictionary());
+
+    /** Chunks of direct memory holding the records, of which only the last one is still being filled. */
+    private final ArrayList<ByteBuffer> chunks = new ArrayList<>();
+
+    /** Number of bytes in a chunk, unless a single record needs more. */
+    private final int chunkSize;
+
+    /** Location of every record, as the number of its chunk in the high half and its offset in the low half. */
+    private long[] locations = new long[16];
+
+    /** Number of bytes the record of every task can take at its location. */
+    private int[] capacities = new int[16];
+
+    /** Number of tasks in the arena. */
+    private int size = 0;
+
+    /** Creates an empty arena with chunks of the default size. */
+    public OffHeapTaskArena() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates an empty arena.
+     *
+     * @param chunkSize Number of bytes in a chunk of direct memory.
+     */
+    public OffHeapTaskArena(int chunkSize) {
+        assert chunkSize > 0;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Adds a task to the end of the arena.
+     *
+     * @param task Task to add, which is not kept.
+     * @return Index of the task in the arena.
+     */
+    @Override
+    public int add(Task task) {
+        if (size == locations.length) {
+            locations = Arrays.copyOf(locations, size * 2);
+            capacities = Arrays.copyOf(capacities, size * 2);
+        }
+        append(size, encode(task));
+        return size++;
+    }
+
+    /**
+     * Replaces the task at an index, writing over its record if the new record fits.
+     *
+     * @param index Index of the task.
+     * @param task New task, which is not kept.
+     */
+    @Override
+    public void set(int index, Task task) {
+        byte[] record = encode(task);
+        if (record.length <= capacities[index]) {
+            getChunk(index).put(getOffset(index), record);
+        } else {
+            append(index, record);
+        }
+    }
+
+    /** Does nothing, since the record of the task is simply not read again. */
+    @Override
+    public void remove(int index) {
+    }
+
+    private byte[] encode(Task task) {
+        try {
+            return codec.encode(task);
+        } catch (IOException e) {
+            throw new IllegalStateException("Tags are numbered in memory, so encoding cannot fail", e);
+        }
+    }
+
+    /** Appends the record of the task at an index to the last chunk, starting a new chunk if it does not fit. */
+    private void append(int index, byte[] record) {
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.remaining() < record.length) {
+            chunk = ByteBuffer.allocateDirect(Math.max(chunkSize, record.length));
+            chunks.add(chunk);
+        }
+        locations[index] = (long) (chunks.size() - 1) << Integer.SIZE | chunk.position();
+        capacities[index] = record.length;
+        chunk.put(record);
+    }
+
+    /**
+     * Decodes the task at an index, for it to be shown.
+     * Changes to the task object are not written back to the arena.
+     *
+     * @param index Index of the task.
+     * @return New task equal to the task which was added.
+     */
+    @Override
+    public Task get(int index) {
+        ByteBuffer record = getChunk(index).duplicate();
+        record.position(getOffset(index));
+        return codec.decode(record);
+    }
+
+    @Override
+    public Task.Type getType(int index) {
+        return BinaryTaskCodec.readType(getChunk(index), getOffset(index));
+    }
+
+    @Override
+    public boolean getIsDone(int index) {
+        return BinaryTaskCodec.readIsDone(getChunk(index), getOffset(index));
+    }
+
+    @Override
+    public boolean hasTag(int index, String tag) {
+        return codec.hasTag(getChunk(index), getOffset(index), tag);
+    }
+
+    @Override
+    public TimePoint getFirstDate(int index) {
+        return BinaryTaskCodec.readFirstTime(getChunk(index), getOffset(index));
+    }
+
+    @Override
+    public TimePoint getSecondDate(int index) {
+        return BinaryTaskCodec.readSecondTime(getChunk(index), getOffset(index));
+    }
+
+    /**
+     * Marks the task at an index as done or not done, changing its record in place.
+     *
+     * @param index Index of the task.
+     * @param isDone New completion status of the task.
+     */
+    @Override
+    public void mark(int index, boolean isDone) {
+        BinaryTaskCodec.writeIsDone(getChunk(index), getOffset(index), isDone);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        chunks.clear();
+        size = 0;
+    }
+
+    @Override
+    public TaskStore createEmpty(int capacity) {
+        return new OffHeapTaskArena(chunkSize);
+    }
+
+    @Override
+    public boolean getIsHoldingViews() {
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory taken by the chunks, including room not used yet.
+     *
+     * @return Bytes of direct memory.
+     */
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer chunk : chunks) {
+            bytes += chunk.capacity();
+        }
+        return bytes;
+    }
+
+    private ByteBuffer getChunk(int index) {
+        assert index >= 0 && index < size;
+        return chunks.get((int) (locations[index] >>> Integer.SIZE));
+    }
+
+    private int getOffset(int index) {
+        return (int) locations[index];
+    }
+}
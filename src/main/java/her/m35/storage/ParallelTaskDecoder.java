@@ -0,0 +1,147 @@
+package her.m35.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import her.m35.task.Task;
+
+/**
+ * Decodes rows into tasks on a fork-join pool, keeping the order of the rows.
+ * The rows are split in halves until a piece is small enough to be decoded by one thread, and every task is written
+ * to the position of its row, so no merging is needed afterwards.
+ */
+public class ParallelTaskDecoder {
+
+    /** Default number of rows below which rows are no longer split between threads. */
+    public static final int DEFAULT_SPLIT_SIZE = 1024;
+
+    /** Pool the rows are decoded on. */
+    private final ForkJoinPool pool;
+
+    /** Number of rows below which rows are no longer split between threads. */
+    private final int splitSize;
+
+    /**
+     * Creates a decoder which uses the common fork-join pool, so that it uses every core.
+     */
+    public ParallelTaskDecoder() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SPLIT_SIZE);
+    }
+
+    /**
+     * Creates a decoder which uses the given pool.
+     *
+     * @param pool Pool the rows are decoded on.
+     * @param splitSize Number of rows below which rows are no longer split between threads.
+     */
+    public ParallelTaskDecoder(ForkJoinPool pool, int splitSize) {
+        assert splitSize > 0;
+        this.pool = pool;
+        this.splitSize = splitSize;
+    }
+
+    /**
+     * Returns the number of rows worth decoding together when tasks are streamed in chunks of the given size, so
+     * that every thread of the pool gets a chunk.
+     *
+     * @param chunkSize Largest number of rows in a chunk.
+     * @return Number of rows to decode together.
+     */
+    public int getWindowSize(int chunkSize) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) chunkSize * Math.max(1, pool.getParallelism()));
+    }
+
+    /**
+     * Decodes rows in parallel.
+     * The function decoding a row is called from several threads at once, each time for a different row.
+     *
+     * @param rowCount Number of rows.
+     * @param rowDecoder Function decoding the row with the given index, returning null if the row is not valid.
+     * @return Task of every row, in the order of the rows, with null for rows which are not valid.
+     */
+    public Task[] decode(int rowCount, IntFunction<Task> rowDecoder) {
+        Task[] tasks = new Task[rowCount];
+        if (rowCount <= splitSize || pool.getParallelism() <= 1) {
+            for (int i = 0; i < rowCount; i++) {
+                tasks[i] = rowDecoder.apply(i);
+            }
+        } else {
+            pool.invoke(new DecodeAction(tasks, rowDecoder, 0, rowCount, splitSize));
+        }
+        return tasks;
+    }
+
+    /**
+     * Decodes rows in parallel, a window of rows at a time, and passes the tasks on in chunks, in order.
+     *
+     * @param rowCount Number of rows.
+     * @param rowDecoder Function decoding the row with the given index, returning null if the row is not valid.
+     * @param chunkSize Largest number of rows decoded into a chunk.
+     * @param chunkConsumer Receiver of every chunk of tasks.
+     */
+    public void stream(int rowCount, IntFunction<Task> rowDecoder, int chunkSize,
+            Consumer<List<Task>> chunkConsumer) {
+        int windowSize = getWindowSize(chunkSize);
+        for (int windowStart = 0; windowStart < rowCount; windowStart += windowSize) {
+            int offset = windowStart;
+            Task[] tasks = decode(Math.min(windowSize, rowCount - windowStart), i -> rowDecoder.apply(offset + i));
+            passOnChunks(tasks, chunkSize, chunkConsumer);
+        }
+    }
+
+    /**
+     * Passes decoded tasks on in chunks of the given number of rows, leaving out rows which are not valid.
+     *
+     * @param tasks Task of every row, with null for rows which are not valid.
+     * @param chunkSize Largest number of rows in a chunk.
+     * @param chunkConsumer Receiver of every chunk of tasks.
+     */
+    public static void passOnChunks(Task[] tasks, int chunkSize, Consumer<List<Task>> chunkConsumer) {
+        for (int chunkStart = 0; chunkStart < tasks.length; chunkStart += chunkSize) {
+            int chunkEnd = Math.min(chunkStart + chunkSize, tasks.length);
+            List<Task> chunk = new ArrayList<>(chunkEnd - chunkStart);
+            for (int i = chunkStart; i < chunkEnd; i++) {
+                if (tasks[i] != null) {
+                    chunk.add(tasks[i]);
+                }
+            }
+            chunkConsumer.accept(chunk);
+        }
+    }
+
+    /** Decodes a range of rows, splitting it in halves while it is large. */
+    private static class DecodeAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Task[] tasks;
+        private final IntFunction<Task> rowDecoder;
+        private final int start;
+        private final int end;
+        private final int splitSize;
+
+        DecodeAction(Task[] tasks, IntFunction<Task> rowDecoder, int start, int end, int splitSize) {
+            this.tasks = tasks;
+            this.rowDecoder = rowDecoder;
+            this.start = start;
+            this.end = end;
+            this.splitSize = splitSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= splitSize) {
+                for (int i = start; i < end; i++) {
+                    tasks[i] = rowDecoder.apply(i);
+                }
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new DecodeAction(tasks, rowDecoder, start, middle, splitSize),
+                    new DecodeAction(tasks, rowDecoder, middle, end, splitSize));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package her.m35.storage;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Decides when a journal has grown large enough to be folded into a new snapshot, and runs the folding on a
+ * background thread so that commands never wait for it.
+ */
+public class SnapshotCompactor {
+
+    /** Default ratio of journal size to snapshot size past which the journal is compacted. */
+    public static final double DEFAULT_COMPACTION_RATIO = 1.0;
+
+    /** Default journal size in bytes below which the journal is never compacted. */
+    public static final long DEFAULT_MINIMUM_JOURNAL_BYTES = 64 * 1024;
+
+    /** Ratio of journal size to snapshot size past which the journal is compacted. */
+    private final double compactionRatio;
+
+    /** Journal size in bytes below which the journal is never compacted, so small task lists are left alone. */
+    private final long minimumJournalBytes;
+
+    /** Single background thread that compactions are run on. */
+    private final ExecutorService executor;
+
+    /** Hook that receives the measurements of every finished compaction. */
+    private volatile Consumer<CompactionMetrics> metricsListener = metrics -> { };
+
+    /**
+     * Creates a compactor with the default compaction ratio and minimum journal size.
+     */
+    public SnapshotCompactor() {
+        this(DEFAULT_COMPACTION_RATIO, DEFAULT_MINIMUM_JOURNAL_BYTES);
+    }
+
+    /**
+     * Creates a compactor with the given compaction ratio and minimum journal size.
+     *
+     * @param compactionRatio Ratio of journal size to snapshot size past which the journal is compacted.
+     * @param minimumJournalBytes Journal size in bytes below which the journal is never compacted.
+     */
+    public SnapshotCompactor(double compactionRatio, long minimumJournalBytes) {
+        assert compactionRatio >= 0 && minimumJournalBytes >= 0;
+        this.compactionRatio = compactionRatio;
+        this.minimumJournalBytes = minimumJournalBytes;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "herm35-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets the hook which receives the measurements of every finished compaction.
+     * The hook is called on the compaction thread.
+     *
+     * @param metricsListener Hook to receive compaction measurements.
+     */
+    public void setMetricsListener(Consumer<CompactionMetrics> metricsListener) {
+        assert metricsListener != null;
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Checks whether a journal of the given size should be folded into a snapshot of the given size.
+     *
+     * @param journalBytes Current size of the journal in bytes.
+     * @param snapshotBytes Current size of the snapshot in bytes.
+     * @return True only if the journal has grown past the compaction ratio of the snapshot size.
+     */
+    public boolean shouldCompact(long journalBytes, long snapshotBytes) {
+        return journalBytes >= minimumJournalBytes && journalBytes > compactionRatio * snapshotBytes;
+    }
+
+    /**
+     * Runs a compaction on the background thread and reports its measurements once it finishes.
+     *
+     * @param compaction Compaction to run, returning its measurements.
+     * @return Future which completes when the compaction has finished.
+     */
+    public CompletableFuture<CompactionMetrics> submit(Callable<CompactionMetrics> compaction) {
+        CompletableFuture<CompactionMetrics> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                CompactionMetrics metrics = compaction.call();
+                metricsListener.accept(metrics);
+                result.complete(metrics);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+}
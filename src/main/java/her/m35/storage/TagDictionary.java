@@ -0,0 +1,219 @@
+package her.m35.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Assigns a small number to every tag name, so that binary task records can refer to tags by number.
+ * Tags are only ever added, one per line of a file kept next to the task file, so the numbers of tags never change
+ * and the file is never rewritten.
+ * New tags are appended through a {@link WriteBehindQueue}, so they are synced as the {@link DurabilityPolicy} of the
+ * storage says and held back with the rest of a transaction. A storage waits for the tags to be written before it
+ * writes a record referring to them, and syncs the tags before it syncs its records.
+ */
+public class TagDictionary {
+
+    /** Suffix appended to the task file name to get the name of its tag dictionary file. */
+    public static final String TAGS_SUFFIX = ".tags";
+
+    /** Queue which appends new tags to the dictionary file, or null if the dictionary is only kept in memory. */
+    private final WriteBehindQueue tagWriter;
+
+    /** Append of the last new tag, or null if no tag has been added since the dictionary was loaded. */
+    private volatile CompletableFuture<Void> lastTagWrite;
+
+    /** Append of the last tag known to be synced. */
+    private volatile CompletableFuture<Void> lastSyncedTagWrite;
+
+    /**
+     * Tag names in the order their numbers were assigned, followed by unused room.
+     * Tags are only written under the lock, and the array is replaced by a larger copy when full, so that tags can be
+     * read without the lock while tasks are decoded in parallel, as long as the count is read first.
+     */
+    private volatile String[] tags = new String[16];
+
+    /** Number of tag names, written after the tag it counts. */
+    private volatile int tagCount = 0;
+
+    /** Number of every tag name. */
+    private final HashMap<String, Integer> ids = new HashMap<>();
+
+    /**
+     * Creates an empty tag dictionary which is only kept in memory, for records which are never written to a file.
+     */
+    public TagDictionary() {
+        this.tagWriter = null;
+    }
+
+    /**
+     * Loads the tag dictionary stored in the given file, syncing every new tag to the disk.
+     *
+     * @param path Path of the dictionary file.
+     * @throws IOException If an I/O error occurs while reading or repairing the file.
+     */
+    public TagDictionary(Path path) throws IOException {
+        this(path, DurabilityPolicy.everyCommit());
+    }
+
+    /**
+     * Loads the tag dictionary stored in the given file, which is created once the first tag is added.
+     * A line which was cut off while being written is kept as a tag of its own, since no record refers to it.
+     *
+     * @param path Path of the dictionary file.
+     * @param durabilityPolicy When new tags are synced to the disk, which is the policy of the storage.
+     * @throws IOException If an I/O error occurs while reading or repairing the file.
+     */
+    public TagDictionary(Path path, DurabilityPolicy durabilityPolicy) throws IOException {
+        load(path);
+        this.tagWriter = new WriteBehindQueue(path, durabilityPolicy);
+    }
+
+    private void load(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        String content = Files.readString(path, StandardCharsets.UTF_8);
+        if (!content.isEmpty() && !content.endsWith("\n")) {
+            Files.write(path, new byte[] {'\n'}, StandardOpenOption.APPEND);
+            content += "\n";
+        }
+        int lineStart = 0;
+        int lineEnd = content.indexOf('\n');
+        while (lineEnd != -1) {
+            String tag = content.substring(lineStart, lineEnd);
+            ids.putIfAbsent(tag, tagCount);
+            addTag(tag);
+            lineStart = lineEnd + 1;
+            lineEnd = content.indexOf('\n', lineStart);
+        }
+    }
+
+    /**
+     * Returns the path of the tag dictionary belonging to a task file.
+     *
+     * @param snapshotPath Path of the task file.
+     * @return Path of its tag dictionary.
+     */
+    public static Path getPathFor(Path snapshotPath) {
+        return Paths.get(snapshotPath + TAGS_SUFFIX);
+    }
+
+    /**
+     * Returns the number of a tag, queueing the tag to be appended to the dictionary file if it is new.
+     * A record referring to a new tag may only be written after {@link #awaitWritten()}.
+     *
+     * @param tag Name of the tag.
+     * @return Number of the tag.
+     * @throws IOException If an earlier tag could not be written, so that no later tag would get the right number.
+     */
+    public synchronized int getId(String tag) throws IOException {
+        Integer id = ids.get(tag);
+        if (id != null) {
+            return id;
+        }
+        if (tagWriter != null) {
+            CompletableFuture<Void> previousTagWrite = lastTagWrite;
+            if (previousTagWrite != null && previousTagWrite.isCompletedExceptionally()) {
+                WriteBehindQueue.await(previousTagWrite);
+            }
+            lastTagWrite = tagWriter.append((tag + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        int newId = tagCount;
+        addTag(tag);
+        ids.put(tag, newId);
+        return newId;
+    }
+
+    /** Appends a tag name, growing the array first if it is full, which is done under the lock or while loading. */
+    private void addTag(String tag) {
+        String[] currentTags = tags;
+        if (tagCount == currentTags.length) {
+            currentTags = Arrays.copyOf(currentTags, tagCount * 2);
+            tags = currentTags;
+        }
+        currentTags[tagCount] = tag;
+        tagCount++;
+    }
+
+    /**
+     * Returns the number of a tag without adding it.
+     *
+     * @param tag Name of the tag.
+     * @return Number of the tag, or -1 if the tag is not in the dictionary.
+     */
+    public synchronized int findId(String tag) {
+        Integer id = ids.get(tag);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Waits until every tag added so far has been written, and synced if every commit is synced outside a
+     * transaction, so that records referring to them can be written.
+     *
+     * @throws IOException If a tag could not be written.
+     */
+    public void awaitWritten() throws IOException {
+        CompletableFuture<Void> tagWrite = lastTagWrite;
+        if (tagWrite != null) {
+            WriteBehindQueue.await(tagWrite);
+        }
+    }
+
+    /**
+     * Writes and syncs every tag added so far, whatever the durability policy.
+     *
+     * @throws IOException If a tag could not be written or synced.
+     */
+    public void sync() throws IOException {
+        CompletableFuture<Void> tagWrite = lastTagWrite;
+        if (tagWrite == null || tagWrite == lastSyncedTagWrite) {
+            return;
+        }
+        tagWriter.flushAndSync();
+        lastSyncedTagWrite = tagWrite;
+    }
+
+    /**
+     * Holds back or resumes syncing every new tag on its own, as a transaction of the storage is opened or committed.
+     *
+     * @param isSyncDeferred Whether syncs are held back.
+     */
+    public void setIsSyncDeferred(boolean isSyncDeferred) {
+        if (tagWriter != null) {
+            tagWriter.setIsSyncDeferred(isSyncDeferred);
+        }
+    }
+
+    /**
+     * Writes and syncs every tag added so far and closes the dictionary file.
+     *
+     * @throws IOException If a tag could not be written or synced.
+     */
+    public void close() throws IOException {
+        if (tagWriter != null) {
+            tagWriter.close();
+        }
+    }
+
+    /**
+     * Returns the name of the tag with the given number.
+     *
+     * @param id Number of the tag.
+     * @return Name of the tag.
+     * @throws IndexOutOfBoundsException If no tag has the given number.
+     */
+    public String getTag(int id) {
+        int count = tagCount;
+        if (id < 0 || id >= count) {
+            throw new IndexOutOfBoundsException("No tag has the number " + id);
+        }
+        return tags[id];
+    }
+}
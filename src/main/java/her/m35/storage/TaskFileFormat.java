@@ -0,0 +1,177 @@
+package her.m35.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import her.m35.task.Task;
+
+/**
+ * Describes how the rows of a task file and the records of its journal are laid out on disk.
+ * Rows are handled as opaque byte arrays, so that a journal can be replayed and folded into a new snapshot without
+ * decoding a single task.
+ */
+public interface TaskFileFormat {
+
+    /** Extension of task files stored in the binary format. */
+    String BINARY_EXTENSION = ".bin";
+
+    /** Extension of task files stored in the CSV format. */
+    String CSV_EXTENSION = ".csv";
+
+    /** Largest number of bytes taken up by the generation record a journal starts with. */
+    int JOURNAL_HEADER_LIMIT = 32;
+
+    /** Enumeration of the kinds of change a journal record describes. */
+    enum RecordKind {
+        INSERT,
+        EDIT,
+        DELETE,
+        CLEAR
+    }
+
+    /**
+     * Returns the format of the task file at the given path, based on its extension.
+     * Files ending with {@value #BINARY_EXTENSION} use the binary format, every other file uses the CSV format.
+     *
+     * @param snapshotPath Path of the task file.
+     * @param durabilityPolicy When the files the format depends on are synced to the disk.
+     * @return Format of the task file.
+     * @throws IOException If an I/O error occurs while reading the files the format depends on.
+     */
+    static TaskFileFormat forPath(Path snapshotPath, DurabilityPolicy durabilityPolicy) throws IOException {
+        if (snapshotPath.toString().endsWith(BINARY_EXTENSION)) {
+            return new BinaryTaskFileFormat(
+                    new TagDictionary(TagDictionary.getPathFor(snapshotPath), durabilityPolicy));
+        }
+        return new CsvTaskFileFormat();
+    }
+
+    /**
+     * Reads every row of a task file.
+     *
+     * @param snapshotPath Path of the task file.
+     * @return Rows of the task file.
+     * @throws IOException If an I/O error occurs while reading, or the file is not in this format.
+     */
+    default List<byte[]> readSnapshot(Path snapshotPath) throws IOException {
+        byte[] snapshot = Files.readAllBytes(snapshotPath);
+        int[] bounds = findRows(snapshot, snapshotPath);
+        List<byte[]> rows = new ArrayList<>(bounds.length / 2);
+        for (int i = 0; i < bounds.length; i += 2) {
+            rows.add(Arrays.copyOfRange(snapshot, bounds[i], bounds[i + 1]));
+        }
+        return rows;
+    }
+
+    /**
+     * Finds where every row of a task file starts and ends within its contents, without copying the rows.
+     *
+     * @param snapshot Contents of the task file.
+     * @param snapshotPath Path of the task file, used in error messages.
+     * @return Index of the first byte of every row, each followed by the index after its last byte.
+     * @throws IOException If the contents are not in this format.
+     */
+    int[] findRows(byte[] snapshot, Path snapshotPath) throws IOException;
+
+    /**
+     * Reads the generation of the last journal folded into a task file, without reading its rows.
+     *
+     * @param snapshotPath Path of the task file.
+     * @return Generation of the last folded journal, or 0 if no journal has been folded into the file.
+     * @throws IOException If an I/O error occurs while reading, or the file is not in this format.
+     */
+    long readSnapshotGeneration(Path snapshotPath) throws IOException;
+
+    /**
+     * Writes the given rows as the whole content of a task file.
+     *
+     * @param snapshotPath Path of the task file.
+     * @param rows Rows to write.
+     * @param generation Generation of the last journal folded into the rows, or 0 if there is none.
+     * @throws IOException If an I/O error occurs while writing.
+     */
+    void writeSnapshot(Path snapshotPath, List<byte[]> rows, long generation) throws IOException;
+
+    /**
+     * Converts the data of a task, as returned by {@link Task#getData()}, into a row.
+     *
+     * @param strings Data of the task.
+     * @return Row holding the task.
+     * @throws IOException If an I/O error occurs while recording information the row depends on.
+     */
+    byte[] encodeRow(String[] strings) throws IOException;
+
+    /**
+     * Converts a row back into a task.
+     *
+     * @param row Row holding the task.
+     * @return Task held by the row, or null if the row does not hold a valid task.
+     */
+    Task decodeRow(byte[] row);
+
+    /**
+     * Converts a row held by part of an array back into a task.
+     *
+     * @param bytes Array holding the row.
+     * @param start Index of the first byte of the row.
+     * @param end Index after the last byte of the row.
+     * @return Task held by the row, or null if the row does not hold a valid task.
+     */
+    Task decodeRow(byte[] bytes, int start, int end);
+
+    /**
+     * Converts a row into the comma-separated form used by CSV task files.
+     *
+     * @param row Row holding a task.
+     * @return Comma-separated data of the task.
+     */
+    String toCsvLine(byte[] row);
+
+    /**
+     * Encodes a journal record.
+     *
+     * @param kind Kind of change the record describes.
+     * @param index Index of the affected row, only used by edit and delete records.
+     * @param row New row, only used by insert and edit records.
+     * @return Bytes of the record.
+     */
+    byte[] encodeRecord(RecordKind kind, int index, byte[] row);
+
+    /**
+     * Encodes the record a journal starts with, which holds the generation of the journal.
+     *
+     * @param generation Generation of the journal, counting up from 1.
+     * @return Bytes of the record.
+     */
+    byte[] encodeJournalHeader(long generation);
+
+    /**
+     * Returns the generation held by the record a journal starts with.
+     *
+     * @param journal Contents of the journal file, or at least its first {@value #JOURNAL_HEADER_LIMIT} bytes.
+     * @return Generation of the journal, or 0 if the journal does not start with a complete generation record.
+     */
+    long getJournalGeneration(byte[] journal);
+
+    /**
+     * Applies the records of a journal to the given rows.
+     * A trailing record which was cut off while being written is ignored, as are records which do not fit the
+     * rows they are applied to.
+     *
+     * @param journal Contents of the journal file.
+     * @param rows Rows to apply the journal to.
+     */
+    void applyJournal(byte[] journal, List<byte[]> rows);
+
+    /**
+     * Returns the length of the journal up to the end of its last complete record.
+     *
+     * @param journal Contents of the journal file.
+     * @return Number of bytes taken up by complete records.
+     */
+    int getCompleteLength(byte[] journal);
+}
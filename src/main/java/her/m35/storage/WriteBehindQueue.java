@@ -0,0 +1,329 @@
+package her.m35.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends bytes to a file on a background writer thread.
+ * Appends that pile up while the writer is busy are written together in one batch, so that many small appends
+ * cost a single write and at most a single sync, which is when the {@link DurabilityPolicy} allows it.
+ */
+public class WriteBehindQueue {
+
+    /** Largest number of pending operations handled together in one batch. */
+    private static final int MAX_BATCH_SIZE = 4096;
+
+    /** An action run on the writer thread after everything queued before it has been written. */
+    @FunctionalInterface
+    public interface FileAction {
+        /**
+         * Runs the action.
+         *
+         * @throws IOException If an I/O error occurs.
+         */
+        void run() throws IOException;
+    }
+
+    /**
+     * An append or action waiting for the writer thread.
+     *
+     * @param bytes Bytes to append, or null if this is an action.
+     * @param action Action to run after the file has been synced and closed, or null if the file stays open.
+     * @param isSync Whether the file is synced, while staying open, if this is not an append or an action.
+     * @param isLast Whether the writer thread stops after this operation.
+     * @param result Future completed once the operation is done.
+     */
+    private record PendingOperation(byte[] bytes, FileAction action, boolean isSync, boolean isLast,
+            CompletableFuture<Void> result) {
+        boolean isAppend() {
+            return bytes != null;
+        }
+    }
+
+    /** Path of the file being appended to. */
+    private final Path path;
+
+    /** When appends are synced to the disk. */
+    private final DurabilityPolicy durabilityPolicy;
+
+    /** Operations waiting for the writer thread. */
+    private final BlockingQueue<PendingOperation> pendingOperations = new LinkedBlockingQueue<>();
+
+    /** Whether the queue has been closed to new operations. */
+    private volatile boolean isClosed = false;
+
+    /** Whether syncs of every commit are held back until {@link #flushAndSync()}, during a storage transaction. */
+    private volatile boolean isSyncDeferred = false;
+
+    /**
+     * Open channel to the file, only used by the writer thread. It stays open between appends and syncs, and is only
+     * closed around actions and after a failure, to be opened again by the next append.
+     */
+    private FileChannel channel;
+
+    /** Whether appends have been written since the last sync, only used by the writer thread. */
+    private boolean hasUnsyncedWrites = false;
+
+    /** Time of the last sync in milliseconds, only used by the writer thread. */
+    private long lastSyncMillis = System.currentTimeMillis();
+
+    /**
+     * Creates a queue which appends to the given file and starts its writer thread.
+     *
+     * @param path Path of the file to append to.
+     * @param durabilityPolicy When appends are synced to the disk.
+     */
+    public WriteBehindQueue(Path path, DurabilityPolicy durabilityPolicy) {
+        this.path = path;
+        this.durabilityPolicy = durabilityPolicy;
+        Thread writerThread = new Thread(this::runWriter, "herm35-writer-" + path.getFileName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public DurabilityPolicy getDurabilityPolicy() {
+        return durabilityPolicy;
+    }
+
+    public void setIsSyncDeferred(boolean isSyncDeferred) {
+        this.isSyncDeferred = isSyncDeferred;
+    }
+
+    /**
+     * Queues bytes to be appended to the file.
+     *
+     * @param bytes Bytes to append.
+     * @return Future completed once the bytes are written, and synced if the durability policy says so.
+     */
+    public CompletableFuture<Void> append(byte[] bytes) {
+        assert bytes != null;
+        return enqueue(new PendingOperation(bytes, null, false, false, new CompletableFuture<>()));
+    }
+
+    /**
+     * Queues an action which runs once everything queued before it has been written and the file has been
+     * synced and closed, for example to move or rewrite the file. Later appends open the file again.
+     *
+     * @param action Action to run.
+     * @return Future completed once the action has run.
+     */
+    public CompletableFuture<Void> closeFileAndRun(FileAction action) {
+        assert action != null;
+        return enqueue(new PendingOperation(null, action, false, false, new CompletableFuture<>()));
+    }
+
+    /**
+     * Waits until everything queued so far has been written.
+     *
+     * @throws IOException If an I/O error occurred while writing.
+     */
+    public void flush() throws IOException {
+        await(enqueue(new PendingOperation(null, null, false, false, new CompletableFuture<>())));
+    }
+
+    /**
+     * Waits until everything queued so far has been written and synced, whatever the durability policy.
+     * The file stays open for later appends.
+     *
+     * @throws IOException If an I/O error occurred while writing or syncing.
+     */
+    public void flushAndSync() throws IOException {
+        await(enqueue(new PendingOperation(null, null, true, false, new CompletableFuture<>())));
+    }
+
+    /**
+     * Writes and syncs everything queued so far, closes the file and stops the writer thread.
+     * Closing an already closed queue does nothing.
+     *
+     * @throws IOException If an I/O error occurred while writing or syncing.
+     */
+    public void close() throws IOException {
+        CompletableFuture<Void> result;
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            result = new CompletableFuture<>();
+            pendingOperations.add(new PendingOperation(null, () -> { }, false, true, result));
+            isClosed = true;
+        }
+        await(result);
+    }
+
+    /**
+     * Waits for a queued operation to finish.
+     *
+     * @param result Future of the queued operation.
+     * @throws IOException If the operation failed.
+     */
+    public static void await(CompletableFuture<Void> result) throws IOException {
+        try {
+            result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for storage", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private synchronized CompletableFuture<Void> enqueue(PendingOperation operation) {
+        if (isClosed) {
+            operation.result().completeExceptionally(new IOException("Storage has already been closed."));
+        } else {
+            pendingOperations.add(operation);
+        }
+        return operation.result();
+    }
+
+    private void runWriter() {
+        List<PendingOperation> batch = new ArrayList<>();
+        boolean isStopping = false;
+        while (!isStopping) {
+            PendingOperation firstOperation;
+            try {
+                firstOperation = pendingOperations.poll(getWaitMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (firstOperation == null) {
+                syncIfDue();
+                continue;
+            }
+            batch.add(firstOperation);
+            pendingOperations.drainTo(batch, MAX_BATCH_SIZE - 1);
+            isStopping = processBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private long getWaitMillis() {
+        return durabilityPolicy.mode() == DurabilityPolicy.Mode.INTERVAL
+                ? durabilityPolicy.intervalMillis()
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * Writes each run of consecutive appends in the batch together, and runs the actions in between in order.
+     *
+     * @param batch Operations to process.
+     * @return True only if the writer thread should stop.
+     */
+    private boolean processBatch(List<PendingOperation> batch) {
+        int runStart = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingOperation operation = batch.get(i);
+            if (operation.isAppend()) {
+                continue;
+            }
+            writeAppends(batch.subList(runStart, i));
+            runStart = i + 1;
+            runAction(operation);
+            if (operation.isLast()) {
+                return true;
+            }
+        }
+        writeAppends(batch.subList(runStart, batch.size()));
+        syncIfDue();
+        return false;
+    }
+
+    private void writeAppends(List<PendingOperation> appends) {
+        if (appends.isEmpty()) {
+            return;
+        }
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+            ByteBuffer[] buffers = new ByteBuffer[appends.size()];
+            long remainingBytes = 0;
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = ByteBuffer.wrap(appends.get(i).bytes());
+                remainingBytes += buffers[i].remaining();
+            }
+            while (remainingBytes > 0) {
+                remainingBytes -= channel.write(buffers);
+            }
+            hasUnsyncedWrites = true;
+            if (durabilityPolicy.isSyncedOnCommit() && !isSyncDeferred) {
+                sync();
+            }
+        } catch (IOException e) {
+            closeChannelAfterFailure();
+            for (PendingOperation append : appends) {
+                append.result().completeExceptionally(e);
+            }
+            return;
+        }
+        for (PendingOperation append : appends) {
+            append.result().complete(null);
+        }
+    }
+
+    private void runAction(PendingOperation operation) {
+        try {
+            if (operation.action() != null) {
+                sync();
+                if (channel != null) {
+                    channel.close();
+                    channel = null;
+                }
+                operation.action().run();
+            } else if (operation.isSync()) {
+                sync();
+            }
+            operation.result().complete(null);
+        } catch (IOException e) {
+            closeChannelAfterFailure();
+            operation.result().completeExceptionally(e);
+        }
+    }
+
+    private void syncIfDue() {
+        if (durabilityPolicy.mode() != DurabilityPolicy.Mode.INTERVAL || !hasUnsyncedWrites
+                || System.currentTimeMillis() - lastSyncMillis < durabilityPolicy.intervalMillis()) {
+            return;
+        }
+        try {
+            sync();
+        } catch (IOException e) {
+            // The appends have already been reported as written, the next sync is attempted after the interval.
+            closeChannelAfterFailure();
+        }
+    }
+
+    private void sync() throws IOException {
+        if (hasUnsyncedWrites && channel != null) {
+            channel.force(false);
+        }
+        hasUnsyncedWrites = false;
+        lastSyncMillis = System.currentTimeMillis();
+    }
+
+    private void closeChannelAfterFailure() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // The channel is discarded either way and opened again for the next append.
+        }
+        channel = null;
+    }
+}
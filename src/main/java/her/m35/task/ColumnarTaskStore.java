@@ -0,0 +1,383 @@
+package her.m35.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import her.m35.TimePoint;
+
+/**
+ * Compact store of a large number of tasks, keeping each field of every task in its own primitive array instead of
+ * keeping a {@link Task} object per task.
+ * Names and dates kept as text share one character arena, and tags are kept as numbers in a shared tag arena, so a
+ * task costs a few dozen bytes besides the characters of its name. Task objects are only made as views, when a task is
+ * shown or checked.
+ * Dates are kept as epoch days, or as epoch minutes in UTC if they have a time.
+ * A task which is set again keeps its name and tags in place when they still fit, otherwise they are appended to the
+ * arenas, and the space left behind is only given back once the task list copies its tasks into a new store.
+ */
+public class ColumnarTaskStore implements TaskStore {
+
+    /** Codes of the formats of the dates of a task, where a task without a date has none. */
+    private static final byte NO_DATE = 0;
+    private static final byte STRING_DATE = 1;
+    private static final byte LOCAL_DATE = 2;
+    private static final byte LOCAL_DATE_TIME = 3;
+
+    /** Number of bits taken by the format code of a date. */
+    private static final int FORMAT_BITS = 2;
+
+    /** Mask of the format code of the first date. */
+    private static final int FORMAT_MASK = (1 << FORMAT_BITS) - 1;
+
+    private static final Task.Type[] TYPES = Task.Type.values();
+
+    /** Ordinal of the type of every task. */
+    private byte[] types;
+
+    /** Whether every task is done, one bit per task. */
+    private long[] doneBits;
+
+    /** Format code of the first date of every task, with the format code of its second date in the next bits. */
+    private byte[] dateFormats;
+
+    /** Deadline or start date of every task, or the arena offset and length of its text if the date is a string. */
+    private long[] firstDates;
+
+    /** End date of every event, or the arena offset and length of its text if the date is a string. */
+    private long[] secondDates;
+
+    /** Offset of the name of every task in the text arena. */
+    private int[] nameOffsets;
+
+    /** Length of the name of every task. */
+    private int[] nameLengths;
+
+    /** Offset of the tags of every task in the tag arena. */
+    private int[] tagOffsets;
+
+    /** Number of tags of every task. */
+    private int[] tagCounts;
+
+    /** Characters of every name and every date kept as a string. */
+    private char[] textArena = new char[256];
+    private int textLength = 0;
+
+    /** Numbers of the tags of every task, one run per task. */
+    private int[] tagArena = new int[64];
+    private int tagArenaLength = 0;
+
+    /** Tag names by number, and the number of every tag name. */
+    private final ArrayList<String> tagNames = new ArrayList<>();
+    private final HashMap<String, Integer> tagIds = new HashMap<>();
+
+    /** Number of tasks in the store. */
+    private int size = 0;
+
+    /**
+     * Creates an empty store with room for a given number of tasks.
+     *
+     * @param capacity Number of tasks the store can hold before it grows.
+     */
+    public ColumnarTaskStore(int capacity) {
+        int initialCapacity = Math.max(capacity, 1);
+        types = new byte[initialCapacity];
+        doneBits = new long[(initialCapacity + Long.SIZE - 1) / Long.SIZE];
+        dateFormats = new byte[initialCapacity];
+        firstDates = new long[initialCapacity];
+        secondDates = new long[initialCapacity];
+        nameOffsets = new int[initialCapacity];
+        nameLengths = new int[initialCapacity];
+        tagOffsets = new int[initialCapacity];
+        tagCounts = new int[initialCapacity];
+    }
+
+    /**
+     * Adds a task to the end of the store.
+     * The dates of the task are encoded before anything is written, so a task which cannot be stored leaves the store
+     * as it was.
+     *
+     * @param task Task to add, which is not kept.
+     * @return Index of the task in the store.
+     * @throws IllegalArgumentException If a date of the task is missing.
+     */
+    @Override
+    public int add(Task task) {
+        long[] dates = new long[2];
+        byte formats = encodeDates(task, dates);
+        if (size == types.length) {
+            grow();
+        }
+        int index = size;
+        nameOffsets[index] = appendText(task.getName());
+        nameLengths[index] = task.getName().length();
+        tagOffsets[index] = tagArenaLength;
+        tagCounts[index] = task.getTags().size();
+        for (String tag : task.getTags()) {
+            appendTag(getTagId(tag));
+        }
+        writeFields(index, task, formats, dates);
+        size++;
+        return index;
+    }
+
+    /**
+     * Replaces the task at an index, reusing the room of its name and tags where the new ones fit.
+     *
+     * @param index Index of the task.
+     * @param task New task, which is not kept.
+     * @throws IllegalArgumentException If a date of the task is missing, in which case the old task is kept.
+     */
+    @Override
+    public void set(int index, Task task) {
+        assert index >= 0 && index < size;
+        long[] dates = new long[2];
+        byte formats = encodeDates(task, dates);
+        String name = task.getName();
+        if (name.length() > nameLengths[index]) {
+            nameOffsets[index] = appendText(name);
+        } else {
+            name.getChars(0, name.length(), textArena, nameOffsets[index]);
+        }
+        nameLengths[index] = name.length();
+        if (task.getTags().size() > tagCounts[index]) {
+            tagOffsets[index] = tagArenaLength;
+            for (String tag : task.getTags()) {
+                appendTag(getTagId(tag));
+            }
+        } else {
+            int tagIndex = tagOffsets[index];
+            for (String tag : task.getTags()) {
+                tagArena[tagIndex++] = getTagId(tag);
+            }
+        }
+        tagCounts[index] = task.getTags().size();
+        writeFields(index, task, formats, dates);
+    }
+
+    /** Writes the type, completion status and encoded dates of a task. */
+    private void writeFields(int index, Task task, byte formats, long[] dates) {
+        types[index] = (byte) task.getType().ordinal();
+        setDone(index, task.getIsDone());
+        dateFormats[index] = formats;
+        firstDates[index] = dates[0];
+        secondDates[index] = dates[1];
+    }
+
+    /**
+     * Encodes the dates of a task without writing them to the columns.
+     *
+     * @param task Task whose dates are encoded.
+     * @param dates Array receiving the first and second encoded dates.
+     * @return Format codes of the dates.
+     * @throws IllegalArgumentException If a date of the task is missing.
+     */
+    private byte encodeDates(Task task, long[] dates) {
+        if (task instanceof DeadlineTask deadline) {
+            return encodeDate(deadline.getByDate(), dates, 0);
+        } else if (task instanceof EventTask event) {
+            return (byte) (encodeDate(event.getFromDate(), dates, 0)
+                    | encodeDate(event.getToDate(), dates, 1) << FORMAT_BITS);
+        }
+        return NO_DATE;
+    }
+
+    /** Does nothing, since the fields of the task are simply not read again. */
+    @Override
+    public void remove(int index) {
+    }
+
+    /**
+     * Makes a task object holding the task at an index, for it to be shown.
+     * Changes to the task object are not written back to the store.
+     *
+     * @param index Index of the task.
+     * @return New task equal to the task which was added.
+     */
+    @Override
+    public Task get(int index) {
+        assert index >= 0 && index < size;
+        String name = new String(textArena, nameOffsets[index], nameLengths[index]);
+        String[] tags = new String[tagCounts[index]];
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] = tagNames.get(tagArena[tagOffsets[index] + i]);
+        }
+        boolean isDone = getIsDone(index);
+        switch (getType(index)) {
+        case DEADLINE:
+            return new DeadlineTask(name, decodeDate(dateFormats[index], firstDates[index]), tags, isDone);
+        case EVENT:
+            return new EventTask(name, decodeDate(dateFormats[index], firstDates[index]),
+                    decodeDate(dateFormats[index] >> FORMAT_BITS, secondDates[index]), tags, isDone);
+        default:
+            return new ToDoTask(name, tags, isDone);
+        }
+    }
+
+    @Override
+    public Task.Type getType(int index) {
+        return TYPES[types[index]];
+    }
+
+    @Override
+    public boolean getIsDone(int index) {
+        return (doneBits[index / Long.SIZE] & (1L << index)) != 0;
+    }
+
+    /**
+     * Marks the task at an index as done or not done.
+     *
+     * @param index Index of the task.
+     * @param isDone New completion status of the task.
+     */
+    @Override
+    public void mark(int index, boolean isDone) {
+        assert index >= 0 && index < size;
+        setDone(index, isDone);
+    }
+
+    /**
+     * Returns whether the task at an index has a tag, without making a task object.
+     *
+     * @param index Index of the task.
+     * @param tag Tag to look for.
+     * @return True only if the task has the tag.
+     */
+    @Override
+    public boolean hasTag(int index, String tag) {
+        Integer tagId = tagIds.get(tag);
+        if (tagId == null) {
+            return false;
+        }
+        for (int i = tagOffsets[index]; i < tagOffsets[index] + tagCounts[index]; i++) {
+            if (tagArena[i] == tagId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public TimePoint getFirstDate(int index) {
+        return (dateFormats[index] & FORMAT_MASK) == NO_DATE ? null : decodeDate(dateFormats[index], firstDates[index]);
+    }
+
+    @Override
+    public TimePoint getSecondDate(int index) {
+        int formats = dateFormats[index] >> FORMAT_BITS;
+        return formats == NO_DATE ? null : decodeDate(formats, secondDates[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        textLength = 0;
+        tagArenaLength = 0;
+    }
+
+    @Override
+    public TaskStore createEmpty(int capacity) {
+        return new ColumnarTaskStore(capacity);
+    }
+
+    @Override
+    public boolean getIsHoldingViews() {
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes taken by the arrays of the store, leaving out the tag names and object headers.
+     *
+     * @return Bytes allocated for the tasks, including room not used yet.
+     */
+    public long getFootprintBytes() {
+        long perTaskBytes = (long) types.length * (Byte.BYTES * 2 + Long.BYTES * 2 + Integer.BYTES * 4);
+        return perTaskBytes + (long) doneBits.length * Long.BYTES + (long) textArena.length * Character.BYTES
+                + (long) tagArena.length * Integer.BYTES;
+    }
+
+    private void setDone(int index, boolean isDone) {
+        if (isDone) {
+            doneBits[index / Long.SIZE] |= 1L << index;
+        } else {
+            doneBits[index / Long.SIZE] &= ~(1L << index);
+        }
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        doneBits = Arrays.copyOf(doneBits, (capacity + Long.SIZE - 1) / Long.SIZE);
+        dateFormats = Arrays.copyOf(dateFormats, capacity);
+        firstDates = Arrays.copyOf(firstDates, capacity);
+        secondDates = Arrays.copyOf(secondDates, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+        tagOffsets = Arrays.copyOf(tagOffsets, capacity);
+        tagCounts = Arrays.copyOf(tagCounts, capacity);
+    }
+
+    /** Appends text to the text arena, returning its offset. */
+    private int appendText(String text) {
+        if (textLength + text.length() > textArena.length) {
+            textArena = Arrays.copyOf(textArena, Math.max(textArena.length * 2, textLength + text.length()));
+        }
+        text.getChars(0, text.length(), textArena, textLength);
+        textLength += text.length();
+        return textLength - text.length();
+    }
+
+    private int getTagId(String tag) {
+        return tagIds.computeIfAbsent(tag, newTag -> {
+            tagNames.add(newTag);
+            return tagNames.size() - 1;
+        });
+    }
+
+    private void appendTag(int tagId) {
+        if (tagArenaLength == tagArena.length) {
+            tagArena = Arrays.copyOf(tagArena, tagArena.length * 2);
+        }
+        tagArena[tagArenaLength++] = tagId;
+    }
+
+    /**
+     * Writes a date into an array of encoded dates.
+     *
+     * @return Format code of the date.
+     * @throws IllegalArgumentException If the date is missing.
+     */
+    private byte encodeDate(TimePoint date, long[] column, int index) {
+        if (date == null) {
+            throw new IllegalArgumentException("The task has no date");
+        }
+        switch (date.getFormat()) {
+        case LOCAL_DATE:
+            column[index] = date.getEpochDay();
+            return LOCAL_DATE;
+        case LOCAL_DATE_TIME:
+            column[index] = date.getEpochMinute();
+            return LOCAL_DATE_TIME;
+        default:
+            String text = (String) date.getTime();
+            column[index] = (long) appendText(text) << Integer.SIZE | text.length();
+            return STRING_DATE;
+        }
+    }
+
+    private TimePoint decodeDate(int formats, long value) {
+        switch (formats & FORMAT_MASK) {
+        case LOCAL_DATE:
+            return TimePoint.ofEpochDay(value);
+        case LOCAL_DATE_TIME:
+            return TimePoint.ofEpochMinute(value);
+        default:
+            return new TimePoint(new String(textArena, (int) (value >>> Integer.SIZE), (int) value));
+        }
+    }
+}
@@ -70,6 +70,16 @@ public class DeadlineTask extends Task {
         return byDate;
     }
 
+    @Override
+    public TimePoint getFirstDate() {
+        return byDate;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
     @Override
     public String[] getData() {
         return new String[] {getTypeIcon(), getDoneIcon(), name, byDate.toString(), getTagsData()};
@@ -83,6 +83,21 @@ public class EventTask extends Task {
         return toTimePoint;
     }
 
+    @Override
+    public TimePoint getFirstDate() {
+        return fromDate;
+    }
+
+    @Override
+    public TimePoint getSecondDate() {
+        return toTimePoint;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
     @Override
     public String[] getData() {
         return new String[] {
@@ -0,0 +1,108 @@
+package her.m35.task;
+
+import java.util.Arrays;
+
+import her.m35.TimePoint;
+
+/**
+ * Store which keeps the task objects it is given, which is the default backing of a task list.
+ */
+public class ObjectTaskStore implements TaskStore {
+
+    /** Task in every slot, or null where a task was removed. */
+    private Task[] tasks;
+
+    /** Number of slots used. */
+    private int size = 0;
+
+    /** Creates an empty store. */
+    public ObjectTaskStore() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty store with room for a given number of tasks.
+     *
+     * @param capacity Number of tasks the store can hold before it grows.
+     */
+    public ObjectTaskStore(int capacity) {
+        tasks = new Task[Math.max(capacity, 1)];
+    }
+
+    @Override
+    public int add(Task task) {
+        if (size == tasks.length) {
+            tasks = Arrays.copyOf(tasks, size * 2);
+        }
+        tasks[size] = task;
+        return size++;
+    }
+
+    @Override
+    public Task get(int slot) {
+        assert slot >= 0 && slot < size;
+        return tasks[slot];
+    }
+
+    @Override
+    public void set(int slot, Task task) {
+        assert slot >= 0 && slot < size;
+        tasks[slot] = task;
+    }
+
+    @Override
+    public void remove(int slot) {
+        tasks[slot] = null;
+    }
+
+    @Override
+    public Task.Type getType(int slot) {
+        return tasks[slot].getType();
+    }
+
+    @Override
+    public boolean getIsDone(int slot) {
+        return tasks[slot].getIsDone();
+    }
+
+    @Override
+    public boolean hasTag(int slot, String tag) {
+        return tasks[slot].hasTag(tag);
+    }
+
+    @Override
+    public TimePoint getFirstDate(int slot) {
+        return tasks[slot].getFirstDate();
+    }
+
+    @Override
+    public TimePoint getSecondDate(int slot) {
+        return tasks[slot].getSecondDate();
+    }
+
+    @Override
+    public void mark(int slot, boolean isDone) {
+        tasks[slot].mark(isDone);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(tasks, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public TaskStore createEmpty(int capacity) {
+        return new ObjectTaskStore(capacity);
+    }
+
+    @Override
+    public boolean getIsHoldingViews() {
+        return false;
+    }
+}
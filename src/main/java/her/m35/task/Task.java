@@ -24,6 +24,23 @@ public abstract class Task {
         EVENT
     }
 
+    /** Receives every change made to the tags of a task, such as the task list which indexes the task. */
+    public interface TagListener {
+        /**
+         * Called after a tag has been added to the task.
+         *
+         * @param tag Tag which was added.
+         */
+        void tagAdded(String tag);
+
+        /**
+         * Called after a tag has been removed from the task.
+         *
+         * @param tag Tag which was removed.
+         */
+        void tagRemoved(String tag);
+    }
+
     /** Position of the character that indicates type of the Task when the task is in string format. */
     public static final int TYPE_POSITION = 1;
 
@@ -37,7 +54,7 @@ public abstract class Task {
     private static boolean tagsIsVisible = true;
 
     /** Indicates whether the task has been completed. */
-    private Boolean isDone;
+    private boolean isDone;
 
     /** Description of the task. */
     private final String description;
@@ -48,6 +65,9 @@ public abstract class Task {
     /** Type of the task. */
     private final Type type;
 
+    /** Listener told about every change to the tags of this task, or null if no one is listening. */
+    private TagListener tagListener;
+
     /**
      * Creates a new task.
      * @param description Description of the task.
@@ -104,8 +124,7 @@ public abstract class Task {
      * Marks the task as done or not done.
      * @param isDone The completion status of the task.
      */
-    public void mark(Boolean isDone) {
-
+    public void mark(boolean isDone) {
         this.isDone = isDone;
     }
 
@@ -159,6 +178,9 @@ public abstract class Task {
      */
     public void addTag(String tag) {
         tags.add(tag);
+        if (tagListener != null) {
+            tagListener.tagAdded(tag);
+        }
     }
 
     /**
@@ -166,7 +188,12 @@ public abstract class Task {
      * @param tag Tag to be removed.
      */
     public void removeTag(String tag) {
-        tags.remove(tag);
+        if (!tags.remove(tag)) {
+            return;
+        }
+        if (tagListener != null) {
+            tagListener.tagRemoved(tag);
+        }
     }
 
     /**
@@ -185,18 +212,52 @@ public abstract class Task {
 
     /** Clears all tags from the task. */
     public void clearTags() {
+        ArrayList<String> removedTags = new ArrayList<>(tags);
         tags.clear();
+        if (tagListener != null) {
+            for (String tag : removedTags) {
+                tagListener.tagRemoved(tag);
+            }
+        }
+    }
+
+    /**
+     * Sets the listener which is told about every change to the tags of this task.
+     * @param tagListener Listener to tell, or null to stop telling anyone.
+     */
+    public void setTagListener(TagListener tagListener) {
+        this.tagListener = tagListener;
     }
 
     public Type getType() {
         return type;
     }
 
+    /**
+     * Returns the deadline of a deadline or the start of an event.
+     * @return First date of the task, or null if it has no dates.
+     */
+    public TimePoint getFirstDate() {
+        return null;
+    }
+
+    /**
+     * Returns the end of an event.
+     * @return Second date of the task, or null if it has fewer than two dates.
+     */
+    public TimePoint getSecondDate() {
+        return null;
+    }
+
     /** If show is true, tasks will be displayed with their tags going forward. Else they will be hidden. */
     public static void setTagsIsVisible(boolean show) {
         tagsIsVisible = show;
     }
 
+    public static boolean getTagsIsVisible() {
+        return tagsIsVisible;
+    }
+
     /**
      * Returns a single-character code representing the task type.
      * @return "T" for TODO, "D" for DEADLINE, "E" for EVENT.
@@ -209,6 +270,12 @@ public abstract class Task {
         };
     }
 
+    /**
+     * Returns the name of this task, without its dates.
+     * @return Name of the task.
+     */
+    public abstract String getName();
+
     /**
      * Converts this task into an array of strings.
      * @return Array of strings representing the task's fields.
@@ -257,9 +324,22 @@ public abstract class Task {
      * @return True only if this task's description or tags contain the given word.
      */
     public boolean containsWord(String word) {
-        String lowerCaseWord = word.toLowerCase();
-        return toString().toLowerCase().contains(lowerCaseWord)
-                || getTagsDescription().toLowerCase().contains(lowerCaseWord);
+        return containsLowerCaseWord(word.toLowerCase());
+    }
+
+    /**
+     * Indicates whether this task contains a word which is already in lower case in its description or tags.
+     * @param lowerCaseWord Lower-case word to check for in this task.
+     * @return True only if this task's description or tags contain the given word.
+     */
+    public boolean containsLowerCaseWord(String lowerCaseWord) {
+        if (toString().toLowerCase().contains(lowerCaseWord)) {
+            return true;
+        }
+        if (tags.isEmpty() || !tagsIsVisible) {
+            return false;
+        }
+        return getTagsDescription().toLowerCase().contains(lowerCaseWord);
     }
 
     /**
@@ -268,19 +348,30 @@ public abstract class Task {
      * @return True only if this task occurs on the given date.
      */
     public boolean isOnDate(TimePoint date) {
+        return isOnDate(type, getFirstDate(), getSecondDate(), date);
+    }
+
+    /**
+     * Indicates whether a task with the given type and dates occurs on a given date, so that tasks can be checked
+     * without a task object.
+     * @param type Type of the task.
+     * @param firstDate First date of the task, or null if it has none.
+     * @param secondDate Second date of the task, or null if it has fewer than two.
+     * @param date Date to check against the task.
+     * @return True only if the task occurs on the given date.
+     */
+    public static boolean isOnDate(Type type, TimePoint firstDate, TimePoint secondDate, TimePoint date) {
         switch (date.getFormat()) {
         case LOCAL_DATE:
             return switch (type) {
-            case DEADLINE -> date.isSameDayAs(((DeadlineTask) this).getByDate());
-            case EVENT ->
-                date.isAfter(((EventTask) this).getFromDate()) && date.isBefore(((EventTask) this).getToDate());
+            case DEADLINE -> date.isSameDayAs(firstDate);
+            case EVENT -> date.isAfter(firstDate) && date.isBefore(secondDate);
             default -> false;
             };
         case LOCAL_DATE_TIME:
             return switch (type) {
-            case DEADLINE -> date.equals(((DeadlineTask) this).getByDate());
-            case EVENT ->
-                date.isAfter(((EventTask) this).getFromDate()) && date.isBefore(((EventTask) this).getToDate());
+            case DEADLINE -> date.equals(firstDate);
+            case EVENT -> date.isAfter(firstDate) && date.isBefore(secondDate);
             default -> false;
             };
         default:
@@ -294,11 +385,23 @@ public abstract class Task {
      * @return True only if this task should be completed before the given date.
      */
     public boolean isBeforeDate(TimePoint date) {
+        return isBeforeDate(type, getFirstDate(), getSecondDate(), date);
+    }
+
+    /**
+     * Indicates whether a task with the given type and dates should be completed before a given date.
+     * @param type Type of the task.
+     * @param firstDate First date of the task, or null if it has none.
+     * @param secondDate Second date of the task, or null if it has fewer than two.
+     * @param date Date to check the task against.
+     * @return True only if the task should be completed before the given date.
+     */
+    public static boolean isBeforeDate(Type type, TimePoint firstDate, TimePoint secondDate, TimePoint date) {
         switch (type) {
         case DEADLINE:
-            return date.isAfter(((DeadlineTask) this).getByDate());
+            return date.isAfter(firstDate);
         case EVENT:
-            return date.isAfter(((EventTask) this).getToDate());
+            return date.isAfter(secondDate);
         default:
             return false;
         }
@@ -310,11 +413,21 @@ public abstract class Task {
      * @return True only if this task is completely after the given date.
      */
     public boolean isAfterDate(TimePoint date) {
+        return isAfterDate(type, getFirstDate(), date);
+    }
+
+    /**
+     * Indicates whether a task with the given type and first date only needs attention after a given date.
+     * @param type Type of the task.
+     * @param firstDate First date of the task, or null if it has none.
+     * @param date Date to check the task against.
+     * @return True only if the task is completely after the given date.
+     */
+    public static boolean isAfterDate(Type type, TimePoint firstDate, TimePoint date) {
         switch (type) {
         case DEADLINE:
-            return date.isBefore(((DeadlineTask) this).getByDate());
         case EVENT:
-            return date.isBefore(((EventTask) this).getFromDate());
+            return date.isBefore(firstDate);
         default:
             return false;
         }
@@ -0,0 +1,120 @@
+package her.m35.task;
+
+import her.m35.TimePoint;
+
+/**
+ * Backing of a task list, holding every task in a numbered slot.
+ * A store either keeps the task objects it is given, or keeps the tasks in a compact form and makes a new task
+ * object, a view, whenever a task is read. Changes to a view only reach the store once the view is written back
+ * with {@link #set}, apart from marking, which is done on the store itself.
+ * Find conditions are checked through the field accessors, which read a single field without making a view.
+ */
+public interface TaskStore {
+
+    /**
+     * Adds a task to the end of the store.
+     *
+     * @param task Task to add.
+     * @return Slot of the task.
+     */
+    int add(Task task);
+
+    /**
+     * Returns the task in a slot, which is a new view unless the store keeps task objects.
+     *
+     * @param slot Slot of the task.
+     * @return Task in the slot.
+     */
+    Task get(int slot);
+
+    /**
+     * Replaces the task in a slot, such as with a view whose tags were changed.
+     *
+     * @param slot Slot of the task.
+     * @param task New task of the slot.
+     */
+    void set(int slot, Task task);
+
+    /**
+     * Drops the task in a slot, which is not read again until the slot is set.
+     *
+     * @param slot Slot of the task.
+     */
+    void remove(int slot);
+
+    Task.Type getType(int slot);
+
+    boolean getIsDone(int slot);
+
+    /**
+     * Returns whether the task in a slot has a tag.
+     *
+     * @param slot Slot of the task.
+     * @param tag Tag to look for.
+     * @return True only if the task has the tag.
+     */
+    boolean hasTag(int slot, String tag);
+
+    /**
+     * Returns the deadline of a deadline or the start of an event, see {@link Task#getFirstDate}.
+     *
+     * @param slot Slot of the task.
+     * @return First date of the task, or null if it has no dates.
+     */
+    TimePoint getFirstDate(int slot);
+
+    /**
+     * Returns the end of an event, see {@link Task#getSecondDate}.
+     *
+     * @param slot Slot of the task.
+     * @return Second date of the task, or null if it has fewer than two dates.
+     */
+    TimePoint getSecondDate(int slot);
+
+    /**
+     * Returns whether the task in a slot contains a lower-case word, see {@link Task#containsLowerCaseWord}.
+     * The text of a task is only searched after the trigram index has narrowed the tasks down, so a view may be made.
+     *
+     * @param slot Slot of the task.
+     * @param lowerCaseWord Lower-case word to look for.
+     * @return True only if the description or tags of the task contain the word.
+     */
+    default boolean containsWord(int slot, String lowerCaseWord) {
+        return get(slot).containsLowerCaseWord(lowerCaseWord);
+    }
+
+    /**
+     * Marks the task in a slot as done or not done.
+     *
+     * @param slot Slot of the task.
+     * @param isDone New completion status of the task.
+     */
+    void mark(int slot, boolean isDone);
+
+    /**
+     * Returns the number of slots used, including those whose task was removed.
+     *
+     * @return Number of slots used.
+     */
+    int size();
+
+    /**
+     * Removes every task, so that the next task added goes into the first slot.
+     */
+    void clear();
+
+    /**
+     * Creates an empty store of the same kind.
+     *
+     * @param capacity Number of tasks the new store can hold before it grows.
+     * @return New store.
+     */
+    TaskStore createEmpty(int capacity);
+
+    /**
+     * Indicates whether every read of a task makes a new view, rather than returning the task object added.
+     *
+     * @return True only if tasks are read as views.
+     */
+    boolean getIsHoldingViews();
+}
@@ -56,6 +56,11 @@ public class ToDoTask extends Task {
         this.name = name;
     }
 
+    @Override
+    public String getName() {
+        return name;
+    }
+
     @Override
     public String[] getData() {
         return new String[] {getTypeIcon(), getDoneIcon(), name, getTagsData()};
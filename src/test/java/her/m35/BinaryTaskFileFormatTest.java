@@ -0,0 +1,132 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import her.m35.storage.BinaryTaskCodec;
+import her.m35.storage.CsvBridge;
+import her.m35.storage.JournalStorage;
+import her.m35.storage.TagDictionary;
+import her.m35.task.EventTask;
+import her.m35.task.Task;
+
+public class BinaryTaskFileFormatTest {
+    private static final String FILE_NAME = "binary-format-test.bin";
+    private static final String CSV_FILE_NAME = "binary-format-test.csv";
+
+    @BeforeEach
+    public void createDataDirectory() throws IOException {
+        Files.createDirectories(Paths.get("data"));
+    }
+
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        for (String name : new String[] {FILE_NAME, CSV_FILE_NAME, "export-test.csv"}) {
+            Files.deleteIfExists(Paths.get("data", name));
+            Files.deleteIfExists(Paths.get("data", name + JournalStorage.JOURNAL_SUFFIX));
+            Files.deleteIfExists(Paths.get("data", name + TagDictionary.TAGS_SUFFIX));
+        }
+    }
+
+    @Test
+    public void codecKeepsEveryField() throws IOException {
+        TagDictionary tags = new TagDictionary(Paths.get("data", FILE_NAME + TagDictionary.TAGS_SUFFIX));
+        BinaryTaskCodec codec = new BinaryTaskCodec(tags);
+        Task event = new EventTask("meet, greet", new TimePoint(LocalDate.of(1969, 7, 20)),
+                new TimePoint(LocalDateTime.of(2026, 10, 18, 9, 5)), new String[] {"work", "fun"}, true);
+
+        Task decoded = codec.decode(codec.encode(event));
+
+        assertEquals("meet, greet", decoded.getName());
+        assertArrayEquals(event.getData(), decoded.getData());
+        assertEquals(event.toString(), decoded.toString());
+        tags.close();
+    }
+
+    @Test
+    public void tagNumbersSurviveReopen() throws IOException {
+        Path path = Paths.get("data", FILE_NAME + TagDictionary.TAGS_SUFFIX);
+        TagDictionary tags = new TagDictionary(path);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, tags.getId("tag" + i));
+        }
+        assertEquals(42, tags.getId("tag42"));
+        tags.close();
+
+        TagDictionary reopenedTags = new TagDictionary(path);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("tag" + i, reopenedTags.getTag(i));
+        }
+        assertEquals(100, reopenedTags.getId("new"));
+        assertEquals(-1, reopenedTags.findId("missing"));
+    }
+
+    @Test
+    public void mutationsAreReplayedOnReopen() throws IOException {
+        JournalStorage storage = new JournalStorage(FILE_NAME);
+        storage.insert(new String[] {"T", " ", "read book", ""});
+        storage.insert(new String[] {"D", " ", "return book", "Oct 18 2026", "school/library"});
+        storage.edit(0, new String[] {"T", "X", "read book", "fun"});
+        storage.delete(1);
+        storage.insert(new String[] {"E", " ", "fair", "soon", "2:00 Oct 20 2026", "fun"});
+        Files.write(storage.getJournalPath(), new byte[] {'I', 40, 0}, StandardOpenOption.APPEND);
+
+        List<Task> tasks = new JournalStorage(FILE_NAME).load();
+
+        assertEquals(2, tasks.size());
+        assertArrayEquals(new String[] {"T", "X", "read book", "fun"}, tasks.get(0).getData());
+        assertArrayEquals(new String[] {"E", " ", "fair", "soon", "2:00 Oct 20 2026", "fun"},
+                tasks.get(1).getData());
+    }
+
+    @Test
+    public void tagsAddedInTransactionAreSyncedOnCommit() throws IOException {
+        Path tagsPath = Paths.get("data", FILE_NAME + TagDictionary.TAGS_SUFFIX);
+        JournalStorage storage = new JournalStorage(FILE_NAME);
+        storage.beginTransaction();
+        for (int i = 0; i < 20; i++) {
+            storage.insert(new String[] {"T", " ", "task " + i, "tag" + i + "/shared"});
+        }
+        assertEquals("", storage.commitTransaction("Could not save"));
+
+        List<String> tagLines = Files.readAllLines(tagsPath);
+        assertEquals(21, tagLines.size());
+        assertEquals("shared", tagLines.get(1));
+        storage.close();
+        List<Task> tasks = new JournalStorage(FILE_NAME).load();
+        assertEquals(20, tasks.size());
+        assertEquals("tag19/shared", tasks.get(19).getTagsData());
+    }
+
+    @Test
+    public void csvTaskFileIsMigrated() throws IOException {
+        Files.write(Paths.get("data", CSV_FILE_NAME),
+                List.of("T, ,read book,fun", "D,X,return book,Oct 18 2026"));
+        Files.writeString(Paths.get("data", CSV_FILE_NAME + JournalStorage.JOURNAL_SUFFIX), "I,T, ,write essay,\n");
+
+        JournalStorage storage = new JournalStorage(FILE_NAME);
+
+        String[] expectedRows = {"T, ,read book,fun", "D,X,return book,Oct 18 2026,", "T, ,write essay,"};
+        assertArrayEquals(expectedRows, storage.read());
+        assertTrue(Files.exists(Paths.get("data", CSV_FILE_NAME)));
+
+        Path exportPath = Paths.get("data", "export-test.csv");
+        CsvBridge.exportCsv(storage, exportPath);
+        assertEquals(List.of(expectedRows), new ArrayList<>(Files.readAllLines(exportPath)));
+    }
+}
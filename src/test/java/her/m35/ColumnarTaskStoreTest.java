@@ -0,0 +1,66 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import her.m35.task.ColumnarTaskStore;
+import her.m35.task.DeadlineTask;
+import her.m35.task.EventTask;
+import her.m35.task.Task;
+import her.m35.task.ToDoTask;
+
+public class ColumnarTaskStoreTest {
+
+    @Test
+    public void storedTasksAreShownAsTheyWereAdded() {
+        List<Task> tasks = List.of(
+                new ToDoTask("read book", new String[] {"fun", "home"}, true),
+                new DeadlineTask("essay", new TimePoint(LocalDate.of(2026, 10, 20)), new String[] {"school"}, false),
+                new DeadlineTask("return book", new TimePoint("next week")),
+                new EventTask("meeting", new TimePoint(LocalDateTime.of(2026, 10, 18, 10, 0)),
+                        new TimePoint(LocalDateTime.of(2026, 10, 18, 12, 30)), new String[] {"work"}, true),
+                new EventTask("trip", new TimePoint(LocalDate.of(2026, 12, 1)), new TimePoint("sometime")));
+        ColumnarTaskStore store = new ColumnarTaskStore(1);
+        for (int i = 0; i < 100; i++) {
+            for (Task task : tasks) {
+                store.add(task);
+            }
+        }
+
+        assertEquals(500, store.size());
+        for (int i = 0; i < store.size(); i++) {
+            Task task = tasks.get(i % tasks.size());
+            assertEquals(task.toString() + task.getTagsDescription(),
+                    store.get(i).toString() + store.get(i).getTagsDescription());
+            assertEquals(String.join(",", task.getData()), String.join(",", store.get(i).getData()));
+            assertEquals(task.getType(), store.getType(i));
+        }
+
+        store.mark(0, false);
+        store.mark(499, true);
+        assertTrue(!store.getIsDone(0) && store.getIsDone(499) && store.getIsDone(3));
+        assertTrue(store.hasTag(3, "work") && !store.hasTag(2, "work") && !store.hasTag(0, "missing"));
+    }
+
+    @Test
+    public void taskWithoutDateLeavesStoreUnchanged() {
+        ColumnarTaskStore store = new ColumnarTaskStore(1);
+        store.add(new ToDoTask("read", new String[] {"fun"}, true));
+        assertThrows(IllegalArgumentException.class, () -> store.add(new DeadlineTask("x", null)));
+        assertThrows(IllegalArgumentException.class, () -> store.set(0, new DeadlineTask("x", null)));
+
+        assertEquals(1, store.size());
+        assertEquals(1, store.add(new ToDoTask("y")));
+        assertEquals("T,X,read,fun", String.join(",", store.get(0).getData()));
+        assertEquals("T, ,y,", String.join(",", store.get(1).getData()));
+        store.mark(0, false);
+        assertTrue(!store.getIsDone(0) && !store.getIsDone(1));
+    }
+}
@@ -0,0 +1,88 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import her.m35.index.DateIndex;
+import her.m35.index.PostingList;
+import her.m35.task.DeadlineTask;
+import her.m35.task.EventTask;
+import her.m35.task.Task;
+import her.m35.task.ToDoTask;
+
+public class DateIndexTest {
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+    @Test
+    public void indexAgreesWithTaskDateChecks() {
+        Random random = new Random(9);
+        List<Task> tasks = new ArrayList<>();
+        DateIndex dateIndex = new DateIndex();
+        for (int id = 0; id < 300; id++) {
+            Task task = switch (random.nextInt(3)) {
+            case 0 -> new ToDoTask("todo " + id);
+            case 1 -> new DeadlineTask("deadline " + id, randomTimePoint(random));
+            default -> {
+                TimePoint from = randomTimePoint(random);
+                TimePoint to = randomTimePoint(random);
+                yield new EventTask("event " + id, from, to);
+            }
+            };
+            tasks.add(task);
+            dateIndex.add(id, task);
+        }
+        for (int id = 0; id < tasks.size(); id += 7) {
+            dateIndex.remove(id, tasks.get(id));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            TimePoint date = randomTimePoint(random);
+            assertEquals(getExpectedIds(tasks, task -> task.isOnDate(date)), toList(dateIndex.getOnDate(date)));
+            assertEquals(getExpectedIds(tasks, task -> task.isBeforeDate(date)),
+                    toList(dateIndex.getBeforeDate(date)));
+            assertEquals(getExpectedIds(tasks, task -> task.isAfterDate(date)),
+                    toList(dateIndex.getAfterDate(date)));
+        }
+    }
+
+    @Test
+    public void stringDatesAreNotIndexed() {
+        DateIndex dateIndex = new DateIndex();
+        dateIndex.add(0, new DeadlineTask("return book", new TimePoint("soon")));
+        dateIndex.add(1, new DeadlineTask("submit essay", new TimePoint(LocalDate.of(2026, 10, 18))));
+
+        TimePoint date = new TimePoint(LocalDate.of(2026, 10, 20));
+        assertEquals(List.of(1), toList(dateIndex.getBeforeDate(date)));
+    }
+
+    private static TimePoint randomTimePoint(Random random) {
+        LocalDateTime time = START.plusMinutes(random.nextInt(10 * 24 * 4) * 15L);
+        return random.nextBoolean() ? new TimePoint(time.toLocalDate()) : new TimePoint(time);
+    }
+
+    private static List<Integer> getExpectedIds(List<Task> tasks, Predicate<Task> condition) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < tasks.size(); id++) {
+            if (id % 7 != 0 && condition.test(tasks.get(id))) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static List<Integer> toList(PostingList postingList) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < postingList.size(); i++) {
+            ids.add(postingList.get(i));
+        }
+        return ids;
+    }
+}
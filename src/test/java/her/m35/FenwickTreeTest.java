@@ -0,0 +1,40 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import her.m35.index.FenwickTree;
+
+public class FenwickTreeTest {
+
+    @Test
+    public void sumsAndSelectionsAgreeWithCounts() {
+        Random random = new Random(15);
+        FenwickTree tree = new FenwickTree();
+        List<Integer> counts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            if (counts.isEmpty() || random.nextInt(3) > 0) {
+                tree.append(1);
+                counts.add(1);
+            } else {
+                int index = random.nextInt(counts.size());
+                tree.add(index, -counts.get(index));
+                counts.set(index, 0);
+            }
+        }
+
+        int sum = 0;
+        for (int index = 0; index < counts.size(); index++) {
+            assertEquals(sum, tree.prefixSum(index));
+            if (counts.get(index) == 1) {
+                assertEquals(index, tree.select(sum));
+            }
+            sum += counts.get(index);
+        }
+    }
+}
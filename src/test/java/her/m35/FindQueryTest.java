@@ -0,0 +1,131 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import her.m35.storage.OffHeapTaskArena;
+import her.m35.task.ColumnarTaskStore;
+import her.m35.task.DeadlineTask;
+import her.m35.task.EventTask;
+import her.m35.task.ObjectTaskStore;
+import her.m35.task.Task;
+import her.m35.task.TaskStore;
+import her.m35.task.ToDoTask;
+
+public class FindQueryTest {
+    private static final String[] WORDS = {"read", "book", "essay", "meeting", "lunch"};
+    private static final String[] TAGS = {"work", "fun", "home"};
+
+    @Test
+    public void repeatedPromptsAreCompiledOnce() throws Exception {
+        assertSame(FindQuery.forPrompt("book /done /tag #work"), FindQuery.forPrompt("book /done /tag #work"));
+    }
+
+    @Test
+    public void compiledQueriesAgreeWithTaskChecks() throws Exception {
+        assertQueriesAgreeWithTaskChecks(new ObjectTaskStore());
+        assertQueriesAgreeWithTaskChecks(new ColumnarTaskStore(1));
+        assertQueriesAgreeWithTaskChecks(new OffHeapTaskArena(256));
+    }
+
+    @Test
+    public void onlyTasksShownAreReadFromTheStore() throws Exception {
+        CountingStore store = new CountingStore();
+        TaskList taskList = new TaskList(store);
+        for (int i = 0; i < 200; i++) {
+            String[] tags = i % 50 == 0 ? new String[] {"rare", "work"} : new String[] {"work"};
+            taskList.add(new DeadlineTask("report " + i, new TimePoint(LocalDate.of(2026, 10, 1).plusDays(i % 30)),
+                    tags, i % 2 == 0));
+        }
+        store.getCount = 0;
+        taskList.outputFilteredList(FindQuery.forPrompt("/tag #work /tag #rare /before Oct 20 2026 /done"));
+        assertEquals(3, store.getCount);
+
+        store.getCount = 0;
+        taskList.outputFilteredList(FindQuery.forPrompt("/done /contains ort /type deadline"));
+        assertEquals(100, store.getCount);
+    }
+
+    private static void assertQueriesAgreeWithTaskChecks(TaskStore store) throws Exception {
+        Random random = new Random(12);
+        TaskList taskList = new TaskList(store);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            String[] tags = {TAGS[random.nextInt(TAGS.length)]};
+            boolean isDone = random.nextBoolean();
+            LocalDate date = LocalDate.of(2026, 10, 1).plusDays(random.nextInt(30));
+            Task task = switch (random.nextInt(3)) {
+            case 0 -> new ToDoTask(name, tags, isDone);
+            case 1 -> new DeadlineTask(name, new TimePoint(date), tags, isDone);
+            default -> new EventTask(name, new TimePoint(date), new TimePoint(date.plusDays(random.nextInt(5))),
+                    tags, isDone);
+            };
+            tasks.add(task);
+            taskList.add(task);
+        }
+
+        String[] prompts = {"book /done /tag #work", "/type deadline /before Oct 15 2026", "/todo /on Oct 10 2026",
+            "/tag #fun /after Oct 20 2026 /contains lunch", "meet /type event /done", "/contains ea /todo",
+            "/contains ead /done"};
+        for (String prompt : prompts) {
+            Predicate<Task> expected = getExpectedCheck(prompt);
+            List<String> expectedNumbers = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (expected.test(tasks.get(i))) {
+                    expectedNumbers.add((i + 1) + ".");
+                }
+            }
+            List<String> numbers = new ArrayList<>();
+            for (String part : taskList.outputFilteredList(FindQuery.forPrompt(prompt))) {
+                if (part.matches("\\d+\\.")) {
+                    numbers.add(part);
+                }
+            }
+            assertTrue(!expectedNumbers.isEmpty(), prompt);
+            assertEquals(expectedNumbers, numbers, prompt);
+        }
+    }
+
+    private static Predicate<Task> getExpectedCheck(String prompt) {
+        TimePoint oct10 = new TimePoint(LocalDate.of(2026, 10, 10));
+        TimePoint oct15 = new TimePoint(LocalDate.of(2026, 10, 15));
+        TimePoint oct20 = new TimePoint(LocalDate.of(2026, 10, 20));
+        return switch (prompt) {
+        case "book /done /tag #work" -> task -> task.containsWord("book") && task.getIsDone() && task.hasTag("work");
+        case "/type deadline /before Oct 15 2026" ->
+            task -> task.getType() == Task.Type.DEADLINE && task.isBeforeDate(oct15);
+        case "/todo /on Oct 10 2026" -> task -> !task.getIsDone() && task.isOnDate(oct10);
+        case "/tag #fun /after Oct 20 2026 /contains lunch" ->
+            task -> task.hasTag("fun") && task.isAfterDate(oct20) && task.containsWord("lunch");
+        case "meet /type event /done" ->
+            task -> task.containsWord("meet") && task.getType() == Task.Type.EVENT && task.getIsDone();
+        case "/contains ead /done" -> task -> task.containsWord("ead") && task.getIsDone();
+        default -> task -> task.containsWord("ea") && !task.getIsDone();
+        };
+    }
+
+    /** Columnar store counting the tasks it makes objects of. */
+    private static class CountingStore extends ColumnarTaskStore {
+        private int getCount = 0;
+
+        CountingStore() {
+            super(1);
+        }
+
+        @Override
+        public Task get(int index) {
+            getCount++;
+            return super.get(index);
+        }
+    }
+}
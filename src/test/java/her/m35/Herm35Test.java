@@ -0,0 +1,64 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import her.m35.storage.JournalStorage;
+
+public class Herm35Test {
+    private static final String FILE_NAME = "herm35-script-test.csv";
+
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(Paths.get("data", FILE_NAME));
+        Files.deleteIfExists(Paths.get("data", FILE_NAME + JournalStorage.JOURNAL_SUFFIX));
+        Files.deleteIfExists(Paths.get("data",
+                FILE_NAME + JournalStorage.JOURNAL_SUFFIX + JournalStorage.COMPACTING_SUFFIX));
+    }
+
+    @Test
+    public void scriptChangesAreSaved() throws IOException {
+        String output = runScript("# Reading list\ntodo read book\n\ntodo write essay\nmark 2\nlist\ndelete 1\n");
+
+        assertTrue(output.contains("1.[T][ ] read book"), output);
+        assertTrue(output.contains("2.[T][X] write essay"), output);
+        assertArrayEquals(new String[] {"T,X,write essay,"}, new JournalStorage(FILE_NAME).read());
+    }
+
+    @Test
+    public void failingLinesLeaveNoChangeBehind() throws IOException {
+        String output = runScript("todo read book\ndelete 9\nfrobnicate\nmark 7\ntodo write essay\n");
+
+        assertTrue(output.contains("Error: Please enter a number between 1 and 1 to delete that task."), output);
+        assertTrue(output.contains("Line 3: Error: Unknown command"), output);
+        assertArrayEquals(new String[] {"T, ,read book,", "T, ,write essay,"}, new JournalStorage(FILE_NAME).read());
+    }
+
+    @Test
+    public void scriptStopsAtExit() throws IOException {
+        String output = runScript("todo read book\nbye\ntodo write essay\n");
+
+        assertTrue(output.contains("Bye"), output);
+        assertEquals(1, new JournalStorage(FILE_NAME).read().length);
+    }
+
+    private static String runScript(String script) throws IOException {
+        StringWriter output = new StringWriter();
+        Ui ui = new Ui(new PrintWriter(output));
+        new Herm35(FILE_NAME, ui).runScript(ScriptParser.start(new BufferedReader(new StringReader(script))));
+        ui.flush();
+        return output.toString();
+    }
+}
@@ -0,0 +1,219 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import her.m35.storage.CompactionMetrics;
+import her.m35.storage.DurabilityPolicy;
+import her.m35.storage.JournalStorage;
+import her.m35.storage.SnapshotCompactor;
+import her.m35.storage.TaskFileFormat;
+import her.m35.task.Task;
+
+public class JournalStorageTest {
+    private static final String FILE_NAME = "journal-storage-test.csv";
+
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(Paths.get("data", FILE_NAME));
+        Files.deleteIfExists(Paths.get("data", FILE_NAME + JournalStorage.JOURNAL_SUFFIX));
+        Files.deleteIfExists(Paths.get("data",
+                FILE_NAME + JournalStorage.JOURNAL_SUFFIX + JournalStorage.COMPACTING_SUFFIX));
+    }
+
+    @Test
+    public void mutationsAreReplayedOnReopen() throws IOException {
+        JournalStorage storage = new JournalStorage(FILE_NAME);
+        storage.insert(new String[] {"T", " ", "read book", ""});
+        storage.insert(new String[] {"T", " ", "write essay", "school"});
+        storage.insert(new String[] {"D", " ", "return book", "Oct 18 2026", ""});
+        storage.edit(1, new String[] {"T", "X", "write essay", "school"});
+        storage.delete(0);
+
+        assertEquals(0, Files.size(Paths.get("data", FILE_NAME)));
+        String[] expectedRows = {"T,X,write essay,school", "D, ,return book,Oct 18 2026,"};
+        assertArrayEquals(expectedRows, storage.read());
+        assertArrayEquals(expectedRows, new JournalStorage(FILE_NAME).read());
+    }
+
+    @Test
+    public void clearDiscardsEarlierRows() throws IOException {
+        JournalStorage storage = new JournalStorage(FILE_NAME);
+        storage.insert(new String[] {"T", " ", "read book", ""});
+        storage.clear();
+        storage.insert(new String[] {"T", " ", "write essay", ""});
+
+        assertArrayEquals(new String[] {"T, ,write essay,"}, new JournalStorage(FILE_NAME).read());
+        assertThrows(IndexOutOfBoundsException.class, () -> storage.delete(1));
+    }
+
+    @Test
+    public void transactionSavesEveryChangeOnCommit() throws IOException {
+        JournalStorage storage = new JournalStorage(FILE_NAME);
+        storage.beginTransaction();
+        for (int i = 0; i < 100; i++) {
+            assertEquals("", storage.insert(new String[] {"T", " ", "task " + i, ""}, "Error"));
+        }
+        storage.delete(0, "Error");
+        assertEquals("", storage.commitTransaction("Error"));
+        assertFalse(storage.getIsInTransaction());
+
+        String[] rows = new JournalStorage(FILE_NAME).read();
+        assertEquals(99, rows.length);
+        assertEquals("T, ,task 1,", rows[0]);
+    }
+
+    @Test
+    public void incompleteTrailingRecordIsIgnored() throws IOException {
+        new JournalStorage(FILE_NAME).insert(new String[] {"T", " ", "read book", ""});
+        Files.writeString(Paths.get("data", FILE_NAME + JournalStorage.JOURNAL_SUFFIX), "I,T, ,cut off",
+                StandardOpenOption.APPEND);
+
+        JournalStorage storage = new JournalStorage(FILE_NAME);
+        storage.insert(new String[] {"T", " ", "write essay", ""});
+
+        assertArrayEquals(new String[] {"T, ,read book,", "T, ,write essay,"}, new JournalStorage(FILE_NAME).read());
+    }
+
+    @Test
+    public void journalIsFoldedIntoSnapshot() throws Exception {
+        ArrayList<CompactionMetrics> reports = new ArrayList<>();
+        SnapshotCompactor compactor = new SnapshotCompactor(0, 0);
+        compactor.setMetricsListener(reports::add);
+        JournalStorage storage = new JournalStorage(FILE_NAME, DurabilityPolicy.everyCommit(), compactor);
+        storage.insert(new String[] {"T", " ", "read book", ""});
+        storage.awaitCompaction();
+        storage.insert(new String[] {"T", " ", "write essay", ""});
+        storage.awaitCompaction();
+        storage.edit(0, new String[] {"T", "X", "read book", ""});
+        storage.awaitCompaction();
+
+        String[] expectedRows = {"T,X,read book,", "T, ,write essay,"};
+        String[] expectedLines = {"G,3", "T,X,read book,", "T, ,write essay,"};
+        assertArrayEquals(expectedLines, Files.readAllLines(Paths.get("data", FILE_NAME)).toArray(new String[0]));
+        assertFalse(Files.exists(storage.getJournalPath()));
+        assertEquals(3, reports.size());
+        assertEquals(2, reports.get(2).rowCount());
+        assertArrayEquals(expectedRows, new JournalStorage(FILE_NAME).read());
+    }
+
+    @Test
+    public void failedFoldIsRetriedByNextCompaction() throws Exception {
+        JournalStorage storage = new JournalStorage(FILE_NAME, DurabilityPolicy.everyCommit(),
+                new SnapshotCompactor(0, 0));
+        // A directory in the way of the new snapshot makes the fold fail.
+        Path temporarySnapshotPath = Paths.get("data", FILE_NAME + ".tmp");
+        Files.createDirectories(temporarySnapshotPath.resolve("blocker"));
+        try {
+            storage.insert(new String[] {"T", " ", "read book", ""});
+            assertThrows(IOException.class, storage::awaitCompaction);
+        } finally {
+            Files.delete(temporarySnapshotPath.resolve("blocker"));
+            Files.delete(temporarySnapshotPath);
+        }
+
+        storage.insert(new String[] {"T", " ", "write essay", ""});
+        storage.awaitCompaction();
+        assertFalse(Files.exists(Paths.get(storage.getJournalPath() + JournalStorage.COMPACTING_SUFFIX)));
+        storage.insert(new String[] {"T", " ", "return book", ""});
+        storage.awaitCompaction();
+
+        String[] expectedRows = {"T, ,read book,", "T, ,write essay,", "T, ,return book,"};
+        assertArrayEquals(expectedRows, storage.read());
+        assertFalse(Files.exists(storage.getJournalPath()));
+        assertArrayEquals(expectedRows, new JournalStorage(FILE_NAME).read());
+    }
+
+    @Test
+    public void foldedJournalLeftBehindIsNotReplayed() throws IOException {
+        JournalStorage storage = new JournalStorage(FILE_NAME);
+        storage.insert(new String[] {"T", " ", "read book", ""});
+        storage.insert(new String[] {"T", " ", "write essay", ""});
+        storage.delete(0);
+        storage.close();
+
+        // Leave the files as a crash would after the new snapshot replaced the old one, but before the folded
+        // journal was deleted.
+        Path snapshotPath = Paths.get("data", FILE_NAME);
+        Path compactingJournalPath = Paths.get(storage.getJournalPath() + JournalStorage.COMPACTING_SUFFIX);
+        Files.move(storage.getJournalPath(), compactingJournalPath);
+        TaskFileFormat format = storage.getFormat();
+        byte[] compactingJournal = Files.readAllBytes(compactingJournalPath);
+        List<byte[]> rows = format.readSnapshot(snapshotPath);
+        format.applyJournal(compactingJournal, rows);
+        format.writeSnapshot(snapshotPath, rows, format.getJournalGeneration(compactingJournal));
+
+        JournalStorage reopenedStorage = new JournalStorage(FILE_NAME);
+        assertArrayEquals(new String[] {"T, ,write essay,"}, reopenedStorage.read());
+        assertFalse(Files.exists(compactingJournalPath));
+        reopenedStorage.insert(new String[] {"T", " ", "return book", ""});
+        assertArrayEquals(new String[] {"T, ,write essay,", "T, ,return book,"}, new JournalStorage(FILE_NAME).read());
+    }
+
+    @Test
+    public void streamedTasksFollowEveryJournalRecord() throws IOException {
+        JournalStorage storage = new JournalStorage(FILE_NAME);
+        for (int i = 0; i < 50; i++) {
+            storage.insert(new String[] {"T", " ", "task " + i, ""});
+        }
+        storage.close();
+
+        ArrayList<String> expectedRows = new ArrayList<>(Arrays.asList(new JournalStorage(FILE_NAME).read()));
+        JournalStorage reopenedStorage = new JournalStorage(FILE_NAME);
+        Random random = new Random(6);
+        for (int i = 0; i < 500; i++) {
+            int index = expectedRows.isEmpty() ? 0 : random.nextInt(expectedRows.size());
+            int choice = random.nextInt(20);
+            if (choice == 0) {
+                reopenedStorage.clear();
+                expectedRows.clear();
+            } else if (choice < 8 || expectedRows.isEmpty()) {
+                reopenedStorage.insert(new String[] {"T", " ", "new " + i, ""});
+                expectedRows.add("T, ,new " + i + ",");
+            } else if (choice < 14) {
+                reopenedStorage.edit(index, new String[] {"T", "X", "edited " + i, ""});
+                expectedRows.set(index, "T,X,edited " + i + ",");
+            } else {
+                reopenedStorage.delete(index);
+                expectedRows.remove(index);
+            }
+        }
+        reopenedStorage.close();
+
+        ArrayList<String> streamedRows = new ArrayList<>();
+        for (Task task : new JournalStorage(FILE_NAME).load()) {
+            streamedRows.add(String.join(",", task.getData()));
+        }
+        assertEquals(expectedRows, streamedRows);
+        JournalStorage unreadStorage = new JournalStorage(FILE_NAME);
+        assertThrows(IndexOutOfBoundsException.class, () -> unreadStorage.delete(expectedRows.size()));
+    }
+
+    @Test
+    public void queuedRecordsAreWrittenOnClose() throws IOException {
+        JournalStorage storage = new JournalStorage(FILE_NAME, DurabilityPolicy.onExit(), new SnapshotCompactor());
+        for (int i = 0; i < 1000; i++) {
+            storage.insertAsync(new String[] {"T", " ", "task " + i, ""});
+        }
+        storage.close();
+
+        String[] rows = new JournalStorage(FILE_NAME).read();
+        assertEquals(1000, rows.length);
+        assertEquals("T, ,task 999,", rows[999]);
+    }
+}
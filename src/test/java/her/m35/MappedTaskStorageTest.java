@@ -0,0 +1,169 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import her.m35.storage.DurabilityPolicy;
+import her.m35.storage.MappedTaskStorage;
+import her.m35.storage.TagDictionary;
+
+public class MappedTaskStorageTest {
+    private static final String FILE_NAME = "mapped-storage-test.slots";
+
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(Paths.get("data", FILE_NAME));
+        Files.deleteIfExists(Paths.get("data", FILE_NAME + MappedTaskStorage.OVERFLOW_SUFFIX));
+        Files.deleteIfExists(Paths.get("data", FILE_NAME + TagDictionary.TAGS_SUFFIX));
+    }
+
+    @Test
+    public void mutationsAreKeptOnReopen() throws IOException {
+        MappedTaskStorage storage = new MappedTaskStorage(FILE_NAME);
+        storage.insert(new String[] {"T", " ", "read book", ""});
+        storage.insert(new String[] {"T", " ", "write essay", "school"});
+        storage.insert(new String[] {"D", " ", "return book", "Oct 18 2026", ""});
+        storage.edit(1, new String[] {"T", "X", "write essay", "school"});
+        storage.delete(0);
+        storage.close();
+
+        String[] expectedRows = {"T,X,write essay,school", "D, ,return book,Oct 18 2026,"};
+        MappedTaskStorage reopenedStorage = new MappedTaskStorage(FILE_NAME);
+        assertArrayEquals(expectedRows, reopenedStorage.read());
+        assertThrows(IndexOutOfBoundsException.class, () -> reopenedStorage.delete(2));
+    }
+
+    @Test
+    public void markingTaskWritesSlotInPlace() throws IOException {
+        MappedTaskStorage storage = new MappedTaskStorage(FILE_NAME, DurabilityPolicy.everyCommit(), 32);
+        for (int i = 0; i < 2000; i++) {
+            storage.insert(new String[] {"T", " ", "task " + i, ""});
+        }
+        Path path = Paths.get("data", FILE_NAME);
+        long fileSize = Files.size(path);
+
+        storage.edit(1500, new String[] {"T", "X", "task 1500", ""});
+
+        assertEquals(fileSize, Files.size(path));
+        assertEquals("T,X,task 1500,", storage.read()[1500]);
+        assertEquals(2000, new MappedTaskStorage(FILE_NAME).load().size());
+    }
+
+    @Test
+    public void longTaskIsMovedToOverflowFile() throws IOException {
+        String longName = "a task name which is far too long to fit into a single slot of the task file";
+        MappedTaskStorage storage = new MappedTaskStorage(FILE_NAME, DurabilityPolicy.onExit(), 32);
+        storage.insert(new String[] {"T", " ", "short", ""});
+        storage.edit(0, new String[] {"T", " ", longName, ""});
+        storage.insert(new String[] {"T", " ", "after", ""});
+        storage.close();
+
+        assertArrayEquals(new String[] {"T, ," + longName + ",", "T, ,after,"},
+                new MappedTaskStorage(FILE_NAME).read());
+    }
+
+    @Test
+    public void damagedOverflowRecordIsSkipped() throws IOException {
+        String longName = "a task name which is far too long to fit into a single slot of the task file";
+        MappedTaskStorage storage = new MappedTaskStorage(FILE_NAME, DurabilityPolicy.everyCommit(), 32);
+        storage.insert(new String[] {"T", " ", "short", ""});
+        storage.insert(new String[] {"T", " ", longName, ""});
+        storage.close();
+
+        // Damage the record as a crash would before the overflow file reached the disk.
+        Path overflowPath = Paths.get("data", FILE_NAME + MappedTaskStorage.OVERFLOW_SUFFIX);
+        byte[] overflow = Files.readAllBytes(overflowPath);
+        overflow[overflow.length - 1] ^= 1;
+        Files.write(overflowPath, overflow);
+
+        MappedTaskStorage reopenedStorage = new MappedTaskStorage(FILE_NAME);
+        assertArrayEquals(new String[] {"T, ,short,"}, reopenedStorage.read());
+        assertFalse(reopenedStorage.takeLoadWarnings().isEmpty());
+    }
+
+    @Test
+    public void damagedSlotKeepsLaterTasksInPlace() throws IOException {
+        MappedTaskStorage storage = new MappedTaskStorage(FILE_NAME, DurabilityPolicy.everyCommit(), 32);
+        storage.insert(new String[] {"T", " ", "first", ""});
+        storage.insert(new String[] {"T", " ", "second", ""});
+        storage.insert(new String[] {"T", " ", "third", ""});
+        storage.close();
+
+        // Damage the record of the second slot, which follows the 32-byte header and the first slot.
+        Path path = Paths.get("data", FILE_NAME);
+        byte[] slots = Files.readAllBytes(path);
+        slots[32 + 32 + 10] ^= 1;
+        Files.write(path, slots);
+
+        MappedTaskStorage reopenedStorage = new MappedTaskStorage(FILE_NAME);
+        assertArrayEquals(new String[] {"T, ,first,", "T, ,third,"}, reopenedStorage.read());
+        assertTrue(reopenedStorage.takeLoadWarnings().contains("1 damaged task"));
+        reopenedStorage.edit(1, new String[] {"T", "X", "third", ""});
+        reopenedStorage.close();
+
+        MappedTaskStorage storageAfterEdit = new MappedTaskStorage(FILE_NAME);
+        assertArrayEquals(new String[] {"T, ,first,", "T,X,third,"}, storageAfterEdit.read());
+        assertEquals("", storageAfterEdit.takeLoadWarnings());
+    }
+
+    @Test
+    public void deletedSlotsAreDroppedOnceMostSlotsAreDeleted() throws IOException {
+        MappedTaskStorage storage = new MappedTaskStorage(FILE_NAME, DurabilityPolicy.onExit(), 32);
+        for (int i = 0; i < 3000; i++) {
+            storage.insert(new String[] {"T", " ", "task " + i, ""});
+        }
+        Path path = Paths.get("data", FILE_NAME);
+        long fileSize = Files.size(path);
+        storage.delete(1);
+        assertEquals(fileSize, Files.size(path));
+        assertEquals("T, ,task 2,", storage.read()[1]);
+
+        for (int i = 0; i < 2000; i++) {
+            storage.delete(0);
+        }
+        assertTrue(Files.size(path) < fileSize);
+        storage.edit(0, new String[] {"T", "X", "task 2001", ""});
+        storage.close();
+
+        String[] rows = new MappedTaskStorage(FILE_NAME).read();
+        assertEquals(999, rows.length);
+        assertEquals("T,X,task 2001,", rows[0]);
+        assertEquals("T, ,task 2999,", rows[998]);
+    }
+
+    @Test
+    public void overflowSpaceIsReusedAndCompacted() throws IOException {
+        String longName = "a task name which is far too long to fit into a single slot of the task file";
+        MappedTaskStorage storage = new MappedTaskStorage(FILE_NAME, DurabilityPolicy.onExit(), 32);
+        for (int i = 0; i < 200; i++) {
+            storage.insert(new String[] {"T", " ", longName + " " + i, ""});
+        }
+        Path overflowPath = Paths.get("data", FILE_NAME + MappedTaskStorage.OVERFLOW_SUFFIX);
+        long overflowSize = Files.size(overflowPath);
+        storage.edit(7, new String[] {"T", "X", longName + " 7", ""});
+        assertEquals(overflowSize, Files.size(overflowPath));
+
+        for (int round = 1; round <= 20; round++) {
+            for (int i = 0; i < 200; i++) {
+                storage.edit(i, new String[] {"T", " ", longName + "!".repeat(round) + " " + i, ""});
+            }
+        }
+        storage.close();
+
+        assertTrue(Files.size(overflowPath) < 20 * overflowSize / 2);
+        String[] rows = new MappedTaskStorage(FILE_NAME).read();
+        assertEquals(200, rows.length);
+        assertEquals("T, ," + longName + "!".repeat(20) + " 199,", rows[199]);
+    }
+}
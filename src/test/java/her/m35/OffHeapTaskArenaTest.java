@@ -0,0 +1,62 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import her.m35.storage.OffHeapTaskArena;
+import her.m35.task.DeadlineTask;
+import her.m35.task.EventTask;
+import her.m35.task.Task;
+import her.m35.task.ToDoTask;
+
+public class OffHeapTaskArenaTest {
+
+    @Test
+    public void recordsSurviveAcrossChunks() {
+        List<Task> tasks = List.of(
+                new ToDoTask("read book", new String[] {"fun", "home"}, true),
+                new DeadlineTask("essay", new TimePoint(LocalDate.of(2026, 10, 20)), new String[] {"school"}, false),
+                new EventTask("meeting", new TimePoint(LocalDateTime.of(2026, 10, 18, 10, 0)),
+                        new TimePoint("noon"), new String[] {"work"}, true),
+                new ToDoTask("a name longer than a whole chunk of the arena, so it needs a chunk of its own"));
+        OffHeapTaskArena arena = new OffHeapTaskArena(64);
+        for (int i = 0; i < 50; i++) {
+            for (Task task : tasks) {
+                assertEquals(i * tasks.size() + tasks.indexOf(task), arena.add(task));
+            }
+        }
+
+        assertEquals(200, arena.size());
+        assertTrue(arena.getOffHeapBytes() >= 200 * 10);
+        for (int i = 0; i < arena.size(); i++) {
+            Task task = tasks.get(i % tasks.size());
+            assertEquals(String.join(",", task.getData()), String.join(",", arena.get(i).getData()));
+            assertEquals(task.getType(), arena.getType(i));
+            assertEquals(task.getIsDone(), arena.getIsDone(i));
+            assertEquals(String.valueOf(task.getFirstDate()), String.valueOf(arena.getFirstDate(i)));
+            assertEquals(String.valueOf(task.getSecondDate()), String.valueOf(arena.getSecondDate(i)));
+            for (String tag : new String[] {"fun", "home", "school", "work", "unknown"}) {
+                assertEquals(task.hasTag(tag), arena.hasTag(i, tag));
+            }
+        }
+
+        arena.mark(0, false);
+        arena.mark(199, true);
+        assertTrue(!arena.getIsDone(0) && arena.getIsDone(199) && !arena.get(0).getIsDone());
+        assertEquals("fun/home", arena.get(0).getTagsData());
+
+        long offHeapBytes = arena.getOffHeapBytes();
+        arena.set(0, new ToDoTask("read", new String[] {"fun"}));
+        assertEquals(offHeapBytes, arena.getOffHeapBytes());
+        arena.set(1, tasks.get(3));
+        assertEquals("T, ,read,fun", String.join(",", arena.get(0).getData()));
+        assertEquals(String.join(",", tasks.get(3).getData()), String.join(",", arena.get(1).getData()));
+        assertEquals(String.join(",", tasks.get(2).getData()), String.join(",", arena.get(2).getData()));
+    }
+}
@@ -0,0 +1,42 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import her.m35.storage.ParallelTaskDecoder;
+import her.m35.task.Task;
+
+public class ParallelTaskDecoderTest {
+
+    @Test
+    public void decodedTasksKeepRowOrder() {
+        String[] rows = new String[10_000];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i % 100 == 0 ? "invalid row" : "D, ,task " + i + ",Oct 18 2026";
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelTaskDecoder decoder = new ParallelTaskDecoder(pool, 16);
+
+        Task[] tasks = decoder.decode(rows.length, i -> Task.dataToTask(rows[i].split(",")));
+        List<Task> streamedTasks = new ArrayList<>();
+        decoder.stream(rows.length, i -> tasks[i], 500, streamedTasks::addAll);
+        pool.shutdown();
+
+        for (int i = 0; i < rows.length; i++) {
+            if (i % 100 == 0) {
+                assertNull(tasks[i]);
+            } else {
+                assertEquals("task " + i, tasks[i].getName());
+            }
+        }
+        assertEquals(rows.length - rows.length / 100, streamedTasks.size());
+        assertEquals("task 1", streamedTasks.get(0).getName());
+        assertEquals("task 9999", streamedTasks.get(streamedTasks.size() - 1).getName());
+    }
+}
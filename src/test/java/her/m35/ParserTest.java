@@ -6,6 +6,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Random;
+import java.util.regex.Pattern;
 
 import org.junit.jupiter.api.Test;
 
@@ -32,6 +34,7 @@ public class ParserTest {
         assertInstanceOf(MarkCommand.class, Parser.parse("unmark 2"));
         assertInstanceOf(DeleteCommand.class, Parser.parse("delete task name"));
         assertInstanceOf(FindCommand.class, Parser.parse("find homework"));
+        assertInstanceOf(FindCommand.class, Parser.parse("explain homework /done"));
         assertInstanceOf(AddTaskCommand.class, Parser.parse("todo read book"));
         assertInstanceOf(AddTaskCommand.class, Parser.parse("deadline task /by Oct 12"));
         assertInstanceOf(AddTaskCommand.class, Parser.parse("event party /from Oct 10 /to Oct 11"));
@@ -41,6 +44,20 @@ public class ParserTest {
         assertInstanceOf(MessageCommand.class, Parser.parse("bye now"));
     }
 
+    @Test
+    public void commandWordsAndTagsAreMatchedExactly() {
+        assertInstanceOf(MessageCommand.class, Parser.parse(""));
+        assertInstanceOf(MessageCommand.class, Parser.parse("lis"));
+        assertInstanceOf(MessageCommand.class, Parser.parse("lists"));
+        assertInstanceOf(MessageCommand.class, Parser.parse("LIST"));
+        assertInstanceOf(MessageCommand.class, Parser.parse(" list"));
+        assertInstanceOf(MessageCommand.class, Parser.parse("list "));
+        assertInstanceOf(MessageCommand.class, Parser.parse("todo read #bad-tag"));
+        assertInstanceOf(MessageCommand.class, Parser.parse("tag 1 #é"));
+        assertInstanceOf(AddTaskCommand.class, Parser.parse("todo read #good #Tag2"));
+        assertInstanceOf(AddTaskCommand.class, Parser.parse("event party /from Oct 10 /to Oct 11 #fun"));
+    }
+
     @Test
     public void parseFindPromptTestsSuccess() throws Exception {
         ArrayList<TaskList.FilterCondition> filterConditions = new ArrayList<>();
@@ -131,4 +148,100 @@ public class ParserTest {
                 Parser.parseFindPrompt("/tag #work!", filterConditions, keywords));
         assertTrue(exception.getMessage().contains("Tags need to be strictly alphanumeric"));
     }
+
+    @Test
+    public void parseFindPromptTakesKeywordsLiterally() throws Exception {
+        ArrayList<TaskList.FilterCondition> filterConditions = new ArrayList<>();
+        ArrayList<String> keywords = new ArrayList<>();
+
+        Parser.parseFindPrompt("a+b /contains (c* [d /done", filterConditions, keywords);
+        assertEquals(3, filterConditions.size());
+        assertEquals(TaskList.FilterCondition.KEYWORD, filterConditions.get(1));
+        assertEquals("a+b", keywords.get(0));
+        assertEquals("(c* [d", keywords.get(1));
+        assertEquals(TaskList.FilterCondition.IS_MARKED, filterConditions.get(2));
+    }
+
+    @Test
+    public void findPromptScannerAgreesWithReferenceParser() {
+        String[] pieces = {"/done", "/todo", "/on", "/before", "/after", "/type", "/contains", "/tag", "/bad", "/",
+            "#a", "#b2", "#", "#c!", "word", "two words", "(", "a+", "[x", "\\", "$1", ".*", "", " ", "Oct 20"};
+        Random random = new Random(23);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder prompt = new StringBuilder();
+            int pieceCount = random.nextInt(8);
+            for (int j = 0; j < pieceCount; j++) {
+                prompt.append(pieces[random.nextInt(pieces.length)]).append(random.nextInt(4) == 0 ? "  " : " ");
+            }
+            String findPrompt = random.nextBoolean() ? prompt.toString().trim() : prompt.toString();
+            assertEquals(parseWithReference(findPrompt), parseWithScanner(findPrompt), findPrompt);
+        }
+    }
+
+    private static String parseWithScanner(String findPrompt) {
+        ArrayList<TaskList.FilterCondition> filterConditions = new ArrayList<>();
+        ArrayList<String> keywords = new ArrayList<>();
+        try {
+            Parser.parseFindPrompt(findPrompt, filterConditions, keywords);
+            return filterConditions + " " + keywords;
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Parses a find prompt the way the parser did before it scanned prompts, cutting each keyword off the rest of the
+     * prompt as literal text.
+     */
+    private static String parseWithReference(String findPrompt) {
+        ArrayList<TaskList.FilterCondition> filterConditions = new ArrayList<>();
+        ArrayList<String> keywords = new ArrayList<>();
+        String remainingPrompt = findPrompt;
+        while (!remainingPrompt.isEmpty()) {
+            TaskList.FilterCondition filterCondition = TaskList.FilterCondition.KEYWORD;
+            if (remainingPrompt.startsWith("/")) {
+                String[] promptTokens = remainingPrompt.split(" ", 2);
+                String commandWord = promptTokens[0].substring(1);
+                remainingPrompt = promptTokens.length > 1 ? promptTokens[1] : "";
+                switch (commandWord) {
+                case "done", "todo" -> {
+                    filterConditions.add(commandWord.equals("done")
+                            ? TaskList.FilterCondition.IS_MARKED : TaskList.FilterCondition.IS_UNMARKED);
+                    keywords.add("");
+                    continue;
+                }
+                case "on" -> filterCondition = TaskList.FilterCondition.ON_DATE;
+                case "before" -> filterCondition = TaskList.FilterCondition.BEFORE;
+                case "after" -> filterCondition = TaskList.FilterCondition.AFTER;
+                case "type" -> filterCondition = TaskList.FilterCondition.OF_TYPE;
+                case "contains" -> filterCondition = TaskList.FilterCondition.KEYWORD;
+                case "tag" -> filterCondition = TaskList.FilterCondition.TAG;
+                default -> {
+                    filterConditions.add(TaskList.FilterCondition.ERROR_CONDITION);
+                    keywords.add(commandWord);
+                    continue;
+                }
+                }
+            }
+            int endIndex = remainingPrompt.indexOf("/");
+            String keyword = endIndex == -1 ? remainingPrompt.trim() : remainingPrompt.substring(0, endIndex).trim();
+            remainingPrompt = endIndex == -1 ? "" : remainingPrompt.replaceFirst(Pattern.quote(keyword), "").trim();
+            if (filterCondition != TaskList.FilterCondition.TAG) {
+                filterConditions.add(filterCondition);
+                keywords.add(keyword);
+                continue;
+            }
+            for (String tag : keyword.split(" ")) {
+                if (!tag.startsWith("#")) {
+                    return "Error: Notate tags with a # sign.";
+                }
+                if (!tag.substring(1).matches("[a-zA-Z0-9]+")) {
+                    return String.format("Error: Tags need to be strictly alphanumeric. (%s)", tag.substring(1));
+                }
+                filterConditions.add(TaskList.FilterCondition.TAG);
+                keywords.add(tag.substring(1));
+            }
+        }
+        return filterConditions + " " + keywords;
+    }
 }
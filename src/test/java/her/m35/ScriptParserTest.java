@@ -0,0 +1,78 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import her.m35.command.AddTaskCommand;
+import her.m35.command.Command;
+import her.m35.command.ListCommand;
+import her.m35.command.MessageCommand;
+
+public class ScriptParserTest {
+
+    @Test
+    public void commentsAndBlankLinesAreSkipped() throws IOException {
+        ScriptParser script = start("todo read book\n\n   \n# a comment\n  # an indented comment\nlist\n");
+
+        assertTrue(script.next() instanceof AddTaskCommand);
+        assertEquals(1, script.getLineNumber());
+        assertTrue(script.next() instanceof ListCommand);
+        assertEquals(6, script.getLineNumber());
+        assertNull(script.next());
+        assertNull(script.next());
+    }
+
+    @Test
+    public void invalidLineIsShownWithItsLineNumber() throws IOException {
+        ScriptParser script = start("todo read book\n\nfrobnicate\n");
+        script.next();
+
+        Command command = script.next();
+        assertTrue(command instanceof MessageCommand);
+        assertEquals(3, script.getLineNumber());
+        StringWriter output = new StringWriter();
+        Ui ui = new Ui(new PrintWriter(output));
+        command.execute(null, null, ui);
+        ui.flush();
+        assertTrue(output.toString().contains("Line 3: Error: Unknown command"), output.toString());
+    }
+
+    @Test
+    public void readErrorIsThrownAfterTheCommandsRead() throws IOException {
+        Reader failingReader = new Reader() {
+            private final StringReader lines = new StringReader("todo read book\n");
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int readCount = lines.read(buffer, offset, length);
+                if (readCount == -1) {
+                    throw new IOException("Disk unplugged");
+                }
+                return readCount;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ScriptParser script = ScriptParser.start(new BufferedReader(failingReader));
+
+        assertTrue(script.next() instanceof AddTaskCommand);
+        assertThrows(IOException.class, script::next);
+    }
+
+    private static ScriptParser start(String script) {
+        return ScriptParser.start(new BufferedReader(new StringReader(script)));
+    }
+}
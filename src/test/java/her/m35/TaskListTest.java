@@ -0,0 +1,224 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import her.m35.storage.OffHeapTaskArena;
+import her.m35.task.ColumnarTaskStore;
+import her.m35.task.DeadlineTask;
+import her.m35.task.ObjectTaskStore;
+import her.m35.task.Task;
+import her.m35.task.TaskStore;
+import her.m35.task.ToDoTask;
+
+public class TaskListTest {
+
+    @Test
+    public void tagIndexFollowsTaskChanges() {
+        TaskList taskList = new TaskList();
+        Task essay = new ToDoTask("write essay", new String[] {"school"});
+        Task book = new ToDoTask("read book", new String[] {"fun", "school"});
+        Task game = new ToDoTask("play game", new String[] {"fun"});
+        taskList.add(essay);
+        taskList.add(book);
+        taskList.add(game);
+
+        assertEquals(List.of(essay, book), taskList.getTasksWithTag("school"));
+        assertEquals(2, (int) taskList.getTags().get("fun"));
+
+        taskList.delete(0);
+        book.removeTag("school");
+        game.addTag("school");
+        essay.addTag("fun");
+
+        assertEquals(List.of(game), taskList.getTasksWithTag("school"));
+        assertEquals(List.of(book, game), taskList.getTasksWithTag("fun"));
+        assertEquals(2, taskList.getTags().size());
+
+        taskList.clear();
+        assertTrue(taskList.getTags().isEmpty());
+    }
+
+    @Test
+    public void tagFilterOnlyListsTaggedTasks() {
+        TaskList taskList = new TaskList();
+        taskList.add(new ToDoTask("write essay", new String[] {"school"}));
+        taskList.add(new ToDoTask("read book", new String[] {"fun"}));
+
+        String[] output = taskList.outputFilteredList(
+                new TaskList.FilterCondition[] {TaskList.FilterCondition.TAG}, new String[] {"fun"});
+
+        assertTrue(String.join("", output).contains("read book"));
+        assertTrue(!String.join("", output).contains("write essay"));
+    }
+
+    @Test
+    public void plannerAppliesMostSelectiveConditionFirst() {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 50; i++) {
+            taskList.add(new ToDoTask("meeting " + i, i == 7 ? new String[] {"work"} : new String[] {"home"}, true));
+        }
+        TaskList.FilterCondition[] filterConditions = {TaskList.FilterCondition.KEYWORD,
+            TaskList.FilterCondition.IS_MARKED, TaskList.FilterCondition.TAG};
+        String[] keywords = {"meeting", "", "work"};
+
+        String[] plan = taskList.explainFilteredList(FindQuery.compile(filterConditions, keywords));
+
+        assertTrue(plan[1].contains("/tag #work: look up in the index"));
+        String output = String.join("", taskList.outputFilteredList(filterConditions, keywords));
+        assertTrue(output.contains("8.[T][X] meeting 7"));
+    }
+
+    @Test
+    public void noTasksMessageFollowsTypedOrder() {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 50; i++) {
+            taskList.add(new ToDoTask("meeting " + i, new String[] {i == 7 ? "work" : "home"}, i % 2 == 0));
+        }
+
+        assertEquals("There are no tasks containing \"xy\".", String.join("", taskList.outputFilteredList(
+                new TaskList.FilterCondition[] {TaskList.FilterCondition.KEYWORD, TaskList.FilterCondition.TAG},
+                new String[] {"xy", "missing"})));
+        assertEquals("There are no completed tasks.", String.join("", taskList.outputFilteredList(
+                new TaskList.FilterCondition[] {TaskList.FilterCondition.KEYWORD, TaskList.FilterCondition.TAG,
+                    TaskList.FilterCondition.IS_MARKED, TaskList.FilterCondition.TAG},
+                new String[] {"meeting", "work", "", "missing"})));
+    }
+
+    @Test
+    public void doneBitmapFollowsMarksAndDeletes() {
+        TaskList taskList = new TaskList();
+        taskList.add(new ToDoTask("read book"));
+        taskList.add(new ToDoTask("write essay", true));
+        taskList.add(new ToDoTask("buy milk"));
+        taskList.markTask(0, true);
+        taskList.markTask(1, false);
+        taskList.delete(2);
+        FindQuery done = FindQuery.compile(new TaskList.FilterCondition[] {TaskList.FilterCondition.IS_MARKED,
+            TaskList.FilterCondition.OF_TYPE}, new String[] {"", "todo"});
+        FindQuery undone = FindQuery.compile(new TaskList.FilterCondition[] {TaskList.FilterCondition.IS_UNMARKED},
+                new String[] {""});
+
+        String doneOutput = String.join("", taskList.outputFilteredList(done));
+        String undoneOutput = String.join("", taskList.outputFilteredList(undone));
+
+        assertTrue(doneOutput.contains("1.[T][X] read book") && !doneOutput.contains("essay"));
+        assertTrue(undoneOutput.contains("2.[T][ ] write essay") && !undoneOutput.contains("book"));
+        assertTrue(taskList.explainFilteredList(undone)[1].contains("intersect with its bitmap"));
+    }
+
+    @Test
+    public void filteredTasksAreNumberedByCurrentPosition() {
+        TaskList taskList = new TaskList();
+        taskList.add(new ToDoTask("read book", new String[] {"fun"}));
+        taskList.add(new ToDoTask("write essay", new String[] {"school"}));
+        taskList.add(new ToDoTask("read essay", new String[] {"school"}));
+        taskList.add(new ToDoTask("play game", new String[] {"fun"}));
+        taskList.delete(0);
+
+        String[] output = taskList.outputFilteredList(
+                new TaskList.FilterCondition[] {TaskList.FilterCondition.TAG}, new String[] {"school"});
+
+        assertEquals(List.of("1.", "[T][ ] write essay ", "#school", "\n", "2.", "[T][ ] read essay ", "#school"),
+                List.of(output));
+    }
+
+    @Test
+    public void idsAndPositionsSurviveDeletesAndCompaction() {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 200; i++) {
+            taskList.add(new ToDoTask("task " + i, new String[] {i % 2 == 0 ? "even" : "odd"}));
+        }
+        long lastId = taskList.getId(199);
+        for (int i = 0; i < 150; i++) {
+            taskList.delete(i % 3 == 0 ? 0 : taskList.size() / 2);
+        }
+
+        assertEquals(50, taskList.size());
+        assertEquals(49, taskList.indexOfId(lastId));
+        assertEquals("task 199", taskList.get(49).getDescription());
+        assertEquals(-1, taskList.indexOfId(taskList.getId(0) - 1));
+        for (int i = 1; i < taskList.size(); i++) {
+            assertTrue(taskList.getId(i - 1) < taskList.getId(i));
+            assertEquals(i, taskList.indexOfId(taskList.getId(i)));
+        }
+
+        taskList.get(49).addTag("last");
+        taskList.markTask(49, true);
+        String output = String.join("", taskList.outputFilteredList(new TaskList.FilterCondition[] {
+            TaskList.FilterCondition.TAG, TaskList.FilterCondition.IS_MARKED}, new String[] {"last", ""}));
+        assertEquals("50.[T][X] task 199 #odd, #last", output);
+    }
+
+    @Test
+    public void tombstonesAreLeftOutOfLookups() {
+        TaskList taskList = new TaskList();
+        for (int i = 0; i < 100; i++) {
+            taskList.add(new DeadlineTask("report " + i, new TimePoint(LocalDate.of(2026, 10, 1 + i % 2)),
+                    new String[] {"work", "work"}));
+        }
+        for (int i = 0; i < 40; i++) {
+            taskList.delete(0);
+        }
+        taskList.get(0).removeTag("work");
+        taskList.get(0).removeTag("work");
+
+        assertEquals(59, (int) taskList.getTags().get("work"));
+        assertEquals(59, taskList.getTasksWithTag("work").size());
+        String onDate = String.join("", taskList.outputFilteredList(new TaskList.FilterCondition[] {
+            TaskList.FilterCondition.ON_DATE, TaskList.FilterCondition.KEYWORD}, new String[] {"2/10/2026", "report"}));
+        assertTrue(onDate.startsWith("2.[D][ ] report 41 "));
+        assertEquals(30, onDate.split("\n").length);
+        assertEquals("There are no tasks containing \"report 39\".", String.join("", taskList.outputFilteredList(
+                new TaskList.FilterCondition[] {TaskList.FilterCondition.KEYWORD}, new String[] {"report 39"})));
+
+        for (int i = 0; i < 60; i++) {
+            taskList.delete(0);
+        }
+        assertTrue(taskList.getTags().isEmpty());
+    }
+
+    @Test
+    public void compactStoresShowTasksLikeTaskObjects() {
+        String shown = showWorkload(new ObjectTaskStore());
+        assertTrue(shown.contains("[D][X] deadline 123 (by: Oct 12 2026) #third, #late"));
+        assertEquals(shown, showWorkload(new ColumnarTaskStore(1)));
+        assertEquals(shown, showWorkload(new OffHeapTaskArena(256)));
+    }
+
+    /** Changes a task list backed by a store until it is compacted, returning everything it shows. */
+    private static String showWorkload(TaskStore store) {
+        TaskList taskList = new TaskList(store);
+        for (int i = 0; i < 200; i++) {
+            taskList.add(i % 2 == 0 ? new ToDoTask("task " + i, new String[] {"even"})
+                    : new DeadlineTask("deadline " + i, new TimePoint(LocalDate.of(2026, 10, 1).plusDays(i % 28))));
+        }
+        for (int i = 0; i < 200; i += 3) {
+            taskList.get(i).addTag("third");
+            taskList.markTask(i, true);
+        }
+        taskList.get(6).removeTag("even");
+        taskList.get(12).clearTags();
+        for (int i = 199; i >= 0; i--) {
+            if (i % 3 != 0) {
+                taskList.delete(i);
+            }
+        }
+        taskList.get(41).addTag("late");
+
+        StringBuilder shown = new StringBuilder(String.join("", taskList.getFormattedTaskList()));
+        for (String tag : List.of("third", "even", "late")) {
+            shown.append('|').append(String.join("", taskList.outputFilteredList(
+                    new TaskList.FilterCondition[] {TaskList.FilterCondition.TAG}, new String[] {tag})));
+        }
+        shown.append('|').append(String.join("", taskList.outputFilteredList(new TaskList.FilterCondition[] {
+            TaskList.FilterCondition.KEYWORD, TaskList.FilterCondition.IS_MARKED}, new String[] {"late", ""})));
+        return shown.append('|').append(new TreeMap<>(taskList.getTags())).toString();
+    }
+}
@@ -0,0 +1,46 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import her.m35.storage.JournalStorage;
+
+public class TaskLoaderTest {
+    private static final String FILE_NAME = "task-loader-test.csv";
+
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(Paths.get("data", FILE_NAME));
+        Files.deleteIfExists(Paths.get("data", FILE_NAME + JournalStorage.JOURNAL_SUFFIX));
+    }
+
+    @Test
+    public void tasksAreStreamedInOrderedChunks() throws IOException {
+        JournalStorage storage = new JournalStorage(FILE_NAME);
+        for (int i = 0; i < 10; i++) {
+            storage.insert(new String[] {"T", " ", "task " + i, ""});
+        }
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        storage.streamTasks(4, chunk -> chunkSizes.add(chunk.size()));
+        TaskLoader loader = TaskLoader.start(storage, 3);
+        TaskList taskList = loader.await();
+
+        assertEquals(List.of(4, 4, 2), chunkSizes);
+        assertTrue(loader.getIsDone());
+        assertEquals(10, loader.getLoadedTaskCount());
+        assertEquals(10, taskList.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("task " + i, taskList.get(i).getName());
+        }
+    }
+}
@@ -3,11 +3,18 @@ package her.m35;
 import static her.m35.parser.TimePointParser.toTimePoint;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
+import her.m35.parser.Parser;
+import her.m35.parser.TimePointParser;
 
 public class TimePointParserTest {
     @Test
@@ -76,4 +83,84 @@ public class TimePointParserTest {
         assertEquals(LocalDateTime.of(2016, 10, 10, 20, 30), toTimePoint("2016 oct 10 8:30PM").getTime());
         assertEquals("2025 May 10 noon", toTimePoint("2025 May 10 noon").getTime());
     }
+
+    @Test
+    public void singleScanParserAgreesWithLegacyParser() {
+        String[] pieces = {"oct", "OCTOBER", "dec", "Jan", "12", "31", "1", "2026", "1999", "0600", "-123", "+5", "",
+            "10:30", "6PM", "12am", "23:59", "9:09", "noon", "tmr", "today", "fri", "next week", "monkey", "13",
+            "00", "2", "29", "feb", "10:30:", "1:00PMAM", "٣", "2147483648"};
+        char[] separators = {' ', '/', '-', '\\', ' '};
+        Random random = new Random(19);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder timeString = new StringBuilder(pieces[random.nextInt(pieces.length)]);
+            int pieceCount = random.nextInt(5);
+            for (int j = 0; j < pieceCount; j++) {
+                timeString.append(separators[random.nextInt(separators.length)]);
+                timeString.append(pieces[random.nextInt(pieces.length)]);
+            }
+            if (timeString.toString().isBlank()) {
+                continue;
+            }
+            String input = random.nextInt(10) == 0 ? " " + timeString + " " : timeString.toString();
+            assertEquals(LegacyTimePointParser.toTimePoint(input), toTimePoint(input), input);
+        }
+    }
+
+    @Test
+    public void isIntegerAgreesWithParseInt() {
+        String[] strings = {"0", "-0", "+7", "-", "+", "", "12a", "2147483647", "2147483648", "-2147483648",
+            "-2147483649", "٣٤", "1 2", "99999999999"};
+        for (String string : strings) {
+            boolean isParsed;
+            try {
+                Integer.parseInt(string);
+                isParsed = true;
+            } catch (NumberFormatException e) {
+                isParsed = false;
+            }
+            assertEquals(isParsed, Parser.isInteger(string), string);
+        }
+    }
+
+    @Test
+    public void relativeWordsFollowClockAcrossMidnight() {
+        long[] millis = {LocalDateTime.of(2026, 10, 18, 23, 59).toInstant(ZoneOffset.UTC).toEpochMilli()};
+        TimePointParser.setClock(new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(millis[0]);
+            }
+        });
+        try {
+            assertEquals(new TimePoint(LocalDate.of(2026, 10, 19)), toTimePoint("tomorrow"));
+            assertEquals(new TimePoint(LocalDate.of(2026, 10, 23)), toTimePoint("fri"));
+            assertEquals(new TimePoint(LocalDateTime.of(2026, 10, 25, 18, 0)), toTimePoint("6pm next week"));
+            millis[0] += 60_000;
+            assertEquals(new TimePoint(LocalDate.of(2026, 10, 20)), toTimePoint("tomorrow"));
+            assertEquals(LocalDate.of(2026, 10, 19), TimePointParser.getToday());
+        } finally {
+            TimePointParser.setClock(Clock.systemDefaultZone());
+        }
+    }
+
+    @Test
+    public void cacheCountsHitsAndMisses() {
+        TimePointParser.clearCache();
+        TimePoint first = toTimePoint("18:00 Oct 20 2026");
+        assertEquals(first, toTimePoint("18:00 Oct 20 2026"));
+        assertEquals(new TimePoint("someday"), toTimePoint("someday"));
+        assertEquals(new TimePoint("someday"), toTimePoint("someday"));
+        assertEquals(2L, TimePointParser.getCacheHits());
+        assertEquals(2L, TimePointParser.getCacheMisses());
+    }
 }
@@ -1,10 +1,14 @@
 package her.m35;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
@@ -94,4 +98,21 @@ public class TimePointTest {
         TimePoint t15 = new TimePoint("Oct 11");
         assertFalse(t14.equals(t15));
     }
+
+    @Test
+    public void compareToOrdersByEpochMinute() {
+        TimePoint day = new TimePoint(LocalDate.of(2026, 10, 18));
+        TimePoint midnight = new TimePoint(LocalDateTime.of(2026, 10, 18, 0, 0));
+        TimePoint morning = new TimePoint(LocalDateTime.of(2026, 10, 18, 9, 30));
+        TimePoint nextDay = TimePoint.ofEpochDay(LocalDate.of(2026, 10, 19).toEpochDay());
+        TimePoint text = new TimePoint("someday");
+        List<TimePoint> timePoints = new ArrayList<>(List.of(text, nextDay, morning, midnight, day));
+        Collections.sort(timePoints);
+
+        assertEquals(List.of(day, midnight, morning, nextDay, text), timePoints);
+        assertEquals(0, morning.compareTo(TimePoint.ofEpochMinute(morning.getEpochMinute())));
+        assertEquals(LocalDateTime.of(2026, 10, 18, 9, 30), morning.getTime());
+        assertEquals("9:30 Oct 18 2026", morning.toString());
+        assertEquals(day.hashCode(), new TimePoint(LocalDate.of(2026, 10, 18)).hashCode());
+    }
 }
@@ -0,0 +1,87 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import her.m35.index.PostingList;
+import her.m35.index.TrigramIndex;
+import her.m35.task.Task;
+import her.m35.task.ToDoTask;
+
+public class TrigramIndexTest {
+    private static final String[] WORDS = {"read", "book", "essay", "Meeting", "lunch", "work", "fun", "reading"};
+
+    @Test
+    public void candidatesIncludeEveryMatchingTask() {
+        Random random = new Random(10);
+        TrigramIndex index = new TrigramIndex();
+        List<Task> tasks = new ArrayList<>();
+        for (int id = 0; id < 200; id++) {
+            Task task = new ToDoTask(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)],
+                    new String[] {WORDS[random.nextInt(WORDS.length)]});
+            tasks.add(task);
+            index.add(id, task);
+        }
+        for (int id = 0; id < tasks.size(); id += 3) {
+            String tag = WORDS[random.nextInt(WORDS.length)];
+            tasks.get(id).addTag(tag);
+            index.addTag(id, tag);
+            String removedTag = tasks.get(id).getTags().get(0);
+            tasks.get(id).removeTag(removedTag);
+            index.removeTag(id, tasks.get(id), removedTag);
+        }
+
+        for (String keyword : new String[] {"read", "ead b", " book", "meet", "unch", "ork", "k r", "essayfun"}) {
+            PostingList candidates = index.getCandidates(keyword);
+            for (int id = 0; id < tasks.size(); id++) {
+                if (tasks.get(id).containsWord(keyword.toLowerCase())) {
+                    assertTrue(candidates.contains(id), keyword + " missed task " + id);
+                }
+            }
+        }
+        assertEquals(0, index.getCandidates("zzz").size());
+    }
+
+    @Test
+    public void keywordsSpanningIconsOrTagSeparatorsAreNotLookedUp() {
+        TrigramIndex index = new TrigramIndex();
+        assertNull(index.getCandidates("] read"));
+        assertNull(index.getCandidates("#work"));
+        assertNull(index.getCandidates("re"));
+    }
+
+    @Test
+    public void removedTasksAreNoLongerCandidates() {
+        Random random = new Random(11);
+        TrigramIndex index = new TrigramIndex();
+        List<Task> tasks = new ArrayList<>();
+        for (int id = 0; id < 500; id++) {
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 6; i++) {
+                name.append((char) ('a' + random.nextInt(26)));
+            }
+            Task task = new ToDoTask(name.toString());
+            tasks.add(task);
+            index.add(id, task);
+        }
+        for (int id = 0; id < tasks.size(); id += 2) {
+            index.remove(id, tasks.get(id));
+        }
+
+        for (int id = 0; id < tasks.size(); id++) {
+            String keyword = tasks.get(id).getName().substring(1, 5);
+            PostingList candidates = index.getCandidates(keyword);
+            assertEquals(id % 2 == 1, candidates.contains(id), keyword);
+            for (int i = 0; i < candidates.size(); i++) {
+                assertTrue(candidates.get(i) % 2 == 1, keyword);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package her.m35;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.Scanner;
+
+import org.junit.jupiter.api.Test;
+
+public class UiTest {
+
+    @Test
+    public void messagesAreIndentedLineByLine() {
+        StringWriter output = new StringWriter();
+        Ui ui = new Ui(new PrintWriter(output));
+        ui.printMessage("1.", "[T][ ] read ", "#school\n2.", "[D][X] return\n");
+        ui.flush();
+
+        String n = System.lineSeparator();
+        String separator = "\t-----------------------" + n;
+        assertEquals(separator + "\t1.[T][ ] read #school" + n + "\t2.[D][X] return" + n + separator,
+                output.toString());
+    }
+
+    @Test
+    public void linesAreSplitLikeScanner() {
+        String[] pieces = {"a", "bc", "\n", "\r", "\r\n", " ", "\u0085", "", " ", "\t", "line"};
+        Random random = new Random(25);
+        for (int i = 0; i < 2000; i++) {
+            String[] message = new String[random.nextInt(6)];
+            for (int j = 0; j < message.length; j++) {
+                StringBuilder part = new StringBuilder();
+                int pieceCount = random.nextInt(4);
+                for (int k = 0; k < pieceCount; k++) {
+                    part.append(pieces[random.nextInt(pieces.length)]);
+                }
+                message[j] = part.toString();
+            }
+            StringWriter output = new StringWriter();
+            Ui ui = new Ui(new PrintWriter(output));
+            ui.printMessage(message);
+            ui.flush();
+            assertEquals(renderWithScanner(message), output.toString(), String.join("|", message));
+        }
+    }
+
+    /** Renders a message the way the console did before it rendered messages itself. */
+    private static String renderWithScanner(String[] message) {
+        StringWriter output = new StringWriter();
+        PrintWriter writer = new PrintWriter(output);
+        writer.println("\t-----------------------");
+        Scanner reader = new Scanner(String.join("", message));
+        while (reader.hasNextLine()) {
+            writer.println("\t" + reader.nextLine());
+        }
+        writer.println("\t-----------------------");
+        writer.flush();
+        return output.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package her.m35.benchmark;
+
+import java.util.ArrayList;
+
+import her.m35.TaskList;
+import her.m35.task.Task;
+import her.m35.task.ToDoTask;
+
+/**
+ * Measures how long deleting the first task of the list takes as the list grows, with every task sharing a tag and
+ * the words of its description, so that each delete touches the longest posting lists.
+ * A delete which shifts posting lists takes time proportional to the number of tasks, so the time per delete grows
+ * with each size, while a delete which leaves tombstones behind takes about the same time at every size.
+ * Run with the numbers of tasks as the arguments, 50000, 200000 and 800000 by default.
+ */
+public class DeleteScalingBenchmark {
+    private static final int DELETE_COUNT = 2_000;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Numbers of tasks.
+     */
+    public static void main(String[] args) {
+        String[] taskCounts = args.length > 0 ? args : new String[] {"50000", "200000", "800000"};
+        for (String taskCountString : taskCounts) {
+            int taskCount = Integer.parseInt(taskCountString);
+            ArrayList<Task> tasks = new ArrayList<>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                tasks.add(new ToDoTask("weekly task " + i, new String[] {"work"}));
+            }
+            TaskList taskList = new TaskList(tasks);
+            tasks = null;
+
+            long startTime = System.nanoTime();
+            for (int i = 0; i < DELETE_COUNT; i++) {
+                taskList.delete(0);
+            }
+            long elapsedNanos = System.nanoTime() - startTime;
+            System.out.printf("%d tasks: %.1f us per delete from the front%n", taskCount,
+                    elapsedNanos / 1e3 / DELETE_COUNT);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package her.m35.benchmark;
+
+import java.util.ArrayList;
+
+import her.m35.TaskList;
+import her.m35.parser.Parser;
+
+/**
+ * Measures how long {@link Parser#parseFindPrompt} takes on long find prompts made of many /tag and /contains
+ * clauses.
+ * Run with the number of clauses in the longest prompt as the only argument, 16000 by default.
+ */
+public class FindPromptBenchmark {
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Number of clauses in the longest prompt.
+     * @throws Exception If a generated prompt is not valid.
+     */
+    public static void main(String[] args) throws Exception {
+        int maxClauseCount = args.length > 0 ? Integer.parseInt(args[0]) : 16_000;
+        ArrayList<TaskList.FilterCondition> filterConditions = new ArrayList<>();
+        ArrayList<String> keywords = new ArrayList<>();
+        for (int round = 1; round <= 3; round++) {
+            for (int clauseCount = maxClauseCount / 8; clauseCount <= maxClauseCount; clauseCount *= 2) {
+                String prompt = makePrompt(clauseCount);
+                int repeats = Math.max(1, 20_000_000 / prompt.length());
+                long startTime = System.nanoTime();
+                for (int i = 0; i < repeats; i++) {
+                    Parser.parseFindPrompt(prompt, filterConditions, keywords);
+                }
+                long elapsedNanos = System.nanoTime() - startTime;
+                System.out.printf("Round %d, %d clauses (%d chars): %.3f ms per prompt, %d conditions%n", round,
+                        clauseCount, prompt.length(), elapsedNanos / 1e6 / repeats, filterConditions.size());
+            }
+        }
+    }
+
+    private static String makePrompt(int clauseCount) {
+        StringBuilder prompt = new StringBuilder("homework");
+        for (int i = 0; i < clauseCount; i++) {
+            if (i % 2 == 0) {
+                prompt.append(" /tag #school #week").append(i % 10);
+            } else {
+                prompt.append(" /contains chapter ").append(i);
+            }
+        }
+        return prompt.toString();
+    }
+}
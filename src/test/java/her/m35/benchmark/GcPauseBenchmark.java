@@ -0,0 +1,95 @@
+package her.m35.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.Random;
+
+import her.m35.TaskList;
+import her.m35.TimePoint;
+import her.m35.storage.OffHeapTaskArena;
+import her.m35.task.DeadlineTask;
+import her.m35.task.ObjectTaskStore;
+import her.m35.task.Task;
+import her.m35.task.TaskStore;
+import her.m35.task.ToDoTask;
+
+/**
+ * Measures garbage collection pauses while a synthetic workload renders and marks random tasks of a task list, with
+ * the tasks held as task objects on the heap and as records in an {@link OffHeapTaskArena}.
+ * Besides the collections during the workload, a full collection is timed, as its pause grows with the number of
+ * objects on the heap.
+ * Run with the number of tasks as the only argument, 3000000 by default, and a heap large enough for the objects.
+ */
+public class GcPauseBenchmark {
+    private static final int OPERATION_COUNT = 2_000_000;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Number of tasks.
+     */
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 3_000_000;
+
+        runWorkload("Task objects", createTaskList(new ObjectTaskStore(taskCount), taskCount));
+        runWorkload("Off-heap arena", createTaskList(new OffHeapTaskArena(), taskCount));
+    }
+
+    private static TaskList createTaskList(TaskStore store, int taskCount) {
+        TaskList taskList = new TaskList(store);
+        for (int i = 0; i < taskCount; i++) {
+            taskList.add(createTask(i));
+        }
+        return taskList;
+    }
+
+    private static Task createTask(int i) {
+        if (i % 2 == 0) {
+            return new ToDoTask("task " + i, new String[] {"work"});
+        }
+        return new DeadlineTask("deadline " + i, new TimePoint(LocalDate.of(2026, 10, 1).plusDays(i % 28)),
+                new String[] {"home", "fun"}, true);
+    }
+
+    private static void runWorkload(String layout, TaskList taskList) {
+        int taskCount = taskList.size();
+        System.gc();
+        Random random = new Random(17);
+        long[] gcBefore = getGcCountAndMillis();
+        long longestOperationNanos = 0;
+        long renderedLength = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            long operationStart = System.nanoTime();
+            int index = random.nextInt(taskCount);
+            if (i % 4 == 0) {
+                taskList.markTask(index, i % 8 == 0);
+            } else {
+                Task task = taskList.get(index);
+                renderedLength += (task.toString() + " " + task.getTagsDescription()).length();
+            }
+            longestOperationNanos = Math.max(longestOperationNanos, System.nanoTime() - operationStart);
+        }
+        long workloadMillis = (System.nanoTime() - startTime) / 1_000_000;
+        long[] gcAfter = getGcCountAndMillis();
+
+        long fullGcStart = System.nanoTime();
+        System.gc();
+        long fullGcMillis = (System.nanoTime() - fullGcStart) / 1_000_000;
+
+        System.out.printf("%s, %d tasks: workload %d ms with %d collections taking %d ms, longest operation %.1f ms, "
+                + "full collection %d ms (%d characters rendered)%n", layout, taskCount, workloadMillis,
+                gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1], longestOperationNanos / 1e6, fullGcMillis,
+                renderedLength);
+    }
+
+    private static long[] getGcCountAndMillis() {
+        long[] countAndMillis = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            countAndMillis[0] += Math.max(0, collector.getCollectionCount());
+            countAndMillis[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return countAndMillis;
+    }
+}
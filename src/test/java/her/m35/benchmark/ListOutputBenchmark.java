@@ -0,0 +1,43 @@
+package her.m35.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import her.m35.TaskList;
+import her.m35.TimePoint;
+import her.m35.Ui;
+import her.m35.task.DeadlineTask;
+import her.m35.task.Task;
+import her.m35.task.ToDoTask;
+
+/**
+ * Measures how long the console {@link Ui} takes to print the list of every task, as the "list" command does.
+ * Run with the number of tasks as the only argument, 100000 by default, and the standard output sent to /dev/null,
+ * as the timings are printed to the standard error.
+ */
+public class ListOutputBenchmark {
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Number of tasks.
+     */
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        ArrayList<Task> tasks = new ArrayList<>(taskCount);
+        LocalDate day = LocalDate.of(2026, 10, 1);
+        for (int i = 0; i < taskCount; i++) {
+            tasks.add(i % 2 == 0
+                    ? new ToDoTask("task " + i, new String[] {"work"})
+                    : new DeadlineTask("deadline " + i, new TimePoint(day.plusDays(i % 28)), new String[0], true));
+        }
+        TaskList taskList = new TaskList(tasks);
+        Ui ui = new Ui();
+        for (int round = 1; round <= 5; round++) {
+            long startTime = System.nanoTime();
+            ui.printMessage(taskList.getFormattedTaskList());
+            long elapsedNanos = System.nanoTime() - startTime;
+            System.err.printf("Round %d: listed %d tasks in %.1f ms%n", round, taskCount, elapsedNanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package her.m35.benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+
+import her.m35.storage.ParallelTaskDecoder;
+import her.m35.task.Task;
+
+/**
+ * Measures how decoding CSV task rows scales with the number of threads decoding them.
+ * Run with the number of rows as the only argument, 2000000 by default.
+ */
+public class ParallelDecodeBenchmark {
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Number of rows to decode.
+     */
+    public static void main(String[] args) {
+        int rowCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        String[] rows = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = switch (i % 3) {
+            case 0 -> "T, ,task " + i + ",work";
+            case 1 -> "D,X,deadline " + i + ",Oct " + (i % 28 + 1) + " 2026,home/fun";
+            default -> "E, ,event " + i + ",10:00 Oct 18 2026,12:30 Oct 18 2026";
+            };
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        long singleThreadNanos = 0;
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            ParallelTaskDecoder decoder = new ParallelTaskDecoder(pool, ParallelTaskDecoder.DEFAULT_SPLIT_SIZE);
+            decode(decoder, rows);
+            long startTime = System.nanoTime();
+            Task[] tasks = decode(decoder, rows);
+            long nanos = System.nanoTime() - startTime;
+            pool.shutdown();
+            if (threads == 1) {
+                singleThreadNanos = nanos;
+            }
+            System.out.printf("%2d threads: %d rows in %d ms, speedup %.2fx%n",
+                    threads, tasks.length, nanos / 1_000_000, (double) singleThreadNanos / nanos);
+        }
+    }
+
+    private static Task[] decode(ParallelTaskDecoder decoder, String[] rows) {
+        return decoder.decode(rows.length, i -> Task.dataToTask(rows[i].split(",")));
+    }
+}
@@ -0,0 +1,48 @@
+package her.m35.benchmark;
+
+import her.m35.command.Command;
+import her.m35.parser.Parser;
+
+/**
+ * Measures how many commands {@link Parser} parses per second, over a script mixing every kind of command with tags,
+ * dates and mistakes.
+ * Run with the number of commands per round as the only argument, 1000000 by default.
+ */
+public class ParserBenchmark {
+    private static final String[] SCRIPT = {
+        "todo read book #school #fun",
+        "deadline return book /by Oct 20 2026 #library",
+        "event project meeting /from 14:00 Oct 20 2026 /to 16:00 Oct 20 2026 #work #team",
+        "mark 3",
+        "unmark 12",
+        "tag 2 #urgent #home",
+        "untag 2 #urgent",
+        "find /tag #school /done",
+        "list",
+        "delete old task",
+        "todo tagged badly #not-a-tag",
+        "help find",
+        "show tags",
+        "launch rockets",
+    };
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Number of commands per round.
+     */
+    public static void main(String[] args) {
+        int commandCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        for (int round = 1; round <= 5; round++) {
+            long checksum = 0;
+            long startTime = System.nanoTime();
+            for (int i = 0; i < commandCount; i++) {
+                Command command = Parser.parse(SCRIPT[i % SCRIPT.length]);
+                checksum += command.getClass().getSimpleName().length();
+            }
+            long elapsedNanos = System.nanoTime() - startTime;
+            System.out.printf("Round %d: %.0f commands per second (checksum %d)%n",
+                    round, commandCount / (elapsedNanos / 1e9), checksum);
+        }
+    }
+}
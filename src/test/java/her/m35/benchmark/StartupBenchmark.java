@@ -0,0 +1,85 @@
+package her.m35.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import her.m35.Herm35;
+import her.m35.TaskList;
+import her.m35.storage.JournalStorage;
+import her.m35.storage.TagDictionary;
+
+/**
+ * Measures how long it takes until the chatbot can show its first prompt for a large task file, compared with
+ * loading every task before the first prompt.
+ * Run with the number of tasks as the only argument, 1000000 by default.
+ */
+public class StartupBenchmark {
+    private static final String FILE_NAME = "benchmark-startup.bin";
+    private static final String CSV_FILE_NAME = "benchmark-startup.csv";
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Number of tasks in the task file.
+     * @throws IOException If an I/O error occurs while creating or reading the task file.
+     */
+    public static void main(String[] args) throws IOException {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        try {
+            writeTaskFile(taskCount);
+            for (int round = 1; round <= 3; round++) {
+                long startTime = System.nanoTime();
+                JournalStorage storage = new JournalStorage(FILE_NAME);
+                TaskList taskList = new TaskList(storage.load());
+                long eagerNanos = System.nanoTime() - startTime;
+                storage.close();
+
+                Herm35 herm35 = new Herm35(FILE_NAME);
+                herm35.getIntroduction();
+                long firstPromptNanos = herm35.getTimeToFirstPromptNanos();
+                long loadNanos = herm35.awaitTaskList();
+                herm35.close();
+
+                System.out.printf("Round %d, %d tasks: eager load %d ms, first prompt %.2f ms, background load %d ms%n",
+                        round, taskList.size(), eagerNanos / 1_000_000, firstPromptNanos / 1e6,
+                        loadNanos / 1_000_000);
+            }
+        } finally {
+            deleteFiles();
+        }
+    }
+
+    private static void writeTaskFile(int taskCount) throws IOException {
+        deleteFiles();
+        Files.createDirectories(Paths.get("data"));
+        List<String> rows = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            switch (i % 3) {
+            case 0:
+                rows.add("T, ,task " + i + ",work");
+                break;
+            case 1:
+                rows.add("D,X,deadline " + i + ",Oct " + (i % 28 + 1) + " 2026,home/fun");
+                break;
+            default:
+                rows.add("E, ,event " + i + ",10:00 Oct 18 2026,12:30 Oct 18 2026");
+                break;
+            }
+        }
+        Files.write(Paths.get("data", CSV_FILE_NAME), rows);
+        new JournalStorage(FILE_NAME).close();
+    }
+
+    private static void deleteFiles() throws IOException {
+        for (String name : new String[] {FILE_NAME, CSV_FILE_NAME}) {
+            Path path = Paths.get("data", name);
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(Paths.get(path + JournalStorage.JOURNAL_SUFFIX));
+            Files.deleteIfExists(TagDictionary.getPathFor(path));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package her.m35.benchmark;
+
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+import her.m35.TaskList;
+import her.m35.TimePoint;
+import her.m35.task.ColumnarTaskStore;
+import her.m35.task.DeadlineTask;
+import her.m35.task.EventTask;
+import her.m35.task.ObjectTaskStore;
+import her.m35.task.Task;
+import her.m35.task.TaskStore;
+import her.m35.task.ToDoTask;
+
+/**
+ * Compares the heap taken by a task list keeping task objects with the heap taken by a task list backed by a
+ * {@link ColumnarTaskStore}.
+ * Each store is measured on its own and again inside a task list, so that the heap taken by the indexes of the task
+ * list is reported separately from the heap taken by the tasks.
+ * Run with the number of tasks as the only argument, 1000000 by default, and a heap large enough for either.
+ */
+public class TaskFootprintBenchmark {
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Number of tasks.
+     */
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        report("task objects", ObjectTaskStore::new, taskCount);
+        report("columnar store", ColumnarTaskStore::new, taskCount);
+        ColumnarTaskStore store = new ColumnarTaskStore(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            store.add(createTask(i));
+        }
+        System.out.printf("columnar store arrays: %d bytes per task%n", store.getFootprintBytes() / taskCount);
+    }
+
+    /** Prints the heap taken by the tasks of a kind of store, and by the indexes of a task list backed by one. */
+    private static void report(String name, IntFunction<TaskStore> createStore, int taskCount) {
+        long storeBytes = measureStore(createStore, taskCount);
+        long taskListBytes = measureTaskList(createStore, taskCount);
+        long indexBytes = taskListBytes - storeBytes;
+        System.out.printf("%d tasks, %s: %d MB in all (%d bytes per task), tasks %d bytes per task, indexes %d bytes "
+                + "per task%n", taskCount, name, taskListBytes >> 20, taskListBytes / taskCount,
+                storeBytes / taskCount, indexBytes / taskCount);
+    }
+
+    /** Returns the heap taken by a store once it holds every task, without a task list. */
+    private static long measureStore(IntFunction<TaskStore> createStore, int taskCount) {
+        long baseline = getUsedHeap();
+        TaskStore store = createStore.apply(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            store.add(createTask(i));
+        }
+        long bytes = getUsedHeap() - baseline;
+        Reference.reachabilityFence(store);
+        return bytes;
+    }
+
+    /** Returns the heap taken by a task list backed by a store once it holds every task. */
+    private static long measureTaskList(IntFunction<TaskStore> createStore, int taskCount) {
+        long baseline = getUsedHeap();
+        TaskList taskList = new TaskList(createStore.apply(taskCount));
+        for (int i = 0; i < taskCount; i++) {
+            taskList.add(createTask(i));
+        }
+        long bytes = getUsedHeap() - baseline;
+        Reference.reachabilityFence(taskList);
+        return bytes;
+    }
+
+    private static Task createTask(int i) {
+        LocalDate day = LocalDate.of(2026, 10, 1);
+        switch (i % 3) {
+        case 0:
+            return new ToDoTask("task " + i, new String[] {"work"});
+        case 1:
+            return new DeadlineTask("deadline " + i, new TimePoint(day.plusDays(i % 28)),
+                    new String[] {"home", "fun"}, true);
+        default:
+            LocalDateTime start = day.plusDays(i % 28).atTime(10, 0);
+            return new EventTask("event " + i, new TimePoint(start), new TimePoint(start.plusMinutes(150)));
+        }
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,39 @@
+package her.m35.benchmark;
+
+import her.m35.TimePoint;
+import her.m35.parser.TimePointParser;
+
+/**
+ * Measures how many time strings {@link TimePointParser} parses per second, over a mix of the dates written to task
+ * files, dates typed by users, relative words and text which is not a date, along with the share of parses answered
+ * from the cache of parsed strings.
+ * Run with the number of parses per round as the only argument, 1000000 by default.
+ */
+public class TimePointParserBenchmark {
+    private static final String[] INPUTS = {
+        "Oct 18 2026", "18:00 Oct 20 2026", "9:30 Jan 5 2027", "Dec 31 2026", "20/10/2026", "2026-10-20",
+        "Oct 12", "12/12 6PM", "tomorrow", "next week", "fri 2pm", "after lunch", "someday", "2025 May 10 noon",
+    };
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Number of parses per round.
+     */
+    public static void main(String[] args) {
+        int parseCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        for (int round = 1; round <= 5; round++) {
+            TimePointParser.clearCache();
+            long checksum = 0;
+            long startTime = System.nanoTime();
+            for (int i = 0; i < parseCount; i++) {
+                TimePoint timePoint = TimePointParser.toTimePoint(INPUTS[i % INPUTS.length]);
+                checksum += timePoint.getFormat().ordinal();
+            }
+            long elapsedNanos = System.nanoTime() - startTime;
+            System.out.printf("Round %d: %.0f parses per second, %d cache hits, %d misses (checksum %d)%n",
+                    round, parseCount / (elapsedNanos / 1e9), TimePointParser.getCacheHits(),
+                    TimePointParser.getCacheMisses(), checksum);
+        }
+    }
+}